@@ -0,0 +1,186 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.service.AuditCompactor;
+import com.healthcare.service.AuditJournal;
+import com.healthcare.service.AuditSealer;
+import com.healthcare.service.AuditService;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Seals and indexes a year of audit history in small segments, then moves every sealed segment to the
+// archive. Reads, index searches, archive searches and seal verification must give the same answers as
+// before, also after a restart. Then applies a 200 day retention: the oldest archive files and index
+// buckets go, verification skips their records, and searches still agree with a full scan. Prints the
+// storage ratio and exits 1 on any mismatch.
+public final class AuditArchiveStress {
+
+    private static final int EVENTS_PER_DAY = 1000;
+    private static final int SEGMENT_SIZE = 256 * 1024;
+    private static final int USER_SEARCHES = 40;
+
+    private AuditArchiveStress() {
+        // Private constructor to hide implicit public one
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("audit-archive-stress");
+        AuditHistory history = AuditHistory.open(directory, "DAY", SEGMENT_SIZE);
+        AuditSealer sealer = AuditSealBenchmark.newSealer(history.journal, directory.resolve("seals"), true);
+        BenchmarkSupport.invoke(sealer, "start");
+        history.fill(EVENTS_PER_DAY, 7);
+        BenchmarkSupport.invoke(sealer, "stop");
+        List<String> before = records(history.journal, 0);
+        long segmentBytes = bytes(directory.resolve("journal"), "audit-*.seg");
+
+        int archived = 0;
+        long started = System.nanoTime();
+        while (history.journal.archiveOldest(Long.MAX_VALUE)) {
+            archived++;
+        }
+        history.journal.deleteRetiredSegments();
+        long archiveMillis = (System.nanoTime() - started) / 1_000_000;
+        Map<String, Object> stats = history.journal.archive().getStats();
+        long archiveBytes = bytes(directory.resolve("archive"), "*.arc");
+        System.out.printf("%d events, %d segments (%d KB) archived in %d ms to %d files (%d KB)%n", before.size(),
+            archived, segmentBytes / 1024, archiveMillis, stats.get("files"), archiveBytes / 1024);
+        System.out.printf("record bytes %d -> %d, %.1fx smaller, %s records kept whole%n", stats.get("sourceBytes"),
+            stats.get("bytes"), stats.get("compressionRatio"), stats.get("recordsKeptWhole"));
+
+        int failures = 0;
+        failures += checkRecords("archived", history.journal, before);
+        failures += AuditIndexStress.check(history, "archived");
+        failures += checkUserSearches("archived", history);
+        failures += checkSeals("archived", history.journal, directory, false);
+
+        history.close();
+        history = AuditHistory.open(directory, "DAY", SEGMENT_SIZE);
+        failures += checkRecords("restarted", history.journal, before);
+        failures += AuditIndexStress.check(history, "restarted");
+        failures += checkUserSearches("restarted", history);
+        failures += checkSeals("restarted", history.journal, directory, false);
+
+        // Nothing is newer than 90 days, so this pass only enforces retention
+        AuditCompactor compactor = new AuditCompactor();
+        BenchmarkSupport.inject(compactor, "journal", history.journal);
+        BenchmarkSupport.inject(compactor, "auditIndex", history.index);
+        BenchmarkSupport.inject(compactor, "afterDays", 90L);
+        BenchmarkSupport.inject(compactor, "retentionDays", 200L);
+        BenchmarkSupport.inject(compactor, "running", true);
+        BenchmarkSupport.invoke(compactor, "compact");
+        long firstHeld = history.journal.firstSequence();
+        System.out.printf("retention: %s archive files and %s index buckets deleted, first held record %d%n",
+            compactor.getStats().get("archivesDeleted"), compactor.getStats().get("indexBucketsDeleted"), firstHeld);
+        if (firstHeld <= 0) {
+            System.out.println("FAILED retention deleted nothing");
+            failures++;
+        }
+        failures += checkRecords("retained", history.journal, before.subList((int) firstHeld, before.size()));
+        failures += AuditIndexStress.check(history, "retained");
+        failures += checkUserSearches("retained", history);
+        failures += checkSeals("retained", history.journal, directory, true);
+        try {
+            history.journal.readAt(0, 0);
+            System.out.println("FAILED record 0 still readable after retention");
+            failures++;
+        } catch (IllegalArgumentException e) {
+            System.out.println("retained: record 0 is " + e.getMessage().replace("Audit record 0 is ", ""));
+        }
+        history.close();
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static int checkRecords(String label, AuditJournal journal, List<String> expected) throws Exception {
+        List<String> found = records(journal, 0);
+        boolean ok = found.equals(expected);
+        System.out.printf("%-16s %8d records read %s%n", label, found.size(), ok ? "ok" : "MISMATCH");
+        return ok ? 0 : 1;
+    }
+
+    // Archive search against a scan of the archived sequences for random users and time windows
+    private static int checkUserSearches(String label, AuditHistory history) throws Exception {
+        long archivedThrough = history.journal.archive().nextSequence();
+        List<AuditService.AuditEvent> archived = new ArrayList<>();
+        history.journal.scan(0, Integer.MAX_VALUE, (event, sequence, offset) -> {
+            if (sequence < archivedThrough) {
+                archived.add(event);
+            }
+        });
+        Random random = new Random(label.hashCode());
+        int mismatches = 0;
+        long nanos = 0;
+        long results = 0;
+        for (int i = 0; i < USER_SEARCHES; i++) {
+            String user = "user-" + random.nextInt(AuditHistory.USERS) + "@hospital.example";
+            LocalDateTime from = history.start.plusDays(random.nextInt(330));
+            long fromMicros = AuditService.AuditEvent.toMicros(from);
+            long toMicros = AuditService.AuditEvent.toMicros(from.plusDays(1 + random.nextInt(30)));
+            List<String> expected = new ArrayList<>();
+            for (AuditService.AuditEvent event : archived) {
+                if (user.equals(event.userId()) && event.occurredMicros() >= fromMicros && event.occurredMicros() <= toMicros) {
+                    expected.add(describe(event));
+                }
+            }
+            long started = System.nanoTime();
+            List<AuditService.AuditEvent> events = history.journal.archive().search(user, fromMicros, toMicros,
+                Integer.MAX_VALUE);
+            nanos += System.nanoTime() - started;
+            results += events.size();
+            List<String> found = new ArrayList<>();
+            for (AuditService.AuditEvent event : events) {
+                found.add(describe(event));
+            }
+            if (!found.equals(expected)) {
+                mismatches++;
+                System.out.printf("MISMATCH %s %s: expected %d, found %d%n", label, user, expected.size(), found.size());
+            }
+        }
+        System.out.printf("%-16s %8d archive searches %8d results %8.2f ms/search %s%n", label, USER_SEARCHES,
+            results, nanos / 1e6 / USER_SEARCHES, mismatches == 0 ? "ok" : mismatches + " mismatches");
+        return mismatches;
+    }
+
+    private static int checkSeals(String label, AuditJournal journal, Path directory, boolean pastRetention)
+            throws Exception {
+        AuditSealer sealer = AuditSealBenchmark.newSealer(journal, directory.resolve("seals"), true);
+        BenchmarkSupport.invoke(sealer, "start");
+        Map<String, Object> result = sealer.verify(0, journal.nextSequence() - 1);
+        BenchmarkSupport.invoke(sealer, "stop");
+        long purged = ((Number) result.getOrDefault("batchesPastRetention", 0L)).longValue();
+        boolean ok = Boolean.TRUE.equals(result.get("verified")) && Boolean.TRUE.equals(result.get("signed"))
+            && (purged > 0) == pastRetention;
+        System.out.printf("%-16s %8s batches verified %5d past retention %s%s%n", label, result.get("batchesChecked"),
+            purged, ok ? "ok" : "FAILED", ok ? "" : "  " + result);
+        return ok ? 0 : 1;
+    }
+
+    private static List<String> records(AuditJournal journal, long fromSequence) throws Exception {
+        List<String> records = new ArrayList<>();
+        journal.scan(fromSequence, Integer.MAX_VALUE, (event, sequence, offset) -> records.add(sequence + "|"
+            + describe(event)));
+        return records;
+    }
+
+    private static String describe(AuditService.AuditEvent event) {
+        return event.occurredMicros() + "|" + event.userId() + "|" + event.resource() + "|" + event.action() + "|"
+            + event.ipAddress() + "|" + event.outcome() + "|" + event.detail() + "|" + event.patientId();
+    }
+
+    private static long bytes(Path directory, String glob) throws Exception {
+        long bytes = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : files) {
+                bytes += Files.size(file);
+            }
+        }
+        return bytes;
+    }
+}
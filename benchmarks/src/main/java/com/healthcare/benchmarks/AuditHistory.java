@@ -0,0 +1,82 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.service.AuditIndex;
+import com.healthcare.service.AuditJournal;
+import com.healthcare.service.AuditService;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+
+// A year of synthetic audit history in a journal with its index, shared by the audit index checks.
+// Logins from a pool of users, and PHI access by those users to a pool of patients, spread evenly
+// over the days before now.
+final class AuditHistory {
+
+    static final int USERS = 500;
+    static final int PATIENTS = 2000;
+    static final String[] RESOURCES = {"LOGIN", "PHI_ACCESS", "QR_GENERATION", "CLINICAL_DOCUMENT"};
+
+    final AuditJournal journal;
+    final AuditIndex index;
+    final LocalDateTime start;
+
+    private AuditHistory(AuditJournal journal, AuditIndex index, LocalDateTime start) {
+        this.journal = journal;
+        this.index = index;
+        this.start = start;
+    }
+
+    static AuditHistory open(Path directory, String bucket) {
+        return open(directory, bucket, 64 * 1024 * 1024);
+    }
+
+    static AuditHistory open(Path directory, String bucket, int segmentSize) {
+        AuditJournal journal = new AuditJournal();
+        BenchmarkSupport.inject(journal, "journalPath", directory.resolve("journal").toString());
+        BenchmarkSupport.inject(journal, "archivePath", directory.resolve("archive").toString());
+        BenchmarkSupport.inject(journal, "archiveBlockRecords", 4096);
+        BenchmarkSupport.inject(journal, "segmentSize", segmentSize);
+        BenchmarkSupport.inject(journal, "durabilityWindowMillis", 1000L);
+        BenchmarkSupport.invoke(journal, "open");
+        AuditIndex index = new AuditIndex();
+        BenchmarkSupport.inject(index, "journal", journal);
+        BenchmarkSupport.inject(index, "indexPath", directory.resolve("index").toString());
+        BenchmarkSupport.inject(index, "bucketSize", AuditIndex.BucketSize.valueOf(bucket));
+        BenchmarkSupport.inject(index, "flushSeconds", 3600L);
+        BenchmarkSupport.invoke(index, "start");
+        return new AuditHistory(journal, index, LocalDateTime.now(ZoneOffset.UTC).minusDays(365));
+    }
+
+    // Appends events per day for a year, then writes the index out as its flush thread would
+    void fill(int eventsPerDay, long seed) {
+        Random random = new Random(seed);
+        long stepMillis = 86_400_000L / eventsPerDay;
+        for (int day = 0; day < 365; day++) {
+            LocalDateTime dayStart = start.plusDays(day);
+            for (int i = 0; i < eventsPerDay; i++) {
+                journal.append(event(random, dayStart.plusNanos((i * stepMillis) * 1_000_000)));
+            }
+        }
+        BenchmarkSupport.invoke(index, "flush");
+    }
+
+    static AuditService.AuditEvent event(Random random, LocalDateTime timestamp) {
+        String user = "user-" + random.nextInt(USERS) + "@hospital.example";
+        String resource = RESOURCES[random.nextInt(RESOURCES.length)];
+        if (resource.equals("PHI_ACCESS")) {
+            String patient = "patient-" + random.nextInt(PATIENTS);
+            return new AuditService.AuditEvent(user, resource, "VIEW_LABS", null, timestamp,
+                "Patient: " + patient + ", Purpose: treatment", patient);
+        }
+        return new AuditService.AuditEvent(user, resource, "SUCCESS", "10.0.0." + random.nextInt(200), timestamp,
+            "SUCCESS");
+    }
+
+    void close() throws IOException {
+        BenchmarkSupport.invoke(index, "stop");
+        BenchmarkSupport.invoke(journal, "close");
+    }
+}
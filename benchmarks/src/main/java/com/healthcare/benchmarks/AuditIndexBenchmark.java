@@ -0,0 +1,79 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.service.AuditIndex;
+import com.healthcare.service.AuditService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Compliance searches over a year of audit history, 5000 events a day. patientYear pages through
+// every access to one patient in the year; userFirstPage fetches the first 100 events of one user.
+// fullScan answers the patient search the only way possible without the index, by reading the journal.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditIndexBenchmark {
+
+    @Param({"DAY", "HOUR"})
+    private String bucket;
+
+    private Path directory;
+    private AuditHistory history;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("audit-index-bench");
+        history = AuditHistory.open(directory, bucket);
+        history.fill(5000, 7);
+        from = history.start;
+        to = LocalDateTime.now();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        history.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int patientYear() throws IOException {
+        int found = 0;
+        String cursor = null;
+        do {
+            AuditIndex.Page page = history.index.search(AuditIndex.Dimension.PATIENT, "patient-42", from, to, cursor, 100);
+            found += page.events().size();
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return found;
+    }
+
+    @Benchmark
+    public int userFirstPage() throws IOException {
+        return history.index.search(AuditIndex.Dimension.USER, "user-42@hospital.example", from, to, null, 100)
+            .events().size();
+    }
+
+    @Benchmark
+    public int fullScan() throws IOException {
+        int[] found = {0};
+        history.journal.read(0, Integer.MAX_VALUE, (AuditService.AuditEvent event) -> {
+            if ("patient-42".equals(event.patientId()) && !event.timestamp().isBefore(from) && !event.timestamp().isAfter(to)) {
+                found[0]++;
+            }
+        });
+        return found[0];
+    }
+}
@@ -0,0 +1,126 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.service.AuditIndex;
+import com.healthcare.service.AuditService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.Function;
+
+// Answers random user, patient and resource searches over a year of audit history through the index,
+// paging through every result, and checks each answer against a full scan of the journal. Repeats after
+// a restart, which must rebuild only from the checkpoint, and after late events land in old buckets.
+// Exits 1 on any mismatch.
+public final class AuditIndexStress {
+
+    private static final int EVENTS_PER_DAY = 2000;
+    private static final int SEARCHES = 60;
+
+    private AuditIndexStress() {
+        // Private constructor to hide implicit public one
+    }
+
+    public static void main(String[] args) throws Exception {
+        int mismatches = 0;
+        for (String bucket : new String[] {"DAY", "HOUR"}) {
+            Path directory = Files.createTempDirectory("audit-index-stress");
+            AuditHistory history = AuditHistory.open(directory, bucket);
+            history.fill(EVENTS_PER_DAY, 7);
+            mismatches += check(history, bucket + " fresh");
+
+            // Late events for old days, then a restart before they are flushed
+            Random random = new Random(11);
+            for (int i = 0; i < 500; i++) {
+                history.journal.append(AuditHistory.event(random, history.start.plusDays(random.nextInt(365))
+                    .plusMinutes(random.nextInt(1440))));
+            }
+            mismatches += check(history, bucket + " late events");
+            BenchmarkSupport.invoke(history.journal, "close");
+            history = AuditHistory.open(directory, bucket);
+            mismatches += check(history, bucket + " restarted");
+            history.close();
+        }
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    static int check(AuditHistory history, String label) throws Exception {
+        Random random = new Random(label.hashCode());
+        List<AuditService.AuditEvent> all = new ArrayList<>();
+        history.journal.read(0, Integer.MAX_VALUE, all::add);
+        int mismatches = 0;
+        long indexedNanos = 0;
+        long results = 0;
+        for (int i = 0; i < SEARCHES; i++) {
+            AuditIndex.Dimension dimension = AuditIndex.Dimension.values()[i % 3];
+            String key;
+            Function<AuditService.AuditEvent, String> field;
+            if (dimension == AuditIndex.Dimension.USER) {
+                key = "user-" + random.nextInt(AuditHistory.USERS) + "@hospital.example";
+                field = event -> event.userId();
+            } else if (dimension == AuditIndex.Dimension.PATIENT) {
+                key = "patient-" + random.nextInt(AuditHistory.PATIENTS);
+                field = event -> event.patientId();
+            } else {
+                key = AuditHistory.RESOURCES[random.nextInt(AuditHistory.RESOURCES.length)];
+                field = event -> event.resource();
+            }
+            LocalDateTime from = history.start.plusDays(random.nextInt(300)).plusMinutes(random.nextInt(1440));
+            LocalDateTime to = dimension == AuditIndex.Dimension.RESOURCE
+                ? from.plusDays(2) : from.plusDays(1 + random.nextInt(65));
+
+            List<AuditService.AuditEvent> expected = new ArrayList<>();
+            for (AuditService.AuditEvent event : all) {
+                if (key.equals(field.apply(event)) && !event.timestamp().isBefore(from) && !event.timestamp().isAfter(to)) {
+                    expected.add(event);
+                }
+            }
+            List<AuditService.AuditEvent> found = new ArrayList<>();
+            long started = System.nanoTime();
+            String cursor = null;
+            do {
+                AuditIndex.Page page = history.index.search(dimension, key, from, to, cursor, 37);
+                found.addAll(page.events());
+                cursor = page.nextCursor();
+            } while (cursor != null);
+            indexedNanos += System.nanoTime() - started;
+            results += found.size();
+            if (!sameEvents(expected, found)) {
+                mismatches++;
+                System.out.printf("MISMATCH %s %s %s: expected %d, found %d%n", label, dimension, key,
+                    expected.size(), found.size());
+            }
+        }
+        System.out.printf("%-16s %8d events %6d searches %8d results %8.2f ms/search %s%n", label, all.size(),
+            SEARCHES, results, indexedNanos / 1e6 / SEARCHES, mismatches == 0 ? "ok" : mismatches + " mismatches");
+        return mismatches;
+    }
+
+    // Same events regardless of order: buckets are visited in time order but late events sort last
+    private static boolean sameEvents(List<AuditService.AuditEvent> expected, List<AuditService.AuditEvent> found) {
+        if (expected.size() != found.size()) {
+            return false;
+        }
+        List<String> left = new ArrayList<>();
+        List<String> right = new ArrayList<>();
+        for (AuditService.AuditEvent event : expected) {
+            left.add(describe(event));
+        }
+        for (AuditService.AuditEvent event : found) {
+            right.add(describe(event));
+        }
+        left.sort(null);
+        right.sort(null);
+        return Objects.equals(left, right);
+    }
+
+    private static String describe(AuditService.AuditEvent event) {
+        return event.timestamp() + "|" + event.userId() + "|" + event.resource() + "|" + event.patientId() + "|" + event.status();
+    }
+}
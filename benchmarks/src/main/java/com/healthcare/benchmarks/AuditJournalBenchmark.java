@@ -0,0 +1,99 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.service.AuditJournal;
+import com.healthcare.service.AuditService;
+import com.healthcare.service.JdbcAuditEventSink;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Cost of making one audit event durable. journalAppend copies the record into a memory-mapped
+// segment (rollovers included, 4 MB segments); jdbcBatch is the per-event share of a 500-row JDBC
+// batch insert into an in-memory H2 table, the cheapest the database path gets.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuditJournalBenchmark {
+
+    private static final int JDBC_BATCH = 500;
+
+    private Path directory;
+    private AuditJournal journal;
+    private HikariDataSource dataSource;
+    private JdbcAuditEventSink jdbcSink;
+    private AuditService.AuditEvent event;
+    private List<AuditService.AuditEvent> batch;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        event = new AuditService.AuditEvent("user@example.com", "LOGIN", "SUCCESS", "10.0.0.1",
+            LocalDateTime.now(), "SUCCESS");
+        batch = new ArrayList<>();
+        for (int i = 0; i < JDBC_BATCH; i++) {
+            batch.add(event);
+        }
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:audit-journal-bench;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE audit_events (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "occurred_at TIMESTAMP NOT NULL, user_id VARCHAR(255), resource VARCHAR(255) NOT NULL, "
+            + "action VARCHAR(255) NOT NULL, ip_address VARCHAR(255), status VARCHAR(2048))");
+        jdbcSink = new JdbcAuditEventSink();
+        BenchmarkSupport.inject(jdbcSink, "jdbcTemplate", jdbcTemplate);
+        BenchmarkSupport.inject(jdbcSink, "transactionTemplate",
+            new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+    }
+
+    // A fresh journal per iteration keeps the disk footprint to one iteration's worth of records
+    @Setup(Level.Iteration)
+    public void setUpIteration() throws IOException {
+        directory = Files.createTempDirectory("audit-journal-bench");
+        journal = new AuditJournal();
+        BenchmarkSupport.inject(journal, "journalPath", directory.toString());
+        BenchmarkSupport.inject(journal, "archivePath", directory.resolve("archive").toString());
+        BenchmarkSupport.inject(journal, "archiveBlockRecords", 4096);
+        BenchmarkSupport.inject(journal, "segmentSize", 4 * 1024 * 1024);
+        BenchmarkSupport.inject(journal, "durabilityWindowMillis", 100L);
+        BenchmarkSupport.invoke(journal, "open");
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() throws IOException {
+        BenchmarkSupport.invoke(journal, "close");
+        new JdbcTemplate(dataSource).execute("DELETE FROM audit_events");
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public long journalAppend() {
+        return journal.append(event);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(JDBC_BATCH)
+    public void jdbcBatch() {
+        jdbcSink.write(batch);
+    }
+}
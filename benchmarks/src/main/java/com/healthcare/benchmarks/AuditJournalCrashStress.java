@@ -0,0 +1,112 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.service.AuditJournal;
+import com.healthcare.service.AuditService;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Kills a process with SIGKILL while it appends to the audit journal, then reopens the journal here.
+// Every append the child reported before it died must be readable, in order and intact, and new appends
+// must continue the sequence. Small segments make the kill land near rollovers too. Exits 1 on any loss.
+public final class AuditJournalCrashStress {
+
+    private static final int ROUNDS = 5;
+    private static final int SEGMENT_SIZE = 256 * 1024;
+
+    private AuditJournalCrashStress() {
+        // Private constructor to hide implicit public one
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals("child")) {
+            appendUntilKilled(args[1]);
+            return;
+        }
+        Path directory = Files.createTempDirectory("audit-journal-crash");
+        int failures = 0;
+        System.out.printf("%-6s %14s %14s %14s %8s%n", "round", "acknowledged", "recovered", "truncatedBytes", "ok");
+        for (int round = 1; round <= ROUNDS; round++) {
+            long acknowledged = runChild(directory, 300 + round * 170L);
+            AuditJournal journal = open(directory);
+            long recovered = journal.nextSequence();
+            long[] expected = {0};
+            boolean[] intact = {true};
+            journal.read(0, Integer.MAX_VALUE, event -> {
+                intact[0] &= ("FAILURE: event-" + expected[0]).equals(event.status());
+                expected[0]++;
+            });
+            boolean ok = intact[0] && expected[0] == recovered && recovered >= acknowledged;
+            ok &= journal.append(event(recovered)) == recovered;
+            BenchmarkSupport.invoke(journal, "close");
+            System.out.printf("%-6d %14d %14d %14s %8s%n", round, acknowledged, recovered,
+                journal.getStats().get("truncatedBytes"), ok);
+            if (!ok) {
+                failures++;
+            }
+        }
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Returns the highest count of appends the child confirmed before it was killed
+    private static long runChild(Path directory, long killAfterMillis) throws Exception {
+        Process child = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp", System.getProperty("java.class.path"), AuditJournalCrashStress.class.getName(), "child",
+            directory.toString()).redirectErrorStream(true).start();
+        long acknowledged = 0;
+        long deadline = 0;
+        try (BufferedReader lines = new BufferedReader(
+                new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.startsWith("appended ")) {
+                    acknowledged = Long.parseLong(line.substring("appended ".length()));
+                    if (deadline == 0) {
+                        deadline = System.currentTimeMillis() + killAfterMillis;
+                    }
+                }
+                if (deadline != 0 && System.currentTimeMillis() >= deadline) {
+                    child.destroyForcibly();
+                    break;
+                }
+            }
+        }
+        child.waitFor(10, TimeUnit.SECONDS);
+        return acknowledged;
+    }
+
+    private static void appendUntilKilled(String directory) {
+        AuditJournal journal = open(Path.of(directory));
+        long sequence = journal.nextSequence();
+        while (true) {
+            journal.append(event(sequence++));
+            if (sequence % 1000 == 0) {
+                System.out.println("appended " + sequence);
+                System.out.flush();
+            }
+        }
+    }
+
+    private static AuditJournal open(Path directory) {
+        AuditJournal journal = new AuditJournal();
+        BenchmarkSupport.inject(journal, "journalPath", directory.toString());
+        BenchmarkSupport.inject(journal, "archivePath", directory.resolve("archive").toString());
+        BenchmarkSupport.inject(journal, "archiveBlockRecords", 4096);
+        BenchmarkSupport.inject(journal, "segmentSize", SEGMENT_SIZE);
+        BenchmarkSupport.inject(journal, "durabilityWindowMillis", 50L);
+        BenchmarkSupport.invoke(journal, "open");
+        return journal;
+    }
+
+    private static AuditService.AuditEvent event(long sequence) {
+        return new AuditService.AuditEvent("user-" + (sequence % 97), "LOGIN", "FAILED", "10.0.0.1",
+            LocalDateTime.now(), "FAILURE: event-" + sequence);
+    }
+}
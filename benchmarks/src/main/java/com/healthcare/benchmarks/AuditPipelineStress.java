@@ -0,0 +1,110 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.service.AuditEventSink;
+import com.healthcare.service.AuditService;
+
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Publishers flood a small ring while the sink rejects a share of batches and is slow on the rest, so
+// both overflow policies, the spill file and its replay all get exercised. After stop, and a second
+// pipeline replaying what the first one left in the spill directory, every published event must have
+// reached the sink. Duplicates are allowed (replay is at least once); losses exit 1.
+public final class AuditPipelineStress {
+
+    private static final int THREADS = 4;
+    private static final int EVENTS_PER_THREAD = 50000;
+
+    private AuditPipelineStress() {
+        // Private constructor to hide implicit public one
+    }
+
+    public static void main(String[] args) throws Exception {
+        int failures = 0;
+        System.out.printf("%-8s %12s %12s %12s %12s %10s%n", "policy", "published", "received", "spilled",
+            "blocked", "lost");
+        for (AuditService.OverflowPolicy policy : AuditService.OverflowPolicy.values()) {
+            failures += run(policy);
+        }
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static int run(AuditService.OverflowPolicy policy) throws Exception {
+        String spillPath = Files.createTempDirectory("audit-stress").toString();
+        Set<String> received = ConcurrentHashMap.newKeySet();
+        AtomicLong calls = new AtomicLong();
+        AuditEventSink flaky = batch -> {
+            if (calls.incrementAndGet() % 5 == 0) {
+                throw new IllegalStateException("sink unavailable");
+            }
+            sleepMillis(2);
+            batch.forEach(event -> received.add(event.status()));
+        };
+
+        AuditService first = pipeline(flaky, policy, spillPath);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            new Thread(() -> {
+                for (int i = 0; i < EVENTS_PER_THREAD; i++) {
+                    first.logFailure("user-" + thread, "LOGIN", "FAILED", "10.0.0." + thread, thread + ":" + i);
+                    if (ThreadLocalRandom.current().nextInt(1000) == 0) {
+                        Thread.yield();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        BenchmarkSupport.invoke(first, "stop");
+        Object spilled = first.getMetrics().get("spilled");
+        Object blocked = first.getMetrics().get("blockedPublishes");
+
+        // A restarted pipeline replays whatever the first one left behind
+        AuditService second = pipeline(batch -> batch.forEach(event -> received.add(event.status())), policy, spillPath);
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (((Number) second.getMetrics().get("spillFiles")).intValue() > 0 && System.currentTimeMillis() < deadline) {
+            sleepMillis(50);
+        }
+        BenchmarkSupport.invoke(second, "stop");
+
+        int published = THREADS * EVENTS_PER_THREAD;
+        int lost = 0;
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 0; i < EVENTS_PER_THREAD; i++) {
+                if (!received.contains("FAILURE: " + t + ":" + i)) {
+                    lost++;
+                }
+            }
+        }
+        System.out.printf("%-8s %12d %12d %12s %12s %10d%n", policy, published, received.size(), spilled, blocked, lost);
+        return lost;
+    }
+
+    private static AuditService pipeline(AuditEventSink sink, AuditService.OverflowPolicy policy, String spillPath) {
+        AuditService service = new AuditService();
+        BenchmarkSupport.inject(service, "sink", sink);
+        BenchmarkSupport.inject(service, "capacity", 1024);
+        BenchmarkSupport.inject(service, "batchSize", 256);
+        BenchmarkSupport.inject(service, "flushMillis", 20L);
+        BenchmarkSupport.inject(service, "overflowPolicy", policy);
+        BenchmarkSupport.inject(service, "spillPath", spillPath);
+        BenchmarkSupport.inject(service, "shutdownMillis", 30000L);
+        BenchmarkSupport.invoke(service, "start");
+        return service;
+    }
+
+    private static void sleepMillis(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.service.AuditEventSink;
+import com.healthcare.service.AuditService;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+// What a login or QR request pays to record one audit event, with four threads publishing at once.
+// unboundedQueue is the previous AuditService: an offer onto a ConcurrentLinkedQueue, drained here in the
+// background so the heap stays flat. ringBuffer is the batched pipeline with a sink that discards batches.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AuditPublishBenchmark {
+
+    private AuditService auditService;
+    private ConcurrentLinkedQueue<AuditService.AuditEvent> queue;
+    private Thread drainer;
+    private volatile boolean draining;
+
+    @Setup
+    public void setUp() throws Exception {
+        AuditEventSink discard = batch -> { };
+        auditService = new AuditService();
+        BenchmarkSupport.inject(auditService, "sink", discard);
+        BenchmarkSupport.inject(auditService, "capacity", 65536);
+        BenchmarkSupport.inject(auditService, "batchSize", 500);
+        BenchmarkSupport.inject(auditService, "flushMillis", 200L);
+        BenchmarkSupport.inject(auditService, "overflowPolicy", AuditService.OverflowPolicy.BLOCK);
+        BenchmarkSupport.inject(auditService, "spillPath",
+            Files.createTempDirectory("audit-spill-bench").toString());
+        BenchmarkSupport.inject(auditService, "shutdownMillis", 30000L);
+        BenchmarkSupport.invoke(auditService, "start");
+
+        queue = new ConcurrentLinkedQueue<>();
+        draining = true;
+        drainer = new Thread(() -> {
+            while (draining) {
+                if (queue.poll() == null) {
+                    Thread.onSpinWait();
+                }
+            }
+        }, "audit-queue-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        BenchmarkSupport.invoke(auditService, "stop");
+        draining = false;
+        drainer.join();
+    }
+
+    @Benchmark
+    public boolean unboundedQueue() {
+        return queue.offer(new AuditService.AuditEvent("user@example.com", "LOGIN", "SUCCESS", "10.0.0.1",
+            LocalDateTime.now(), "SUCCESS"));
+    }
+
+    @Benchmark
+    public void ringBuffer() {
+        auditService.logAccess("user@example.com", "LOGIN", "SUCCESS", "10.0.0.1");
+    }
+}
@@ -0,0 +1,91 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.service.AuditJournal;
+import com.healthcare.service.AuditService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Everything one audit event costs, from the request thread's log call through the ring buffer to the
+// writer encoding it into the journal. Run with -prof gc: gc.alloc.rate.norm counts the writer thread's
+// allocations too, so it is the garbage each event leaves behind. User IDs and IPs come from a small
+// pool, as they do in production, where the same accounts and hosts log in again and again.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuditRecordBenchmark {
+
+    private static final int POOL = 64;
+
+    private Path directory;
+    private AuditJournal journal;
+    private AuditService auditService;
+    private String[] users;
+    private String[] ips;
+    private String[] patients;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        users = new String[POOL];
+        ips = new String[POOL];
+        patients = new String[POOL];
+        for (int i = 0; i < POOL; i++) {
+            users[i] = "user" + i + "@example.com";
+            ips[i] = "10.0." + (i / 8) + "." + (i % 8);
+            patients[i] = "patient-" + i;
+        }
+        directory = Files.createTempDirectory("audit-record-bench");
+        journal = new AuditJournal();
+        BenchmarkSupport.inject(journal, "journalPath", directory.resolve("journal").toString());
+        BenchmarkSupport.inject(journal, "archivePath", directory.resolve("archive").toString());
+        BenchmarkSupport.inject(journal, "archiveBlockRecords", 4096);
+        BenchmarkSupport.inject(journal, "segmentSize", 16 * 1024 * 1024);
+        BenchmarkSupport.inject(journal, "durabilityWindowMillis", 100L);
+        BenchmarkSupport.invoke(journal, "open");
+        auditService = new AuditService();
+        BenchmarkSupport.inject(auditService, "sink", journal);
+        BenchmarkSupport.inject(auditService, "capacity", 65536);
+        BenchmarkSupport.inject(auditService, "batchSize", 500);
+        BenchmarkSupport.inject(auditService, "flushMillis", 200L);
+        BenchmarkSupport.inject(auditService, "overflowPolicy", AuditService.OverflowPolicy.BLOCK);
+        BenchmarkSupport.inject(auditService, "spillPath", directory.resolve("spill").toString());
+        BenchmarkSupport.inject(auditService, "shutdownMillis", 30000L);
+        BenchmarkSupport.invoke(auditService, "start");
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        BenchmarkSupport.invoke(auditService, "stop");
+        BenchmarkSupport.invoke(journal, "close");
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void logAccess() {
+        int i = next++ & (POOL - 1);
+        auditService.logAccess(users[i], "LOGIN", "SUCCESS", ips[i]);
+    }
+
+    @Benchmark
+    public void logFailure() {
+        int i = next++ & (POOL - 1);
+        auditService.logFailure(users[i], "LOGIN", "FAILED", ips[i], "Invalid credentials");
+    }
+
+    @Benchmark
+    public void logDataAccess() {
+        int i = next++ & (POOL - 1);
+        auditService.logDataAccess(users[i], patients[i], "QR_GENERATION", "TREATMENT");
+    }
+}
@@ -0,0 +1,84 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.service.AuditJournal;
+import com.healthcare.service.AuditSealer;
+import com.healthcare.service.AuditService;
+import com.healthcare.util.EncryptionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Journal append throughput with the sealer hashing and signing behind it, against the journal alone.
+// The sealer runs on its own thread, so on a multi-core host sealing=true should stay within a few
+// percent of sealing=false; on a single core the two share the CPU and the gap is the sealer's own cost.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuditSealBenchmark {
+
+    @Param({"false", "true"})
+    public boolean sealing;
+
+    private Path directory;
+    private AuditJournal journal;
+    private AuditSealer sealer;
+    private AuditService.AuditEvent event;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        event = new AuditService.AuditEvent("user@example.com", "PHI_ACCESS", "VIEW_LABS", "10.0.0.1",
+            LocalDateTime.now(), "Patient: P-1042, Purpose: TREATMENT", "P-1042");
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() throws IOException {
+        directory = Files.createTempDirectory("audit-seal-bench");
+        journal = new AuditJournal();
+        BenchmarkSupport.inject(journal, "journalPath", directory.resolve("journal").toString());
+        BenchmarkSupport.inject(journal, "archivePath", directory.resolve("archive").toString());
+        BenchmarkSupport.inject(journal, "archiveBlockRecords", 4096);
+        BenchmarkSupport.inject(journal, "segmentSize", 4 * 1024 * 1024);
+        BenchmarkSupport.inject(journal, "durabilityWindowMillis", 100L);
+        BenchmarkSupport.invoke(journal, "open");
+        sealer = newSealer(journal, directory.resolve("seals"), sealing);
+        BenchmarkSupport.invoke(sealer, "start");
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() throws IOException {
+        BenchmarkSupport.invoke(sealer, "stop");
+        BenchmarkSupport.invoke(journal, "close");
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long journalAppend() {
+        return journal.append(event);
+    }
+
+    static AuditSealer newSealer(AuditJournal journal, Path path, boolean enabled) {
+        EncryptionService encryptionService = new EncryptionService();
+        BenchmarkSupport.inject(encryptionService, "encryptionKeyBase64", BenchmarkSupport.TEST_ENCRYPTION_KEY);
+        BenchmarkSupport.inject(encryptionService, "algorithm", "AES/GCM/NoPadding");
+        AuditSealer sealer = new AuditSealer();
+        BenchmarkSupport.inject(sealer, "journal", journal);
+        BenchmarkSupport.inject(sealer, "encryptionService", encryptionService);
+        BenchmarkSupport.inject(sealer, "enabled", enabled);
+        BenchmarkSupport.inject(sealer, "sealPath", path.toString());
+        BenchmarkSupport.inject(sealer, "intervalMillis", 200L);
+        BenchmarkSupport.inject(sealer, "maxBatch", 4096);
+        BenchmarkSupport.inject(sealer, "signIntervalSeconds", 1L);
+        return sealer;
+    }
+}
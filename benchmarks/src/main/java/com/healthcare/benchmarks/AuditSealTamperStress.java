@@ -0,0 +1,154 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.service.AuditJournal;
+import com.healthcare.service.AuditSealer;
+import com.healthcare.service.AuditService;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Seals a journal of EVENTS records, then edits it behind the sealer's back one way at a time: a byte
+// of a stored record, a seal's Merkle root, a seal's chain hash, a signature. Each edit must fail
+// verification of the ranges it touches while ranges it does not touch still verify. Exits 1 otherwise.
+public final class AuditSealTamperStress {
+
+    private static final int EVENTS = 20_000;
+    private static final int SEAL_LENGTH = 88;
+    private static final int SIGNATURE_LENGTH = 112;
+
+    private AuditSealTamperStress() {
+        // Private constructor to hide implicit public one
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("audit-seal-tamper");
+        Path journalPath = directory.resolve("journal");
+        Path sealPath = directory.resolve("seals");
+        long seals = seal(journalPath, sealPath);
+
+        // A record in the first segment, which recovery leaves alone, and one far from it
+        long target = 1234;
+        long[] location = locate(journalPath, sealPath, target);
+        Path segment = segmentFile(journalPath, target);
+        long untouched = EVENTS - 10;
+        int failures = 0;
+        System.out.printf("seals %d, tampered record %d in %s at offset %d%n", seals, target,
+            segment.getFileName(), location[1]);
+        System.out.printf("%-18s %-22s %10s %10s %8s%n", "case", "range", "expected", "verified", "ok");
+
+        failures += check("untampered", journalPath, sealPath, 0, EVENTS - 1, true);
+        byte original = flip(segment, location[1] + AuditJournal.RECORD_OVERHEAD + 5, null);
+        failures += check("record byte", journalPath, sealPath, target, target, false);
+        failures += check("record byte", journalPath, sealPath, 0, EVENTS - 1, false);
+        failures += check("record byte", journalPath, sealPath, untouched, untouched, true);
+        flip(segment, location[1] + AuditJournal.RECORD_OVERHEAD + 5, original);
+        failures += check("record restored", journalPath, sealPath, target, target, true);
+
+        Path sealLog = sealPath.resolve("seals.log");
+        original = flip(sealLog, location[0] * SEAL_LENGTH + 20, null);
+        failures += check("seal root", journalPath, sealPath, target, target, false);
+        failures += check("seal root", journalPath, sealPath, untouched, untouched, true);
+        flip(sealLog, location[0] * SEAL_LENGTH + 20, original);
+
+        // A broken link after the checked range still breaks the chain to the signature
+        original = flip(sealLog, (seals - 2) * SEAL_LENGTH + 50, null);
+        failures += check("seal chain", journalPath, sealPath, 0, 0, false);
+        flip(sealLog, (seals - 2) * SEAL_LENGTH + 50, original);
+
+        Path signatureLog = sealPath.resolve("signatures.log");
+        long signatures = Files.size(signatureLog) / SIGNATURE_LENGTH;
+        original = flip(signatureLog, (signatures - 1) * SIGNATURE_LENGTH + 60, null);
+        failures += check("signature", journalPath, sealPath, untouched, untouched, false);
+        flip(signatureLog, (signatures - 1) * SIGNATURE_LENGTH + 60, original);
+        failures += check("all restored", journalPath, sealPath, 0, EVENTS - 1, true);
+
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Appends EVENTS records and stops the sealer, which seals and signs everything on the way out
+    private static long seal(Path journalPath, Path sealPath) {
+        AuditJournal journal = openJournal(journalPath);
+        AuditSealer sealer = AuditSealBenchmark.newSealer(journal, sealPath, true);
+        BenchmarkSupport.invoke(sealer, "start");
+        LocalDateTime start = LocalDateTime.now();
+        for (int i = 0; i < EVENTS; i++) {
+            journal.write(List.of(new AuditService.AuditEvent("user-" + (i % 97), "PHI_ACCESS", "VIEW_LABS",
+                "10.0.0." + (i % 250), start.plusSeconds(i), "event-" + i, "P-" + (i % 1009))));
+        }
+        BenchmarkSupport.invoke(sealer, "stop");
+        long seals = ((Number) sealer.getStats().get("seals")).longValue();
+        BenchmarkSupport.invoke(journal, "close");
+        return seals;
+    }
+
+    // Seal index and segment offset of a record
+    private static long[] locate(Path journalPath, Path sealPath, long sequence) throws IOException {
+        AuditJournal journal = openJournal(journalPath);
+        long[] location = new long[2];
+        journal.scan(sequence, 1, (event, found, offset) -> location[1] = offset);
+        BenchmarkSupport.invoke(journal, "close");
+        try (RandomAccessFile seals = new RandomAccessFile(sealPath.resolve("seals.log").toFile(), "r")) {
+            while (true) {
+                seals.seek(location[0] * SEAL_LENGTH + 8);
+                if (seals.readLong() >= sequence) {
+                    return location;
+                }
+                location[0]++;
+            }
+        }
+    }
+
+    private static Path segmentFile(Path journalPath, long sequence) throws IOException {
+        try (Stream<Path> files = Files.list(journalPath)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg"))
+                .filter(file -> Long.parseLong(file.getFileName().toString().replaceAll("\\D", "")) <= sequence)
+                .max(Path::compareTo).orElseThrow();
+        }
+    }
+
+    // Inverts the byte at position, or writes back the given one; returns what was there
+    private static byte flip(Path file, long position, Byte restore) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(position);
+            byte current = raf.readByte();
+            raf.seek(position);
+            raf.writeByte(restore != null ? restore : ~current);
+            return current;
+        }
+    }
+
+    private static int check(String name, Path journalPath, Path sealPath, long from, long to, boolean expected)
+            throws IOException {
+        AuditJournal journal = openJournal(journalPath);
+        AuditSealer sealer = AuditSealBenchmark.newSealer(journal, sealPath, true);
+        BenchmarkSupport.invoke(sealer, "start");
+        Map<String, Object> result = sealer.verify(from, to);
+        BenchmarkSupport.invoke(sealer, "stop");
+        BenchmarkSupport.invoke(journal, "close");
+        boolean verified = Boolean.TRUE.equals(result.get("verified"))
+            && (!expected || Boolean.TRUE.equals(result.get("signed")));
+        boolean ok = verified == expected;
+        System.out.printf("%-18s %-22s %10s %10s %8s%s%n", name, from + "-" + to, expected, verified, ok,
+            verified ? "" : "  " + result.get("message"));
+        return ok ? 0 : 1;
+    }
+
+    private static AuditJournal openJournal(Path journalPath) {
+        AuditJournal journal = new AuditJournal();
+        BenchmarkSupport.inject(journal, "journalPath", journalPath.toString());
+        BenchmarkSupport.inject(journal, "archivePath", journalPath.resolveSibling("archive").toString());
+        BenchmarkSupport.inject(journal, "archiveBlockRecords", 4096);
+        BenchmarkSupport.inject(journal, "segmentSize", 256 * 1024);
+        BenchmarkSupport.inject(journal, "durabilityWindowMillis", 100L);
+        BenchmarkSupport.invoke(journal, "open");
+        return journal;
+    }
+}
@@ -0,0 +1,39 @@
+package com.healthcare.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the benchmarks (all of them, or those matching the usual JMH arguments) and writes the
+ * results as JSON to {@code results/<label>.json}, where the label comes from {@code -Dbench.label}
+ * and defaults to the application version. Compare two runs with {@link BenchmarkCompare}.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+        // Private constructor to hide implicit public one
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        String label = System.getProperty("bench.label", "3.0.0");
+        File results = new File("results", label + ".json");
+        if (results.getParentFile() != null) {
+            results.getParentFile().mkdirs();
+        }
+
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .resultFormat(ResultFormatType.JSON)
+            .result(results.getPath())
+            .build();
+        new Runner(options).run();
+        System.out.println("Results written to " + results.getAbsolutePath());
+    }
+}
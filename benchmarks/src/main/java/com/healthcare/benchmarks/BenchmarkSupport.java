@@ -0,0 +1,46 @@
+package com.healthcare.benchmarks;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+// Wires Spring beans by hand so benchmarks run without an application context
+final class BenchmarkSupport {
+
+    // 32 zero bytes; benchmarks only need a well-formed AES-256 key
+    static final String TEST_ENCRYPTION_KEY = "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA=";
+
+    private BenchmarkSupport() {
+        // Private constructor to hide implicit public one
+    }
+
+    static void inject(Object target, String fieldName, Object value) {
+        Class<?> type = target.getClass();
+        while (type != null) {
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot set " + fieldName, e);
+            }
+        }
+        throw new IllegalArgumentException("No field " + fieldName + " on " + target.getClass().getName());
+    }
+
+    // Calls a lifecycle method such as a @PostConstruct hook
+    static void invoke(Object target, String methodName) {
+        try {
+            Method method = target.getClass().getDeclaredMethod(methodName);
+            method.setAccessible(true);
+            method.invoke(target);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Cannot call " + methodName, e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(methodName + " failed", e.getCause());
+        }
+    }
+}
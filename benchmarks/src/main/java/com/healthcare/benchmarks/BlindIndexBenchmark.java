@@ -0,0 +1,111 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.util.BlindIndexService;
+import com.healthcare.util.EncryptedString;
+import com.healthcare.util.EncryptionConverter;
+import com.healthcare.util.EncryptionService;
+import com.healthcare.util.FieldDecryptCache;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+// Finding one patient by email in an H2 table of encrypted rows. blindIndexLookup hashes the email and
+// reads the matching row through the email_bidx index, decrypting only that candidate. fullScan is the
+// only option without a blind index: decrypt every email until one matches. The target sits halfway down.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlindIndexBenchmark {
+
+    @Param({"1000", "10000"})
+    private int patients;
+
+    private HikariDataSource dataSource;
+    private EncryptionConverter converter;
+    private BlindIndexService blindIndexService;
+    private String target;
+
+    @Setup
+    public void setUp() {
+        EncryptionService encryptionService = new EncryptionService();
+        BenchmarkSupport.inject(encryptionService, "encryptionKeyBase64", BenchmarkSupport.TEST_ENCRYPTION_KEY);
+        BenchmarkSupport.inject(encryptionService, "algorithm", "AES/GCM/NoPadding");
+        FieldDecryptCache cache = new FieldDecryptCache();
+        converter = new EncryptionConverter();
+        BenchmarkSupport.inject(converter, "encryptionService", encryptionService);
+        BenchmarkSupport.inject(converter, "fieldDecryptCache", cache);
+        blindIndexService = new BlindIndexService();
+        BenchmarkSupport.inject(blindIndexService, "encryptionKeyBase64", BenchmarkSupport.TEST_ENCRYPTION_KEY);
+        BenchmarkSupport.inject(blindIndexService, "version", 1);
+        BenchmarkSupport.inject(blindIndexService, "emailPrefixLength", 3);
+
+        target = email(patients / 2);
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:blind-index-" + patients + ";DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(4);
+        try (Connection connection = dataSource.getConnection();
+             Statement ddl = connection.createStatement()) {
+            ddl.execute("CREATE TABLE patients (id VARCHAR(255) PRIMARY KEY, email TEXT NOT NULL, email_bidx VARCHAR(32))");
+            ddl.execute("CREATE UNIQUE INDEX idx_patients_email_bidx ON patients(email_bidx)");
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO patients VALUES (?, ?, ?)")) {
+                for (int i = 0; i < patients; i++) {
+                    insert.setString(1, String.format("patient-%06d", i));
+                    insert.setString(2, converter.convertToDatabaseColumn(EncryptedString.of(email(i))));
+                    insert.setString(3, blindIndexService.index(BlindIndexService.Field.EMAIL, email(i)));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Patient setup failed", e);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public String blindIndexLookup() throws SQLException {
+        String index = blindIndexService.index(BlindIndexService.Field.EMAIL, target);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "SELECT id, email FROM patients WHERE email_bidx = ?")) {
+            statement.setString(1, index);
+            return firstMatch(statement);
+        }
+    }
+
+    @Benchmark
+    public String fullScan() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT id, email FROM patients ORDER BY id")) {
+            return firstMatch(statement);
+        }
+    }
+
+    private String firstMatch(PreparedStatement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                if (converter.convertToEntityAttribute(resultSet.getString(2)).get().equals(target)) {
+                    return resultSet.getString(1);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String email(int i) {
+        return "patient" + i + "@example.com";
+    }
+}
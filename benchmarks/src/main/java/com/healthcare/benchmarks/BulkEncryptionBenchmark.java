@@ -0,0 +1,110 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.util.EncryptionService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// One export batch of PHI fields, through the String API and through the batch ByteBuffer API with
+// records packed into one reused direct buffer. Run with -prof gc to see the allocation difference.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkEncryptionBenchmark {
+
+    private static final byte[] AAD = "patients.ssn".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"1000"})
+    private int fields;
+
+    private EncryptionService encryptionService;
+    private String[] plaintextStrings;
+    private String[] ciphertextStrings;
+    private ByteBuffer[] plaintexts;
+    private ByteBuffer[] packedOutputs;
+    private ByteBuffer packed;
+    private ByteBuffer[] records;
+    private ByteBuffer[] plainOutputs;
+    private ByteBuffer plain;
+
+    @Setup
+    public void setUp() {
+        encryptionService = new EncryptionService();
+        BenchmarkSupport.inject(encryptionService, "encryptionKeyBase64", BenchmarkSupport.TEST_ENCRYPTION_KEY);
+        BenchmarkSupport.inject(encryptionService, "algorithm", "AES/GCM/NoPadding");
+
+        plaintextStrings = new String[fields];
+        ciphertextStrings = new String[fields];
+        plaintexts = new ByteBuffer[fields];
+        int packedLength = 0;
+        int plainLength = 0;
+        for (int i = 0; i < fields; i++) {
+            plaintextStrings[i] = String.format("%03d-%02d-%04d", i % 1000, i % 100, i);
+            ciphertextStrings[i] = encryptionService.encrypt(plaintextStrings[i]);
+            plaintexts[i] = ByteBuffer.allocateDirect(plaintextStrings[i].length())
+                .put(plaintextStrings[i].getBytes(StandardCharsets.UTF_8)).flip();
+            packedLength += encryptionService.encryptedLength(plaintexts[i].remaining());
+            plainLength += plaintexts[i].remaining();
+        }
+        packed = ByteBuffer.allocateDirect(packedLength);
+        plain = ByteBuffer.allocateDirect(plainLength);
+        packedOutputs = new ByteBuffer[fields];
+        plainOutputs = new ByteBuffer[fields];
+        Arrays.fill(packedOutputs, packed);
+        Arrays.fill(plainOutputs, plain);
+
+        // Slice the packed batch into records for the decrypt side, and check the round trip once
+        int[] lengths = batchEncrypt();
+        records = new ByteBuffer[fields];
+        int offset = 0;
+        for (int i = 0; i < fields; i++) {
+            records[i] = packed.slice(offset, lengths[i]);
+            offset += lengths[i];
+        }
+        batchDecrypt();
+        byte[] decrypted = new byte[plainLength];
+        plain.flip().get(decrypted);
+        if (!new String(decrypted, StandardCharsets.UTF_8).equals(String.join("", plaintextStrings))) {
+            throw new IllegalStateException("Batch round trip failed");
+        }
+    }
+
+    @Benchmark
+    public void stringEncrypt(Blackhole blackhole) {
+        for (String plaintext : plaintextStrings) {
+            blackhole.consume(encryptionService.encrypt(plaintext));
+        }
+    }
+
+    @Benchmark
+    public int[] batchEncrypt() {
+        for (ByteBuffer plaintext : plaintexts) {
+            plaintext.rewind();
+        }
+        packed.clear();
+        return encryptionService.encryptAll(plaintexts, AAD, packedOutputs);
+    }
+
+    @Benchmark
+    public void stringDecrypt(Blackhole blackhole) {
+        for (String ciphertext : ciphertextStrings) {
+            blackhole.consume(encryptionService.decrypt(ciphertext));
+        }
+    }
+
+    @Benchmark
+    public int[] batchDecrypt() {
+        for (ByteBuffer record : records) {
+            record.rewind();
+        }
+        plain.clear();
+        return encryptionService.decryptAll(records, AAD, plainOutputs);
+    }
+}
@@ -0,0 +1,37 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.clinical.CardiacRiskCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardiacRiskCalculatorBenchmark {
+
+    @Param({"low", "borderline", "high"})
+    private String profile;
+
+    private CardiacRiskCalculator calculator;
+    private CardiacRiskCalculator.RiskFactors factors;
+
+    @Setup
+    public void setUp() {
+        calculator = new CardiacRiskCalculator();
+        factors = switch (profile) {
+            case "low" -> new CardiacRiskCalculator.RiskFactors(42, false, 170, 60, 112, false, false, false);
+            case "borderline" -> new CardiacRiskCalculator.RiskFactors(55, true, 213, 50, 130, false, false, false);
+            case "high" -> new CardiacRiskCalculator.RiskFactors(68, true, 260, 35, 160, true, true, true);
+            default -> throw new IllegalArgumentException("Unknown profile: " + profile);
+        };
+    }
+
+    @Benchmark
+    public CardiacRiskCalculator.RiskResult calculateASCVDRisk() {
+        return calculator.calculateASCVDRisk(factors);
+    }
+}
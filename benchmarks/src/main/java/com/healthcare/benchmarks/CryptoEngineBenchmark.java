@@ -0,0 +1,114 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.util.CryptoEngine;
+import com.healthcare.util.EncryptionService;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+// Throughput of EncryptionService before and after CryptoEngine. Run with -t 1 and -t <cores>:
+// the engine keeps no shared mutable state on the hot path, so ops/us should grow with threads.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptoEngineBenchmark {
+
+    @Param({"16", "256", "4096"})
+    private int plaintextLength;
+
+    private EncryptionService encryptionService;
+    private CryptoEngine engine;
+    private byte[] plaintext;
+    private byte[] legacyCiphertext;
+    private byte[] engineCiphertext;
+
+    // Caller-owned output, reused across calls by each benchmark thread
+    @State(Scope.Thread)
+    public static class OutputBuffer {
+        private byte[] bytes;
+
+        @Setup
+        public void setUp(CryptoEngineBenchmark benchmark) {
+            bytes = new byte[CryptoEngine.encryptedLength(benchmark.plaintextLength)];
+        }
+    }
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        encryptionService = new EncryptionService();
+        BenchmarkSupport.inject(encryptionService, "encryptionKeyBase64", BenchmarkSupport.TEST_ENCRYPTION_KEY);
+        BenchmarkSupport.inject(encryptionService, "algorithm", "AES/GCM/NoPadding");
+        engine = new CryptoEngine(Legacy.secretKey(), "AES/GCM/NoPadding");
+        plaintext = "123-45-6789 ".repeat(plaintextLength / 12 + 1).substring(0, plaintextLength)
+            .getBytes(StandardCharsets.UTF_8);
+        legacyCiphertext = Legacy.encrypt(plaintext);
+        engineCiphertext = encryptionService.encrypt(plaintext, null);
+    }
+
+    @Benchmark
+    public byte[] legacyEncrypt() throws GeneralSecurityException {
+        return Legacy.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public byte[] engineEncrypt() {
+        return encryptionService.encrypt(plaintext, null);
+    }
+
+    @Benchmark
+    public byte[] engineEncryptIntoBuffer(OutputBuffer output) throws GeneralSecurityException {
+        engine.encrypt(plaintext, 0, plaintext.length, null, output.bytes, 0);
+        return output.bytes;
+    }
+
+    @Benchmark
+    public byte[] legacyDecrypt() throws GeneralSecurityException {
+        return Legacy.decrypt(legacyCiphertext);
+    }
+
+    @Benchmark
+    public byte[] engineDecrypt() {
+        return encryptionService.decrypt(engineCiphertext, null);
+    }
+
+    // EncryptionService as it was before CryptoEngine: key, Cipher and SecureRandom built per call
+    private static final class Legacy {
+
+        private Legacy() {
+            // Private constructor to hide implicit public one
+        }
+
+        static SecretKey secretKey() {
+            return new SecretKeySpec(Base64.getDecoder().decode(BenchmarkSupport.TEST_ENCRYPTION_KEY), "AES");
+        }
+
+        static byte[] encrypt(byte[] plaintext) throws GeneralSecurityException {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            byte[] iv = new byte[CryptoEngine.IV_LENGTH];
+            SecureRandom.getInstanceStrong().nextBytes(iv);
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey(), new GCMParameterSpec(CryptoEngine.TAG_LENGTH * 8, iv));
+            byte[] encryptedWithIv = new byte[iv.length + cipher.getOutputSize(plaintext.length)];
+            System.arraycopy(iv, 0, encryptedWithIv, 0, iv.length);
+            cipher.doFinal(plaintext, 0, plaintext.length, encryptedWithIv, iv.length);
+            return encryptedWithIv;
+        }
+
+        static byte[] decrypt(byte[] encryptedWithIv) throws GeneralSecurityException {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, secretKey(),
+                new GCMParameterSpec(CryptoEngine.TAG_LENGTH * 8, encryptedWithIv, 0, CryptoEngine.IV_LENGTH));
+            return cipher.doFinal(encryptedWithIv, CryptoEngine.IV_LENGTH, encryptedWithIv.length - CryptoEngine.IV_LENGTH);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.clinical.DrugInteractionChecker;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DrugInteractionCheckerBenchmark {
+
+    private static final String[] MEDICATIONS = {
+        "Warfarin", "Aspirin", "Metformin", "Lisinopril", "Simvastatin", "Amiodarone", "Digoxin", "Verapamil",
+        "Atorvastatin", "Omeprazole", "Levothyroxine", "Amlodipine", "Ibuprofen", "Clarithromycin", "Quinidine"
+    };
+
+    // A typical list, a polypharmacy patient, and a long-term care medication history
+    @Param({"3", "12", "40"})
+    private int medicationCount;
+
+    private DrugInteractionChecker checker;
+    private List<String> medications;
+
+    @Setup
+    public void setUp() {
+        checker = new DrugInteractionChecker();
+        medications = new ArrayList<>(medicationCount);
+        for (int i = 0; i < medicationCount; i++) {
+            String name = MEDICATIONS[i % MEDICATIONS.length];
+            medications.add(i < MEDICATIONS.length ? name : name + " " + (i / MEDICATIONS.length) + "0mg");
+        }
+    }
+
+    @Benchmark
+    public List<DrugInteractionChecker.InteractionResult> checkInteractions() {
+        return checker.checkInteractions(medications);
+    }
+}
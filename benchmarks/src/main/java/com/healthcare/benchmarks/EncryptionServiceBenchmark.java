@@ -0,0 +1,41 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.util.EncryptionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncryptionServiceBenchmark {
+
+    @Param({"16", "256", "4096"})
+    private int plaintextLength;
+
+    private EncryptionService encryptionService;
+    private String plaintext;
+    private String ciphertext;
+
+    @Setup
+    public void setUp() {
+        encryptionService = new EncryptionService();
+        BenchmarkSupport.inject(encryptionService, "encryptionKeyBase64", BenchmarkSupport.TEST_ENCRYPTION_KEY);
+        BenchmarkSupport.inject(encryptionService, "algorithm", "AES/GCM/NoPadding");
+        plaintext = "123-45-6789 ".repeat(plaintextLength / 12 + 1).substring(0, plaintextLength);
+        ciphertext = encryptionService.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return encryptionService.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return encryptionService.decrypt(ciphertext);
+    }
+}
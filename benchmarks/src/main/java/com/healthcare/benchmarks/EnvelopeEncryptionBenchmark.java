@@ -0,0 +1,105 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.util.DataKeyStore;
+import com.healthcare.util.EncryptionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Per-operation cost of envelope encryption as the number of data keys grows, against the master key
+// alone. Operations cycle through one tenant per key, with every key already unwrapped in the cache.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvelopeEncryptionBenchmark {
+
+    private static final byte[] PLAINTEXT = "123-45-6789".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"1", "100", "10000"})
+    private int keys;
+
+    private Path keyStoreDirectory;
+    private EncryptionService masterKeyOnly;
+    private EncryptionService envelope;
+    private String[] tenants;
+    private byte[][] ciphertexts;
+    private byte[] masterCiphertext;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        keyStoreDirectory = Files.createTempDirectory("bench-keys");
+        DataKeyStore store = new DataKeyStore();
+        BenchmarkSupport.inject(store, "keyStorePath", keyStoreDirectory.toString());
+        store.load();
+
+        masterKeyOnly = encryptionService(false, null);
+        envelope = encryptionService(true, store);
+        tenants = new String[keys];
+        ciphertexts = new byte[keys][];
+        for (int i = 0; i < keys; i++) {
+            tenants[i] = "tenant-" + i;
+            ciphertexts[i] = envelope.encrypt(tenants[i], PLAINTEXT, null);
+        }
+        masterCiphertext = masterKeyOnly.encrypt(PLAINTEXT, null);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(keyStoreDirectory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] masterKeyEncrypt() {
+        return masterKeyOnly.encrypt(PLAINTEXT, null);
+    }
+
+    @Benchmark
+    public byte[] masterKeyDecrypt() {
+        return masterKeyOnly.decrypt(masterCiphertext, null);
+    }
+
+    @Benchmark
+    public byte[] envelopeEncrypt() {
+        return envelope.encrypt(tenants[nextIndex()], PLAINTEXT, null);
+    }
+
+    @Benchmark
+    public byte[] envelopeDecrypt() {
+        return envelope.decrypt(ciphertexts[nextIndex()], null);
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == keys ? 0 : index + 1;
+        return index;
+    }
+
+    private static EncryptionService encryptionService(boolean envelopeEnabled, DataKeyStore store) {
+        EncryptionService service = new EncryptionService();
+        BenchmarkSupport.inject(service, "encryptionKeyBase64", BenchmarkSupport.TEST_ENCRYPTION_KEY);
+        BenchmarkSupport.inject(service, "algorithm", "AES/GCM/NoPadding");
+        BenchmarkSupport.inject(service, "envelopeEnabled", envelopeEnabled);
+        BenchmarkSupport.inject(service, "defaultTenant", "default");
+        BenchmarkSupport.inject(service, "rotationDays", 90L);
+        BenchmarkSupport.inject(service, "cacheMaxKeys", 20000);
+        BenchmarkSupport.inject(service, "cacheTtlMinutes", 60L);
+        if (store != null) {
+            BenchmarkSupport.inject(service, "dataKeyStore", store);
+        }
+        return service;
+    }
+}
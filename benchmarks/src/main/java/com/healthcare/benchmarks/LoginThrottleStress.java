@@ -0,0 +1,151 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.util.SlidingWindowLimiter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Drives the login failure limiter the way ComplianceService does. Threads failing the same account at
+// once must all be counted; failures spread wider than the window never lock, a burst does, and the
+// lock lifts after the lockout. Then a credential stuffing run from many threads: millions of accounts
+// each failed once, while a handful of real accounts are locked. The table must stay within its
+// capacity, the locked accounts must stay locked, and idle keys must go once the window passes.
+// Exits 1 on any violation.
+public final class LoginThrottleStress {
+
+    private static final long WINDOW = 15 * 60_000L;
+    private static final long LOCKOUT = 30 * 60_000L;
+    private static final int MAX_KEYS = 100_000;
+    private static final int THREADS = 8;
+    private static final int STUFFED_ACCOUNTS = 2_000_000;
+
+    private LoginThrottleStress() {
+        // Private constructor to hide implicit public one
+    }
+
+    public static void main(String[] args) throws Exception {
+        int failures = 0;
+        failures += concurrentFailures();
+        failures += windowAndLockout();
+        failures += credentialStuffing();
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static int concurrentFailures() throws InterruptedException {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(Integer.MAX_VALUE, WINDOW, LOCKOUT, MAX_KEYS);
+        int perThread = 100_000;
+        long now = 1_000_000L;
+        run(thread -> {
+            for (int i = 0; i < perThread; i++) {
+                limiter.recordFailure("shared@hospital.example", now);
+            }
+        });
+        int counted = limiter.recordFailure("shared@hospital.example", now).count() - 1;
+        return report("concurrent", counted == THREADS * perThread, counted + " of " + THREADS * perThread
+            + " failures counted");
+    }
+
+    private static int windowAndLockout() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(3, WINDOW, LOCKOUT, MAX_KEYS);
+        long now = 1_000_000L;
+        // Two failures per window, a window and a half apart, never reach three
+        boolean spreadLocked = false;
+        for (int i = 0; i < 20; i++) {
+            limiter.recordFailure("slow@hospital.example", now);
+            limiter.recordFailure("slow@hospital.example", now + 1);
+            spreadLocked |= limiter.isLocked("slow@hospital.example", now + 1);
+            now += WINDOW * 3 / 2;
+        }
+        for (int i = 0; i < 3; i++) {
+            limiter.recordFailure("burst@hospital.example", now + i * 1000L);
+        }
+        boolean burstLocked = limiter.isLocked("burst@hospital.example", now + 3000);
+        boolean stillLocked = limiter.isLocked("burst@hospital.example", now + 2000 + LOCKOUT - 1);
+        boolean lifted = !limiter.isLocked("burst@hospital.example", now + 2000 + LOCKOUT);
+        return report("window", !spreadLocked && burstLocked && stillLocked && lifted, "spread locked " + spreadLocked
+            + ", burst locked " + burstLocked + ", held for lockout " + stillLocked + ", lifted after " + lifted);
+    }
+
+    private static int credentialStuffing() throws InterruptedException {
+        SlidingWindowLimiter users = new SlidingWindowLimiter(3, WINDOW, LOCKOUT, MAX_KEYS);
+        SlidingWindowLimiter addresses = new SlidingWindowLimiter(30, WINDOW, LOCKOUT, MAX_KEYS);
+        long start = 1_000_000L;
+        List<String> victims = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String victim = "victim-" + i + "@hospital.example";
+            for (int attempt = 0; attempt < 3; attempt++) {
+                users.recordFailure(victim, start);
+            }
+            victims.add(victim);
+        }
+        AtomicLong checks = new AtomicLong();
+        AtomicLong maxKeys = new AtomicLong();
+        long started = System.nanoTime();
+        // Ten minutes of attack, each account tried once from one of 50,000 addresses
+        run(thread -> {
+            for (int i = thread; i < STUFFED_ACCOUNTS; i += THREADS) {
+                long now = start + i * 10 * 60_000L / STUFFED_ACCOUNTS;
+                String user = "stuffed-" + i + "@example.com";
+                String address = "10." + (i % 50_000 / 250) + "." + (i % 250) + ".1";
+                if (!users.isLocked(user, now) && !addresses.isLocked(address, now)) {
+                    users.recordFailure(user, now);
+                    addresses.recordFailure(address, now);
+                }
+                checks.addAndGet(2);
+                if ((i & 0xFFFF) == thread) {
+                    maxKeys.accumulateAndGet(users.size(), Math::max);
+                }
+            }
+        });
+        long nanos = System.nanoTime() - started;
+        int failures = 0;
+        long end = start + 10 * 60_000L;
+        int victimsLocked = 0;
+        for (String victim : victims) {
+            victimsLocked += users.isLocked(victim, end) ? 1 : 0;
+        }
+        Map<String, Object> stats = users.getStats();
+        failures += report("stuffing", maxKeys.get() <= MAX_KEYS && users.size() <= MAX_KEYS,
+            String.format("%d checks at %.0f ns, most keys held %d of %d, %s evicted when full", checks.get(),
+                (double) nanos / checks.get(), Math.max(maxKeys.get(), users.size()), MAX_KEYS, stats.get("fullEvicted")));
+        failures += report("victims", victimsLocked == victims.size(), victimsLocked + " of " + victims.size()
+            + " locked accounts still locked, " + stats.get("lockedEvicted") + " lockouts evicted");
+
+        // Past the window and the lockout every key is idle; calls passing by drop them
+        long later = end + LOCKOUT + WINDOW;
+        for (int i = 0; i < MAX_KEYS; i++) {
+            users.isLocked("later-" + i, later);
+        }
+        failures += report("idle", users.size() < MAX_KEYS / 10, users.size() + " keys left after idling, "
+            + users.getStats().get("idleEvicted") + " evicted idle; addresses " + addresses.getStats().get("lockouts")
+            + " locked");
+        return failures;
+    }
+
+    private interface Worker {
+        void run(int thread);
+    }
+
+    private static void run(Worker worker) throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> worker.run(thread)));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private static int report(String name, boolean ok, String detail) {
+        System.out.printf("%-12s %-6s %s%n", name, ok ? "ok" : "FAILED", detail);
+        return ok ? 0 : 1;
+    }
+}
@@ -0,0 +1,77 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.model.ConsentRecord;
+import com.healthcare.model.PatientData;
+import com.healthcare.service.PatientDataService;
+import com.healthcare.util.EncryptionService;
+import com.healthcare.util.QRPayloadCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientDataServiceBenchmark {
+
+    // Entries in each of allergies, medications and conditions
+    @Param({"2", "8", "24"})
+    private int entries;
+
+    private static final List<ConsentRecord.DataType> SHARED_TYPES = List.of(ConsentRecord.DataType.DEMOGRAPHICS,
+        ConsentRecord.DataType.ALLERGIES, ConsentRecord.DataType.MEDICATIONS, ConsentRecord.DataType.CONDITIONS);
+    private static final byte[] SESSION_TOKEN = "session-bench".getBytes(StandardCharsets.UTF_8);
+
+    private PatientDataService patientDataService;
+    private EncryptionService encryptionService;
+    private byte[] sealedSnapshot;
+
+    @Setup
+    public void setUp() {
+        patientDataService = new PatientDataService();
+        PatientData data = QRPayloadCorpus.samplePatient(false);
+        data.setPatientId("patient-bench");
+        data.setAllergies(repeat(data.getAllergies(), "Allergen "));
+        data.setMedications(repeat(data.getMedications(), "Medication "));
+        data.setConditions(repeat(data.getConditions(), "Condition "));
+        patientDataService.createPatientData(data);
+
+        encryptionService = new EncryptionService();
+        BenchmarkSupport.inject(encryptionService, "encryptionKeyBase64", BenchmarkSupport.TEST_ENCRYPTION_KEY);
+        BenchmarkSupport.inject(encryptionService, "algorithm", "AES/GCM/NoPadding");
+        sealedSnapshot = sealSnapshot();
+    }
+
+    @Benchmark
+    public String generateQRData() {
+        return patientDataService.generateQRData("patient-bench");
+    }
+
+    // Generate side of a share, as QRShareService does it once per QR
+    @Benchmark
+    public byte[] sealSnapshot() {
+        PatientData snapshot = patientDataService.buildSnapshot("patient-bench", SHARED_TYPES).orElseThrow();
+        return encryptionService.encrypt(QRPayloadCodec.encode(snapshot), SESSION_TOKEN);
+    }
+
+    // All that is left on the scan path
+    @Benchmark
+    public PatientData openSnapshot() {
+        return QRPayloadCodec.decodePatientData(encryptionService.decrypt(sealedSnapshot, SESSION_TOKEN));
+    }
+
+    // Keeps the dictionary hits from the sample record and pads with free-text entries
+    private List<String> repeat(List<String> sample, String prefix) {
+        List<String> values = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            values.add(i < sample.size() ? sample.get(i) : prefix + i);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,162 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.util.EncryptedString;
+import com.healthcare.util.EncryptionConverter;
+import com.healthcare.util.EncryptionService;
+import com.healthcare.util.FieldDecryptCache;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// One page of the patient list: a query against H2 and the rows mapped through EncryptionConverter.
+// The list view shows names only. plaintextPage is the old pass-through converter, rawEncryptedPage
+// fetches encrypted rows without converting them, eagerPage decrypts every PHI field on load as a naive
+// converter would, lazyPage leaves them encrypted, and lazyPageReadingSsn is a view that does show
+// SSNs, served from the decrypt cache on repeat loads.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientListPageBenchmark {
+
+    private static final int PATIENTS = 1000;
+    private static final String PAGE_QUERY = "SELECT id, first_name, last_name, date_of_birth, ssn FROM patients "
+        + "ORDER BY last_name, id LIMIT ? OFFSET ?";
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private HikariDataSource plaintextDataSource;
+    private HikariDataSource encryptedDataSource;
+    private EncryptionConverter uncachedConverter;
+    private EncryptionConverter cachedConverter;
+
+    public record Row(String id, String firstName, String lastName, Object dateOfBirth, Object ssn) {
+    }
+
+    @Setup
+    public void setUp() {
+        EncryptionService encryptionService = new EncryptionService();
+        BenchmarkSupport.inject(encryptionService, "encryptionKeyBase64", BenchmarkSupport.TEST_ENCRYPTION_KEY);
+        BenchmarkSupport.inject(encryptionService, "algorithm", "AES/GCM/NoPadding");
+        uncachedConverter = converter(encryptionService, 0);
+        cachedConverter = converter(encryptionService, 4096);
+
+        plaintextDataSource = dataSource("plaintext-patients");
+        encryptedDataSource = dataSource("encrypted-patients");
+        insertPatients(plaintextDataSource, null);
+        insertPatients(encryptedDataSource, uncachedConverter);
+    }
+
+    @TearDown
+    public void tearDown() {
+        plaintextDataSource.close();
+        encryptedDataSource.close();
+    }
+
+    @Benchmark
+    public List<Row> plaintextPage() {
+        return page(plaintextDataSource, null);
+    }
+
+    @Benchmark
+    public List<Row> eagerPage() {
+        List<Row> rows = page(encryptedDataSource, uncachedConverter);
+        for (Row row : rows) {
+            ((EncryptedString) row.dateOfBirth()).get();
+            ((EncryptedString) row.ssn()).get();
+        }
+        return rows;
+    }
+
+    @Benchmark
+    public List<Row> rawEncryptedPage() {
+        return page(encryptedDataSource, null);
+    }
+
+    @Benchmark
+    public List<Row> lazyPage() {
+        return page(encryptedDataSource, uncachedConverter);
+    }
+
+    @Benchmark
+    public List<Row> lazyPageReadingSsn() {
+        List<Row> rows = page(encryptedDataSource, cachedConverter);
+        for (Row row : rows) {
+            ((EncryptedString) row.ssn()).get();
+        }
+        return rows;
+    }
+
+    private List<Row> page(HikariDataSource dataSource, EncryptionConverter converter) {
+        List<Row> rows = new ArrayList<>(pageSize);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(PAGE_QUERY)) {
+            statement.setInt(1, pageSize);
+            statement.setInt(2, 0);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    String dateOfBirth = resultSet.getString(4);
+                    String ssn = resultSet.getString(5);
+                    rows.add(new Row(resultSet.getString(1), resultSet.getString(2), resultSet.getString(3),
+                        converter == null ? dateOfBirth : converter.convertToEntityAttribute(dateOfBirth),
+                        converter == null ? ssn : converter.convertToEntityAttribute(ssn)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Page query failed", e);
+        }
+        return rows;
+    }
+
+    private static void insertPatients(HikariDataSource dataSource, EncryptionConverter converter) {
+        try (Connection connection = dataSource.getConnection();
+             Statement ddl = connection.createStatement()) {
+            ddl.execute("CREATE TABLE patients (id VARCHAR(255) PRIMARY KEY, "
+                + "first_name VARCHAR(255) NOT NULL, last_name VARCHAR(255) NOT NULL, date_of_birth TEXT, ssn TEXT)");
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO patients VALUES (?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < PATIENTS; i++) {
+                    String dateOfBirth = String.format("19%02d-%02d-%02d", 40 + i % 60, 1 + i % 12, 1 + i % 28);
+                    String ssn = String.format("%03d-%02d-%04d", 100 + i % 800, 10 + i % 90, i);
+                    insert.setString(1, "patient-" + i);
+                    insert.setString(2, "First" + i);
+                    insert.setString(3, "Last" + (i % 97));
+                    insert.setString(4, converter == null ? dateOfBirth
+                        : converter.convertToDatabaseColumn(EncryptedString.of(dateOfBirth)));
+                    insert.setString(5, converter == null ? ssn
+                        : converter.convertToDatabaseColumn(EncryptedString.of(ssn)));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Patient setup failed", e);
+        }
+    }
+
+    private static EncryptionConverter converter(EncryptionService encryptionService, int cachedFields) {
+        FieldDecryptCache cache = new FieldDecryptCache();
+        BenchmarkSupport.inject(cache, "maxEntries", cachedFields);
+        EncryptionConverter converter = new EncryptionConverter();
+        BenchmarkSupport.inject(converter, "encryptionService", encryptionService);
+        BenchmarkSupport.inject(converter, "fieldDecryptCache", cache);
+        return converter;
+    }
+
+    private static HikariDataSource dataSource(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(4);
+        return dataSource;
+    }
+}
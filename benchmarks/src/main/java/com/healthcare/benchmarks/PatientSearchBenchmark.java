@@ -0,0 +1,45 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.model.User;
+import com.healthcare.service.AuthService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// AuthService reads DEFAULT_USER_PASSWORD and DEFAULT_PROVIDER_PASSWORD; export both before running
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PatientSearchBenchmark {
+
+    private static final String[] FIRST_NAMES = {"John", "Maria", "Wei", "Aisha", "Carlos", "Emma", "Noah", "Priya"};
+    private static final String[] LAST_NAMES = {"Doe", "Garcia", "Chen", "Khan", "Lopez", "Smith", "Brown", "Patel"};
+
+    @Param({"100", "10000"})
+    private int patients;
+
+    // A common surname, a single email, and a miss that scans every user
+    @Param({"smith", "patient4242@", "zz-no-match"})
+    private String query;
+
+    private AuthService authService;
+
+    @Setup
+    public void setUp() {
+        authService = new AuthService();
+        for (int i = 0; i < patients; i++) {
+            authService.registerUser(new User("patient" + i + "@example.com", "[PROTECTED]",
+                FIRST_NAMES[i % FIRST_NAMES.length], LAST_NAMES[(i / FIRST_NAMES.length) % LAST_NAMES.length],
+                User.UserRole.PATIENT));
+        }
+    }
+
+    @Benchmark
+    public List<User> searchPatients() {
+        return authService.searchPatients(query);
+    }
+}
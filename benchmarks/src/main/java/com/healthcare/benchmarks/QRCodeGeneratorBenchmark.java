@@ -0,0 +1,57 @@
+package com.healthcare.benchmarks;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.healthcare.util.BitMatrixPngEncoder;
+import com.healthcare.util.QRCodeGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Compares the ImageIO PNG path against the direct 1-bit encoder; run with -prof gc for allocation rates
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QRCodeGeneratorBenchmark {
+
+    @Param({"200", "400"})
+    private int size;
+
+    @Param({"42", "400"})
+    private int contentLength;
+
+    private String content;
+    private BitMatrix matrix;
+
+    @Setup
+    public void setUp() throws WriterException {
+        content = "Session ID: " + "x".repeat(Math.max(0, contentLength - 12));
+        matrix = new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, size, size);
+    }
+
+    @Benchmark
+    public byte[] imageIo() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatrixToImageWriter.writeToStream(matrix, "PNG", out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] direct() {
+        return BitMatrixPngEncoder.encode(matrix);
+    }
+
+    // Full path used by the API: encode, PNG and base64
+    @Benchmark
+    public String generateQRCodeBase64() throws Exception {
+        return QRCodeGenerator.generateQRCodeBase64(content, size, size);
+    }
+}
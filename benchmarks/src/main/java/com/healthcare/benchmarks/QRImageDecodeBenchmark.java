@@ -0,0 +1,96 @@
+package com.healthcare.benchmarks;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.healthcare.util.QRImageDecoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Decode latency per synthetic camera frame; add -t 4 (or more) to measure throughput under concurrent uploads
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QRImageDecodeBenchmark {
+
+    @Param({"800", "3000"})
+    private int frameWidth;
+
+    @Param({"clean", "dim"})
+    private String lighting;
+
+    private BufferedImage frame;
+
+    @Setup
+    public void setUp() throws WriterException {
+        frame = cameraFrame(QRPayloadCorpus.content("share"), frameWidth, "dim".equals(lighting));
+    }
+
+    @Benchmark
+    public QRImageDecoder.Decoded pipeline() {
+        return QRImageDecoder.decode(frame, 800, Long.MAX_VALUE);
+    }
+
+    // What a naive endpoint would do: full resolution, TRY_HARDER, all formats; a miss returns null
+    @Benchmark
+    public String tryHarderOnly() {
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(frame)));
+        try {
+            return new MultiFormatReader().decode(bitmap, Map.of(DecodeHintType.TRY_HARDER, Boolean.TRUE)).getText();
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    // A 4:3 photo with the code covering about a third of the width, slightly rotated, with sensor noise
+    static BufferedImage cameraFrame(String content, int width, boolean dim) throws WriterException {
+        int height = width * 3 / 4;
+        int codeSize = width / 3;
+        BitMatrix matrix = new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, codeSize, codeSize);
+        BufferedImage code = MatrixToImageWriter.toBufferedImage(matrix);
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.setColor(new Color(150, 140, 130));
+        graphics.fillRect(0, 0, width, height);
+        graphics.rotate(Math.toRadians(8), width / 2.0, height / 2.0);
+        graphics.drawImage(code, (width - codeSize) / 2, (height - codeSize) / 2, null);
+        graphics.dispose();
+
+        Random random = new Random(42);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                int gray = row[x] & 0xFF;
+                if (dim) {
+                    // Low contrast with a lighting gradient across the frame
+                    gray = 70 + gray * 90 / 255 + x * 40 / width;
+                }
+                gray = Math.max(0, Math.min(255, gray + (int) (random.nextGaussian() * 12)));
+                row[x] = (gray << 16) | (gray << 8) | gray;
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+        return image;
+    }
+}
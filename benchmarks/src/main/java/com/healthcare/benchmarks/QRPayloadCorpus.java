@@ -0,0 +1,57 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.dto.QRPayload;
+import com.healthcare.model.ConsentRecord;
+import com.healthcare.model.PatientData;
+import com.healthcare.util.QRPayloadCodec;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+// Real-sized QR contents, as issued before and after the payload codec
+final class QRPayloadCorpus {
+
+    static final String[] NAMES = {"legacySession", "share", "patient", "patientFull", "url"};
+
+    private QRPayloadCorpus() {
+        // Private constructor to hide implicit public one
+    }
+
+    static String content(String name) {
+        String sessionId = "session-" + UUID.nameUUIDFromBytes(name.getBytes());
+        return switch (name) {
+            case "legacySession" -> "Session ID: " + sessionId;
+            case "share" -> QRPayloadCodec.toQRText(QRPayloadCodec.encode(QRPayload.builder()
+                .sessionToken(sessionId)
+                .patientId("patient-1a2b3c4d")
+                .dataTypes(List.of(ConsentRecord.DataType.DEMOGRAPHICS, ConsentRecord.DataType.MEDICATIONS,
+                    ConsentRecord.DataType.ALLERGIES))
+                .expiresAt(LocalDateTime.of(2025, 1, 1, 12, 15))
+                .build()));
+            case "patient" -> QRPayloadCodec.toQRText(QRPayloadCodec.encode(samplePatient(false)));
+            case "patientFull" -> QRPayloadCodec.toQRText(QRPayloadCodec.encode(samplePatient(true)));
+            case "url" -> "https://healthcare.example.com/share?session=" + sessionId + "&lang=en";
+            default -> throw new IllegalArgumentException("Unknown corpus entry: " + name);
+        };
+    }
+
+    static PatientData samplePatient(boolean full) {
+        PatientData data = new PatientData("patient-1", "John", "Doe", "patient@example.com");
+        data.setDateOfBirth("1990-01-15");
+        data.setBloodType("O+");
+        data.setAllergies(List.of("Penicillin", "Shellfish"));
+        data.setMedications(List.of("Lisinopril 10mg", "Metformin 500mg"));
+        data.setConditions(List.of("Hypertension", "Type 2 Diabetes"));
+        data.setEmergencyContact("Jane Doe - 555-0123");
+        data.setLastUpdated(LocalDateTime.of(2025, 1, 1, 12, 0));
+        if (full) {
+            data.setAllergies(List.of("Penicillin", "Shellfish", "Latex", "Sulfa", "Kiwi fruit"));
+            data.setMedications(List.of("Lisinopril 10mg", "Metformin 500mg", "Atorvastatin 20mg",
+                "Aspirin 81mg", "Vitamin D3 2000IU", "Omeprazole 20mg"));
+            data.setConditions(List.of("Hypertension", "Type 2 Diabetes", "Hyperlipidemia", "GERD",
+                "Diabetic neuropathy"));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,54 @@
+package com.healthcare.benchmarks;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.healthcare.util.QRCodeGenerator;
+import com.healthcare.util.QRSymbolOptimizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Encode latency with ZXing's default hints against the optimizer's plan; QRSymbolSizeReport prints module counts
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QRSymbolOptimizerBenchmark {
+
+    @Param({"legacySession", "share", "patient", "patientFull", "url"})
+    private String payload;
+
+    private String content;
+
+    @Setup
+    public void setUp() {
+        content = QRPayloadCorpus.content(payload);
+    }
+
+    @Benchmark
+    public BitMatrix defaultHints() throws WriterException {
+        return new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, 200, 200);
+    }
+
+    @Benchmark
+    public QRSymbolOptimizer.SymbolPlan planOnly() {
+        return QRSymbolOptimizer.plan(content, ErrorCorrectionLevel.L, QRCodeGenerator.QUIET_ZONE);
+    }
+
+    @Benchmark
+    public String planned() throws WriterException {
+        QRSymbolOptimizer.SymbolPlan plan = QRSymbolOptimizer.plan(content, ErrorCorrectionLevel.L,
+            QRCodeGenerator.QUIET_ZONE);
+        return QRCodeGenerator.generate(content, 200, 200, plan, QRCodeGenerator.OutputFormat.PNG).image();
+    }
+
+    @Benchmark
+    public String defaultPng() throws Exception {
+        return QRCodeGenerator.generateQRCodeBase64(content, 200, 200);
+    }
+}
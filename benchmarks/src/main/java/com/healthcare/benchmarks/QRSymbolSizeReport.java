@@ -0,0 +1,35 @@
+package com.healthcare.benchmarks;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.Encoder;
+import com.healthcare.util.QRCodeGenerator;
+import com.healthcare.util.QRSymbolOptimizer;
+
+// Prints the symbol each corpus payload gets with default hints and with the optimizer's plan
+public final class QRSymbolSizeReport {
+
+    private QRSymbolSizeReport() {
+        // Private constructor to hide implicit public one
+    }
+
+    public static void main(String[] args) throws WriterException {
+        System.out.printf("%-14s %6s  %-14s %-14s%n", "payload", "chars", "default", "planned");
+        for (ErrorCorrectionLevel minLevel : new ErrorCorrectionLevel[] {ErrorCorrectionLevel.L, ErrorCorrectionLevel.M}) {
+            System.out.println("minimum error correction " + minLevel);
+            for (String name : QRPayloadCorpus.NAMES) {
+                String content = QRPayloadCorpus.content(name);
+                int defaultVersion = Encoder.encode(content, minLevel).getVersion().getVersionNumber();
+                QRSymbolOptimizer.SymbolPlan plan = QRSymbolOptimizer.plan(content, minLevel, QRCodeGenerator.QUIET_ZONE);
+                System.out.printf("%-14s %6d  %-14s %-14s%n", name, content.length(),
+                    describe(defaultVersion, minLevel, false), describe(plan.version(), plan.ecLevel(), plan.compact()));
+            }
+        }
+    }
+
+    // Version, modules per side and error correction, e.g. "v3 29x29 Q"
+    private static String describe(int version, ErrorCorrectionLevel ecLevel, boolean compact) {
+        int modules = 17 + 4 * version;
+        return "v" + version + " " + modules + "x" + modules + " " + ecLevel + (compact ? " mixed" : "");
+    }
+}
@@ -0,0 +1,68 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.dto.QRPayload;
+import com.healthcare.util.QRPayloadCodec;
+import com.healthcare.util.ScanIngressValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Scan ingress before and after the one-pass validator; run with -prof gc to see allocation per scan
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScanIngressBenchmark {
+
+    // A share envelope from the generator, and legacy base64 scans of a small and a large QR
+    @Param({"envelope", "legacy256", "legacy2048"})
+    private String input;
+
+    private String scannedData;
+
+    @Setup
+    public void setUp() {
+        if ("envelope".equals(input)) {
+            scannedData = QRPayloadCorpus.content("share");
+            return;
+        }
+        byte[] bytes = new byte["legacy256".equals(input) ? 192 : 1536];
+        new Random(7).nextBytes(bytes);
+        scannedData = Base64.getEncoder().encodeToString(bytes);
+    }
+
+    // The previous scanQRCode checks: trim, a regex compiled per call, and a copying envelope decode
+    @Benchmark
+    public QRPayload regex() {
+        if (scannedData.trim().isEmpty()) {
+            return null;
+        }
+        QRPayload payload = null;
+        if (QRPayloadCodec.isQRText(scannedData)) {
+            try {
+                payload = QRPayloadCodec.decodePayload(QRPayloadCodec.fromQRText(scannedData));
+            } catch (IllegalArgumentException e) {
+                payload = null;
+            }
+        }
+        if (payload == null && !scannedData.matches("^[A-Za-z0-9+/]*={0,2}$")) {
+            return null;
+        }
+        return payload;
+    }
+
+    @Benchmark
+    public QRPayload validator() {
+        ScanIngressValidator.Kind kind = ScanIngressValidator.classify(scannedData);
+        return kind.isEnvelope() ? ScanIngressValidator.decodeEnvelope(scannedData) : null;
+    }
+
+    @Benchmark
+    public ScanIngressValidator.Kind classifyOnly() {
+        return ScanIngressValidator.classify(scannedData);
+    }
+}
@@ -0,0 +1,80 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.util.HierarchicalTimingWheel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Cost of one expiry tick with the live-session population held steady: each expired session is
+// replaced by a new one, as in a registry under constant load
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionExpiryBenchmark {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final long MAX_LIFETIME_MILLIS = 60 * 60 * 1000L;
+
+    @Param({"100000", "1000000"})
+    private int liveSessions;
+
+    private final Random random = new Random(11);
+    private HierarchicalTimingWheel<Long> wheel;
+    private Map<Long, Long> deadlinesById;
+    private long wheelNow;
+    private long scanNow;
+    private long nextId;
+
+    @Setup
+    public void setUp() {
+        wheelNow = 0;
+        scanNow = 0;
+        wheel = new HierarchicalTimingWheel<>(TICK_MILLIS, 3, 0);
+        deadlinesById = new ConcurrentHashMap<>();
+        for (int i = 0; i < liveSessions; i++) {
+            long deadline = lifetime();
+            wheel.schedule(nextId, deadline);
+            deadlinesById.put(nextId, deadline);
+            nextId++;
+        }
+    }
+
+    @Benchmark
+    public int timingWheelTick() {
+        wheelNow += TICK_MILLIS;
+        int expired = 0;
+        for (Long id : wheel.advance(wheelNow)) {
+            wheel.schedule(id, wheelNow + lifetime());
+            expired++;
+        }
+        return expired;
+    }
+
+    // The periodic sweep the wheel replaces: every live session is visited on every tick
+    @Benchmark
+    public int scanTick() {
+        scanNow += TICK_MILLIS;
+        int expired = 0;
+        Iterator<Map.Entry<Long, Long>> it = deadlinesById.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Long> entry = it.next();
+            if (entry.getValue() <= scanNow) {
+                entry.setValue(scanNow + lifetime());
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    // Lifetimes between 1 and 60 minutes, as QRShareRequest allows
+    private long lifetime() {
+        return 60_000 + (long) (random.nextDouble() * (MAX_LIFETIME_MILLIS - 60_000));
+    }
+}
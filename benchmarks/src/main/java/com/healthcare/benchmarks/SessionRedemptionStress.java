@@ -0,0 +1,192 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.model.ConsentRecord;
+import com.healthcare.service.QRSessionRegistry;
+import com.healthcare.util.QRCodeCache;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+// Every thread scans every session in the same order, so each code is redeemed under full contention.
+// Checks that each session is redeemed exactly once, in memory and in qr_share_sessions, and compares
+// scan throughput with redeeming through a conditional UPDATE. Exits 1 on any violation.
+public final class SessionRedemptionStress {
+
+    private static final int SESSIONS = 20000;
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+
+    private SessionRedemptionStress() {
+        // Private constructor to hide implicit public one
+    }
+
+    public static void main(String[] args) throws Exception {
+        int violations = 0;
+        System.out.printf("%-8s %-10s %14s %12s%n", "threads", "redeem", "scans/s", "violations");
+        for (int threads : THREAD_COUNTS) {
+            try (HikariDataSource dataSource = dataSource(threads)) {
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+                createSchema(jdbcTemplate);
+
+                int registryViolations = runRegistry(jdbcTemplate, dataSource, threads);
+                int databaseViolations = runDatabase(jdbcTemplate, threads);
+                violations += registryViolations + databaseViolations;
+            }
+        }
+        if (violations > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static int runRegistry(JdbcTemplate jdbcTemplate, HikariDataSource dataSource, int threads)
+            throws InterruptedException {
+        QRSessionRegistry registry = new QRSessionRegistry();
+        BenchmarkSupport.inject(registry, "jdbcTemplate", jdbcTemplate);
+        BenchmarkSupport.inject(registry, "transactionTemplate",
+            new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        BenchmarkSupport.inject(registry, "qrCodeCache", new QRCodeCache());
+        BenchmarkSupport.inject(registry, "tickMillis", 1000L);
+        BenchmarkSupport.inject(registry, "flushMillis", 50L);
+        BenchmarkSupport.inject(registry, "flushBatchSize", 500);
+        BenchmarkSupport.invoke(registry, "start");
+
+        String[] tokens = tokens("registry");
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(30);
+        for (String token : tokens) {
+            registry.register(token, "patient-bench", List.of(ConsentRecord.DataType.ALLERGIES), expiresAt, token, null);
+        }
+        BenchmarkSupport.invoke(registry, "flushPendingWrites");
+
+        AtomicIntegerArray wins = new AtomicIntegerArray(SESSIONS);
+        AtomicReferenceArray<String> winners = new AtomicReferenceArray<>(SESSIONS);
+        long nanos = contend(threads, scanner -> {
+            for (int i = 0; i < SESSIONS; i++) {
+                if (registry.redeem(tokens[i], scanner) == QRSessionRegistry.Redemption.REDEEMED) {
+                    wins.incrementAndGet(i);
+                    winners.set(i, scanner);
+                }
+            }
+        });
+        // Stopping drains the write-behind queue, so the table must now agree with memory
+        BenchmarkSupport.invoke(registry, "stop");
+
+        Map<String, String[]> rows = new HashMap<>();
+        jdbcTemplate.query("SELECT session_token, status, accessed_by FROM qr_share_sessions WHERE session_token LIKE ?",
+            rs -> {
+                rows.put(rs.getString(1), new String[] {rs.getString(2), rs.getString(3)});
+            }, "registry-%");
+        int violations = 0;
+        for (int i = 0; i < SESSIONS; i++) {
+            String[] row = rows.get(tokens[i]);
+            boolean persisted = row != null && "USED".equals(row[0]) && row[1] != null && row[1].equals(winners.get(i));
+            if (wins.get(i) != 1 || !persisted) {
+                violations++;
+            }
+        }
+        report(threads, "registry", nanos, violations);
+        return violations;
+    }
+
+    // The row-lock alternative: every scan is a conditional UPDATE and the one that changes a row wins
+    private static int runDatabase(JdbcTemplate jdbcTemplate, int threads) throws InterruptedException {
+        String[] tokens = tokens("database");
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp expiresAt = Timestamp.valueOf(LocalDateTime.now().plusMinutes(30));
+        List<Object[]> rows = new ArrayList<>(SESSIONS);
+        for (String token : tokens) {
+            rows.add(new Object[] {token, "patient-bench", token, now, expiresAt, "ACTIVE"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO qr_share_sessions (id, patient_id, session_token, created_at, expires_at, status) "
+            + "VALUES (?, ?, ?, ?, ?, ?)", rows);
+
+        AtomicIntegerArray wins = new AtomicIntegerArray(SESSIONS);
+        long nanos = contend(threads, scanner -> {
+            for (int i = 0; i < SESSIONS; i++) {
+                int updated = jdbcTemplate.update("UPDATE qr_share_sessions SET status = ?, accessed_at = ?, accessed_by = ? "
+                        + "WHERE session_token = ? AND status = ?",
+                    "USED", Timestamp.valueOf(LocalDateTime.now()), scanner, tokens[i], "ACTIVE");
+                if (updated == 1) {
+                    wins.incrementAndGet(i);
+                }
+            }
+        });
+        int violations = 0;
+        for (int i = 0; i < SESSIONS; i++) {
+            if (wins.get(i) != 1) {
+                violations++;
+            }
+        }
+        report(threads, "database", nanos, violations);
+        return violations;
+    }
+
+    private static long contend(int threads, Consumer<String> scanAll) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> scanners = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            String scanner = "provider-" + t;
+            Thread thread = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                scanAll.accept(scanner);
+            }, "scanner-" + t);
+            thread.start();
+            scanners.add(thread);
+        }
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        for (Thread thread : scanners) {
+            thread.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(int threads, String mode, long nanos, int violations) {
+        double scansPerSecond = (double) threads * SESSIONS / (nanos / 1e9);
+        System.out.printf("%-8d %-10s %,14.0f %12d%n", threads, mode, scansPerSecond, violations);
+    }
+
+    private static String[] tokens(String prefix) {
+        String[] tokens = new String[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            tokens[i] = prefix + "-" + i;
+        }
+        return tokens;
+    }
+
+    private static HikariDataSource dataSource(int threads) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:redemption-" + threads + ";DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(threads + 2);
+        return dataSource;
+    }
+
+    // The columns the registry writes, as in schema.sql, without the patients foreign key
+    private static void createSchema(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("CREATE TABLE qr_share_sessions (id VARCHAR(255) PRIMARY KEY, "
+            + "patient_id VARCHAR(255) NOT NULL, session_token VARCHAR(255) UNIQUE NOT NULL, "
+            + "created_at TIMESTAMP NOT NULL, expires_at TIMESTAMP NOT NULL, accessed_at TIMESTAMP, "
+            + "accessed_by VARCHAR(255), status VARCHAR(50) NOT NULL DEFAULT 'ACTIVE', qr_code_data TEXT, "
+            + "patient_snapshot VARBINARY(65536))");
+        jdbcTemplate.execute("CREATE TABLE qr_share_session_shared_data_types ("
+            + "qr_share_session_id VARCHAR(255) NOT NULL, shared_data_types VARCHAR(50) NOT NULL)");
+    }
+}
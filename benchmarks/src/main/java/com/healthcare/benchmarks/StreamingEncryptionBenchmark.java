@@ -0,0 +1,101 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.util.EncryptionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Encrypting and decrypting a whole clinical document. streamEncrypt and streamDecrypt use the chunked
+// format with 64KB chunks, reading from a generated source or an encrypted temp file and writing to a
+// discarding sink, so they hold one chunk at a time. wholeDocumentEncrypt is the old way: read the
+// document into memory and encrypt it as one record. Run with -prof gc to compare allocation per op.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx1g"})
+public class StreamingEncryptionBenchmark {
+
+    private static final byte[] ASSOCIATED_DATA = "document:patient-1:benchmark".getBytes();
+
+    @Param({"1048576", "10485760", "104857600"})
+    private int documentBytes;
+
+    private EncryptionService encryptionService;
+    private byte[] block;
+    private Path encryptedFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        encryptionService = new EncryptionService();
+        BenchmarkSupport.inject(encryptionService, "encryptionKeyBase64", BenchmarkSupport.TEST_ENCRYPTION_KEY);
+        BenchmarkSupport.inject(encryptionService, "algorithm", "AES/GCM/NoPadding");
+        BenchmarkSupport.inject(encryptionService, "streamChunkSize", 65536);
+        block = new byte[1 << 20];
+        new Random(42).nextBytes(block);
+
+        encryptedFile = Files.createTempFile("streaming-benchmark-", ".bin");
+        try (OutputStream out = encryptionService.encryptingStream(Files.newOutputStream(encryptedFile), ASSOCIATED_DATA);
+             InputStream in = document()) {
+            in.transferTo(out);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(encryptedFile);
+    }
+
+    @Benchmark
+    public long streamEncrypt() throws IOException {
+        try (OutputStream out = encryptionService.encryptingStream(OutputStream.nullOutputStream(), ASSOCIATED_DATA);
+             InputStream in = document()) {
+            return in.transferTo(out);
+        }
+    }
+
+    @Benchmark
+    public long streamDecrypt() throws IOException {
+        try (InputStream in = encryptionService.decryptingStream(Files.newInputStream(encryptedFile), ASSOCIATED_DATA)) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public byte[] wholeDocumentEncrypt() throws IOException {
+        try (InputStream in = document()) {
+            return encryptionService.encrypt(in.readAllBytes(), ASSOCIATED_DATA);
+        }
+    }
+
+    // The same random megabyte over and over, so a 100MB document costs no heap to produce
+    private InputStream document() {
+        return new InputStream() {
+            private long remaining = documentBytes;
+
+            @Override
+            public int read() {
+                return remaining-- > 0 ? block[(int) (remaining % block.length)] & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int offset = (int) ((documentBytes - remaining) % block.length);
+                int read = (int) Math.min(Math.min(len, remaining), block.length - offset);
+                System.arraycopy(block, offset, b, off, read);
+                remaining -= read;
+                return read;
+            }
+        };
+    }
+}
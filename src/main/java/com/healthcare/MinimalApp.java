@@ -5,8 +5,25 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.healthcare.dto.QRBatchRequest;
+import com.healthcare.dto.QRPayload;
+import com.healthcare.dto.QRShareRequest;
+import com.healthcare.util.QRCodeCache;
 import com.healthcare.util.QRCodeGenerator;
+import com.healthcare.util.ScanIngressValidator;
+import com.healthcare.util.EncryptionService;
+import com.healthcare.util.FieldDecryptCache;
+import com.healthcare.model.ConsentRecord;
 import com.healthcare.model.User;
 import com.healthcare.model.ConsentRequest;
 import com.healthcare.service.AuthService;
@@ -14,17 +31,40 @@ import com.healthcare.service.ConsentService;
 import com.healthcare.service.AppInfoService;
 import com.healthcare.service.NotificationService;
 import com.healthcare.service.PatientDataService;
+import com.healthcare.service.AuditCompactor;
+import com.healthcare.service.AuditIndex;
+import com.healthcare.service.AuditJournal;
+import com.healthcare.service.AuditSealer;
 import com.healthcare.service.AuditService;
 import com.healthcare.service.ComplianceService;
+import com.healthcare.service.BlindIndexReindexJob;
+import com.healthcare.service.ClinicalDocumentService;
+import com.healthcare.service.QRShareService;
+import com.healthcare.service.QRImageDecodeService;
+import com.healthcare.service.QRSessionRegistry;
 import com.healthcare.model.PatientData;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 
 @SpringBootApplication
 @EnableScheduling
@@ -36,6 +76,19 @@ public class MinimalApp {
     private static final String EMAIL = "email";
     private static final String FHIR_ID = "fhirId";
     private static final String SUCCESS = "success";
+    private static final long BATCH_TIMEOUT_MILLIS = 120000L;
+    private static final MediaType SVG_MEDIA_TYPE = MediaType.valueOf("image/svg+xml");
+
+    // Mock patient data for demo
+    private static final Map<String, Object> MOCK_PATIENT_DATA = Map.of(
+        "firstName", "John",
+        "lastName", "Doe",
+        "email", "john.doe@example.com",
+        "dateOfBirth", "1990-01-01",
+        "bloodType", "O+",
+        "allergies", List.of("Penicillin", "Shellfish"),
+        "medications", List.of("Lisinopril 10mg", "Metformin 500mg"),
+        "conditions", List.of("Hypertension", "Type 2 Diabetes"));
 
     @Autowired
     private AuthService authService;
@@ -55,9 +108,46 @@ public class MinimalApp {
     @Autowired
     private AuditService auditService;
     
+    // Only with the journal audit store
+    @Autowired(required = false)
+    private AuditIndex auditIndex;
+    
+    @Autowired
+    private AuditSealer auditSealer;
+    
+    @Autowired(required = false)
+    private AuditJournal auditJournal;
+    
+    @Autowired(required = false)
+    private AuditCompactor auditCompactor;
+    
     @Autowired
     private ComplianceService complianceService;
 
+    @Autowired
+    private QRCodeCache qrCodeCache;
+
+    @Autowired
+    private QRShareService qrShareService;
+    
+    @Autowired
+    private QRImageDecodeService qrImageDecodeService;
+
+    @Autowired
+    private QRSessionRegistry qrSessionRegistry;
+
+    @Autowired
+    private EncryptionService encryptionService;
+
+    @Autowired
+    private FieldDecryptCache fieldDecryptCache;
+
+    @Autowired
+    private BlindIndexReindexJob blindIndexReindexJob;
+
+    @Autowired
+    private ClinicalDocumentService clinicalDocumentService;
+
     public static void main(String[] args) {
         SpringApplication.run(MinimalApp.class, args);
     }
@@ -75,7 +165,7 @@ public class MinimalApp {
             return response;
         }
         
-        if (complianceService.isAccountLocked(email)) {
+        if (complianceService.isLoginBlocked(email, ipAddress)) {
             auditService.logFailure(email, "LOGIN", "BLOCKED", ipAddress, "Account locked");
             response.put(SUCCESS, false);
             response.put("message", "Account temporarily locked");
@@ -114,27 +204,52 @@ public class MinimalApp {
     }
 
     @PostMapping("/api/qr/generate")
-    public Map<String, Object> generateQR(@RequestBody(required = false) Map<String, Object> request, HttpServletRequest httpRequest) {
+    public ResponseEntity<Object> generateQR(@RequestBody(required = false) Map<String, Object> request,
+                                             @RequestParam(value = "format", required = false) String formatParam,
+                                             @RequestHeader(value = "Accept", required = false) String accept,
+                                             HttpServletRequest httpRequest) {
         Map<String, Object> response = new HashMap<>();
-        String sessionId = "session-" + UUID.randomUUID().toString();
         String userId = "system";
-        String patientId = "patient-" + UUID.randomUUID().toString().substring(0, 8);
+        String patientId = request != null && request.get("patientId") instanceof String requested ? requested : null;
         
         try {
             String purpose = request != null && request.containsKey("purpose") 
                 ? (String) request.get("purpose") 
                 : "Healthcare data sharing";
+            int expirationMinutes = request != null && request.get("expirationMinutes") instanceof Number minutes
+                ? minutes.intValue()
+                : 0;
+            List<ConsentRecord.DataType> dataTypes = parseDataTypes(request != null ? request.get("dataTypes") : null);
             
-            complianceService.validateDataAccess(userId, patientId, purpose);
+            // Raw SVG or module bytes when the client asks for them, otherwise JSON
+            MediaType rawType = resolveRawQRType(accept);
+            QRCodeGenerator.OutputFormat format = rawType != null
+                ? (rawType.equals(SVG_MEDIA_TYPE) ? QRCodeGenerator.OutputFormat.SVG : QRCodeGenerator.OutputFormat.MODULES)
+                : QRCodeGenerator.OutputFormat.fromString(formatParam != null ? formatParam
+                    : request != null ? (String) request.get("format") : null);
             
-            String qrContent = "Session ID: " + sessionId;
-            String base64QrCode = QRCodeGenerator.generateQRCodeBase64(qrContent, 200, 200);
+            QRShareService.IssuedQR issued = qrShareService.createShare(userId, patientId, dataTypes, purpose,
+                expirationMinutes, format);
 
             auditService.logAccess(userId, "QR_GENERATION", "CREATE", httpRequest.getRemoteAddr());
             
-            response.put("sessionId", sessionId);
-            response.put("qrCodeImage", base64QrCode);
-            response.put("expiresAt", "2025-09-04T13:00:00");
+            if (rawType != null) {
+                Object body = format == QRCodeGenerator.OutputFormat.SVG
+                    ? issued.qrCode()
+                    : Base64.getDecoder().decode(issued.qrCode());
+                return ResponseEntity.ok()
+                    .contentType(rawType)
+                    .header("X-QR-Session-Id", issued.sessionId())
+                    .header("X-QR-Version", String.valueOf(issued.plan().version()))
+                    .header("X-QR-Error-Correction", issued.plan().ecLevel().name())
+                    .header("X-QR-Margin", String.valueOf(issued.plan().margin()))
+                    .header("X-QR-Expires-At", issued.expiresAt().toString())
+                    .body(body);
+            }
+            
+            response.put("sessionId", issued.sessionId());
+            issued.putQRCode(response);
+            response.put("expiresAt", issued.expiresAt().toString());
             response.put(SUCCESS, true);
             response.put("message", "QR Generated Successfully!");
         } catch (Exception e) {
@@ -143,7 +258,86 @@ public class MinimalApp {
             response.put("message", "Failed to generate QR code: " + e.getMessage());
         }
 
-        return response;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(response);
+    }
+
+    private List<ConsentRecord.DataType> parseDataTypes(Object value) {
+        if (!(value instanceof List<?> names)) {
+            return null;
+        }
+        List<ConsentRecord.DataType> dataTypes = new ArrayList<>();
+        for (Object name : names) {
+            try {
+                dataTypes.add(ConsentRecord.DataType.valueOf(String.valueOf(name)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown data type: " + name);
+            }
+        }
+        return dataTypes;
+    }
+
+    private MediaType resolveRawQRType(String accept) {
+        if (accept == null) {
+            return null;
+        }
+        for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+            if (mediaType.equalsTypeAndSubtype(SVG_MEDIA_TYPE)) {
+                return SVG_MEDIA_TYPE;
+            }
+            if (mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_OCTET_STREAM)) {
+                return MediaType.APPLICATION_OCTET_STREAM;
+            }
+        }
+        return null;
+    }
+
+    @PostMapping(value = "/api/qr/generate/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> generateQRBatch(@Valid @RequestBody QRBatchRequest batch,
+                                                               BindingResult validation,
+                                                               HttpServletRequest httpRequest) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(BATCH_TIMEOUT_MILLIS);
+        
+        // An invalid batch is refused whole, as a single NDJSON error line
+        if (validation.hasErrors()) {
+            Map<String, Object> error = new HashMap<>();
+            error.put(SUCCESS, false);
+            error.put("message", validation.getFieldErrors().stream()
+                .map(fieldError -> fieldError.getField() + ": " + fieldError.getDefaultMessage())
+                .collect(Collectors.joining("; ")));
+            sendLine(emitter, error);
+            emitter.complete();
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+        }
+        List<QRShareRequest> items = batch.getItems();
+        
+        // One JSON object per line, in completion order, followed by a summary line
+        try {
+            qrShareService.createShareBatch("system", httpRequest.getRemoteAddr(), items,
+                result -> sendLine(emitter, result), emitter::complete);
+        } catch (IllegalStateException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put(SUCCESS, false);
+            error.put("message", "Failed to generate QR batch: " + e.getMessage());
+            sendLine(emitter, error);
+            emitter.completeWithError(e);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+
+    private void sendLine(ResponseBodyEmitter emitter, Map<String, Object> line) {
+        try {
+            synchronized (emitter) {
+                emitter.send(line, MediaType.APPLICATION_JSON);
+                emitter.send("\n", MediaType.TEXT_PLAIN);
+            }
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    @GetMapping("/api/qr/cache/stats")
+    public Map<String, Object> getQRCacheStats() {
+        return qrCodeCache.getStats();
     }
 
     @PostMapping("/api/qr/scan")
@@ -157,34 +351,100 @@ public class MinimalApp {
             return response;
         }
         
-        String scannedData = qrData.get("qrData");
+        return processScan(qrData.get("qrData"), sessionId);
+    }
+
+    // Camera image upload for clients without a native decoder; the decoded text takes the same path
+    @PostMapping(value = "/api/qr/scan/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Map<String, Object> scanQRImage(@RequestHeader(value = "Authorization", required = false) String sessionId,
+                                           @RequestParam(value = "image", required = false) MultipartFile image) {
+        Map<String, Object> response = new HashMap<>();
         
-        // Validate QR data format and expiration
-        if (scannedData == null || scannedData.trim().isEmpty()) {
+        if (image == null || image.isEmpty()) {
             response.put(SUCCESS, false);
-            response.put("message", "Invalid QR data format");
+            response.put("message", "QR image is required");
             return response;
         }
         
-        // Basic validation - QR data should be encrypted and base64 encoded
-        if (!scannedData.matches("^[A-Za-z0-9+/]*={0,2}$")) {
+        String scannedData;
+        try {
+            scannedData = qrImageDecodeService.decode(image.getBytes());
+        } catch (TimeoutException e) {
+            response.put(SUCCESS, false);
+            response.put("message", "QR image decode timed out");
+            return response;
+        } catch (IOException e) {
+            response.put(SUCCESS, false);
+            response.put("message", "Failed to read uploaded image");
+            return response;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            response.put(SUCCESS, false);
+            response.put("message", e.getMessage());
+            return response;
+        }
+        return processScan(scannedData, sessionId);
+    }
+
+    @GetMapping("/api/qr/scan/image/stats")
+    public Map<String, Object> getQRImageDecodeStats() {
+        return qrImageDecodeService.getStats();
+    }
+
+    private Map<String, Object> processScan(String scannedData, String scannerSessionId) {
+        Map<String, Object> response = new HashMap<>();
+        
+        // Structure, length and version header in one pass; envelopes decode without intermediate copies
+        ScanIngressValidator.Kind kind = ScanIngressValidator.classify(scannedData);
+        QRPayload payload = kind.isEnvelope() ? decodeScannedPayload(scannedData) : null;
+        if (payload == null && !kind.isLegacyBase64()) {
             response.put(SUCCESS, false);
             response.put("message", "Invalid QR data format");
             return response;
         }
         
-        // Mock patient data for demo
-        Map<String, Object> patientData = new HashMap<>();
-        patientData.put("firstName", "John");
-        patientData.put("lastName", "Doe");
-        patientData.put("email", "john.doe@example.com");
-        patientData.put("dateOfBirth", "1990-01-01");
-        patientData.put("bloodType", "O+");
-        patientData.put("allergies", List.of("Penicillin", "Shellfish"));
-        patientData.put("medications", List.of("Lisinopril 10mg", "Metformin 500mg"));
-        patientData.put("conditions", List.of("Hypertension", "Type 2 Diabetes"));
+        if (payload != null && payload.getExpiresAt() != null
+                && payload.getExpiresAt().isBefore(java.time.LocalDateTime.now())) {
+            response.put(SUCCESS, false);
+            response.put("message", "QR code has expired");
+            return response;
+        }
+        
+        // A share QR opens its session once; concurrent scans of the same code get exactly one winner
+        QRSessionRegistry.LiveSession session = null;
+        if (payload != null) {
+            session = qrSessionRegistry.lookup(payload.getSessionToken());
+            QRSessionRegistry.Redemption redemption = session != null
+                ? qrSessionRegistry.redeem(session, scannerIdentity(scannerSessionId))
+                : QRSessionRegistry.Redemption.NOT_FOUND;
+            if (redemption != QRSessionRegistry.Redemption.REDEEMED) {
+                response.put(SUCCESS, false);
+                response.put("message", redemption == QRSessionRegistry.Redemption.ALREADY_USED
+                    ? "QR code has already been used"
+                    : "QR share session is no longer active");
+                return response;
+            }
+        }
+        
+        // Share sessions carry the snapshot taken at generation, so the scan only decrypts it
+        Object patientData = MOCK_PATIENT_DATA;
+        if (session != null) {
+            try {
+                PatientData snapshot = qrShareService.openSnapshot(session);
+                patientData = snapshot != null ? snapshot : Map.of("patientId", session.getPatientId());
+            } catch (RuntimeException e) {
+                response.put(SUCCESS, false);
+                response.put("message", "Failed to open shared patient data");
+                return response;
+            }
+        }
         
         response.put(SUCCESS, true);
+        if (payload != null) {
+            response.put("sessionId", payload.getSessionToken());
+            response.put("patientId", payload.getPatientId());
+            response.put("dataTypes", payload.getDataTypes());
+            response.put("expiresAt", String.valueOf(payload.getExpiresAt()));
+        }
         response.put("patientData", patientData);
         response.put("scannedAt", java.time.LocalDateTime.now());
         response.put("message", "QR code scanned successfully");
@@ -192,6 +452,311 @@ public class MinimalApp {
         return response;
     }
 
+    // Scans without a login are recorded as the system user
+    private String scannerIdentity(String authorization) {
+        return sessionUser(authorization).map(User::getEmail).orElse("system");
+    }
+
+    // Dashboards send "Bearer <session>"; a bare session id is accepted as well
+    private Optional<User> sessionUser(String authorization) {
+        String sessionId = authorization != null && authorization.startsWith("Bearer ")
+            ? authorization.substring("Bearer ".length())
+            : authorization;
+        return authService.getUserBySession(sessionId);
+    }
+
+    // Providers reach any patient's documents, patients only their own; null when allowed
+    private static HttpStatus documentAccess(Optional<User> caller, String patientId) {
+        if (caller.isEmpty()) {
+            return HttpStatus.UNAUTHORIZED;
+        }
+        User user = caller.get();
+        boolean allowed = user.getRole() == User.UserRole.PROVIDER
+            || user.getRole() == User.UserRole.PATIENT && patientId.equals(user.getPatientId());
+        return allowed ? null : HttpStatus.FORBIDDEN;
+    }
+
+    // The audit trail names users, addresses and patients, so only compliance staff read it
+    private static HttpStatus auditAccess(Optional<User> caller) {
+        if (caller.isEmpty()) {
+            return HttpStatus.UNAUTHORIZED;
+        }
+        return caller.get().getRole() == User.UserRole.COMPLIANCE ? null : HttpStatus.FORBIDDEN;
+    }
+
+    private static ResponseEntity<Map<String, Object>> denied(HttpStatus status) {
+        Map<String, Object> response = new HashMap<>();
+        response.put(SUCCESS, false);
+        response.put("message", status == HttpStatus.UNAUTHORIZED ? "A valid session is required" : "Access denied");
+        return ResponseEntity.status(status).body(response);
+    }
+
+    // A well-formed header with a corrupt body is left to the legacy checks
+    private QRPayload decodeScannedPayload(String scannedData) {
+        try {
+            return ScanIngressValidator.decodeEnvelope(scannedData);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @GetMapping("/api/qr/session/{sessionToken}")
+    public Map<String, Object> getQRSession(@PathVariable String sessionToken) {
+        Map<String, Object> response = new HashMap<>();
+        QRSessionRegistry.LiveSession session = qrSessionRegistry.lookup(sessionToken);
+        if (session == null) {
+            response.put(SUCCESS, false);
+            response.put("message", "QR share session not found or no longer active");
+            return response;
+        }
+        
+        response.put(SUCCESS, true);
+        response.put("sessionId", session.getSessionToken());
+        response.put("patientId", session.getPatientId());
+        response.put("dataTypes", session.getDataTypes());
+        response.put("status", session.getStatus());
+        response.put("accessedAt", String.valueOf(session.getAccessedAt()));
+        response.put("accessedBy", session.getAccessedBy());
+        response.put("createdAt", session.getCreatedAt().toString());
+        response.put("expiresAt", session.getExpiresAt().toString());
+        return response;
+    }
+
+    @GetMapping("/api/qr/session/{sessionToken}/qr")
+    public Map<String, Object> redisplayQR(@PathVariable String sessionToken,
+                                           @RequestParam(value = "format", required = false) String format) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            QRShareService.IssuedQR issued = qrShareService.redisplay(sessionToken,
+                QRCodeGenerator.OutputFormat.fromString(format));
+            if (issued == null) {
+                response.put(SUCCESS, false);
+                response.put("message", "QR share session not found or no longer active");
+                return response;
+            }
+            response.put("sessionId", issued.sessionId());
+            issued.putQRCode(response);
+            response.put("expiresAt", issued.expiresAt().toString());
+            response.put(SUCCESS, true);
+        } catch (Exception e) {
+            response.put(SUCCESS, false);
+            response.put("message", "Failed to display QR code: " + e.getMessage());
+        }
+        return response;
+    }
+
+    @DeleteMapping("/api/qr/session/{sessionToken}")
+    public Map<String, Object> cancelQRSession(@PathVariable String sessionToken, HttpServletRequest httpRequest) {
+        Map<String, Object> response = new HashMap<>();
+        boolean cancelled = qrSessionRegistry.cancel(sessionToken);
+        if (cancelled) {
+            auditService.logAccess("system", "QR_SESSION", "CANCEL", httpRequest.getRemoteAddr());
+        }
+        response.put(SUCCESS, cancelled);
+        response.put("message", cancelled
+            ? "QR share session cancelled"
+            : "QR share session not found or no longer active");
+        return response;
+    }
+
+    @GetMapping("/api/qr/sessions/stats")
+    public Map<String, Object> getQRSessionStats() {
+        return qrSessionRegistry.getStats();
+    }
+
+    @GetMapping("/api/security/keys/stats")
+    public Map<String, Object> getKeyStats() {
+        return encryptionService.getKeyStats();
+    }
+
+    @GetMapping("/api/security/fields/stats")
+    public Map<String, Object> getEncryptedFieldStats() {
+        return fieldDecryptCache.getStats();
+    }
+
+    @GetMapping("/api/security/blind-index/stats")
+    public Map<String, Object> getBlindIndexStats() {
+        return blindIndexReindexJob.getStats();
+    }
+
+    @GetMapping("/api/audit/metrics")
+    public Map<String, Object> getAuditMetrics() {
+        return auditService.getMetrics();
+    }
+
+    // One of userId, patientId or resource; from and to are ISO dates or date-times, UTC unless they carry
+    // an offset. Pages continue from the nextCursor of the previous one.
+    @GetMapping("/api/audit/events")
+    public ResponseEntity<Map<String, Object>> searchAuditEvents(@RequestParam(required = false) String userId,
+                                                                 @RequestParam(required = false) String patientId,
+                                                                 @RequestParam(required = false) String resource,
+                                                                 @RequestParam String from,
+                                                                 @RequestParam String to,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(defaultValue = "100") int limit,
+                                                                 @RequestHeader(value = "Authorization", required = false) String authorization,
+                                                                 HttpServletRequest httpRequest) {
+        Optional<User> caller = sessionUser(authorization);
+        HttpStatus refusal = auditAccess(caller);
+        if (refusal != null) {
+            return denied(refusal);
+        }
+        Map<String, Object> response = new HashMap<>();
+        if (auditIndex == null) {
+            response.put(SUCCESS, false);
+            response.put("message", "Audit search needs the journal audit store");
+            return ResponseEntity.ok(response);
+        }
+        int keys = (userId != null ? 1 : 0) + (patientId != null ? 1 : 0) + (resource != null ? 1 : 0);
+        if (keys != 1) {
+            response.put(SUCCESS, false);
+            response.put("message", "Exactly one of userId, patientId or resource is required");
+            return ResponseEntity.ok(response);
+        }
+        AuditIndex.Dimension dimension = userId != null ? AuditIndex.Dimension.USER
+            : patientId != null ? AuditIndex.Dimension.PATIENT : AuditIndex.Dimension.RESOURCE;
+        String key = userId != null ? userId : patientId != null ? patientId : resource;
+        
+        try {
+            AuditIndex.Page page = auditIndex.search(dimension, key, parseAuditTime(from, false),
+                parseAuditTime(to, true), cursor, Math.min(Math.max(limit, 1), 1000));
+            auditService.logAccess(caller.get().getEmail(), "AUDIT_LOG", "SEARCH", httpRequest.getRemoteAddr());
+            List<Map<String, Object>> events = new ArrayList<>();
+            for (AuditService.AuditEvent event : page.events()) {
+                events.add(auditEventEntry(event));
+            }
+            response.put(SUCCESS, true);
+            response.put("events", events);
+            response.put("count", events.size());
+            response.put("nextCursor", page.nextCursor());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            response.put(SUCCESS, false);
+            response.put("message", e.getMessage());
+        } catch (IOException e) {
+            response.put(SUCCESS, false);
+            response.put("message", "Audit search failed");
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/api/audit/index/stats")
+    public Map<String, Object> getAuditIndexStats() {
+        return auditIndex != null ? auditIndex.getStats() : Map.of();
+    }
+
+    // Journal sequences, both inclusive; checks the records against their seals and the seals up to
+    // the next signature
+    @GetMapping("/api/audit/verify")
+    public ResponseEntity<Map<String, Object>> verifyAuditTrail(@RequestParam long fromSequence,
+                                                                @RequestParam long toSequence,
+                                                                @RequestHeader(value = "Authorization", required = false) String authorization,
+                                                                HttpServletRequest httpRequest) {
+        Optional<User> caller = sessionUser(authorization);
+        HttpStatus refusal = auditAccess(caller);
+        if (refusal != null) {
+            return denied(refusal);
+        }
+        Map<String, Object> response = new HashMap<>();
+        if (fromSequence < 0 || toSequence < fromSequence) {
+            response.put(SUCCESS, false);
+            response.put("message", "fromSequence must be at least 0 and no greater than toSequence");
+            return ResponseEntity.ok(response);
+        }
+        try {
+            response.putAll(auditSealer.verify(fromSequence, toSequence));
+            response.put(SUCCESS, true);
+            auditService.logAccess(caller.get().getEmail(), "AUDIT_LOG", "VERIFY", httpRequest.getRemoteAddr());
+        } catch (IOException | RuntimeException e) {
+            response.put(SUCCESS, false);
+            response.put("message", "Audit verification failed");
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/api/audit/seal/stats")
+    public Map<String, Object> getAuditSealStats() {
+        return auditSealer.getStats();
+    }
+
+    // A user's events in the archive tier, for history older than the journal keeps; from and to as for
+    // /api/audit/events
+    @GetMapping("/api/audit/archive/events")
+    public ResponseEntity<Map<String, Object>> searchArchivedAuditEvents(@RequestParam String userId,
+                                                                         @RequestParam String from,
+                                                                         @RequestParam String to,
+                                                                         @RequestParam(defaultValue = "100") int limit,
+                                                                         @RequestHeader(value = "Authorization", required = false) String authorization,
+                                                                         HttpServletRequest httpRequest) {
+        Optional<User> caller = sessionUser(authorization);
+        HttpStatus refusal = auditAccess(caller);
+        if (refusal != null) {
+            return denied(refusal);
+        }
+        Map<String, Object> response = new HashMap<>();
+        if (auditJournal == null) {
+            response.put(SUCCESS, false);
+            response.put("message", "Audit archive search needs the journal audit store");
+            return ResponseEntity.ok(response);
+        }
+        try {
+            List<AuditService.AuditEvent> found = auditJournal.archive().search(userId,
+                AuditService.AuditEvent.toMicros(parseAuditTime(from, false)),
+                AuditService.AuditEvent.toMicros(parseAuditTime(to, true)), Math.min(Math.max(limit, 1), 1000));
+            auditService.logAccess(caller.get().getEmail(), "AUDIT_LOG", "ARCHIVE_SEARCH", httpRequest.getRemoteAddr());
+            List<Map<String, Object>> events = new ArrayList<>();
+            for (AuditService.AuditEvent event : found) {
+                events.add(auditEventEntry(event));
+            }
+            response.put(SUCCESS, true);
+            response.put("events", events);
+            response.put("count", events.size());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            response.put(SUCCESS, false);
+            response.put("message", e.getMessage());
+        } catch (IOException e) {
+            response.put(SUCCESS, false);
+            response.put("message", "Audit archive search failed");
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/api/audit/archive/stats")
+    public Map<String, Object> getAuditArchiveStats() {
+        return auditCompactor != null ? auditCompactor.getStats() : Map.of();
+    }
+
+    private static Map<String, Object> auditEventEntry(AuditService.AuditEvent event) {
+        Map<String, Object> entry = new HashMap<>();
+        // ISO-8601 with a Z, so the time base is never in doubt
+        entry.put("timestamp", event.occurredAt().toString());
+        entry.put("userId", event.userId());
+        entry.put("patientId", event.patientId());
+        entry.put("resource", event.resource());
+        entry.put("action", event.action());
+        entry.put("ipAddress", event.ipAddress());
+        entry.put("status", event.status());
+        return entry;
+    }
+
+    // Audit times are UTC: a bare date covers the whole UTC day, a date-time without an offset is read as
+    // UTC, and one with an offset is converted to UTC
+    private static LocalDateTime parseAuditTime(String value, boolean endOfDay) {
+        if (value.length() == 10) {
+            LocalDate date = LocalDate.parse(value);
+            return endOfDay ? date.plusDays(1).atStartOfDay().minusNanos(1) : date.atStartOfDay();
+        }
+        TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(value, OffsetDateTime::from,
+            LocalDateTime::from);
+        return parsed instanceof OffsetDateTime
+            ? ((OffsetDateTime) parsed).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime()
+            : (LocalDateTime) parsed;
+    }
+
+    @GetMapping("/api/documents/stats")
+    public Map<String, Object> getDocumentStats() {
+        return clinicalDocumentService.getStats();
+    }
+
     @GetMapping("/api/version")
     public Map<String, Object> getVersion() {
         Map<String, Object> response = new HashMap<>();
@@ -266,6 +831,123 @@ public class MinimalApp {
         return response;
     }
     
+    // Encrypted while it streams from the multipart temp file to storage, so no copy is held on the heap
+    @PostMapping(value = "/api/patients/{patientId}/documents", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Map<String, Object>> uploadDocument(@PathVariable String patientId,
+                                                              @RequestParam(value = "file", required = false) MultipartFile file,
+                                                              @RequestHeader(value = "Authorization", required = false) String authorization,
+                                                              HttpServletRequest httpRequest) {
+        Optional<User> caller = sessionUser(authorization);
+        HttpStatus refusal = documentAccess(caller, patientId);
+        if (refusal != null) {
+            return denied(refusal);
+        }
+        String identity = caller.get().getEmail();
+        Map<String, Object> response = new HashMap<>();
+        
+        if (file == null || file.isEmpty()) {
+            response.put(SUCCESS, false);
+            response.put("message", "Document file is required");
+            return ResponseEntity.ok(response);
+        }
+        
+        try (InputStream content = file.getInputStream()) {
+            ClinicalDocumentService.DocumentInfo info = clinicalDocumentService.store(patientId,
+                file.getOriginalFilename(), file.getContentType(), content);
+            auditService.logDataAccess(identity, patientId, "DOCUMENTS", "Document upload");
+            response.putAll(documentSummary(info));
+            response.put(SUCCESS, true);
+        } catch (IllegalArgumentException e) {
+            response.put(SUCCESS, false);
+            response.put("message", e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            auditService.logFailure(identity, "CLINICAL_DOCUMENT", "CREATE", httpRequest.getRemoteAddr(), e.getMessage());
+            response.put(SUCCESS, false);
+            response.put("message", "Failed to store document");
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    // File names are decrypted for the listing, so it is audited like a download
+    @GetMapping("/api/patients/{patientId}/documents")
+    public ResponseEntity<Map<String, Object>> listDocuments(@PathVariable String patientId,
+                                                             @RequestHeader(value = "Authorization", required = false) String authorization) {
+        Optional<User> caller = sessionUser(authorization);
+        HttpStatus refusal = documentAccess(caller, patientId);
+        if (refusal != null) {
+            return denied(refusal);
+        }
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<Map<String, Object>> documents = new ArrayList<>();
+            for (ClinicalDocumentService.DocumentInfo info : clinicalDocumentService.list(patientId)) {
+                documents.add(documentSummary(info));
+            }
+            auditService.logDataAccess(caller.get().getEmail(), patientId, "DOCUMENTS", "Document list");
+            response.put(SUCCESS, true);
+            response.put("documents", documents);
+            response.put("total", documents.size());
+        } catch (IllegalArgumentException e) {
+            response.put(SUCCESS, false);
+            response.put("message", e.getMessage());
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    // Decrypted chunk by chunk into the response; a damaged file aborts the transfer part way
+    @GetMapping("/api/patients/{patientId}/documents/{documentId}")
+    public ResponseEntity<StreamingResponseBody> downloadDocument(@PathVariable String patientId,
+                                                                  @PathVariable String documentId,
+                                                                  @RequestHeader(value = "Authorization", required = false) String authorization) {
+        Optional<User> caller = sessionUser(authorization);
+        HttpStatus refusal = documentAccess(caller, patientId);
+        if (refusal != null) {
+            return ResponseEntity.status(refusal).build();
+        }
+        Optional<ClinicalDocumentService.DocumentInfo> found;
+        try {
+            found = clinicalDocumentService.find(patientId, documentId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        ClinicalDocumentService.DocumentInfo info = found.get();
+        auditService.logDataAccess(caller.get().getEmail(), patientId, "DOCUMENTS", "Document download");
+        
+        StreamingResponseBody body = out -> {
+            try (InputStream content = clinicalDocumentService.openContent(info)) {
+                content.transferTo(out);
+            }
+        };
+        MediaType contentType;
+        try {
+            contentType = MediaType.parseMediaType(info.contentType());
+        } catch (org.springframework.http.InvalidMediaTypeException e) {
+            contentType = MediaType.APPLICATION_OCTET_STREAM;
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .contentType(contentType)
+            .contentLength(info.size());
+        if (info.fileName() != null) {
+            builder.header(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(info.fileName(), StandardCharsets.UTF_8).build().toString());
+        }
+        return builder.body(body);
+    }
+
+    private Map<String, Object> documentSummary(ClinicalDocumentService.DocumentInfo info) {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("documentId", info.documentId());
+        summary.put("patientId", info.patientId());
+        summary.put("fileName", info.fileName());
+        summary.put("contentType", info.contentType());
+        summary.put("size", info.size());
+        summary.put("storedAt", java.time.Instant.ofEpochMilli(info.storedAtMillis()).toString());
+        return summary;
+    }
+    
     @GetMapping("/api/patients/search")
     public Map<String, Object> searchPatients(@RequestParam(required = false) String name,
                                              @RequestParam(required = false) String id) {
@@ -310,6 +992,11 @@ public class MinimalApp {
         return complianceService.getComplianceStatus();
     }
     
+    @GetMapping("/api/compliance/lockout/stats")
+    public Map<String, Object> getLockoutStats() {
+        return complianceService.getLockoutStats();
+    }
+    
     @GetMapping("/api/patients/fhir/{id}")
     public Map<String, Object> getFHIRPatient(@PathVariable String id) {
         Map<String, Object> fhirPatient = new HashMap<>();
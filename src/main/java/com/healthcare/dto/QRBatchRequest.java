@@ -0,0 +1,17 @@
+package com.healthcare.dto;
+
+import lombok.Data;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@Data
+public class QRBatchRequest {
+    
+    @NotEmpty(message = "Batch items cannot be empty")
+    @Size(max = 500, message = "Maximum 500 items per batch")
+    @Valid
+    private List<QRShareRequest> items;
+}
@@ -9,6 +9,9 @@ import java.util.List;
 @Data
 public class QRShareRequest {
     
+    @NotBlank(message = "Patient ID is required")
+    private String patientId;
+    
     @NotEmpty(message = "Data types cannot be empty")
     @Size(max = 10, message = "Maximum 10 data types allowed")
     private List<ConsentRecord.DataType> dataTypes;
@@ -19,4 +22,7 @@ public class QRShareRequest {
     
     @Size(max = 500, message = "Purpose cannot exceed 500 characters")
     private String purpose;
+    
+    @Pattern(regexp = "(?i)png|svg|modules", message = "Format must be png, svg or modules")
+    private String format;
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.healthcare.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Rows are written in batches by JdbcAuditEventSink; the entity defines the table for schema generation
+@Entity
+@Table(name = "audit_events", indexes = {
+    @Index(name = "idx_audit_events_occurred_at", columnList = "occurred_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditLogEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+    
+    @Column(name = "user_id")
+    private String userId;
+    
+    @Column(nullable = false)
+    private String resource;
+    
+    @Column(nullable = false)
+    private String action;
+    
+    @Column(name = "ip_address")
+    private String ipAddress;
+    
+    @Column(length = 2048)
+    private String status;
+    
+    @Column(name = "patient_id")
+    private String patientId;
+}
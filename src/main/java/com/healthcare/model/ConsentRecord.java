@@ -1,10 +1,12 @@
 package com.healthcare.model;
 
+import com.healthcare.util.EncryptedString;
 import com.healthcare.util.EncryptionConverter;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
@@ -48,7 +50,8 @@ public class ConsentRecord {
     
     @Lob
     @Convert(converter = EncryptionConverter.class)
-    private String digitalSignature;
+    @EqualsAndHashCode.Exclude
+    private EncryptedString digitalSignature;
     
     public enum ConsentStatus {
         ACTIVE, EXPIRED, REVOKED, PENDING
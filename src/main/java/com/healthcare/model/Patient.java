@@ -1,10 +1,13 @@
 package com.healthcare.model;
 
+import com.healthcare.util.EncryptedString;
 import com.healthcare.util.EncryptionConverter;
+import com.healthcare.util.PatientBlindIndexListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -13,7 +16,15 @@ import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
-@Table(name = "patients")
+@Table(name = "patients", indexes = {
+    @Index(name = "idx_patients_email_bidx", columnList = "email_bidx", unique = true),
+    @Index(name = "idx_patients_email_prefix_bidx", columnList = "email_prefix_bidx"),
+    @Index(name = "idx_patients_ssn_bidx", columnList = "ssn_bidx"),
+    @Index(name = "idx_patients_ssn_last4_bidx", columnList = "ssn_last4_bidx"),
+    @Index(name = "idx_patients_date_of_birth_bidx", columnList = "date_of_birth_bidx"),
+    @Index(name = "idx_patients_blind_index_version", columnList = "blind_index_version")
+})
+@EntityListeners(PatientBlindIndexListener.class)
 @Data
 @Builder
 @NoArgsConstructor
@@ -33,16 +44,40 @@ public class Patient {
     @Column(nullable = false)
     private String lastName;
     
-    @Column(unique = true, nullable = false)
-    private String email;
+    // Encrypted fields stay out of equals and hashCode, which would decrypt them
+    @Convert(converter = EncryptionConverter.class)
+    @Column(nullable = false, length = 1024)
+    @EqualsAndHashCode.Exclude
+    private EncryptedString email;
     
     @Convert(converter = EncryptionConverter.class)
     @Column(name = "date_of_birth")
-    private String encryptedDateOfBirth;
+    @EqualsAndHashCode.Exclude
+    private EncryptedString encryptedDateOfBirth;
     
     @Convert(converter = EncryptionConverter.class)
     @Column(name = "ssn")
-    private String encryptedSSN;
+    @EqualsAndHashCode.Exclude
+    private EncryptedString encryptedSSN;
+    
+    // Blind indexes over the encrypted columns, kept current by PatientBlindIndexListener
+    @Column(name = "email_bidx", length = 32)
+    private String emailBlindIndex;
+    
+    @Column(name = "email_prefix_bidx", length = 32)
+    private String emailPrefixBlindIndex;
+    
+    @Column(name = "ssn_bidx", length = 32)
+    private String ssnBlindIndex;
+    
+    @Column(name = "ssn_last4_bidx", length = 32)
+    private String ssnLast4BlindIndex;
+    
+    @Column(name = "date_of_birth_bidx", length = 32)
+    private String dateOfBirthBlindIndex;
+    
+    @Column(name = "blind_index_version")
+    private Integer blindIndexVersion;
     
     @OneToMany(mappedBy = "patient", cascade = CascadeType.ALL)
     private Set<ConsentRecord> consents;
@@ -48,6 +48,10 @@ public class QRShareSession {
     @Lob
     private String qrCodeData;
     
+    // Encrypted, consent-filtered patient data captured when the QR was generated
+    @Column(length = 65536)
+    private byte[] patientSnapshot;
+    
     public enum SessionStatus {
         ACTIVE, EXPIRED, USED, CANCELLED
     }
@@ -11,7 +11,9 @@ public class User {
     private String patientId;  // For patients
 
     public enum UserRole {
-        PATIENT, PROVIDER
+        PATIENT, PROVIDER,
+        // Reads the audit trail; no access to patient data
+        COMPLIANCE
     }
 
     // Constructors
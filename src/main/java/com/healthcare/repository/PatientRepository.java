@@ -0,0 +1,11 @@
+package com.healthcare.repository;
+
+import com.healthcare.model.Patient;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface PatientRepository extends JpaRepository<Patient, String>, PatientSearchRepository {
+
+    Optional<Patient> findByFhirId(String fhirId);
+}
@@ -0,0 +1,24 @@
+package com.healthcare.repository;
+
+import com.healthcare.model.Patient;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Searches over the encrypted patient columns. Each query is an indexed lookup on a blind index
+ * column; the candidates are then decrypted and compared, so an index collision never leaks a row.
+ */
+public interface PatientSearchRepository {
+
+    Optional<Patient> findByEmail(String email);
+
+    // Needs at least healthcare.security.blind-index.email-prefix-length characters
+    List<Patient> findByEmailPrefix(String prefix);
+
+    List<Patient> findBySsn(String ssn);
+
+    List<Patient> findBySsnLast4(String last4);
+
+    List<Patient> findByDateOfBirth(String dateOfBirth);
+}
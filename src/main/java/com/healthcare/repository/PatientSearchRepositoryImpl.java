@@ -0,0 +1,91 @@
+package com.healthcare.repository;
+
+import com.healthcare.model.Patient;
+import com.healthcare.util.BlindIndexService;
+import com.healthcare.util.BlindIndexService.Field;
+import com.healthcare.util.EncryptedString;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+public class PatientSearchRepositoryImpl implements PatientSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private BlindIndexService blindIndexService;
+
+    @Override
+    public Optional<Patient> findByEmail(String email) {
+        String wanted = blindIndexService.normalize(Field.EMAIL, email);
+        // Null or blank input normalizes to nothing and can match no one
+        if (wanted == null) {
+            return Optional.empty();
+        }
+        return search("emailBlindIndex", Field.EMAIL, email, Patient::getEmail,
+            wanted::equals).stream().findFirst();
+    }
+
+    @Override
+    public List<Patient> findByEmailPrefix(String prefix) {
+        String wanted = blindIndexService.normalize(Field.EMAIL, prefix);
+        if (wanted == null || wanted.length() < blindIndexService.emailPrefixLength()) {
+            throw new IllegalArgumentException(
+                "Email prefix needs at least " + blindIndexService.emailPrefixLength() + " characters");
+        }
+        // The index covers the first characters only; the rest of a longer prefix is checked after decrypting
+        return search("emailPrefixBlindIndex", Field.EMAIL_PREFIX, wanted, Patient::getEmail,
+            value -> value != null && value.startsWith(wanted));
+    }
+
+    @Override
+    public List<Patient> findBySsn(String ssn) {
+        String wanted = blindIndexService.normalize(Field.SSN, ssn);
+        return search("ssnBlindIndex", Field.SSN, ssn, Patient::getEncryptedSSN,
+            value -> wanted.equals(blindIndexService.normalize(Field.SSN, value)));
+    }
+
+    @Override
+    public List<Patient> findBySsnLast4(String last4) {
+        String wanted = blindIndexService.normalize(Field.SSN_LAST4, last4);
+        return search("ssnLast4BlindIndex", Field.SSN_LAST4, last4, Patient::getEncryptedSSN,
+            value -> wanted.equals(blindIndexService.normalize(Field.SSN_LAST4, value)));
+    }
+
+    @Override
+    public List<Patient> findByDateOfBirth(String dateOfBirth) {
+        String wanted = blindIndexService.normalize(Field.DATE_OF_BIRTH, dateOfBirth);
+        return search("dateOfBirthBlindIndex", Field.DATE_OF_BIRTH, dateOfBirth, Patient::getEncryptedDateOfBirth,
+            value -> wanted.equals(blindIndexService.normalize(Field.DATE_OF_BIRTH, value)));
+    }
+
+    // Email is compared in its normalized form, the other fields normalize inside their predicates
+    private List<Patient> search(String indexAttribute, Field field, String value,
+                                 Function<Patient, EncryptedString> column, Predicate<String> matches) {
+        List<String> indexes = blindIndexService.lookupIndexes(field, value);
+        if (indexes.isEmpty()) {
+            return List.of();
+        }
+        List<Patient> candidates = entityManager.createQuery(
+                "SELECT p FROM Patient p WHERE p." + indexAttribute + " IN :indexes ORDER BY p.id", Patient.class)
+            .setParameter("indexes", indexes)
+            .getResultList();
+        return candidates.stream()
+            .filter(patient -> {
+                EncryptedString encrypted = column.apply(patient);
+                if (encrypted == null) {
+                    return false;
+                }
+                String plaintext = encrypted.get();
+                return matches.test(field == Field.EMAIL || field == Field.EMAIL_PREFIX
+                    ? blindIndexService.normalize(Field.EMAIL, plaintext) : plaintext);
+            })
+            .toList();
+    }
+}
@@ -0,0 +1,705 @@
+package com.healthcare.service;
+
+import com.healthcare.util.LatencyHistogram;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Cold tier of the audit journal. Each aged segment becomes one archive file whose records are cut into
+ * blocks; a block is stored column by column, with times as deltas and every string column as a block
+ * dictionary plus codes, and then deflated. The file header holds the file's sequence and time ranges and
+ * points to a Bloom filter of its user IDs and a directory of blocks with their own time ranges, so a
+ * search rules out most files and blocks without decompressing them.
+ *
+ * <p>Archived records read back as the exact journal payloads they were written as: records that would
+ * not encode back to the same bytes are kept whole. Seals and index postings made against the journal
+ * therefore stay valid after the move.
+ */
+public final class AuditArchive {
+
+    private static final int MAGIC = 0x41554441; // "AUDA"
+    private static final short FORMAT_VERSION = 1;
+    private static final int HEADER_LENGTH = 80;
+    // first sequence, count, compressed length, offset, min and max time
+    private static final int BLOCK_ENTRY_LENGTH = 40;
+    private static final int BLOOM_HASHES = 7;
+    private static final int BLOOM_BITS_PER_USER = 10;
+    private static final String PREFIX = "archive-";
+    private static final String SUFFIX = ".arc";
+    private static final int MAX_MAPPED_FILES = 64;
+    private static final int MAX_CACHED_BLOCKS = 32;
+
+    // String columns, in the order they are stored
+    private static final int USER = 0, RESOURCE = 1, ACTION = 2, IP = 3, DETAIL = 4, PATIENT = 5, COLUMNS = 6;
+
+    // sourceBytes is what the records took in the journal
+    private record ArchiveFile(Path path, long firstSequence, long lastSequence, long minMicros, long maxMicros,
+                               long sourceBytes, long bytes) {
+    }
+
+    private final Path directory;
+    private final int blockRecords;
+    // Keyed by first sequence; files cover consecutive sequence ranges
+    private final NavigableMap<Long, ArchiveFile> files = new ConcurrentSkipListMap<>();
+    private final Map<Long, MappedByteBuffer> mappedFiles = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, MappedByteBuffer> eldest) {
+                return size() > MAX_MAPPED_FILES;
+            }
+        });
+    // Keyed by the block's first sequence
+    private final Map<Long, Block> blocks = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Block> eldest) {
+                return size() > MAX_CACHED_BLOCKS;
+            }
+        });
+
+    private final AtomicLong filesWritten = new AtomicLong();
+    private final AtomicLong filesDeleted = new AtomicLong();
+    private final AtomicLong recordsArchived = new AtomicLong();
+    private final AtomicLong recordsKeptWhole = new AtomicLong();
+    private final AtomicLong blocksDecoded = new AtomicLong();
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong filesSkipped = new AtomicLong();
+    private final AtomicLong blocksSkipped = new AtomicLong();
+    private final LatencyHistogram searchLatency = new LatencyHistogram();
+
+    AuditArchive(Path directory, int blockRecords) throws IOException {
+        this.directory = directory;
+        this.blockRecords = blockRecords;
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path path : stream) {
+                ArchiveFile file = readHeader(path);
+                files.put(file.firstSequence(), file);
+            }
+        }
+    }
+
+    // First sequence still held, or -1 when the archive is empty
+    public long firstSequence() {
+        Map.Entry<Long, ArchiveFile> first = files.firstEntry();
+        return first != null ? first.getKey() : -1;
+    }
+
+    // One past the last archived sequence, or -1 when the archive is empty
+    public long nextSequence() {
+        Map.Entry<Long, ArchiveFile> last = files.lastEntry();
+        return last != null ? last.getValue().lastSequence() + 1 : -1;
+    }
+
+    // Earliest event time in any archive file, or -1 when the archive is empty
+    public long minMicros() {
+        long min = -1;
+        for (ArchiveFile file : files.values()) {
+            if (min < 0 || file.minMicros() < min) {
+                min = file.minMicros();
+            }
+        }
+        return min;
+    }
+
+    public boolean contains(long sequence) {
+        Map.Entry<Long, ArchiveFile> entry = files.floorEntry(sequence);
+        return entry != null && sequence <= entry.getValue().lastSequence();
+    }
+
+    // Payloads from fromSequence on, at most limit of them. Archived records have no segment offset, so
+    // visitors are given 0; readAt finds them by sequence alone.
+    int scan(long fromSequence, int limit, AuditJournal.PayloadVisitor visitor) throws IOException {
+        int delivered = 0;
+        Long key = files.floorKey(fromSequence);
+        if (key == null) {
+            key = files.isEmpty() ? null : files.firstKey();
+        }
+        ByteBuffer scratch = ByteBuffer.allocate(1024);
+        while (key != null && delivered < limit) {
+            ArchiveFile file = files.get(key);
+            if (file == null) {
+                break;
+            }
+            ByteBuffer mapped = map(file);
+            int blockCount = mapped.getInt(40);
+            for (int b = blockIndex(mapped, blockCount, fromSequence); b < blockCount && delivered < limit; b++) {
+                Block block = block(mapped, b);
+                for (int i = (int) Math.max(0, fromSequence - block.firstSequence); i < block.count && delivered < limit; i++) {
+                    ByteBuffer payload = block.payload(i, scratch);
+                    if (!payload.isReadOnly()) {
+                        scratch = payload;
+                    }
+                    visitor.visit(block.firstSequence + i, 0, payload);
+                    delivered++;
+                }
+            }
+            key = files.higherKey(key);
+        }
+        return delivered;
+    }
+
+    AuditService.AuditEvent read(long sequence) throws IOException {
+        Map.Entry<Long, ArchiveFile> entry = files.floorEntry(sequence);
+        if (entry == null || sequence > entry.getValue().lastSequence()) {
+            throw new IllegalArgumentException("Audit record " + sequence + " is past retention");
+        }
+        ByteBuffer mapped = map(entry.getValue());
+        Block block = block(mapped, blockIndex(mapped, mapped.getInt(40), sequence));
+        return block.event((int) (sequence - block.firstSequence));
+    }
+
+    // A user's archived events with times in [fromMicros, toMicros], oldest file first. Files and blocks
+    // outside the time range, and files whose Bloom filter rules the user out, are never decompressed.
+    public List<AuditService.AuditEvent> search(String userId, long fromMicros, long toMicros, int limit)
+            throws IOException {
+        long started = System.nanoTime();
+        List<AuditService.AuditEvent> events = new ArrayList<>();
+        for (ArchiveFile file : files.values()) {
+            if (events.size() >= limit) {
+                break;
+            }
+            if (file.maxMicros() < fromMicros || file.minMicros() > toMicros) {
+                filesSkipped.incrementAndGet();
+                continue;
+            }
+            ByteBuffer mapped = map(file);
+            if (!mightContain(mapped, userId)) {
+                filesSkipped.incrementAndGet();
+                continue;
+            }
+            int blockCount = mapped.getInt(40);
+            long directoryOffset = mapped.getLong(48);
+            for (int b = 0; b < blockCount && events.size() < limit; b++) {
+                int entry = (int) directoryOffset + b * BLOCK_ENTRY_LENGTH;
+                if (mapped.getLong(entry + 32) < fromMicros || mapped.getLong(entry + 24) > toMicros) {
+                    blocksSkipped.incrementAndGet();
+                    continue;
+                }
+                Block block = block(mapped, b);
+                for (int i = 0; i < block.count && events.size() < limit; i++) {
+                    if (block.micros[i] >= fromMicros && block.micros[i] <= toMicros && userId.equals(block.userId(i))) {
+                        events.add(block.event(i));
+                    }
+                }
+            }
+        }
+        searches.incrementAndGet();
+        searchLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+        return events;
+    }
+
+    // Deletes whole files, oldest first, while everything in them is older than the cutoff
+    int deleteBefore(long cutoffMicros) throws IOException {
+        int deleted = 0;
+        Map.Entry<Long, ArchiveFile> first;
+        while ((first = files.firstEntry()) != null && first.getValue().maxMicros() < cutoffMicros) {
+            files.remove(first.getKey());
+            mappedFiles.remove(first.getKey());
+            Files.deleteIfExists(first.getValue().path());
+            filesDeleted.incrementAndGet();
+            deleted++;
+        }
+        return deleted;
+    }
+
+    Writer writer(long firstSequence, long lastSequence) throws IOException {
+        return new Writer(firstSequence, lastSequence);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long archived = 0;
+        long source = 0;
+        long bytes = 0;
+        for (ArchiveFile file : files.values()) {
+            archived += file.lastSequence() - file.firstSequence() + 1;
+            source += file.sourceBytes();
+            bytes += file.bytes();
+        }
+        stats.put("files", files.size());
+        stats.put("records", archived);
+        stats.put("bytes", bytes);
+        stats.put("firstSequence", firstSequence());
+        stats.put("filesWritten", filesWritten.get());
+        stats.put("filesDeleted", filesDeleted.get());
+        stats.put("recordsArchived", recordsArchived.get());
+        stats.put("recordsKeptWhole", recordsKeptWhole.get());
+        stats.put("sourceBytes", source);
+        stats.put("compressionRatio", bytes > 0 ? (double) source / bytes : 0.0);
+        stats.put("blocksDecoded", blocksDecoded.get());
+        stats.put("searches", searches.get());
+        stats.put("filesSkipped", filesSkipped.get());
+        stats.put("blocksSkipped", blocksSkipped.get());
+        stats.put("searchLatency", searchLatency.summary());
+        return stats;
+    }
+
+    /**
+     * Builds one archive file from consecutive journal payloads. Blocks are written to a temporary file
+     * as they fill; finish adds the directory, the Bloom filter and the header, then moves the file into
+     * place and makes its records readable.
+     */
+    final class Writer {
+        private final long firstSequence;
+        private final long lastSequence;
+        private final Path temp;
+        private final FileChannel channel;
+        private final Set<String> users = new HashSet<>();
+        private final ByteArrayOutputStream directoryEntries = new ByteArrayOutputStream();
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private final List<AuditService.AuditEvent> pending = new ArrayList<>();
+        private final Map<Integer, byte[]> whole = new HashMap<>();
+        private ByteBuffer scratch = ByteBuffer.allocate(1024);
+        private long nextSequence;
+        private long position = HEADER_LENGTH;
+        private int blockCount;
+        private long minMicros = Long.MAX_VALUE;
+        private long maxMicros = Long.MIN_VALUE;
+        private long payloadBytes;
+
+        private Writer(long firstSequence, long lastSequence) throws IOException {
+            this.firstSequence = firstSequence;
+            this.lastSequence = lastSequence;
+            this.nextSequence = firstSequence;
+            this.temp = directory.resolve(fileName(firstSequence) + ".tmp");
+            this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        }
+
+        // Payloads in sequence order, from firstSequence on
+        void add(ByteBuffer payload) {
+            AuditService.AuditEvent event = AuditEventCodec.decode(payload.duplicate());
+            // Kept whole when the columns would not give back the same bytes, so seals still match
+            if (!encodesTo(event, payload)) {
+                byte[] bytes = new byte[payload.remaining()];
+                payload.duplicate().get(bytes);
+                whole.put(pending.size(), bytes);
+            }
+            pending.add(event);
+            payloadBytes += AuditJournal.RECORD_OVERHEAD + payload.remaining();
+            if (event.userId() != null) {
+                users.add(event.userId());
+            }
+            nextSequence++;
+            if (pending.size() == blockRecords) {
+                writeBlock();
+            }
+        }
+
+        void finish() throws IOException {
+            try {
+                if (nextSequence != lastSequence + 1) {
+                    throw new IllegalStateException("Audit archive of " + firstSequence + "-" + lastSequence
+                        + " got records up to " + (nextSequence - 1));
+                }
+                if (!pending.isEmpty()) {
+                    writeBlock();
+                }
+                long directoryOffset = position;
+                write(ByteBuffer.wrap(directoryEntries.toByteArray()));
+                long bloomOffset = position;
+                byte[] bloom = bloom(users);
+                write(ByteBuffer.wrap(bloom));
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+                header.putInt(MAGIC).putShort(FORMAT_VERSION).putShort((short) 0)
+                    .putLong(firstSequence).putLong(lastSequence).putLong(minMicros).putLong(maxMicros)
+                    .putInt(blockCount).putInt(BLOOM_HASHES).putLong(directoryOffset).putLong(bloomOffset)
+                    .putInt(bloom.length).putLong(payloadBytes);
+                header.flip();
+                channel.write(header, 0);
+                channel.force(true);
+                channel.close();
+            } catch (IOException | RuntimeException e) {
+                abort();
+                throw e;
+            } finally {
+                deflater.end();
+            }
+            Path file = directory.resolve(fileName(firstSequence));
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            files.put(firstSequence, new ArchiveFile(file, firstSequence, lastSequence, minMicros, maxMicros,
+                payloadBytes, position));
+            filesWritten.incrementAndGet();
+            recordsArchived.addAndGet(lastSequence - firstSequence + 1);
+        }
+
+        void abort() {
+            try {
+                channel.close();
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                // The temporary file is overwritten by the next attempt
+            }
+        }
+
+        private boolean encodesTo(AuditService.AuditEvent event, ByteBuffer payload) {
+            while (true) {
+                scratch.clear();
+                try {
+                    AuditEventCodec.encode(event, scratch);
+                    scratch.flip();
+                    return scratch.equals(payload);
+                } catch (BufferOverflowException e) {
+                    scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+                }
+            }
+        }
+
+        private void writeBlock() {
+            int count = pending.size();
+            long blockFirst = nextSequence - count;
+            long blockMin = Long.MAX_VALUE;
+            long blockMax = Long.MIN_VALUE;
+            ByteArrayOutputStream raw = new ByteArrayOutputStream(count * 16);
+            putVarint(raw, count);
+            long previous = 0;
+            for (AuditService.AuditEvent event : pending) {
+                putVarint(raw, zigZag(event.occurredMicros() - previous));
+                previous = event.occurredMicros();
+                blockMin = Math.min(blockMin, event.occurredMicros());
+                blockMax = Math.max(blockMax, event.occurredMicros());
+            }
+            for (AuditService.AuditEvent event : pending) {
+                raw.write(event.outcome());
+            }
+            for (int column = 0; column < COLUMNS; column++) {
+                putColumn(raw, column);
+            }
+            putVarint(raw, whole.size());
+            for (Map.Entry<Integer, byte[]> entry : whole.entrySet()) {
+                putVarint(raw, entry.getKey());
+                putVarint(raw, entry.getValue().length);
+                raw.writeBytes(entry.getValue());
+            }
+
+            byte[] compressed = deflate(raw.toByteArray());
+            try {
+                write(ByteBuffer.wrap(compressed));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            ByteBuffer entry = ByteBuffer.allocate(BLOCK_ENTRY_LENGTH);
+            entry.putLong(blockFirst).putInt(count).putInt(compressed.length).putLong(position - compressed.length)
+                .putLong(blockMin).putLong(blockMax);
+            directoryEntries.writeBytes(entry.array());
+            minMicros = Math.min(minMicros, blockMin);
+            maxMicros = Math.max(maxMicros, blockMax);
+            recordsKeptWhole.addAndGet(whole.size());
+            blockCount++;
+            pending.clear();
+            whole.clear();
+        }
+
+        // A dictionary of the block's distinct values, then one code per record with 0 for null
+        private void putColumn(ByteArrayOutputStream raw, int column) {
+            Map<String, Integer> codes = new LinkedHashMap<>();
+            int[] recordCodes = new int[pending.size()];
+            for (int i = 0; i < pending.size(); i++) {
+                String value = value(pending.get(i), column);
+                if (value != null) {
+                    Integer code = codes.get(value);
+                    if (code == null) {
+                        code = codes.size() + 1;
+                        codes.put(value, code);
+                    }
+                    recordCodes[i] = code;
+                }
+            }
+            putVarint(raw, codes.size());
+            for (String value : codes.keySet()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                putVarint(raw, bytes.length);
+                raw.writeBytes(bytes);
+            }
+            for (int code : recordCodes) {
+                putVarint(raw, code);
+            }
+        }
+
+        private byte[] deflate(byte[] input) {
+            deflater.reset();
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 4 + 64);
+            byte[] chunk = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                output.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return output.toByteArray();
+        }
+
+        private void write(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                position += channel.write(bytes, position);
+            }
+        }
+    }
+
+    // One decompressed block, kept in memory while it is in the cache
+    private static final class Block {
+        final long firstSequence;
+        final int count;
+        final long[] micros;
+        final byte[] outcomes;
+        final String[][] values;
+        final byte[][] whole;
+
+        Block(long firstSequence, byte[] raw) {
+            this.firstSequence = firstSequence;
+            ByteBuffer in = ByteBuffer.wrap(raw);
+            count = (int) getVarint(in);
+            micros = new long[count];
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                previous += unZigZag(getVarint(in));
+                micros[i] = previous;
+            }
+            outcomes = new byte[count];
+            in.get(outcomes);
+            values = new String[COLUMNS][count];
+            for (int column = 0; column < COLUMNS; column++) {
+                String[] dictionary = new String[(int) getVarint(in) + 1];
+                for (int code = 1; code < dictionary.length; code++) {
+                    byte[] bytes = new byte[(int) getVarint(in)];
+                    in.get(bytes);
+                    dictionary[code] = new String(bytes, StandardCharsets.UTF_8);
+                }
+                for (int i = 0; i < count; i++) {
+                    values[column][i] = dictionary[(int) getVarint(in)];
+                }
+            }
+            whole = new byte[count][];
+            int wholeCount = (int) getVarint(in);
+            for (int n = 0; n < wholeCount; n++) {
+                int index = (int) getVarint(in);
+                whole[index] = new byte[(int) getVarint(in)];
+                in.get(whole[index]);
+            }
+        }
+
+        String userId(int i) {
+            return whole[i] != null ? event(i).userId() : values[USER][i];
+        }
+
+        AuditService.AuditEvent event(int i) {
+            if (whole[i] != null) {
+                return AuditEventCodec.decode(ByteBuffer.wrap(whole[i]));
+            }
+            return new AuditService.AuditEvent(micros[i], values[USER][i], values[RESOURCE][i], values[ACTION][i],
+                values[IP][i], outcomes[i], values[DETAIL][i], values[PATIENT][i], false);
+        }
+
+        // The record's journal payload: encoded into scratch, or a larger buffer when scratch is too small,
+        // or a read-only view of a record kept whole
+        ByteBuffer payload(int i, ByteBuffer scratch) {
+            if (whole[i] != null) {
+                return ByteBuffer.wrap(whole[i]).asReadOnlyBuffer();
+            }
+            AuditService.AuditEvent event = event(i);
+            while (true) {
+                scratch.clear();
+                try {
+                    AuditEventCodec.encode(event, scratch);
+                    scratch.flip();
+                    return scratch;
+                } catch (BufferOverflowException e) {
+                    scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+                }
+            }
+        }
+    }
+
+    private Block block(ByteBuffer mapped, int index) throws IOException {
+        int entry = (int) mapped.getLong(48) + index * BLOCK_ENTRY_LENGTH;
+        long blockFirst = mapped.getLong(entry);
+        Block block = blocks.get(blockFirst);
+        if (block != null) {
+            return block;
+        }
+        int compressedLength = mapped.getInt(entry + 12);
+        ByteBuffer compressed = mapped.slice((int) mapped.getLong(entry + 16), compressedLength);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream raw = new ByteArrayOutputStream(compressedLength * 4);
+            byte[] chunk = new byte[64 * 1024];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(chunk);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Audit archive block " + blockFirst + " is truncated");
+                }
+                raw.write(chunk, 0, inflated);
+            }
+            block = new Block(blockFirst, raw.toByteArray());
+        } catch (DataFormatException e) {
+            throw new IOException("Audit archive block " + blockFirst + " is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+        if (block.count != mapped.getInt(entry + 8)) {
+            throw new IOException("Audit archive block " + blockFirst + " does not match its directory entry");
+        }
+        blocksDecoded.incrementAndGet();
+        blocks.put(blockFirst, block);
+        return block;
+    }
+
+    // The block holding the sequence; blocks are in sequence order
+    private static int blockIndex(ByteBuffer mapped, int blockCount, long sequence) {
+        int directoryOffset = (int) mapped.getLong(48);
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (mapped.getLong(directoryOffset + middle * BLOCK_ENTRY_LENGTH) <= sequence) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private ByteBuffer map(ArchiveFile file) throws IOException {
+        MappedByteBuffer mapped = mappedFiles.get(file.firstSequence());
+        if (mapped == null) {
+            try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            mappedFiles.put(file.firstSequence(), mapped);
+        }
+        return mapped;
+    }
+
+    private static ArchiveFile readHeader(Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getShort(4) != FORMAT_VERSION) {
+                throw new IllegalStateException("Audit archive " + path + " has an invalid header");
+            }
+            return new ArchiveFile(path, header.getLong(8), header.getLong(16), header.getLong(24),
+                header.getLong(32), header.getLong(68), channel.size());
+        }
+    }
+
+    private static String value(AuditService.AuditEvent event, int column) {
+        switch (column) {
+            case USER:
+                return event.userId();
+            case RESOURCE:
+                return event.resource();
+            case ACTION:
+                return event.action();
+            case IP:
+                return event.ipAddress();
+            case DETAIL:
+                return event.detail();
+            default:
+                return event.patientId();
+        }
+    }
+
+    // Sized for the file's distinct users at about a one percent false positive rate
+    private static byte[] bloom(Set<String> users) {
+        byte[] bits = new byte[Math.max(8, (users.size() * BLOOM_BITS_PER_USER + 63) / 64 * 8)];
+        for (String user : users) {
+            long hash = hash(user);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits.length * 8);
+                bits[bit >>> 3] |= (byte) (1 << (bit & 7));
+            }
+        }
+        return bits;
+    }
+
+    private static boolean mightContain(ByteBuffer mapped, String user) {
+        int offset = (int) mapped.getLong(56);
+        int length = mapped.getInt(64);
+        long hash = hash(user);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < mapped.getInt(44); i++) {
+            int bit = Math.floorMod(h1 + i * h2, length * 8);
+            if ((mapped.get(offset + (bit >>> 3)) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 64-bit FNV-1a over the chars; stable across JVMs, unlike identity hashes
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static String fileName(long firstSequence) {
+        return String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void putVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long getVarint(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+}
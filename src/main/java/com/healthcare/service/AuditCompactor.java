@@ -0,0 +1,126 @@
+package com.healthcare.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Moves audit journal segments to the compressed archive once they have gone unwritten for
+ * archive-after-days, and enforces retention: archive files and index buckets holding nothing newer
+ * than retention-days are deleted. Runs on its own thread, one pass per interval.
+ */
+@Component
+@ConditionalOnProperty(name = "healthcare.audit.store", havingValue = "journal", matchIfMissing = true)
+public class AuditCompactor {
+    private static final Logger logger = Logger.getLogger(AuditCompactor.class.getName());
+
+    @Autowired
+    private AuditJournal journal;
+
+    @Autowired(required = false)
+    private AuditIndex auditIndex;
+
+    @Value("${healthcare.audit.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${healthcare.audit.archive.after-days:90}")
+    private long afterDays;
+
+    @Value("${healthcare.audit.archive.interval-minutes:60}")
+    private long intervalMinutes;
+
+    @Value("${healthcare.audit.retention-days:2555}")
+    private long retentionDays;
+
+    private Thread compactor;
+    private volatile boolean running;
+
+    private final AtomicLong passes = new AtomicLong();
+    private final AtomicLong segmentsArchived = new AtomicLong();
+    private final AtomicLong archivesDeleted = new AtomicLong();
+    private final AtomicLong indexBucketsDeleted = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile long lastPassMillis;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        compactor = new Thread(this::compactLoop, "audit-compactor");
+        compactor.setDaemon(true);
+        compactor.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (compactor == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(compactor);
+        compactor.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("afterDays", afterDays);
+        stats.put("retentionDays", retentionDays);
+        stats.put("passes", passes.get());
+        stats.put("lastPassMillis", lastPassMillis);
+        stats.put("segmentsArchived", segmentsArchived.get());
+        stats.put("archivesDeleted", archivesDeleted.get());
+        stats.put("indexBucketsDeleted", indexBucketsDeleted.get());
+        stats.put("failures", failures.get());
+        stats.put("archive", journal.archive().getStats());
+        return stats;
+    }
+
+    private void compactLoop() {
+        while (running) {
+            try {
+                compact();
+            } catch (IOException | RuntimeException e) {
+                failures.incrementAndGet();
+                logger.log(Level.WARNING, "Audit compaction failed, retrying next pass", e);
+            }
+            LockSupport.parkNanos(TimeUnit.MINUTES.toNanos(intervalMinutes));
+        }
+    }
+
+    // Compactor thread only
+    private void compact() throws IOException {
+        journal.deleteRetiredSegments();
+        long now = System.currentTimeMillis();
+        long archiveBefore = now - TimeUnit.DAYS.toMillis(afterDays);
+        while (running && journal.archiveOldest(archiveBefore)) {
+            segmentsArchived.incrementAndGet();
+        }
+        Instant cutoff = Instant.ofEpochMilli(now).minusSeconds(TimeUnit.DAYS.toSeconds(retentionDays));
+        archivesDeleted.addAndGet(journal.archive().deleteBefore(TimeUnit.MILLISECONDS.toMicros(cutoff.toEpochMilli())));
+        if (auditIndex != null) {
+            // Index buckets go only once the archive holds nothing from them, so searches and scans agree
+            long held = journal.archive().minMicros();
+            long purgeBefore = held < 0 ? cutoff.getEpochSecond()
+                : Math.min(cutoff.getEpochSecond(), TimeUnit.MICROSECONDS.toSeconds(held));
+            indexBucketsDeleted.addAndGet(auditIndex.purgeBefore(purgeBefore));
+        }
+        passes.incrementAndGet();
+        lastPassMillis = System.currentTimeMillis() - now;
+    }
+}
@@ -0,0 +1,83 @@
+package com.healthcare.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The binary form of an audit event shared by the journal and the spill file: a format byte, the time
+ * in epoch microseconds, the outcome, then the strings. Fields the event holds as dictionary codes are
+ * copied from the dictionary's UTF-8, and ASCII text is written char by char, so encoding into a
+ * reused buffer allocates nothing. Times are UTC.
+ */
+final class AuditEventCodec {
+
+    static final byte FORMAT = 2;
+
+    private AuditEventCodec() {
+        // Private constructor to hide implicit public one
+    }
+
+    // Throws BufferOverflowException when the event does not fit; the caller grows the buffer and retries
+    static void encode(AuditService.AuditEvent event, ByteBuffer buffer) {
+        buffer.put(FORMAT);
+        buffer.putLong(event.occurredMicros());
+        buffer.put(event.outcome());
+        byte[] user = event.userBytes();
+        putString(buffer, user, user == null ? event.userId() : null);
+        byte[] resource = event.resourceBytes();
+        putString(buffer, resource, resource == null ? event.resource() : null);
+        byte[] action = event.actionBytes();
+        putString(buffer, action, action == null ? event.action() : null);
+        byte[] ip = event.ipBytes();
+        putString(buffer, ip, ip == null ? event.ipAddress() : null);
+        putString(buffer, null, event.detail());
+        putString(buffer, null, event.patientId());
+    }
+
+    static AuditService.AuditEvent decode(ByteBuffer payload) {
+        byte format = payload.get();
+        if (format != FORMAT) {
+            throw new IllegalStateException("Unknown audit record format " + format);
+        }
+        long occurredMicros = payload.getLong();
+        byte outcome = payload.get();
+        return new AuditService.AuditEvent(occurredMicros, getString(payload), getString(payload),
+            getString(payload), getString(payload), outcome, getString(payload), getString(payload), false);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] utf8, String value) {
+        if (utf8 != null) {
+            buffer.putInt(utf8.length);
+            buffer.put(utf8);
+            return;
+        }
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        // ASCII, which is nearly every audit field, is copied without an intermediate byte array
+        int start = buffer.position();
+        buffer.position(start + 4);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                buffer.position(start + 4);
+                buffer.put(bytes);
+                break;
+            }
+            buffer.put((byte) c);
+        }
+        buffer.putInt(start, buffer.position() - start - 4);
+    }
+
+    private static String getString(ByteBuffer payload) {
+        int length = payload.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
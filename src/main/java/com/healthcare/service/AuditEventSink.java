@@ -0,0 +1,14 @@
+package com.healthcare.service;
+
+import java.util.List;
+import java.util.Map;
+
+// Durable destination for drained audit events. A batch is written whole or the call throws.
+public interface AuditEventSink {
+
+    void write(List<AuditService.AuditEvent> batch);
+
+    default Map<String, Object> getStats() {
+        return Map.of();
+    }
+}
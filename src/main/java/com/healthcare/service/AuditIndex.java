@@ -0,0 +1,543 @@
+package com.healthcare.service;
+
+import com.healthcare.util.LatencyHistogram;
+import com.healthcare.util.PostingList;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Secondary index over the audit journal for compliance searches by user, patient or resource within
+ * a time range. Events are grouped into hour or day buckets by timestamp, and each bucket keeps a
+ * posting list of journal locations per key, so a search opens only the buckets in its range and
+ * reads only the records that match.
+ *
+ * <p>Recent buckets live in memory and are written out periodically, one file per bucket with its
+ * keys sorted for binary search. A checkpoint records how much of the journal the files cover, so a
+ * restart replays only the records after it. Older buckets are read from their files on demand.
+ */
+@Component
+@ConditionalOnProperty(name = "healthcare.audit.store", havingValue = "journal", matchIfMissing = true)
+public class AuditIndex {
+    private static final Logger logger = Logger.getLogger(AuditIndex.class.getName());
+
+    private static final int MAGIC = 0x41554458; // "AUDX"
+    private static final short FORMAT_VERSION = 1;
+    private static final int HEADER_LENGTH = 40;
+    private static final String PREFIX = "bucket-";
+    private static final String SUFFIX = ".idx";
+    private static final String CHECKPOINT = "checkpoint";
+    // A year of hour buckets; mappings of small files cost address space, not heap
+    private static final int MAX_MAPPED_BUCKETS = 10_000;
+
+    public enum Dimension {
+        USER, PATIENT, RESOURCE
+    }
+
+    public enum BucketSize {
+        HOUR(3600), DAY(86400);
+
+        final long seconds;
+
+        BucketSize(long seconds) {
+            this.seconds = seconds;
+        }
+    }
+
+    // nextCursor is null on the last page
+    public record Page(List<AuditService.AuditEvent> events, String nextCursor) {
+    }
+
+    @Autowired
+    private AuditJournal journal;
+
+    @Value("${healthcare.audit.index.path:./audit-index}")
+    private String indexPath;
+
+    @Value("${healthcare.audit.index.bucket:DAY}")
+    private BucketSize bucketSize;
+
+    @Value("${healthcare.audit.index.flush-seconds:60}")
+    private long flushSeconds;
+
+    private Path directory;
+    // Buckets with changes not yet written out, and the most recent ones
+    private final ConcurrentSkipListMap<Long, Bucket> live = new ConcurrentSkipListMap<>();
+    private final NavigableSet<Long> persisted = new ConcurrentSkipListSet<>();
+    private final Map<Long, MappedByteBuffer> mappedBuckets = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, MappedByteBuffer> eldest) {
+                return size() > MAX_MAPPED_BUCKETS;
+            }
+        });
+    // Every journal record before this one has been indexed
+    private volatile long indexedThrough;
+    private volatile long checkpoint;
+
+    private Thread flusher;
+    private volatile boolean running;
+
+    private final AtomicLong indexed = new AtomicLong();
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong bucketsSearched = new AtomicLong();
+    private final AtomicLong recordsRead = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+    private final AtomicLong purgedBuckets = new AtomicLong();
+    private final LatencyHistogram searchLatency = new LatencyHistogram();
+
+    private static final class Bucket {
+        final long start;
+        final Map<Dimension, Map<String, PostingList>> postings = new EnumMap<>(Dimension.class);
+        long maxSequence = -1;
+        int events;
+        boolean dirty;
+        boolean evicted;
+
+        Bucket(long start) {
+            this.start = start;
+            for (Dimension dimension : Dimension.values()) {
+                postings.put(dimension, new HashMap<>());
+            }
+        }
+
+        void add(Dimension dimension, String key, long sequence, int offset) {
+            if (key != null) {
+                postings.get(dimension).computeIfAbsent(key, k -> new PostingList()).add(sequence, offset);
+            }
+        }
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        directory = Paths.get(indexPath);
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                persisted.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        Path checkpointFile = directory.resolve(CHECKPOINT);
+        if (Files.exists(checkpointFile)) {
+            checkpoint = Long.parseLong(Files.readString(checkpointFile).trim());
+        }
+        indexedThrough = checkpoint;
+        journal.subscribe(checkpoint, this::index);
+        running = true;
+        flusher = new Thread(this::flushLoop, "audit-index-flush");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(flusher);
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+        flush();
+    }
+
+    // Events for one key with timestamps in [from, to], both UTC, oldest bucket first and in journal order
+    // within a bucket. Pass the previous page's cursor to continue.
+    public Page search(Dimension dimension, String key, LocalDateTime from, LocalDateTime to, String cursor,
+                       int limit) throws IOException {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        long started = System.nanoTime();
+        long firstBucket = bucketStart(from);
+        // The cursor is the bucket and sequence of the last record the previous page looked at
+        long resumeBucket = firstBucket;
+        long resumeAfter = -1;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = cursor.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            try {
+                resumeBucket = Long.parseLong(parts[0]);
+                resumeAfter = Long.parseLong(parts[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            firstBucket = Math.max(firstBucket, resumeBucket);
+        }
+        long lastBucket = bucketStart(to);
+        TreeSet<Long> buckets = new TreeSet<>(persisted.subSet(firstBucket, true, lastBucket, true));
+        buckets.addAll(live.subMap(firstBucket, true, lastBucket, true).keySet());
+
+        // Event times are whole microseconds, so a finer from rounds up to the next one
+        long fromMicros = AuditService.AuditEvent.toMicros(from) + (from.getNano() % 1000 != 0 ? 1 : 0);
+        long toMicros = AuditService.AuditEvent.toMicros(to);
+        // Buckets straddling the retention cutoff can still list records whose archive file is gone
+        long firstHeld = journal.firstSequence();
+        List<AuditService.AuditEvent> events = new ArrayList<>();
+        String nextCursor = null;
+        for (long start : buckets) {
+            PostingList postings = postings(start, dimension, key);
+            bucketsSearched.incrementAndGet();
+            if (postings == null) {
+                continue;
+            }
+            long skipThrough = start == resumeBucket ? resumeAfter : -1;
+            long[] last = {-1};
+            IOException[] failure = {null};
+            boolean complete = postings.forEach((sequence, offset) -> {
+                if (sequence <= skipThrough || sequence < firstHeld) {
+                    return true;
+                }
+                try {
+                    AuditService.AuditEvent event = journal.readAt(sequence, offset);
+                    recordsRead.incrementAndGet();
+                    if (event.occurredMicros() >= fromMicros && event.occurredMicros() <= toMicros) {
+                        events.add(event);
+                    }
+                } catch (IOException e) {
+                    failure[0] = e;
+                    return false;
+                }
+                last[0] = sequence;
+                return events.size() < limit;
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            if (!complete) {
+                nextCursor = start + ":" + last[0];
+                break;
+            }
+        }
+        searches.incrementAndGet();
+        searchLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+        return new Page(events, nextCursor);
+    }
+
+    // Deletes the written buckets that end at or before the cutoff, for retention; returns how many. Under
+    // the flush lock, so a flush cannot write one back.
+    public synchronized int purgeBefore(long epochSecond) throws IOException {
+        int purged = 0;
+        for (long start : new ArrayList<>(persisted.headSet(bucketStart(epochSecond), false))) {
+            Bucket bucket = live.remove(start);
+            if (bucket != null) {
+                synchronized (bucket) {
+                    bucket.evicted = true;
+                }
+            }
+            persisted.remove(start);
+            mappedBuckets.remove(start);
+            Files.deleteIfExists(directory.resolve(fileName(start)));
+            purged++;
+        }
+        purgedBuckets.addAndGet(purged);
+        return purged;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("bucketSize", bucketSize.name());
+        stats.put("liveBuckets", live.size());
+        stats.put("persistedBuckets", persisted.size());
+        stats.put("indexed", indexed.get());
+        stats.put("indexedThrough", indexedThrough);
+        stats.put("checkpoint", checkpoint);
+        stats.put("searches", searches.get());
+        stats.put("bucketsSearched", bucketsSearched.get());
+        stats.put("recordsRead", recordsRead.get());
+        stats.put("searchLatency", searchLatency.summary());
+        stats.put("flushes", flushes.get());
+        stats.put("flushFailures", flushFailures.get());
+        stats.put("purgedBuckets", purgedBuckets.get());
+        return stats;
+    }
+
+    // Journal listener: runs on the audit writer thread, in sequence order
+    private void index(AuditService.AuditEvent event, long sequence, int offset) {
+        long start = bucketStart(Math.floorDiv(event.occurredMicros(), 1_000_000));
+        while (true) {
+            Bucket bucket = live.get(start);
+            if (bucket == null) {
+                bucket = load(start);
+                live.put(start, bucket);
+            }
+            synchronized (bucket) {
+                if (bucket.evicted) {
+                    continue;
+                }
+                // Records replayed after a restart may already be in the bucket's file
+                if (sequence > bucket.maxSequence) {
+                    bucket.add(Dimension.USER, event.userId(), sequence, offset);
+                    bucket.add(Dimension.PATIENT, event.patientId(), sequence, offset);
+                    bucket.add(Dimension.RESOURCE, event.resource(), sequence, offset);
+                    bucket.maxSequence = sequence;
+                    bucket.events++;
+                    bucket.dirty = true;
+                    indexed.incrementAndGet();
+                }
+            }
+            break;
+        }
+        indexedThrough = sequence + 1;
+    }
+
+    private PostingList postings(long start, Dimension dimension, String key) throws IOException {
+        Bucket bucket = live.get(start);
+        if (bucket != null) {
+            synchronized (bucket) {
+                if (!bucket.evicted) {
+                    PostingList postings = bucket.postings.get(dimension).get(key);
+                    return postings != null ? postings.snapshot() : null;
+                }
+            }
+        }
+        MappedByteBuffer file = mappedBucket(start);
+        return file != null ? find(file, dimension, key.getBytes(StandardCharsets.UTF_8)) : null;
+    }
+
+    private void flushLoop() {
+        while (running) {
+            LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(flushSeconds));
+            if (running) {
+                flush();
+            }
+        }
+    }
+
+    // Writes every changed bucket, then moves the checkpoint up to what was indexed before the writes
+    // began, then drops buckets from memory once they are written and no longer current
+    private synchronized void flush() {
+        long covered = indexedThrough;
+        boolean failed = false;
+        for (Bucket bucket : live.values()) {
+            ByteBuffer encoded;
+            synchronized (bucket) {
+                if (!bucket.dirty) {
+                    continue;
+                }
+                encoded = encode(bucket);
+                bucket.dirty = false;
+            }
+            try {
+                write(directory.resolve(fileName(bucket.start)), encoded);
+                mappedBuckets.remove(bucket.start);
+                persisted.add(bucket.start);
+            } catch (IOException e) {
+                failed = true;
+                synchronized (bucket) {
+                    bucket.dirty = true;
+                }
+                logger.log(Level.WARNING, "Audit index bucket " + bucket.start + " write failed", e);
+            }
+        }
+        if (failed) {
+            flushFailures.incrementAndGet();
+            return;
+        }
+        try {
+            write(directory.resolve(CHECKPOINT),
+                ByteBuffer.wrap(Long.toString(covered).getBytes(StandardCharsets.UTF_8)));
+            checkpoint = covered;
+        } catch (IOException e) {
+            flushFailures.incrementAndGet();
+            logger.log(Level.WARNING, "Audit index checkpoint write failed", e);
+            return;
+        }
+        long current = bucketStart(Instant.now().getEpochSecond());
+        for (Bucket bucket : live.headMap(current).values()) {
+            synchronized (bucket) {
+                if (!bucket.dirty) {
+                    bucket.evicted = true;
+                    live.remove(bucket.start);
+                }
+            }
+        }
+        flushes.incrementAndGet();
+    }
+
+    // Writer thread only: a bucket that gets an event after it was written out is read back in first
+    private Bucket load(long start) {
+        Bucket bucket = new Bucket(start);
+        if (!persisted.contains(start)) {
+            return bucket;
+        }
+        try {
+            MappedByteBuffer file = mappedBucket(start);
+            bucket.maxSequence = file.getLong(16);
+            bucket.events = file.getInt(24);
+            for (Dimension dimension : Dimension.values()) {
+                int table = file.getInt(28 + 4 * dimension.ordinal());
+                int keys = file.getInt(table);
+                for (int i = 0; i < keys; i++) {
+                    int entry = file.getInt(table + 4 + 4 * i);
+                    byte[] key = new byte[file.getShort(entry) & 0xFFFF];
+                    file.get(entry + 2, key);
+                    bucket.postings.get(dimension).put(new String(key, StandardCharsets.UTF_8),
+                        readPostings(file, entry + 2 + key.length));
+                }
+            }
+        } catch (IOException e) {
+            // Carrying on with an empty bucket would overwrite the file and lose its postings
+            throw new IllegalStateException("Audit index bucket " + start + " could not be read", e);
+        }
+        return bucket;
+    }
+
+    private MappedByteBuffer mappedBucket(long start) throws IOException {
+        MappedByteBuffer mapped = mappedBuckets.get(start);
+        if (mapped == null && persisted.contains(start)) {
+            try (FileChannel channel = FileChannel.open(directory.resolve(fileName(start)), StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+            if (mapped.getInt(0) != MAGIC || mapped.getShort(4) != FORMAT_VERSION) {
+                throw new IOException("Audit index bucket " + start + " has an invalid header");
+            }
+            mappedBuckets.put(start, mapped);
+        }
+        return mapped;
+    }
+
+    // Binary search of the dimension's sorted key table
+    private static PostingList find(ByteBuffer file, Dimension dimension, byte[] key) {
+        int table = file.getInt(28 + 4 * dimension.ordinal());
+        int low = 0;
+        int high = file.getInt(table) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = file.getInt(table + 4 + 4 * middle);
+            int keyLength = file.getShort(entry) & 0xFFFF;
+            int compared = compare(file, entry + 2, keyLength, key);
+            if (compared == 0) {
+                return readPostings(file, entry + 2 + keyLength);
+            }
+            if (compared < 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return null;
+    }
+
+    private static int compare(ByteBuffer file, int offset, int length, byte[] key) {
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (file.get(offset + i) & 0xFF) - (key[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length;
+    }
+
+    private static PostingList readPostings(ByteBuffer file, int offset) {
+        int count = file.getInt(offset);
+        long lastSequence = file.getLong(offset + 4);
+        byte[] bytes = new byte[file.getInt(offset + 12)];
+        file.get(offset + 16, bytes);
+        return PostingList.of(bytes, count, lastSequence);
+    }
+
+    // Header, then per dimension a key count and a table of entry offsets in key order, then entries
+    // of key length, key, posting count, last sequence, posting length and postings
+    private static ByteBuffer encode(Bucket bucket) {
+        Map<Dimension, byte[][]> sortedKeys = new EnumMap<>(Dimension.class);
+        int size = HEADER_LENGTH;
+        for (Dimension dimension : Dimension.values()) {
+            Map<String, PostingList> postings = bucket.postings.get(dimension);
+            byte[][] keys = new byte[postings.size()][];
+            int i = 0;
+            for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+                keys[i] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                size += 4 + 2 + 16 + keys[i].length + entry.getValue().byteLength();
+                i++;
+            }
+            Arrays.sort(keys, Arrays::compareUnsigned);
+            sortedKeys.put(dimension, keys);
+            size += 4;
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC).putShort(FORMAT_VERSION).putShort((short) 0).putLong(bucket.start)
+            .putLong(bucket.maxSequence).putInt(bucket.events);
+        out.position(HEADER_LENGTH);
+        for (Dimension dimension : Dimension.values()) {
+            byte[][] keys = sortedKeys.get(dimension);
+            int table = out.position();
+            out.putInt(28 + 4 * dimension.ordinal(), table);
+            out.putInt(keys.length);
+            int entry = table + 4 + 4 * keys.length;
+            out.position(entry);
+            for (int i = 0; i < keys.length; i++) {
+                out.putInt(table + 4 + 4 * i, out.position());
+                PostingList postings = bucket.postings.get(dimension).get(new String(keys[i], StandardCharsets.UTF_8));
+                byte[] bytes = postings.toBytes();
+                out.putShort((short) keys[i].length).put(keys[i]);
+                out.putInt(postings.size()).putLong(postings.lastSequence()).putInt(bytes.length).put(bytes);
+            }
+        }
+        out.flip();
+        return out;
+    }
+
+    private static void write(Path file, ByteBuffer content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private long bucketStart(LocalDateTime time) {
+        return bucketStart(time.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    private long bucketStart(long epochSecond) {
+        return Math.floorDiv(epochSecond, bucketSize.seconds) * bucketSize.seconds;
+    }
+
+    private static String fileName(long start) {
+        return String.format("%s%012d%s", PREFIX, start, SUFFIX);
+    }
+}
@@ -0,0 +1,532 @@
+package com.healthcare.service;
+
+import com.healthcare.util.LatencyHistogram;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only audit store made of fixed-size memory-mapped segment files. An append is a copy into
+ * the mapped segment, so it reaches the OS page cache at once and survives a crash of this process;
+ * a background thread forces dirty segments to disk at least once per durability window, which
+ * bounds what a power loss can take. Each record carries a CRC, and on startup only the tail segment
+ * is scanned: sealed segments were forced whole when they rolled over.
+ *
+ * <p>Segment: 32-byte header (magic, version, first record sequence, creation time) followed by
+ * records of a 4-byte payload length, a 4-byte CRC32C of the payload and the payload. A zero length
+ * marks the end of the data, since segments are created zero-filled at full size.
+ *
+ * <p>Aged sealed segments move into the {@link AuditArchive}, oldest first; reads of records older than
+ * the first segment go there, so readers do not need to know which tier holds a record.
+ */
+@Component
+@ConditionalOnProperty(name = "healthcare.audit.store", havingValue = "journal", matchIfMissing = true)
+public class AuditJournal implements AuditEventSink {
+    private static final Logger logger = Logger.getLogger(AuditJournal.class.getName());
+
+    public static final int HEADER_LENGTH = 32;
+    public static final int RECORD_OVERHEAD = 8;
+
+    private static final int MAGIC = 0x4155444A; // "AUDJ"
+    private static final short FORMAT_VERSION = 1;
+    private static final String PREFIX = "audit-";
+    private static final String SUFFIX = ".seg";
+    private static final int MIN_SEGMENT_SIZE = 64 * 1024;
+    // Sealed segments kept mapped for random reads
+    private static final int MAX_MAPPED_SEGMENTS = 64;
+
+    // Sees every record once it is in the journal, under the journal lock and so in sequence order.
+    // The offset locates the record within its segment for readAt.
+    @FunctionalInterface
+    public interface RecordListener {
+        void appended(AuditService.AuditEvent event, long sequence, int offset);
+    }
+
+    // A record's payload as stored, without decoding it
+    @FunctionalInterface
+    public interface PayloadVisitor {
+        void visit(long sequence, int offset, ByteBuffer payload);
+    }
+
+    @Value("${healthcare.audit.journal.path:./audit-journal}")
+    private String journalPath;
+
+    @Value("${healthcare.audit.journal.segment-size:67108864}")
+    private int segmentSize;
+
+    // Longest an appended record may sit in the page cache before it is forced to disk
+    @Value("${healthcare.audit.journal.durability-window-millis:100}")
+    private long durabilityWindowMillis;
+
+    @Value("${healthcare.audit.archive.path:./audit-archive}")
+    private String archivePath;
+
+    @Value("${healthcare.audit.archive.block-records:4096}")
+    private int archiveBlockRecords;
+
+    private Path directory;
+    private AuditArchive archive;
+    // Segments already archived; deleted on the next archive pass, once no reader can still be on its way to them
+    private final List<Path> retired = new CopyOnWriteArrayList<>();
+    // First record sequence of every segment, oldest first; the last entry is the one being appended to
+    private final NavigableMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private volatile Segment current;
+    private long nextSequence;
+    // Reused for every append; only touched under the journal lock
+    private ByteBuffer scratch = ByteBuffer.allocate(1024);
+    private final CRC32C crc = new CRC32C();
+    private final List<RecordListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<Long, MappedByteBuffer> sealedMaps = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, MappedByteBuffer> eldest) {
+                return size() > MAX_MAPPED_SEGMENTS;
+            }
+        });
+
+    private Thread syncer;
+    private volatile boolean running;
+    private volatile boolean dirty;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong bytesAppended = new AtomicLong();
+    private final AtomicLong forces = new AtomicLong();
+    private final AtomicLong rollovers = new AtomicLong();
+    private final AtomicLong recoveredRecords = new AtomicLong();
+    private final AtomicLong truncatedBytes = new AtomicLong();
+    private final AtomicLong archivedSegments = new AtomicLong();
+    private final LatencyHistogram forceLatency = new LatencyHistogram();
+
+    private static final class Segment {
+        final long baseSequence;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        // Bytes of complete records, header included; readers see nothing past it
+        volatile int position;
+        volatile int records;
+
+        Segment(long baseSequence, FileChannel channel, MappedByteBuffer buffer) {
+            this.baseSequence = baseSequence;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalStateException("Audit journal segment size must be at least " + MIN_SEGMENT_SIZE);
+        }
+        directory = Paths.get(journalPath);
+        Files.createDirectories(directory);
+        archive = new AuditArchive(Paths.get(archivePath), archiveBlockRecords);
+        long archivedThrough = archive.nextSequence();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                segments.put(baseSequence(file), file);
+            }
+        }
+        // A segment whose records are all archived was left behind by a restart before its deletion
+        Map.Entry<Long, Path> oldest;
+        while ((oldest = segments.firstEntry()) != null && segments.size() > 1
+                && segments.higherKey(oldest.getKey()) <= archivedThrough) {
+            Files.delete(oldest.getValue());
+            segments.remove(oldest.getKey());
+        }
+        if (segments.isEmpty()) {
+            current = createSegment(Math.max(0, archivedThrough));
+        } else {
+            current = recover(segments.lastEntry().getValue(), segments.lastKey());
+        }
+        nextSequence = current.baseSequence + current.records;
+        running = true;
+        syncer = new Thread(this::syncLoop, "audit-journal-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+    }
+
+    @PreDestroy
+    synchronized void close() throws IOException, InterruptedException {
+        running = false;
+        LockSupport.unpark(syncer);
+        syncer.join(TimeUnit.SECONDS.toMillis(10));
+        current.buffer.force();
+        current.channel.close();
+    }
+
+    @Override
+    public synchronized void write(List<AuditService.AuditEvent> batch) {
+        for (AuditService.AuditEvent event : batch) {
+            append(event);
+        }
+    }
+
+    // Returns the record's sequence number
+    public synchronized long append(AuditService.AuditEvent event) {
+        int length = encode(event);
+        int recordLength = RECORD_OVERHEAD + length;
+        if (recordLength > segmentSize - HEADER_LENGTH) {
+            throw new IllegalArgumentException("Audit record of " + length + " bytes does not fit a segment");
+        }
+        Segment segment = current;
+        if (segment.position + recordLength > segmentSize) {
+            segment = rollOver();
+        }
+        crc.reset();
+        crc.update(scratch.array(), 0, length);
+        MappedByteBuffer buffer = segment.buffer;
+        int position = segment.position;
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.put(position + RECORD_OVERHEAD, scratch.array(), 0, length);
+        // Length last: a record is not there until its length is, even to a reader racing this append
+        buffer.putInt(position, length);
+        segment.records++;
+        segment.position = position + recordLength;
+        dirty = true;
+        appended.incrementAndGet();
+        bytesAppended.addAndGet(recordLength);
+        long sequence = nextSequence++;
+        for (RecordListener listener : listeners) {
+            listener.appended(event, sequence, position);
+        }
+        return sequence;
+    }
+
+    // Replays the records from fromSequence on to the listener, then hands it every new one; no
+    // append can slip in between
+    public synchronized void subscribe(long fromSequence, RecordListener listener) throws IOException {
+        scan(fromSequence, Integer.MAX_VALUE, listener);
+        listeners.add(listener);
+    }
+
+    // Hands records from fromSequence on to the consumer in order, at most limit of them; returns how many
+    public int read(long fromSequence, int limit, Consumer<AuditService.AuditEvent> consumer) throws IOException {
+        return scan(fromSequence, limit, (event, sequence, offset) -> consumer.accept(event));
+    }
+
+    public int scan(long fromSequence, int limit, RecordListener visitor) throws IOException {
+        return scanPayloads(fromSequence, -1, limit,
+            (sequence, offset, payload) -> visitor.appended(AuditEventCodec.decode(payload), sequence, offset));
+    }
+
+    // Raw record payloads from fromSequence on. A caller that knows where that record starts passes its
+    // offset, which saves walking the segment from the top; otherwise -1.
+    public int scanPayloads(long fromSequence, int fromOffset, int limit, PayloadVisitor visitor) throws IOException {
+        int delivered = 0;
+        long next = Math.max(0, fromSequence);
+        // The compactor may archive the oldest segment at any point here, so the split between the
+        // tiers is looked up again until a live segment covers the next record
+        Long base = null;
+        while (delivered < limit && (base = segments.floorKey(next)) == null) {
+            long firstLive = segments.firstKey();
+            if (firstLive <= next) {
+                continue;
+            }
+            // The archive starts at its oldest held record, which retention may have moved past next, so
+            // only what lies below the live tier is passed on; after it the live tier takes over
+            int[] archived = {0};
+            archive.scan(next, (int) Math.min(limit - delivered, firstLive - next), (sequence, offset, payload) -> {
+                if (sequence < firstLive) {
+                    visitor.visit(sequence, offset, payload);
+                    archived[0]++;
+                }
+            });
+            delivered += archived[0];
+            next = firstLive;
+        }
+        boolean first = true;
+        while (base != null && delivered < limit) {
+            Segment live = current;
+            ByteBuffer buffer = base == live.baseSequence ? live.buffer : sealedSegment(base);
+            int end = base == live.baseSequence ? live.position : buffer.capacity();
+            // The first record of a segment is always right after the header
+            boolean seek = first && next == fromSequence && fromOffset >= HEADER_LENGTH && fromSequence > base;
+            delivered += readRecords(buffer, end, seek ? fromOffset : HEADER_LENGTH, seek ? fromSequence : base,
+                next, limit - delivered, visitor);
+            first = false;
+            base = segments.higherKey(base);
+        }
+        return delivered;
+    }
+
+    // One record by the sequence and offset its listeners were given
+    public AuditService.AuditEvent readAt(long sequence, int offset) throws IOException {
+        Long base = segments.floorKey(sequence);
+        if (base == null) {
+            return archive.read(sequence);
+        }
+        Segment live = current;
+        ByteBuffer buffer = base == live.baseSequence ? live.buffer : sealedSegment(base);
+        int end = base == live.baseSequence ? live.position : buffer.capacity();
+        int length = offset >= HEADER_LENGTH && offset <= end - RECORD_OVERHEAD ? buffer.getInt(offset) : -1;
+        if (length <= 0 || length > end - offset - RECORD_OVERHEAD
+                || checksum(buffer, offset + RECORD_OVERHEAD, length) != buffer.getInt(offset + 4)) {
+            throw new IllegalStateException("Audit journal record " + sequence + " at offset " + offset + " is invalid");
+        }
+        return AuditEventCodec.decode(buffer.slice(offset + RECORD_OVERHEAD, length));
+    }
+
+    // Oldest record still held in either tier
+    public long firstSequence() {
+        long archived = archive.firstSequence();
+        return archived >= 0 ? archived : segments.firstKey();
+    }
+
+    public AuditArchive archive() {
+        return archive;
+    }
+
+    // Moves the oldest sealed segment into the archive if it was last written before the cutoff; false
+    // when there is no such segment. Compactor thread only.
+    public boolean archiveOldest(long sealedBeforeMillis) throws IOException {
+        Map.Entry<Long, Path> oldest = segments.firstEntry();
+        Long next = segments.higherKey(oldest.getKey());
+        if (next == null || Files.getLastModifiedTime(oldest.getValue()).toMillis() >= sealedBeforeMillis) {
+            return false;
+        }
+        long base = oldest.getKey();
+        AuditArchive.Writer writer = archive.writer(base, next - 1);
+        try {
+            MappedByteBuffer buffer = sealedSegment(base);
+            readRecords(buffer, buffer.capacity(), HEADER_LENGTH, base, base, Integer.MAX_VALUE,
+                (sequence, offset, payload) -> writer.add(payload));
+        } catch (IOException | RuntimeException e) {
+            writer.abort();
+            throw e;
+        }
+        writer.finish();
+        // Readers that find the segment gone go to the archive, which already has its records
+        segments.remove(base);
+        sealedMaps.remove(base);
+        retired.add(oldest.getValue());
+        archivedSegments.incrementAndGet();
+        return true;
+    }
+
+    // Compactor thread only
+    public void deleteRetiredSegments() throws IOException {
+        for (Path file : retired) {
+            Files.deleteIfExists(file);
+            retired.remove(file);
+        }
+    }
+
+    public synchronized long nextSequence() {
+        return nextSequence;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Segment segment = current;
+        stats.put("segments", segments.size());
+        stats.put("segmentSize", segmentSize);
+        stats.put("currentSegmentFill", segment != null ? (double) segment.position / segmentSize : 0.0);
+        stats.put("appended", appended.get());
+        stats.put("bytesAppended", bytesAppended.get());
+        stats.put("rollovers", rollovers.get());
+        stats.put("forces", forces.get());
+        stats.put("forceLatency", forceLatency.summary());
+        stats.put("durabilityWindowMillis", durabilityWindowMillis);
+        stats.put("recoveredRecords", recoveredRecords.get());
+        stats.put("truncatedBytes", truncatedBytes.get());
+        stats.put("archivedSegments", archivedSegments.get());
+        stats.put("firstSequence", firstSequence());
+        return stats;
+    }
+
+    private void syncLoop() {
+        long windowNanos = TimeUnit.MILLISECONDS.toNanos(durabilityWindowMillis);
+        while (running) {
+            LockSupport.parkNanos(windowNanos);
+            if (dirty) {
+                dirty = false;
+                long started = System.nanoTime();
+                // A segment rolled over meanwhile was forced by the rollover itself
+                current.buffer.force();
+                forceLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+                forces.incrementAndGet();
+            }
+        }
+    }
+
+    // Under the journal lock
+    private Segment rollOver() {
+        Segment sealed = current;
+        try {
+            sealed.buffer.force();
+            sealed.channel.close();
+            current = createSegment(nextSequence);
+        } catch (IOException e) {
+            throw new IllegalStateException("Audit journal rollover failed", e);
+        }
+        rollovers.incrementAndGet();
+        return current;
+    }
+
+    // The header is written to a temporary file that is moved into place, so a segment name never
+    // refers to a file without a valid header
+    private Segment createSegment(long baseSequence) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", PREFIX, baseSequence, SUFFIX));
+        Path temp = directory.resolve(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.putInt(0, MAGIC);
+            buffer.putShort(4, FORMAT_VERSION);
+            buffer.putLong(8, baseSequence);
+            buffer.putLong(16, System.currentTimeMillis());
+            buffer.force();
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        Segment segment = map(file, baseSequence);
+        segment.position = HEADER_LENGTH;
+        segments.put(baseSequence, file);
+        return segment;
+    }
+
+    // Finds the end of the tail segment by checking each record's CRC, and clears a record cut short
+    // by a crash so that later appends cannot run into its leftovers
+    private Segment recover(Path file, long baseSequence) throws IOException {
+        Segment segment = map(file, baseSequence);
+        MappedByteBuffer buffer = segment.buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != FORMAT_VERSION || buffer.getLong(8) != baseSequence) {
+            throw new IllegalStateException("Audit journal segment " + file + " has an invalid header");
+        }
+        int position = HEADER_LENGTH;
+        int records = 0;
+        int end = buffer.capacity();
+        while (position + RECORD_OVERHEAD <= end) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > end - position - RECORD_OVERHEAD
+                    || checksum(buffer, position + RECORD_OVERHEAD, length) != buffer.getInt(position + 4)) {
+                break;
+            }
+            position += RECORD_OVERHEAD + length;
+            records++;
+        }
+        int torn = tornLength(buffer, position);
+        if (torn > 0) {
+            for (int i = position; i < position + torn; i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+            truncatedBytes.addAndGet(torn);
+            logger.log(Level.WARNING, "Audit journal {0}: cleared {1} bytes of an incomplete record after record {2}",
+                new Object[] {file.getFileName(), torn, baseSequence + records});
+        }
+        segment.position = position;
+        segment.records = records;
+        recoveredRecords.set(records);
+        return segment;
+    }
+
+    // Bytes after the last good record that are not zero, up to the end of the record they started
+    private static int tornLength(ByteBuffer buffer, int position) {
+        int end = buffer.capacity();
+        if (position + RECORD_OVERHEAD <= end) {
+            int length = buffer.getInt(position);
+            if (length > 0 && length <= end - position - RECORD_OVERHEAD) {
+                return RECORD_OVERHEAD + length;
+            }
+        }
+        int last = position;
+        for (int i = position; i < end; i++) {
+            if (buffer.get(i) != 0) {
+                last = i + 1;
+            }
+        }
+        return last - position;
+    }
+
+    private MappedByteBuffer sealedSegment(long baseSequence) throws IOException {
+        MappedByteBuffer mapped = sealedMaps.get(baseSequence);
+        if (mapped == null) {
+            // An archived segment's file is kept a while for readers that looked it up just before
+            Path file = directory.resolve(String.format("%s%020d%s", PREFIX, baseSequence, SUFFIX));
+            if (!Files.exists(file)) {
+                throw new NoSuchFileException("Audit journal segment " + baseSequence + " no longer exists");
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            sealedMaps.put(baseSequence, mapped);
+        }
+        return mapped;
+    }
+
+    private Segment map(Path file, long baseSequence) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(baseSequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+    }
+
+    private static int readRecords(ByteBuffer buffer, int end, int position, long sequence, long fromSequence,
+                                   int limit, PayloadVisitor visitor) {
+        int delivered = 0;
+        while (delivered < limit && position + RECORD_OVERHEAD <= end) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > end - position - RECORD_OVERHEAD) {
+                break;
+            }
+            if (sequence >= fromSequence) {
+                visitor.visit(sequence, position, buffer.slice(position + RECORD_OVERHEAD, length));
+                delivered++;
+            }
+            position += RECORD_OVERHEAD + length;
+            sequence++;
+        }
+        return delivered;
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.slice(offset, length));
+        return (int) checksum.getValue();
+    }
+
+    private static long baseSequence(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    // Under the journal lock; leaves the payload at the start of scratch and returns its length
+    private int encode(AuditService.AuditEvent event) {
+        while (true) {
+            scratch.clear();
+            try {
+                AuditEventCodec.encode(event, scratch);
+                return scratch.position();
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+    }
+}
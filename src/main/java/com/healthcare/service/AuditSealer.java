@@ -0,0 +1,507 @@
+package com.healthcare.service;
+
+import com.healthcare.util.EncryptionService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Makes the audit journal tamper-evident without touching the request path or the audit writer. A
+ * background thread reads the records the writer has appended, hashes each one as stored and seals
+ * the new ones as a batch: a seal holds the batch's Merkle root and commits to the previous seal, so
+ * the seals chain over the whole journal. Every sign interval the newest seal is signed with an
+ * Ed25519 key, which vouches for everything before it.
+ *
+ * <p>Verifying a range rehashes only the batches that cover it, then follows the seal chain forward
+ * to the next signature. Records sealed after the last signature are covered by the chain but not yet
+ * by a signature.
+ */
+@Component
+public class AuditSealer {
+    private static final Logger logger = Logger.getLogger(AuditSealer.class.getName());
+
+    // first, last, Merkle root, seal hash, sealed-at
+    private static final int SEAL_LENGTH = 8 + 8 + 32 + 32 + 8;
+    // seal index, signed-at, seal hash, Ed25519 signature
+    private static final int SIGNATURE_LENGTH = 8 + 8 + 32 + 64;
+    private static final int HASH_LENGTH = 32;
+    // Children per inner node: a wide tree costs one digest per 15 records instead of one per record
+    private static final int FANOUT = 16;
+    private static final byte NODE = 1;
+    private static final byte SEAL = 2;
+    private static final byte SIGNED = 3;
+    private static final byte[] KEY_CONTEXT = "audit-seal-signing-key".getBytes(StandardCharsets.UTF_8);
+
+    // Absent when audit events go to the database instead of the journal
+    @Autowired(required = false)
+    private AuditJournal journal;
+
+    @Autowired
+    private EncryptionService encryptionService;
+
+    @Value("${healthcare.audit.seal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${healthcare.audit.seal.path:./audit-seals}")
+    private String sealPath;
+
+    @Value("${healthcare.audit.seal.interval-millis:200}")
+    private long intervalMillis;
+
+    @Value("${healthcare.audit.seal.max-batch:4096}")
+    private int maxBatch;
+
+    @Value("${healthcare.audit.seal.sign-interval-seconds:60}")
+    private long signIntervalSeconds;
+
+    private FileChannel seals;
+    private FileChannel signatures;
+    private PrivateKey signingKey;
+    private PublicKey verifyingKey;
+
+    // Sealer thread state
+    private MessageDigest digest;
+    private byte[] leaves;
+    private int leafCount;
+    private long nextOffset = -1;
+    private long lastSignedMillis;
+
+    private volatile long sealCount;
+    private volatile long signatureCount;
+    private volatile long sealedThrough;
+    private byte[] lastSealHash = new byte[HASH_LENGTH];
+
+    private Thread sealer;
+    private volatile boolean running;
+
+    private final AtomicLong recordsSealed = new AtomicLong();
+    private final AtomicLong sealNanos = new AtomicLong();
+    private final AtomicLong verifications = new AtomicLong();
+    private final AtomicLong verificationFailures = new AtomicLong();
+
+    @PostConstruct
+    void start() throws IOException, GeneralSecurityException {
+        if (!enabled || journal == null) {
+            return;
+        }
+        Path directory = Paths.get(sealPath);
+        Files.createDirectories(directory);
+        loadSigningKey(directory);
+        digest = MessageDigest.getInstance("SHA-256");
+        leaves = new byte[maxBatch * HASH_LENGTH];
+        seals = openLog(directory.resolve("seals.log"), SEAL_LENGTH);
+        signatures = openLog(directory.resolve("signatures.log"), SIGNATURE_LENGTH);
+        sealCount = seals.size() / SEAL_LENGTH;
+        signatureCount = signatures.size() / SIGNATURE_LENGTH;
+        if (sealCount > 0) {
+            ByteBuffer last = readRecord(seals, sealCount - 1, SEAL_LENGTH);
+            sealedThrough = last.getLong(8) + 1;
+            last.get(48, lastSealHash);
+        }
+        if (sealedThrough > journal.nextSequence()) {
+            logger.log(Level.SEVERE, "Audit seals cover records up to {0} but the journal ends at {1}",
+                new Object[] {sealedThrough, journal.nextSequence()});
+        }
+        lastSignedMillis = System.currentTimeMillis();
+        running = true;
+        sealer = new Thread(this::sealLoop, "audit-sealer");
+        sealer.setDaemon(true);
+        sealer.start();
+    }
+
+    // Seals and signs whatever the journal holds, so a clean shutdown leaves nothing unsigned
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        if (sealer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(sealer);
+        sealer.join(TimeUnit.SECONDS.toMillis(30));
+        seals.close();
+        signatures.close();
+    }
+
+    public boolean isEnabled() {
+        return sealer != null;
+    }
+
+    // Checks every record with a sequence in [fromSequence, toSequence] against its seal, and the seal
+    // chain from there to the next signature
+    public Map<String, Object> verify(long fromSequence, long toSequence) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (!isEnabled()) {
+            result.put("verified", false);
+            result.put("message", "Audit sealing is not enabled");
+            return result;
+        }
+        verifications.incrementAndGet();
+        long count = sealCount;
+        long first = firstSealEndingAtOrAfter(fromSequence, count);
+        MessageDigest verifyDigest = sha256();
+        byte[] previous = first == 0 ? new byte[HASH_LENGTH] : hashOf(readRecord(seals, first - 1, SEAL_LENGTH));
+        long batches = 0;
+        long records = 0;
+        long purged = 0;
+        // Records past retention are gone; their seals can still be checked as links in the chain
+        long firstHeld = journal.firstSequence();
+        long index = first;
+        for (; index < count; index++) {
+            ByteBuffer seal = readRecord(seals, index, SEAL_LENGTH);
+            long sealFirst = seal.getLong(0);
+            long sealLast = seal.getLong(8);
+            if (sealFirst > toSequence) {
+                break;
+            }
+            if (sealFirst >= firstHeld) {
+                byte[] root = rehash(verifyDigest, sealFirst, sealLast);
+                byte[] expectedRoot = new byte[HASH_LENGTH];
+                seal.get(16, expectedRoot);
+                if (root == null || !MessageDigest.isEqual(root, expectedRoot)) {
+                    return failure(result, "Records " + sealFirst + "-" + sealLast + " do not match their seal", index);
+                }
+            } else {
+                purged++;
+            }
+            if (!MessageDigest.isEqual(sealHash(verifyDigest, previous, seal), hashOf(seal))) {
+                return failure(result, "Seal " + index + " does not follow the seal before it", index);
+            }
+            previous = hashOf(seal);
+            if (sealFirst >= firstHeld) {
+                batches++;
+                records += sealLast - sealFirst + 1;
+            }
+        }
+        result.put("batchesChecked", batches);
+        result.put("recordsChecked", records);
+        result.put("batchesPastRetention", purged);
+        result.put("unsealedRecords", Math.max(0, Math.min(toSequence + 1, journal.nextSequence())
+            - Math.max(fromSequence, sealedThrough)));
+
+        // Follow the chain, seals only, up to the first signature at or after the last seal checked
+        long signature = firstSignatureAtOrAfter(Math.max(first, index - 1), signatureCount);
+        if (signature < 0) {
+            result.put("verified", true);
+            result.put("signed", false);
+            return result;
+        }
+        ByteBuffer signed = readRecord(signatures, signature, SIGNATURE_LENGTH);
+        long signedSeal = signed.getLong(0);
+        for (; index <= signedSeal; index++) {
+            ByteBuffer seal = readRecord(seals, index, SEAL_LENGTH);
+            if (!MessageDigest.isEqual(sealHash(verifyDigest, previous, seal), hashOf(seal))) {
+                return failure(result, "Seal " + index + " does not follow the seal before it", index);
+            }
+            previous = hashOf(seal);
+        }
+        byte[] signedHash = new byte[HASH_LENGTH];
+        signed.get(16, signedHash);
+        byte[] signatureBytes = new byte[64];
+        signed.get(48, signatureBytes);
+        if (!MessageDigest.isEqual(signedHash, previous)
+                || !verifySignature(signedSeal, signed.getLong(8), signedHash, signatureBytes)) {
+            return failure(result, "Signature over seal " + signedSeal + " is not valid", signedSeal);
+        }
+        result.put("verified", true);
+        result.put("signed", true);
+        result.put("signedSeal", signedSeal);
+        result.put("signedAtMillis", signed.getLong(8));
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        if (!isEnabled()) {
+            return stats;
+        }
+        long sealed = recordsSealed.get();
+        stats.put("seals", sealCount);
+        stats.put("signatures", signatureCount);
+        stats.put("sealedThrough", sealedThrough);
+        stats.put("journalNextSequence", journal.nextSequence());
+        stats.put("recordsSealed", sealed);
+        stats.put("sealNanosPerRecord", sealed > 0 ? sealNanos.get() / sealed : 0);
+        stats.put("verifications", verifications.get());
+        stats.put("verificationFailures", verificationFailures.get());
+        stats.put("publicKey", Base64.getEncoder().encodeToString(verifyingKey.getEncoded()));
+        return stats;
+    }
+
+    private void sealLoop() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        while (true) {
+            boolean stopping = !running;
+            try {
+                sealPending();
+                if (stopping || System.currentTimeMillis() - lastSignedMillis >= TimeUnit.SECONDS.toMillis(signIntervalSeconds)) {
+                    signLatest();
+                }
+            } catch (IOException | GeneralSecurityException | RuntimeException e) {
+                logger.log(Level.WARNING, "Audit sealing failed, retrying", e);
+            }
+            if (stopping) {
+                return;
+            }
+            LockSupport.parkNanos(intervalNanos);
+        }
+    }
+
+    // Sealer thread only
+    private void sealPending() throws IOException {
+        long end = journal.nextSequence();
+        while (sealedThrough < end) {
+            long started = System.nanoTime();
+            long first = sealedThrough;
+            leafCount = 0;
+            journal.scanPayloads(first, (int) Math.min(nextOffset, Integer.MAX_VALUE),
+                (int) Math.min(maxBatch, end - first), (sequence, offset, payload) -> {
+                    hashLeaf(digest, payload, leaves, leafCount++);
+                    nextOffset = offset + AuditJournal.RECORD_OVERHEAD + (long) payload.limit();
+                });
+            if (leafCount == 0) {
+                return;
+            }
+            byte[] root = merkleRoot(digest, leaves, leafCount);
+            appendSeal(first, first + leafCount - 1, root);
+            sealedThrough = first + leafCount;
+            recordsSealed.addAndGet(leafCount);
+            sealNanos.addAndGet(System.nanoTime() - started);
+        }
+    }
+
+    private void appendSeal(long first, long last, byte[] root) throws IOException {
+        ByteBuffer seal = ByteBuffer.allocate(SEAL_LENGTH);
+        seal.putLong(first).putLong(last).put(root).position(80);
+        seal.putLong(System.currentTimeMillis());
+        byte[] hash = sealHash(digest, lastSealHash, seal);
+        seal.put(48, hash);
+        seal.rewind();
+        while (seal.hasRemaining()) {
+            seals.write(seal);
+        }
+        lastSealHash = hash;
+        sealCount++;
+    }
+
+    private void signLatest() throws IOException, GeneralSecurityException {
+        lastSignedMillis = System.currentTimeMillis();
+        long latest = sealCount - 1;
+        if (latest < 0 || (signatureCount > 0 && readRecord(signatures, signatureCount - 1, SIGNATURE_LENGTH).getLong(0) >= latest)) {
+            return;
+        }
+        // The seals a signature vouches for reach the disk before it does
+        seals.force(false);
+        long signedAt = System.currentTimeMillis();
+        Signature signer = Signature.getInstance("Ed25519");
+        signer.initSign(signingKey);
+        signer.update(signedMessage(latest, signedAt, lastSealHash));
+        ByteBuffer record = ByteBuffer.allocate(SIGNATURE_LENGTH);
+        record.putLong(latest).putLong(signedAt).put(lastSealHash).put(signer.sign());
+        record.flip();
+        while (record.hasRemaining()) {
+            signatures.write(record);
+        }
+        signatures.force(false);
+        signatureCount++;
+    }
+
+    // The Merkle root of the batch as the journal holds it now; null if records are missing
+    private byte[] rehash(MessageDigest verifyDigest, long first, long last) throws IOException {
+        int count = (int) (last - first + 1);
+        byte[] batchLeaves = new byte[count * HASH_LENGTH];
+        int[] hashed = {0};
+        journal.scanPayloads(first, -1, count, (sequence, offset, payload) -> {
+            hashLeaf(verifyDigest, payload, batchLeaves, hashed[0]++);
+        });
+        return hashed[0] == count ? merkleRoot(verifyDigest, batchLeaves, count) : null;
+    }
+
+    // A leaf is the plain hash of the record as stored, written straight into its slot; only inner
+    // nodes carry a prefix, which is enough to keep a record from passing for a pair of leaves
+    private static void hashLeaf(MessageDigest digest, ByteBuffer payload, byte[] leaves, int index) {
+        digest.update(payload);
+        digestInto(digest, leaves, index * HASH_LENGTH);
+    }
+
+    // Groups nodes level by level in place, up to FANOUT children under each parent; a lone node at
+    // the end of a level moves up unchanged
+    private static byte[] merkleRoot(MessageDigest digest, byte[] nodes, int count) {
+        while (count > 1) {
+            int parents = 0;
+            for (int i = 0; i < count; i += FANOUT) {
+                int children = Math.min(FANOUT, count - i);
+                if (children > 1) {
+                    digest.update(NODE);
+                    digest.update(nodes, i * HASH_LENGTH, children * HASH_LENGTH);
+                    digestInto(digest, nodes, parents * HASH_LENGTH);
+                } else {
+                    System.arraycopy(nodes, i * HASH_LENGTH, nodes, parents * HASH_LENGTH, HASH_LENGTH);
+                }
+                parents++;
+            }
+            count = parents;
+        }
+        return Arrays.copyOf(nodes, HASH_LENGTH);
+    }
+
+    // Over the previous seal's hash, the batch's range, its Merkle root and when it was sealed
+    private static byte[] sealHash(MessageDigest digest, byte[] previous, ByteBuffer seal) {
+        digest.update(SEAL);
+        digest.update(previous);
+        digest.update(seal.array(), 0, 48);
+        digest.update(seal.array(), 80, 8);
+        return digest.digest();
+    }
+
+    private static void digestInto(MessageDigest digest, byte[] output, int offset) {
+        try {
+            digest.digest(output, offset, HASH_LENGTH);
+        } catch (java.security.DigestException e) {
+            throw new IllegalStateException("SHA-256 failed", e);
+        }
+    }
+
+    private boolean verifySignature(long sealIndex, long signedAt, byte[] sealHash, byte[] signature) {
+        try {
+            Signature verifier = Signature.getInstance("Ed25519");
+            verifier.initVerify(verifyingKey);
+            verifier.update(signedMessage(sealIndex, signedAt, sealHash));
+            return verifier.verify(signature);
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    private static byte[] signedMessage(long sealIndex, long signedAt, byte[] sealHash) {
+        return ByteBuffer.allocate(1 + 8 + 8 + HASH_LENGTH).put(SIGNED).putLong(sealIndex).putLong(signedAt)
+            .put(sealHash).array();
+    }
+
+    private Map<String, Object> failure(Map<String, Object> result, String message, long seal) {
+        verificationFailures.incrementAndGet();
+        result.put("verified", false);
+        result.put("failedSeal", seal);
+        result.put("message", message);
+        return result;
+    }
+
+    // Seals are in sequence order, so the one covering a sequence is found by binary search
+    private long firstSealEndingAtOrAfter(long sequence, long count) throws IOException {
+        long low = 0;
+        long high = count;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (readRecord(seals, middle, SEAL_LENGTH).getLong(8) < sequence) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long firstSignatureAtOrAfter(long sealIndex, long count) throws IOException {
+        long low = 0;
+        long high = count;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (readRecord(signatures, middle, SIGNATURE_LENGTH).getLong(0) < sealIndex) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < count ? low : -1;
+    }
+
+    private static byte[] hashOf(ByteBuffer seal) {
+        byte[] hash = new byte[HASH_LENGTH];
+        seal.get(48, hash);
+        return hash;
+    }
+
+    private static ByteBuffer readRecord(FileChannel channel, long index, int length) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(length);
+        long position = index * length;
+        while (record.hasRemaining()) {
+            if (channel.read(record, position + record.position()) < 0) {
+                throw new IOException("Audit seal log ends early");
+            }
+        }
+        return record;
+    }
+
+    // Drops a record cut short by a crash
+    private static FileChannel openLog(Path file, int recordLength) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        channel.truncate(channel.size() / recordLength * recordLength);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    // The private key is kept encrypted under the master key; the public key is stored as is so
+    // auditors can check signatures without it
+    private void loadSigningKey(Path directory) throws IOException, GeneralSecurityException {
+        Path privateFile = directory.resolve("signing-key.enc");
+        Path publicFile = directory.resolve("signing-key.pub");
+        KeyFactory keys = KeyFactory.getInstance("Ed25519");
+        if (Files.exists(privateFile) && Files.exists(publicFile)) {
+            signingKey = keys.generatePrivate(new PKCS8EncodedKeySpec(
+                encryptionService.decrypt(Files.readAllBytes(privateFile), KEY_CONTEXT)));
+            verifyingKey = keys.generatePublic(new X509EncodedKeySpec(Files.readAllBytes(publicFile)));
+            return;
+        }
+        KeyPair pair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        writeAtomically(publicFile, pair.getPublic().getEncoded());
+        writeAtomically(privateFile, encryptionService.encrypt(pair.getPrivate().getEncoded(), KEY_CONTEXT));
+        signingKey = pair.getPrivate();
+        verifyingKey = pair.getPublic();
+    }
+
+    private static void writeAtomically(Path file, byte[] content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, content);
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
@@ -1,33 +1,503 @@
 package com.healthcare.service;
 
+import com.healthcare.util.LatencyHistogram;
+import com.healthcare.util.MpscRingBuffer;
+import com.healthcare.util.StringDictionary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+/**
+ * Audit events are published into a bounded lock-free ring buffer and written to the
+ * {@link AuditEventSink} in batches by one background writer, so logging costs a request thread one
+ * compare-and-set. When the ring is full the overflow policy either makes the publisher wait for
+ * room or spills the event to a local file. Batches the sink rejects are spilled too, and spill
+ * files are replayed into the sink once it recovers, so no event is dropped.
+ */
 @Service
 public class AuditService {
-    private final ConcurrentLinkedQueue<AuditEvent> auditLog = new ConcurrentLinkedQueue<>();
-    
+    private static final Logger logger = Logger.getLogger(AuditService.class.getName());
+
+    // How long a blocked publisher sleeps between attempts
+    private static final long BLOCK_PAUSE_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long MAX_REPLAY_BACKOFF_MILLIS = 30_000;
+    private static final int MAX_VIEW_ACTIONS = 1024;
+    private static final Map<String, String> VIEW_ACTIONS = new ConcurrentHashMap<>();
+
+    public enum OverflowPolicy {
+        BLOCK, SPILL
+    }
+
+    @Autowired
+    private AuditEventSink sink;
+
+    @Value("${healthcare.audit.pipeline.capacity:65536}")
+    private int capacity;
+
+    @Value("${healthcare.audit.pipeline.batch-size:500}")
+    private int batchSize;
+
+    // Longest an event waits for its batch to fill before being written anyway
+    @Value("${healthcare.audit.pipeline.flush-millis:200}")
+    private long flushMillis;
+
+    @Value("${healthcare.audit.pipeline.overflow-policy:SPILL}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${healthcare.audit.pipeline.spill-path:./audit-spill}")
+    private String spillPath;
+
+    // How long shutdown lets the writer finish before making it spill what is left
+    @Value("${healthcare.audit.pipeline.shutdown-millis:30000}")
+    private long shutdownMillis;
+
+    private MpscRingBuffer<AuditEvent> ring;
+    private AuditSpillFile spillFile;
+    private Thread writer;
+    private volatile boolean running;
+    // Set once the writer has exited; a publisher that sees it hands its event to the spill file itself
+    private volatile boolean writerDone;
+    // Set when shutdown runs out of patience; the writer spills its batch instead of writing it, then exits
+    private volatile boolean writerAbandoned;
+
+    // Replay state, writer thread only
+    private Path replayFile;
+    private int replayedFromFile;
+    private long replayBackoffMillis;
+    private long nextReplayMillis;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong lastBatchSize = new AtomicLong();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong blockedPublishes = new AtomicLong();
+    private final AtomicLong persistFailures = new AtomicLong();
+    private final LatencyHistogram flushLatency = new LatencyHistogram();
+
+    @PostConstruct
+    void start() throws IOException {
+        ring = new MpscRingBuffer<>(Integer.highestOneBit(Math.max(2, capacity - 1)) << 1);
+        spillFile = new AuditSpillFile(Paths.get(spillPath));
+        running = true;
+        writer = new Thread(this::writeLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Writes whatever is still queued; anything the sink refuses is left in the spill file for next start
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(shutdownMillis);
+        if (writer.isAlive()) {
+            writerAbandoned = true;
+            writer.interrupt();
+            writer.join(shutdownMillis);
+        }
+        // A writer stuck in the sink still owns the ring, so draining it here would make two consumers
+        if (writer.isAlive()) {
+            logger.log(Level.SEVERE, "Audit writer did not stop; {0} queued events were not spilled", ring.size());
+            return;
+        }
+        writerDone = true;
+        drainToSpill();
+    }
+
     public void logAccess(String userId, String resource, String action, String ipAddress) {
-        auditLog.offer(new AuditEvent(userId, resource, action, ipAddress, LocalDateTime.now(), "SUCCESS"));
+        publish(new AuditEvent(nowMicros(), userId, resource, action, ipAddress, AuditEvent.SUCCESS, null, null, true));
     }
-    
+
     public void logFailure(String userId, String resource, String action, String ipAddress, String reason) {
-        auditLog.offer(new AuditEvent(userId, resource, action, ipAddress, LocalDateTime.now(), "FAILURE: " + reason));
+        publish(new AuditEvent(nowMicros(), userId, resource, action, ipAddress, AuditEvent.FAILURE, reason, null, true));
     }
-    
+
     public void logDataAccess(String userId, String patientId, String dataType, String purpose) {
-        auditLog.offer(new AuditEvent(userId, "PHI_ACCESS", "VIEW_" + dataType, null, LocalDateTime.now(), 
-            "Patient: " + patientId + ", Purpose: " + purpose));
-    }
-    
-    public static class AuditEvent {
-        public final String userId, resource, action, ipAddress, status;
-        public final LocalDateTime timestamp;
-        
+        publish(new AuditEvent(nowMicros(), userId, "PHI_ACCESS", viewAction(dataType), null, AuditEvent.DATA_ACCESS,
+            purpose, patientId, true));
+    }
+
+    public void logAccessBatch(List<AuditEvent> events) {
+        for (AuditEvent event : events) {
+            publish(event);
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long batchCount = batches.get();
+        metrics.put("overflowPolicy", overflowPolicy.name());
+        metrics.put("capacity", ring.capacity());
+        metrics.put("queueDepth", ring.size());
+        metrics.put("published", published.get());
+        metrics.put("persisted", persisted.get());
+        metrics.put("batches", batchCount);
+        metrics.put("lastBatchSize", lastBatchSize.get());
+        metrics.put("maxBatchSize", maxBatchSize.get());
+        metrics.put("averageBatchSize", batchCount > 0 ? (double) persisted.get() / batchCount : 0.0);
+        metrics.put("flushLatency", flushLatency.summary());
+        metrics.put("blockedPublishes", blockedPublishes.get());
+        metrics.put("spilled", spilled.get());
+        metrics.put("replayed", replayed.get());
+        try {
+            metrics.put("spillFiles", spillFile.fileCount());
+        } catch (IOException e) {
+            metrics.put("spillFiles", -1);
+        }
+        metrics.put("persistFailures", persistFailures.get());
+        metrics.put("dictionaries", AuditEvent.dictionaryStats());
+        metrics.put("sink", sink.getStats());
+        return metrics;
+    }
+
+    // The Instant does not escape, so once inlined it costs no allocation
+    private static long nowMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000 + now.getNano() / 1000;
+    }
+
+    // "VIEW_" plus the data type, built once per data type rather than once per event
+    private static String viewAction(String dataType) {
+        String action = VIEW_ACTIONS.get(dataType);
+        if (action == null) {
+            action = "VIEW_" + dataType;
+            if (VIEW_ACTIONS.size() < MAX_VIEW_ACTIONS) {
+                VIEW_ACTIONS.putIfAbsent(dataType, action);
+            }
+        }
+        return action;
+    }
+
+    private void publish(AuditEvent event) {
+        published.incrementAndGet();
+        if (!running) {
+            spill(List.of(event));
+            return;
+        }
+        if (ring.offer(event)) {
+            // One wake-up per batch's worth of events; otherwise the writer finds them on its next pass
+            if (ring.size() == batchSize) {
+                LockSupport.unpark(writer);
+            }
+            if (writerDone) {
+                drainToSpill();
+            }
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.SPILL && spill(List.of(event))) {
+            return;
+        }
+        blockedPublishes.incrementAndGet();
+        while (!ring.offer(event)) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(BLOCK_PAUSE_NANOS);
+            if (writerDone) {
+                spill(List.of(event));
+                return;
+            }
+        }
+        if (writerDone) {
+            drainToSpill();
+        }
+    }
+
+    private void writeLoop() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        long flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        long batchStarted = 0;
+        while ((running || !ring.isEmpty()) && !writerAbandoned) {
+            if (batch.isEmpty()) {
+                batchStarted = System.nanoTime();
+            }
+            ring.drain(batch::add, batchSize - batch.size());
+            long waited = System.nanoTime() - batchStarted;
+            if (batch.size() >= batchSize || (!batch.isEmpty() && (waited >= flushNanos || !running))) {
+                persist(batch);
+                // Sinks are done with the list once write returns
+                batch.clear();
+            } else if (batch.isEmpty()) {
+                replaySpill();
+                LockSupport.parkNanos(flushNanos);
+            } else {
+                LockSupport.parkNanos(flushNanos - waited);
+            }
+        }
+        if (!batch.isEmpty()) {
+            persist(batch);
+        }
+    }
+
+    // Writer thread only. A batch the sink refuses goes to the spill file instead; if that fails as
+    // well, the writer keeps retrying both rather than drop the batch.
+    private void persist(List<AuditEvent> batch) {
+        long started = System.nanoTime();
+        long backoffMillis = 100;
+        while (true) {
+            if (writerAbandoned) {
+                if (!spill(batch)) {
+                    logger.log(Level.SEVERE, "Audit writer stopped with {0} events neither written nor spilled",
+                        batch.size());
+                }
+                return;
+            }
+            try {
+                sink.write(batch);
+                break;
+            } catch (RuntimeException e) {
+                persistFailures.incrementAndGet();
+                logger.log(Level.WARNING, "Audit sink rejected a batch of {0}; spilling it: {1}",
+                    new Object[] {batch.size(), e.getMessage()});
+                if (spill(batch)) {
+                    return;
+                }
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoffMillis));
+            backoffMillis = Math.min(MAX_REPLAY_BACKOFF_MILLIS, backoffMillis * 2);
+        }
+        flushLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+        persisted.addAndGet(batch.size());
+        batches.incrementAndGet();
+        lastBatchSize.set(batch.size());
+        maxBatchSize.accumulateAndGet(batch.size(), Math::max);
+    }
+
+    // Writer thread only, when the ring is empty. Backs off while the sink keeps failing.
+    private void replaySpill() {
+        if (System.currentTimeMillis() < nextReplayMillis) {
+            return;
+        }
+        try {
+            if (replayFile == null) {
+                List<Path> files = spillFile.sealForReplay();
+                if (files.isEmpty()) {
+                    return;
+                }
+                replayFile = files.get(0);
+                replayedFromFile = 0;
+            }
+            AuditSpillFile.read(replayFile, replayedFromFile, batchSize, replayBatch -> {
+                sink.write(replayBatch);
+                replayedFromFile += replayBatch.size();
+                replayed.addAndGet(replayBatch.size());
+                persisted.addAndGet(replayBatch.size());
+                batches.incrementAndGet();
+            });
+            Files.delete(replayFile);
+            replayFile = null;
+            replayBackoffMillis = 0;
+        } catch (IOException | RuntimeException e) {
+            replayBackoffMillis = Math.min(MAX_REPLAY_BACKOFF_MILLIS, Math.max(1000, replayBackoffMillis * 2));
+            nextReplayMillis = System.currentTimeMillis() + replayBackoffMillis;
+            logger.log(Level.WARNING, "Audit spill replay failed, retrying in {0} ms: {1}",
+                new Object[] {replayBackoffMillis, e.getMessage()});
+        }
+    }
+
+    // Only after the writer has exited, so this is the ring's sole consumer
+    private synchronized void drainToSpill() {
+        List<AuditEvent> remaining = new ArrayList<>();
+        AuditEvent event;
+        while ((event = ring.poll()) != null) {
+            remaining.add(event);
+        }
+        if (!remaining.isEmpty()) {
+            spill(remaining);
+        }
+    }
+
+    private boolean spill(List<AuditEvent> events) {
+        try {
+            spillFile.append(events);
+            spilled.addAndGet(events.size());
+            return true;
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Audit spill failed for " + events.size() + " events", e);
+            return false;
+        }
+    }
+
+    /**
+     * One audit record, kept small because every login and data access makes one. The time is in epoch
+     * microseconds, and wherever it appears as a LocalDateTime, going in or coming out, that is UTC
+     * wall-clock time, never the JVM's zone. Resource, action, user and IP are codes in process-wide dictionaries; the status is
+     * an outcome plus only the text that varies. Recording an event allocates this object and nothing
+     * else, and the strings are looked up again when the event is read.
+     */
+    public static final class AuditEvent {
+        public static final byte SUCCESS = 0;
+        // detail is the reason
+        public static final byte FAILURE = 1;
+        // detail is the purpose
+        public static final byte DATA_ACCESS = 2;
+        // detail is the whole status
+        public static final byte OTHER = 3;
+
+        // Resources and actions are named in code; users and IPs are bounded so a flood of new ones
+        // falls back to plain text instead of growing the dictionaries
+        private static final StringDictionary RESOURCES = new StringDictionary(4096);
+        private static final StringDictionary ACTIONS = new StringDictionary(4096);
+        private static final StringDictionary USERS = new StringDictionary(65536);
+        private static final StringDictionary IPS = new StringDictionary(65536);
+
+        private static final int RESOURCE = 0, ACTION = 1, USER = 2, IP = 3;
+
+        // Microseconds since the epoch, UTC
+        private final long occurredMicros;
+        private final byte outcome;
+        private final String detail;
+        // Set for PHI access, so the trail can be searched by patient
+        private final String patientId;
+        private final int resource, action, user, ip;
+        // Fields with no dictionary code, by index; null when every field has one
+        private final String[] uncoded;
+
         public AuditEvent(String userId, String resource, String action, String ipAddress, LocalDateTime timestamp, String status) {
-            this.userId = userId; this.resource = resource; this.action = action;
-            this.ipAddress = ipAddress; this.timestamp = timestamp; this.status = status;
+            this(userId, resource, action, ipAddress, timestamp, status, null);
+        }
+
+        public AuditEvent(String userId, String resource, String action, String ipAddress, LocalDateTime timestamp,
+                          String status, String patientId) {
+            this(toMicros(timestamp), userId, resource, action, ipAddress,
+                "SUCCESS".equals(status) ? SUCCESS : OTHER, "SUCCESS".equals(status) ? null : status, patientId, true);
+        }
+
+        // Events read back from storage keep their user and IP as text, so history does not fill the
+        // dictionaries that live events rely on
+        AuditEvent(long occurredMicros, String userId, String resource, String action, String ipAddress,
+                   byte outcome, String detail, String patientId, boolean live) {
+            this.occurredMicros = occurredMicros;
+            this.outcome = outcome;
+            this.detail = detail;
+            this.patientId = patientId;
+            this.resource = RESOURCES.code(resource);
+            this.action = ACTIONS.code(action);
+            this.user = live ? USERS.code(userId) : StringDictionary.NONE;
+            this.ip = live ? IPS.code(ipAddress) : StringDictionary.NONE;
+            String[] texts = null;
+            if (this.resource == StringDictionary.NONE || this.action == StringDictionary.NONE
+                    || (this.user == StringDictionary.NONE && userId != null)
+                    || (this.ip == StringDictionary.NONE && ipAddress != null)) {
+                texts = new String[] {resource, action, userId, ipAddress};
+            }
+            this.uncoded = texts;
+        }
+
+        public long occurredMicros() {
+            return occurredMicros;
+        }
+
+        // One of SUCCESS, FAILURE, DATA_ACCESS, OTHER
+        public byte outcome() {
+            return outcome;
+        }
+
+        public String detail() {
+            return detail;
+        }
+
+        public String patientId() {
+            return patientId;
+        }
+
+        public String userId() {
+            return text(USERS, user, USER);
+        }
+
+        public String resource() {
+            return text(RESOURCES, resource, RESOURCE);
+        }
+
+        public String action() {
+            return text(ACTIONS, action, ACTION);
+        }
+
+        public String ipAddress() {
+            return text(IPS, ip, IP);
+        }
+
+        // UTC
+        public LocalDateTime timestamp() {
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(occurredMicros, 1_000_000),
+                Math.floorMod(occurredMicros, 1_000_000) * 1000, ZoneOffset.UTC);
+        }
+
+        public Instant occurredAt() {
+            return Instant.ofEpochSecond(Math.floorDiv(occurredMicros, 1_000_000),
+                Math.floorMod(occurredMicros, 1_000_000) * 1000L);
+        }
+
+        // The status as it has always been shown and stored in the audit_events table
+        public String status() {
+            switch (outcome) {
+                case SUCCESS:
+                    return "SUCCESS";
+                case FAILURE:
+                    return "FAILURE: " + detail;
+                case DATA_ACCESS:
+                    return "Patient: " + patientId + ", Purpose: " + detail;
+                default:
+                    return detail;
+            }
+        }
+
+        // UTF-8 of a coded field, for encoders; null when the field is held as text
+        byte[] resourceBytes() {
+            return resource != StringDictionary.NONE ? RESOURCES.utf8(resource) : null;
+        }
+
+        byte[] actionBytes() {
+            return action != StringDictionary.NONE ? ACTIONS.utf8(action) : null;
+        }
+
+        byte[] userBytes() {
+            return user != StringDictionary.NONE ? USERS.utf8(user) : null;
+        }
+
+        byte[] ipBytes() {
+            return ip != StringDictionary.NONE ? IPS.utf8(ip) : null;
+        }
+
+        static Map<String, Object> dictionaryStats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("resources", RESOURCES.size());
+            stats.put("actions", ACTIONS.size());
+            stats.put("users", USERS.size());
+            stats.put("userCapacity", USERS.capacity());
+            stats.put("ips", IPS.size());
+            stats.put("ipCapacity", IPS.capacity());
+            return stats;
+        }
+
+        // The timestamp is UTC wall-clock time
+        public static long toMicros(LocalDateTime timestamp) {
+            return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + timestamp.getNano() / 1000;
+        }
+
+        private String text(StringDictionary dictionary, int code, int field) {
+            return code != StringDictionary.NONE ? dictionary.text(code) : uncoded != null ? uncoded[field] : null;
         }
     }
-}
\ No newline at end of file
+}
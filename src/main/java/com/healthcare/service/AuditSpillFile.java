@@ -0,0 +1,135 @@
+package com.healthcare.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Overflow storage for the audit pipeline: events that could not go through the ring buffer or
+ * the sink are appended to a local file and replayed into the sink later, including after a
+ * restart. Appends reach the OS before returning, so they survive a process crash. Replay is at
+ * least once; a file is deleted only after all of it has been written to the sink.
+ */
+final class AuditSpillFile {
+
+    private static final String PREFIX = "audit-spill-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private DataOutputStream out;
+    // Reused for every record; only touched under the file's lock
+    private ByteBuffer buffer = ByteBuffer.allocate(1024);
+    private long sequence;
+
+    AuditSpillFile(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    synchronized void append(AuditService.AuditEvent event) throws IOException {
+        write(event);
+        out.flush();
+    }
+
+    synchronized void append(Collection<AuditService.AuditEvent> events) throws IOException {
+        for (AuditService.AuditEvent event : events) {
+            write(event);
+        }
+        out.flush();
+    }
+
+    // Closes the file being appended to, so every spilled event so far is in a file ready to replay
+    synchronized List<Path> sealForReplay() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        // Names sort in creation order
+        files.sort(null);
+        return files;
+    }
+
+    synchronized int fileCount() throws IOException {
+        int count = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path ignored : stream) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Hands the file over in batches, skipping the first skip events; a record cut short by a crash ends it
+    static int read(Path file, int skip, int batchSize, Consumer<List<AuditService.AuditEvent>> batches)
+            throws IOException {
+        int read = 0;
+        List<AuditService.AuditEvent> batch = new ArrayList<>(batchSize);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                AuditService.AuditEvent event;
+                try {
+                    event = readEvent(in);
+                } catch (EOFException e) {
+                    break;
+                }
+                if (read++ < skip) {
+                    continue;
+                }
+                batch.add(event);
+                if (batch.size() == batchSize) {
+                    batches.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.accept(batch);
+        }
+        return read;
+    }
+
+    private void write(AuditService.AuditEvent event) throws IOException {
+        if (out == null) {
+            // Millisecond timestamp plus a sequence keeps names unique and ordered within this process
+            Path file = directory.resolve(String.format("%s%013d-%06d%s", PREFIX, System.currentTimeMillis(),
+                sequence++ % 1_000_000, SUFFIX));
+            out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)));
+        }
+        while (true) {
+            buffer.clear();
+            try {
+                AuditEventCodec.encode(event, buffer);
+                break;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+        out.writeInt(buffer.position());
+        out.write(buffer.array(), 0, buffer.position());
+    }
+
+    // Each record is its length and an AuditEventCodec payload
+    private static AuditService.AuditEvent readEvent(DataInputStream in) throws IOException {
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        return AuditEventCodec.decode(ByteBuffer.wrap(payload));
+    }
+}
@@ -41,6 +41,15 @@ public class AuthService {
         
         storeHashedPassword("john.doe@example.com", userPassword);
         storeHashedPassword("provider@hospital.com", providerPassword);
+        
+        // Optional: without it no one can read the audit trail through the API
+        String compliancePassword = System.getenv("DEFAULT_COMPLIANCE_PASSWORD");
+        if (compliancePassword != null && !compliancePassword.trim().isEmpty()) {
+            User officer = new User("compliance@hospital.com", "[PROTECTED]", "Compliance", "Officer", User.UserRole.COMPLIANCE);
+            officer.setId(3L);
+            users.put("compliance@hospital.com", officer);
+            storeHashedPassword("compliance@hospital.com", compliancePassword);
+        }
     }
     
     private final Map<String, String> hashedPasswords = new ConcurrentHashMap<>();
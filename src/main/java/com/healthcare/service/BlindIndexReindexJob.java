@@ -0,0 +1,194 @@
+package com.healthcare.service;
+
+import com.healthcare.model.Patient;
+import com.healthcare.util.BlindIndexService;
+import com.healthcare.util.PatientBlindIndexListener;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Rewrites patients whose blind indexes were built under an older key version, or before blind
+ * indexes existed. Rows are walked in id order in small transactions; a finished row carries the
+ * current version and no longer matches, so a run stopped halfway resumes where it left off after a
+ * restart. Rewriting a row also encrypts any column still holding legacy plaintext.
+ */
+@Service
+public class BlindIndexReindexJob {
+    private static final Logger logger = Logger.getLogger(BlindIndexReindexJob.class.getName());
+
+    private static final String STALE_QUERY = "SELECT p FROM Patient p WHERE "
+        + "(p.blindIndexVersion IS NULL OR p.blindIndexVersion <> :version) AND p.id > :after ORDER BY p.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BlindIndexService blindIndexService;
+
+    @Autowired
+    private PatientBlindIndexListener blindIndexListener;
+
+    @Value("${healthcare.security.blind-index.reindex.enabled:true}")
+    private boolean enabled;
+
+    @Value("${healthcare.security.blind-index.reindex.batch-size:200}")
+    private int batchSize;
+
+    // Gives request traffic room between batches
+    @Value("${healthcare.security.blind-index.reindex.pause-millis:50}")
+    private long pauseMillis;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopping;
+    private volatile Thread worker;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong reindexed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            startReindex();
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        stopping = true;
+        Thread thread = worker;
+        if (thread != null) {
+            thread.join(5000);
+        }
+    }
+
+    // False when a run is already going
+    public boolean startReindex() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                reindex();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Blind index re-index failed", e);
+            } finally {
+                running.set(false);
+            }
+        }, "blind-index-reindex");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+        return true;
+    }
+
+    // Returns the number of rows re-indexed
+    long reindex() {
+        runs.incrementAndGet();
+        int version = blindIndexService.currentVersion();
+        long done = 0;
+        String after = "";
+        while (!stopping) {
+            List<String> ids = staleIds(version, after);
+            if (ids.isEmpty()) {
+                break;
+            }
+            done += reindexBatch(ids, version);
+            batches.incrementAndGet();
+            // Rows that failed stay stale and are retried by the next run, not this one
+            after = ids.get(ids.size() - 1);
+            if (pauseMillis > 0) {
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        if (done > 0) {
+            logger.log(Level.INFO, "Re-indexed {0} patients under blind index version {1}",
+                new Object[] {done, version});
+        }
+        return done;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running.get());
+        stats.put("version", blindIndexService.currentVersion());
+        stats.put("runs", runs.get());
+        stats.put("batches", batches.get());
+        stats.put("reindexed", reindexed.get());
+        stats.put("failed", failed.get());
+        return stats;
+    }
+
+    private List<String> staleIds(int version, String after) {
+        return transactionTemplate.execute(status -> entityManager
+            .createQuery(STALE_QUERY, Patient.class)
+            .setParameter("version", version)
+            .setParameter("after", after)
+            .setMaxResults(batchSize)
+            .getResultList()
+            .stream()
+            .map(Patient::getId)
+            .toList());
+    }
+
+    private int reindexBatch(List<String> ids, int version) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> ids.forEach(id -> reindexRow(id, version)));
+            reindexed.addAndGet(ids.size());
+            return ids.size();
+        } catch (RuntimeException e) {
+            // One bad row, say a duplicate email, should not hold back the rest of the batch
+            int done = 0;
+            for (String id : ids) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> reindexRow(id, version));
+                    reindexed.incrementAndGet();
+                    done++;
+                } catch (RuntimeException rowFailure) {
+                    failed.incrementAndGet();
+                    logger.log(Level.WARNING, "Could not re-index patient {0}: {1}",
+                        new Object[] {id, rowFailure.getMessage()});
+                }
+            }
+            return done;
+        }
+    }
+
+    private void reindexRow(String id, int version) {
+        Patient patient = entityManager.find(Patient.class, id);
+        if (patient == null) {
+            return;
+        }
+        Integer indexedVersion = patient.getBlindIndexVersion();
+        if (indexedVersion != null && indexedVersion == version) {
+            return;
+        }
+        // Forces every index to be recomputed; the changed columns make Hibernate write the row
+        patient.setBlindIndexVersion(null);
+        blindIndexListener.updateBlindIndexes(patient);
+    }
+}
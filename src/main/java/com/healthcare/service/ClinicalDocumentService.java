@@ -0,0 +1,213 @@
+package com.healthcare.service;
+
+import com.healthcare.util.EncryptionService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Encrypted clinical documents on disk, one directory per patient. Content is encrypted while it
+ * streams in and decrypted while it streams out, so memory use does not grow with document size.
+ * Each file is bound to its patient and document id, so a file moved or copied elsewhere will not
+ * decrypt. The original file name is encrypted as well; the size and content type are not.
+ */
+@Service
+public class ClinicalDocumentService {
+
+    private static final Logger logger = Logger.getLogger(ClinicalDocumentService.class.getName());
+    private static final String CONTENT_SUFFIX = ".bin";
+    private static final String METADATA_SUFFIX = ".properties";
+    private static final Pattern PATIENT_ID = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_-]{0,63}");
+
+    public record DocumentInfo(String documentId, String patientId, String fileName, String contentType,
+                               long size, long storedAtMillis) {
+    }
+
+    @Autowired
+    private EncryptionService encryptionService;
+
+    @Value("${healthcare.documents.storage-path:./documents}")
+    private String storagePath;
+
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong storeFailures = new AtomicLong();
+    private final AtomicLong unreadableEntries = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        try {
+            Files.createDirectories(Paths.get(storagePath));
+        } catch (IOException e) {
+            throw new RuntimeException("Document storage init failed", e);
+        }
+    }
+
+    public DocumentInfo store(String patientId, String fileName, String contentType, InputStream content)
+            throws IOException {
+        Path directory = patientDirectory(patientId);
+        Files.createDirectories(directory);
+        String documentId = UUID.randomUUID().toString();
+        Path temp = Files.createTempFile(directory, "upload-", ".tmp");
+        try {
+            long size;
+            try (OutputStream out = encryptionService.encryptingStream(Files.newOutputStream(temp),
+                    contentContext(patientId, documentId))) {
+                size = content.transferTo(out);
+            }
+            DocumentInfo info = new DocumentInfo(documentId, patientId, fileName,
+                contentType != null ? contentType : "application/octet-stream", size, System.currentTimeMillis());
+            writeMetadata(directory, info);
+            // The content goes in place last, so a listed document always has both files
+            Files.move(temp, directory.resolve(documentId + CONTENT_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+            stored.incrementAndGet();
+            storedBytes.addAndGet(size);
+            return info;
+        } catch (IOException | RuntimeException e) {
+            storeFailures.incrementAndGet();
+            Files.deleteIfExists(temp);
+            Files.deleteIfExists(directory.resolve(documentId + METADATA_SUFFIX));
+            throw e;
+        }
+    }
+
+    public Optional<DocumentInfo> find(String patientId, String documentId) {
+        if (!isDocumentId(documentId)) {
+            return Optional.empty();
+        }
+        Path directory = patientDirectory(patientId);
+        if (!Files.exists(directory.resolve(documentId + CONTENT_SUFFIX))) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(readMetadata(directory.resolve(documentId + METADATA_SUFFIX), patientId));
+    }
+
+    public List<DocumentInfo> list(String patientId) {
+        Path directory = patientDirectory(patientId);
+        List<DocumentInfo> documents = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return documents;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + CONTENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Path metadata = directory.resolve(
+                    name.substring(0, name.length() - CONTENT_SUFFIX.length()) + METADATA_SUFFIX);
+                // One damaged entry is left out rather than failing the whole listing
+                try {
+                    DocumentInfo info = readMetadata(metadata, patientId);
+                    if (info != null) {
+                        documents.add(info);
+                    }
+                } catch (RuntimeException e) {
+                    unreadableEntries.incrementAndGet();
+                    logger.log(Level.WARNING, "Skipping unreadable document metadata " + metadata, e);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Document listing failed", e);
+        }
+        documents.sort(Comparator.comparingLong(DocumentInfo::storedAtMillis));
+        return documents;
+    }
+
+    // Decrypts as it is read; a tampered or truncated file fails the read that reaches the damage
+    public InputStream openContent(DocumentInfo info) throws IOException {
+        InputStream encrypted = Files.newInputStream(
+            patientDirectory(info.patientId()).resolve(info.documentId() + CONTENT_SUFFIX));
+        opened.incrementAndGet();
+        return encryptionService.decryptingStream(encrypted, contentContext(info.patientId(), info.documentId()));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stored", stored.get());
+        stats.put("storedBytes", storedBytes.get());
+        stats.put("opened", opened.get());
+        stats.put("storeFailures", storeFailures.get());
+        stats.put("unreadableEntries", unreadableEntries.get());
+        return stats;
+    }
+
+    private void writeMetadata(Path directory, DocumentInfo info) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("documentId", info.documentId());
+        properties.setProperty("contentType", info.contentType());
+        properties.setProperty("size", Long.toString(info.size()));
+        properties.setProperty("storedAt", Long.toString(info.storedAtMillis()));
+        if (info.fileName() != null) {
+            properties.setProperty("fileName", Base64.getEncoder().encodeToString(encryptionService.encrypt(
+                info.fileName().getBytes(StandardCharsets.UTF_8), nameContext(info.patientId(), info.documentId()))));
+        }
+        try (OutputStream out = Files.newOutputStream(directory.resolve(info.documentId() + METADATA_SUFFIX))) {
+            properties.store(out, "Clinical document");
+        }
+    }
+
+    private DocumentInfo readMetadata(Path file, String patientId) {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("Document metadata read failed", e);
+        }
+        String documentId = properties.getProperty("documentId");
+        String encryptedName = properties.getProperty("fileName");
+        String fileName = encryptedName == null ? null : new String(encryptionService.decrypt(
+            Base64.getDecoder().decode(encryptedName), nameContext(patientId, documentId)), StandardCharsets.UTF_8);
+        return new DocumentInfo(documentId, patientId, fileName, properties.getProperty("contentType"),
+            Long.parseLong(properties.getProperty("size")), Long.parseLong(properties.getProperty("storedAt")));
+    }
+
+    // Ids come from request paths, so anything that could leave the storage directory is refused
+    private Path patientDirectory(String patientId) {
+        if (patientId == null || !PATIENT_ID.matcher(patientId).matches()) {
+            throw new IllegalArgumentException("Invalid patient id");
+        }
+        return Paths.get(storagePath, patientId);
+    }
+
+    private static boolean isDocumentId(String documentId) {
+        try {
+            return documentId != null && UUID.fromString(documentId).toString().equals(documentId);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static byte[] contentContext(String patientId, String documentId) {
+        return ("document:" + patientId + ":" + documentId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] nameContext(String patientId, String documentId) {
+        return ("document-name:" + patientId + ":" + documentId).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,10 +1,13 @@
 package com.healthcare.service;
 
+import com.healthcare.util.SlidingWindowLimiter;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class ComplianceService {
@@ -12,36 +15,71 @@ public class ComplianceService {
     @Autowired
     private AuditService auditService;
     
-    private final Map<String, Integer> failedAttempts = new ConcurrentHashMap<>();
-    private final Map<String, LocalDateTime> lockoutTime = new ConcurrentHashMap<>();
+    @Value("${healthcare.compliance.lockout.max-attempts:3}")
+    private int maxAttempts;
+    
+    @Value("${healthcare.compliance.lockout.duration-minutes:30}")
+    private long lockoutMinutes;
+    
+    @Value("${healthcare.compliance.lockout.window-minutes:15}")
+    private long windowMinutes;
+    
+    @Value("${healthcare.compliance.lockout.ip-max-attempts:30}")
+    private int ipMaxAttempts;
+    
+    @Value("${healthcare.compliance.lockout.max-tracked-keys:100000}")
+    private int maxTrackedKeys;
+    
+    // Failed logins per account and per client address, each in a table of bounded size
+    private SlidingWindowLimiter userFailures;
+    private SlidingWindowLimiter ipFailures;
+    
+    @PostConstruct
+    void init() {
+        long window = TimeUnit.MINUTES.toMillis(windowMinutes);
+        long lockout = TimeUnit.MINUTES.toMillis(lockoutMinutes);
+        userFailures = new SlidingWindowLimiter(maxAttempts, window, lockout, maxTrackedKeys);
+        ipFailures = new SlidingWindowLimiter(ipMaxAttempts, window, lockout, maxTrackedKeys);
+    }
     
     public boolean isAccountLocked(String userId) {
-        LocalDateTime lockout = lockoutTime.get(userId);
-        if (lockout != null && lockout.isAfter(LocalDateTime.now())) {
-            return true;
-        }
-        lockoutTime.remove(userId);
-        return false;
+        return userFailures.isLocked(userId, System.currentTimeMillis());
+    }
+    
+    // Locked account, or an address that has failed across too many accounts
+    public boolean isLoginBlocked(String userId, String ipAddress) {
+        long now = System.currentTimeMillis();
+        return userFailures.isLocked(userId, now) || (ipAddress != null && ipFailures.isLocked(ipAddress, now));
     }
     
     public void recordFailedAttempt(String userId, String ipAddress) {
-        int attempts = failedAttempts.getOrDefault(userId, 0) + 1;
-        failedAttempts.put(userId, attempts);
+        long now = System.currentTimeMillis();
+        SlidingWindowLimiter.Failure attempt = userFailures.recordFailure(userId, now);
+        // Lockouts are logged once, by the failure that starts them
+        if (ipAddress != null && ipFailures.recordFailure(ipAddress, now).lockedOut()) {
+            auditService.logFailure(userId, "LOGIN", "ADDRESS_BLOCKED", ipAddress, "Too many failed attempts from address");
+        }
         
-        if (attempts >= 3) {
-            lockoutTime.put(userId, LocalDateTime.now().plusMinutes(30));
+        if (attempt.lockedOut()) {
             auditService.logFailure(userId, "LOGIN", "ACCOUNT_LOCKED", ipAddress, "Too many failed attempts");
         }
         
-        auditService.logFailure(userId, "LOGIN", "FAILED_ATTEMPT", ipAddress, "Attempt " + attempts);
+        auditService.logFailure(userId, "LOGIN", "FAILED_ATTEMPT", ipAddress, "Attempt " + attempt.count());
     }
     
+    // Clears the account's failures only; a valid login must not reset the count for its address
     public void recordSuccessfulLogin(String userId, String ipAddress) {
-        failedAttempts.remove(userId);
-        lockoutTime.remove(userId);
+        userFailures.reset(userId);
         auditService.logAccess(userId, "LOGIN", "SUCCESS", ipAddress);
     }
     
+    public Map<String, Object> getLockoutStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", userFailures.getStats());
+        stats.put("addresses", ipFailures.getStats());
+        return stats;
+    }
+    
     public void validateDataAccess(String userId, String patientId, String purpose) {
         if (purpose == null || purpose.trim().isEmpty()) {
             throw new IllegalArgumentException("Purpose required for PHI access");
@@ -0,0 +1,51 @@
+package com.healthcare.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+// One JDBC batch insert per drained batch, committed as a unit
+@Component
+@ConditionalOnProperty(name = "healthcare.audit.store", havingValue = "jdbc")
+public class JdbcAuditEventSink implements AuditEventSink {
+
+    private static final String INSERT = "INSERT INTO audit_events "
+        + "(occurred_at, user_id, resource, action, ip_address, status, patient_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void write(List<AuditService.AuditEvent> batch) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT, batch, batch.size(),
+            (statement, event) -> {
+                // occurred_at has always held the server's local time, which Timestamp.from gives
+                statement.setTimestamp(1, Timestamp.from(event.occurredAt()));
+                setNullable(statement, 2, event.userId());
+                statement.setString(3, event.resource());
+                statement.setString(4, event.action());
+                setNullable(statement, 5, event.ipAddress());
+                setNullable(statement, 6, event.status());
+                setNullable(statement, 7, event.patientId());
+            }));
+    }
+
+    private static void setNullable(PreparedStatement statement, int index, String value) throws SQLException {
+        if (value != null) {
+            statement.setString(index, value);
+        } else {
+            statement.setNull(index, Types.VARCHAR);
+        }
+    }
+}
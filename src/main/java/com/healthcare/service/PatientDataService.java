@@ -1,28 +1,33 @@
 package com.healthcare.service;
 
+import com.healthcare.model.ConsentRecord;
 import com.healthcare.model.PatientData;
+import com.healthcare.util.QRPayloadCodec;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Set;
 
 @Service
 public class PatientDataService {
     private final Map<String, PatientData> patientDataStore = new HashMap<>();
 
     public PatientDataService() {
-        // Initialize with sample data
-        PatientData sampleData = new PatientData("patient-1", "John", "Doe", "patient@example.com");
+        // Initialize with sample data; the id matches the patient seeded by data.sql
+        PatientData sampleData = new PatientData("patient-001", "John", "Doe", "patient@example.com");
         sampleData.setDateOfBirth("1990-01-15");
         sampleData.setBloodType("O+");
         sampleData.setAllergies(List.of("Penicillin", "Shellfish"));
         sampleData.setMedications(List.of("Lisinopril 10mg", "Metformin 500mg"));
         sampleData.setConditions(List.of("Hypertension", "Type 2 Diabetes"));
         sampleData.setEmergencyContact("Jane Doe - 555-0123");
-        patientDataStore.put("patient-1", sampleData);
+        patientDataStore.put("patient-001", sampleData);
     }
 
     public Optional<PatientData> getPatientData(String patientId) {
@@ -42,6 +47,41 @@ public class PatientDataService {
         return patientData;
     }
 
+    // Frozen copy holding only the fields the shared data types cover; later edits do not reach it.
+    // PatientData has no vitals, labs, immunizations, procedures or documents, so those add nothing yet.
+    public Optional<PatientData> buildSnapshot(String patientId, Collection<ConsentRecord.DataType> dataTypes) {
+        Set<ConsentRecord.DataType> shared = dataTypes == null || dataTypes.isEmpty()
+            ? EnumSet.noneOf(ConsentRecord.DataType.class)
+            : EnumSet.copyOf(dataTypes);
+        return getPatientData(patientId).map(data -> {
+            PatientData snapshot = new PatientData();
+            snapshot.setPatientId(data.getPatientId());
+            snapshot.setLastUpdated(data.getLastUpdated());
+            if (shared.contains(ConsentRecord.DataType.DEMOGRAPHICS)) {
+                snapshot.setFirstName(data.getFirstName());
+                snapshot.setLastName(data.getLastName());
+                snapshot.setEmail(data.getEmail());
+                snapshot.setDateOfBirth(data.getDateOfBirth());
+                snapshot.setBloodType(data.getBloodType());
+                snapshot.setEmergencyContact(data.getEmergencyContact());
+            }
+            if (shared.contains(ConsentRecord.DataType.ALLERGIES)) {
+                snapshot.setAllergies(copyOf(data.getAllergies()));
+            }
+            if (shared.contains(ConsentRecord.DataType.MEDICATIONS)) {
+                snapshot.setMedications(copyOf(data.getMedications()));
+            }
+            if (shared.contains(ConsentRecord.DataType.CONDITIONS)) {
+                snapshot.setConditions(copyOf(data.getConditions()));
+            }
+            return snapshot;
+        });
+    }
+
+    private static List<String> copyOf(List<String> values) {
+        return values != null ? List.copyOf(values) : null;
+    }
+
     public List<PatientData> searchPatients(String query) {
         return patientDataStore.values().stream()
                 .filter(patient -> 
@@ -54,19 +94,7 @@ public class PatientDataService {
     public String generateQRData(String patientId) {
         Optional<PatientData> patientData = getPatientData(patientId);
         if (patientData.isPresent()) {
-            PatientData data = patientData.get();
-            return String.format(
-                "PATIENT_DATA|%s|%s %s|DOB:%s|BLOOD:%s|ALLERGIES:%s|MEDS:%s|CONDITIONS:%s|EMERGENCY:%s|UPDATED:%s",
-                data.getPatientId(),
-                data.getFirstName(), data.getLastName(),
-                data.getDateOfBirth(),
-                data.getBloodType(),
-                String.join(",", data.getAllergies() != null ? data.getAllergies() : List.of()),
-                String.join(",", data.getMedications() != null ? data.getMedications() : List.of()),
-                String.join(",", data.getConditions() != null ? data.getConditions() : List.of()),
-                data.getEmergencyContact(),
-                data.getLastUpdated()
-            );
+            return QRPayloadCodec.toQRText(QRPayloadCodec.encode(patientData.get()));
         }
         return "NO_DATA_FOUND";
     }
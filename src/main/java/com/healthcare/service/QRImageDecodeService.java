@@ -0,0 +1,139 @@
+package com.healthcare.service;
+
+import com.healthcare.util.LatencyHistogram;
+import com.healthcare.util.QRImageDecoder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@Service
+public class QRImageDecodeService {
+    private static final Logger logger = Logger.getLogger(QRImageDecodeService.class.getName());
+
+    @Value("${healthcare.security.qr.decode.threads:4}")
+    private int decodeThreads;
+
+    @Value("${healthcare.security.qr.decode.queue-capacity:32}")
+    private int decodeQueueCapacity;
+
+    // Covers time spent queued as well as decoding
+    @Value("${healthcare.security.qr.decode.timeout-millis:3000}")
+    private long timeoutMillis;
+
+    @Value("${healthcare.security.qr.decode.downscale-max-dimension:800}")
+    private int downscaleMaxDimension;
+
+    @Value("${healthcare.security.qr.decode.max-pixels:40000000}")
+    private long maxPixels;
+
+    private ThreadPoolExecutor decodePool;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong notFound = new AtomicLong();
+    private final AtomicLong invalidImages = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLongArray passHits = new AtomicLongArray(QRImageDecoder.Pass.values().length);
+
+    @PostConstruct
+    void startDecodePool() {
+        AtomicInteger threadCount = new AtomicInteger();
+        decodePool = new ThreadPoolExecutor(decodeThreads, decodeThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(decodeQueueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "qr-decode-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            // Uploads are shed rather than run on request threads; the client can retry
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stopDecodePool() {
+        decodePool.shutdownNow();
+    }
+
+    public String decode(byte[] imageBytes) throws TimeoutException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Future<QRImageDecoder.Decoded> future;
+        try {
+            future = decodePool.submit(() -> QRImageDecoder.decode(
+                QRImageDecoder.readImage(imageBytes, maxPixels), downscaleMaxDimension, deadline));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new IllegalStateException("QR decoder is busy, please retry");
+        }
+
+        try {
+            QRImageDecoder.Decoded decoded = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (decoded == null) {
+                if (System.nanoTime() >= deadline) {
+                    throw new TimeoutException("QR decode time budget exceeded");
+                }
+                notFound.incrementAndGet();
+                throw new IllegalArgumentException("No QR code found in image");
+            }
+            succeeded.incrementAndGet();
+            passHits.incrementAndGet(decoded.pass().ordinal());
+            return decoded.text();
+        } catch (TimeoutException e) {
+            // ZXing does not check interrupts; the decoder stops at its next deadline check
+            future.cancel(true);
+            timedOut.incrementAndGet();
+            throw new TimeoutException("QR decode time budget exceeded");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException invalid) {
+                invalidImages.incrementAndGet();
+                throw invalid;
+            }
+            logger.log(Level.FINE, "QR image decode failed", e.getCause());
+            invalidImages.incrementAndGet();
+            throw new IllegalArgumentException("Unreadable image");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("QR decode interrupted");
+        } finally {
+            latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> passes = new LinkedHashMap<>();
+        for (QRImageDecoder.Pass pass : QRImageDecoder.Pass.values()) {
+            passes.put(pass.name().toLowerCase(Locale.ROOT), passHits.get(pass.ordinal()));
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("succeeded", succeeded.get());
+        stats.put("notFound", notFound.get());
+        stats.put("invalidImages", invalidImages.get());
+        stats.put("timedOut", timedOut.get());
+        stats.put("rejected", rejected.get());
+        stats.put("decodedByPass", passes);
+        stats.put("latency", latency.summary());
+        stats.put("activeDecodes", decodePool.getActiveCount());
+        stats.put("queuedDecodes", decodePool.getQueue().size());
+        return stats;
+    }
+}
@@ -0,0 +1,431 @@
+package com.healthcare.service;
+
+import com.healthcare.model.ConsentRecord;
+import com.healthcare.model.QRShareSession;
+import com.healthcare.util.HierarchicalTimingWheel;
+import com.healthcare.util.QRCodeCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Live QR share sessions by session token. Scans resolve a session with one hash lookup and redeem
+ * it with a single compare-and-set, so concurrent scans never wait on each other or on the database.
+ * Expiry is driven by a timing wheel rather than table scans. Changes are queued and written to
+ * qr_share_sessions in batches by a background writer, so sessions survive a restart.
+ */
+@Service
+public class QRSessionRegistry {
+    private static final Logger logger = Logger.getLogger(QRSessionRegistry.class.getName());
+
+    // Three levels of 64 one-second slots place deadlines up to 72 hours out exactly
+    private static final int WHEEL_LEVELS = 3;
+
+    private static final State ACTIVE = new State(QRShareSession.SessionStatus.ACTIVE, null, null);
+
+    public enum Redemption {
+        REDEEMED, NOT_FOUND, ALREADY_USED, EXPIRED, CANCELLED
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private QRCodeCache qrCodeCache;
+
+    @Value("${healthcare.security.qr.session.tick-millis:1000}")
+    private long tickMillis;
+
+    @Value("${healthcare.security.qr.session.flush-millis:250}")
+    private long flushMillis;
+
+    @Value("${healthcare.security.qr.session.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private final ConcurrentHashMap<String, LiveSession> sessions = new ConcurrentHashMap<>();
+    private HierarchicalTimingWheel<LiveSession> expiryWheel;
+
+    // Sessions whose row is out of date; the writer persists whatever state they hold when it runs
+    private final ConcurrentLinkedQueue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingWriteCount = new AtomicInteger();
+    private ScheduledThreadPoolExecutor writer;
+
+    private final AtomicLong registered = new AtomicLong();
+    private final AtomicLong redeemed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong persistedWrites = new AtomicLong();
+    private final AtomicLong persistFailures = new AtomicLong();
+    // Rows that never reached the table; those sessions are gone after a restart
+    private final AtomicLong lostWrites = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        expiryWheel = new HierarchicalTimingWheel<>(tickMillis, WHEEL_LEVELS, System.currentTimeMillis());
+        writer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "qr-session-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flushPendingWrites, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+        flushPendingWrites();
+    }
+
+    public LiveSession register(String sessionToken, String patientId, List<ConsentRecord.DataType> dataTypes,
+                                LocalDateTime expiresAt, String qrContent, byte[] encryptedSnapshot) {
+        LiveSession session = new LiveSession(sessionToken, patientId,
+            dataTypes != null ? List.copyOf(dataTypes) : List.of(), LocalDateTime.now(), expiresAt, qrContent,
+            encryptedSnapshot);
+        if (sessions.putIfAbsent(sessionToken, session) != null) {
+            throw new IllegalStateException("Session token already registered");
+        }
+        session.timeout = expiryWheel.schedule(session, toMillis(expiresAt));
+        registered.incrementAndGet();
+        enqueueWrite(session, true);
+        return session;
+    }
+
+    // Sessions are held until their deadline, so a miss means unknown, expired or cancelled
+    public LiveSession lookup(String sessionToken) {
+        return sessionToken != null ? sessions.get(sessionToken) : null;
+    }
+
+    public Redemption redeem(String sessionToken, String accessedBy) {
+        LiveSession session = lookup(sessionToken);
+        return session != null ? redeem(session, accessedBy) : Redemption.NOT_FOUND;
+    }
+
+    // Exactly one caller ever gets REDEEMED for a session; everyone else learns why not
+    public Redemption redeem(LiveSession session, String accessedBy) {
+        LocalDateTime now = LocalDateTime.now();
+        // The wheel works in whole ticks, so the deadline itself is checked as well
+        if (!now.isBefore(session.expiresAt)) {
+            if (session.transition(QRShareSession.SessionStatus.EXPIRED, null, null)) {
+                expired.incrementAndGet();
+                closed(session);
+            }
+        } else if (session.transition(QRShareSession.SessionStatus.USED, now, accessedBy)) {
+            redeemed.incrementAndGet();
+            closed(session);
+            return Redemption.REDEEMED;
+        }
+        return switch (session.getStatus()) {
+            case USED -> Redemption.ALREADY_USED;
+            case CANCELLED -> Redemption.CANCELLED;
+            default -> Redemption.EXPIRED;
+        };
+    }
+
+    public boolean cancel(String sessionToken) {
+        LiveSession session = lookup(sessionToken);
+        if (session == null || !session.transition(QRShareSession.SessionStatus.CANCELLED, null, null)) {
+            return false;
+        }
+        sessions.remove(sessionToken, session);
+        // Null only if registration is still in flight; the stale entry then fires into a no-op
+        HierarchicalTimingWheel.Timeout<LiveSession> timeout = session.timeout;
+        if (timeout != null) {
+            expiryWheel.cancel(timeout);
+        }
+        cancelled.incrementAndGet();
+        closed(session);
+        return true;
+    }
+
+    @Scheduled(fixedRateString = "${healthcare.security.qr.session.tick-millis:1000}")
+    public void expireDue() {
+        for (LiveSession session : expiryWheel.advance(System.currentTimeMillis())) {
+            sessions.remove(session.sessionToken, session);
+            // Redeemed sessions are only dropped; their row already says USED
+            if (session.transition(QRShareSession.SessionStatus.EXPIRED, null, null)) {
+                expired.incrementAndGet();
+                closed(session);
+            }
+        }
+    }
+
+    // Picks up sessions issued before a restart; ones that lapsed while down are closed in the table
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadActiveSessions() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            jdbcTemplate.update("UPDATE qr_share_sessions SET status = ? WHERE status = ? AND expires_at <= ?",
+                QRShareSession.SessionStatus.EXPIRED.name(), QRShareSession.SessionStatus.ACTIVE.name(), now);
+
+            Map<String, List<ConsentRecord.DataType>> dataTypes = new LinkedHashMap<>();
+            jdbcTemplate.query("SELECT s.session_token, t.shared_data_types FROM qr_share_sessions s "
+                    + "JOIN qr_share_session_shared_data_types t ON t.qr_share_session_id = s.id "
+                    + "WHERE s.status = ? AND s.expires_at > ?",
+                rs -> {
+                    dataTypes.computeIfAbsent(rs.getString(1), token -> new ArrayList<>())
+                        .add(ConsentRecord.DataType.valueOf(rs.getString(2)));
+                },
+                QRShareSession.SessionStatus.ACTIVE.name(), now);
+
+            jdbcTemplate.query("SELECT session_token, patient_id, created_at, expires_at, qr_code_data, "
+                    + "patient_snapshot FROM qr_share_sessions WHERE status = ? AND expires_at > ?",
+                rs -> {
+                    String token = rs.getString(1);
+                    LiveSession session = new LiveSession(token, rs.getString(2),
+                        List.copyOf(dataTypes.getOrDefault(token, List.of())),
+                        rs.getTimestamp(3).toLocalDateTime(), rs.getTimestamp(4).toLocalDateTime(),
+                        rs.getString(5), rs.getBytes(6));
+                    if (sessions.putIfAbsent(token, session) == null) {
+                        session.timeout = expiryWheel.schedule(session, toMillis(session.expiresAt));
+                    }
+                },
+                QRShareSession.SessionStatus.ACTIVE.name(), now);
+        } catch (DataAccessException e) {
+            logger.log(Level.WARNING, "Could not load active QR share sessions: {0}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tracked", sessions.size());
+        stats.put("scheduledExpiries", expiryWheel.size());
+        stats.put("registered", registered.get());
+        stats.put("redeemed", redeemed.get());
+        stats.put("expired", expired.get());
+        stats.put("cancelled", cancelled.get());
+        stats.put("pendingWrites", pendingWriteCount.get());
+        stats.put("persistedWrites", persistedWrites.get());
+        stats.put("persistFailures", persistFailures.get());
+        stats.put("lostWrites", lostWrites.get());
+        return stats;
+    }
+
+    // A closed session's QR can no longer be displayed, so its cached renders go with it
+    private void closed(LiveSession session) {
+        if (session.qrContent != null) {
+            qrCodeCache.invalidate(session.qrContent);
+        }
+        enqueueWrite(session, false);
+    }
+
+    private void enqueueWrite(LiveSession session, boolean insert) {
+        pendingWrites.add(new PendingWrite(session, insert));
+        pendingWriteCount.incrementAndGet();
+    }
+
+    // Runs on the writer thread, and once more on shutdown after the writer has stopped
+    synchronized void flushPendingWrites() {
+        int inFlight = 0;
+        try {
+            while (!pendingWrites.isEmpty()) {
+                // A session inserted in this batch is written with its latest state, so later updates fold in
+                Set<LiveSession> inserts = new LinkedHashSet<>();
+                Set<LiveSession> updates = new LinkedHashSet<>();
+                PendingWrite write;
+                int drained = 0;
+                while (drained < flushBatchSize && (write = pendingWrites.poll()) != null) {
+                    drained++;
+                    (write.insert() ? inserts : updates).add(write.session());
+                }
+                pendingWriteCount.addAndGet(-drained);
+                updates.removeAll(inserts);
+                inFlight = inserts.size() + updates.size();
+                writeInserts(new ArrayList<>(inserts));
+                writeUpdates(new ArrayList<>(updates));
+                inFlight = 0;
+            }
+        } catch (RuntimeException e) {
+            // Keeps the writer scheduled; whatever was drained is lost, as if the writes had failed
+            persistFailures.incrementAndGet();
+            lostWrites.addAndGet(inFlight);
+            logger.log(Level.WARNING, "QR share session writer failed", e);
+        }
+    }
+
+    private void writeInserts(List<LiveSession> inserts) {
+        if (inserts.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertRows(inserts));
+            persistedWrites.addAndGet(inserts.size());
+        } catch (DataAccessException | TransactionException e) {
+            // One bad row fails the whole batch; retry row by row so only that row is lost
+            for (LiveSession session : inserts) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insertRows(List.of(session)));
+                    persistedWrites.incrementAndGet();
+                } catch (DataAccessException | TransactionException rowFailure) {
+                    // The in-memory session stays authoritative; it is only lost if the process restarts
+                    persistFailures.incrementAndGet();
+                    lostWrites.incrementAndGet();
+                    logger.log(Level.WARNING, "Failed to persist QR share session: {0}", rowFailure.getMessage());
+                }
+            }
+        }
+    }
+
+    private void insertRows(List<LiveSession> inserts) {
+        List<Object[]> sessionRows = new ArrayList<>(inserts.size());
+        List<Object[]> dataTypeRows = new ArrayList<>();
+        for (LiveSession session : inserts) {
+            String id = UUID.randomUUID().toString();
+            State state = session.state.get();
+            sessionRows.add(new Object[] {id, session.patientId, session.sessionToken,
+                Timestamp.valueOf(session.createdAt), Timestamp.valueOf(session.expiresAt), state.status().name(),
+                state.accessedAt() != null ? Timestamp.valueOf(state.accessedAt()) : null, state.accessedBy(),
+                session.qrContent, session.encryptedSnapshot});
+            for (ConsentRecord.DataType type : session.dataTypes) {
+                dataTypeRows.add(new Object[] {id, type.name()});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO qr_share_sessions "
+            + "(id, patient_id, session_token, created_at, expires_at, status, accessed_at, accessed_by, qr_code_data, "
+            + "patient_snapshot) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", sessionRows);
+        if (!dataTypeRows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO qr_share_session_shared_data_types "
+                + "(qr_share_session_id, shared_data_types) VALUES (?, ?)", dataTypeRows);
+        }
+    }
+
+    // Terminal states never change again, so an update that races ahead of its insert is harmless
+    private void writeUpdates(List<LiveSession> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(updates.size());
+        for (LiveSession session : updates) {
+            State state = session.state.get();
+            rows.add(new Object[] {state.status().name(),
+                state.accessedAt() != null ? Timestamp.valueOf(state.accessedAt()) : null, state.accessedBy(),
+                session.sessionToken});
+        }
+        try {
+            jdbcTemplate.batchUpdate("UPDATE qr_share_sessions SET status = ?, accessed_at = ?, accessed_by = ? "
+                + "WHERE session_token = ?", rows);
+            persistedWrites.addAndGet(rows.size());
+        } catch (DataAccessException e) {
+            persistFailures.incrementAndGet();
+            lostWrites.addAndGet(rows.size());
+            logger.log(Level.WARNING, "Failed to persist QR share session status: {0}", e.getMessage());
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record PendingWrite(LiveSession session, boolean insert) {
+    }
+
+    // Status and access details change together, so they live in one immutable value swapped by CAS
+    private record State(QRShareSession.SessionStatus status, LocalDateTime accessedAt, String accessedBy) {
+    }
+
+    public static final class LiveSession {
+        private final String sessionToken;
+        private final String patientId;
+        private final List<ConsentRecord.DataType> dataTypes;
+        private final LocalDateTime createdAt;
+        private final LocalDateTime expiresAt;
+        private final String qrContent;
+        // Consent-filtered patient data, encoded and encrypted at generation time
+        private final byte[] encryptedSnapshot;
+        private final AtomicReference<State> state = new AtomicReference<>(ACTIVE);
+        private volatile HierarchicalTimingWheel.Timeout<LiveSession> timeout;
+
+        private LiveSession(String sessionToken, String patientId, List<ConsentRecord.DataType> dataTypes,
+                            LocalDateTime createdAt, LocalDateTime expiresAt, String qrContent,
+                            byte[] encryptedSnapshot) {
+            this.sessionToken = sessionToken;
+            this.patientId = patientId;
+            this.dataTypes = dataTypes;
+            this.createdAt = createdAt;
+            this.expiresAt = expiresAt;
+            this.qrContent = qrContent;
+            this.encryptedSnapshot = encryptedSnapshot;
+        }
+
+        // Every transition leaves ACTIVE, so a failed compare-and-set means another one already won
+        private boolean transition(QRShareSession.SessionStatus to, LocalDateTime accessedAt, String accessedBy) {
+            return state.get() == ACTIVE && state.compareAndSet(ACTIVE, new State(to, accessedAt, accessedBy));
+        }
+
+        public boolean isActive() {
+            return state.get() == ACTIVE && LocalDateTime.now().isBefore(expiresAt);
+        }
+
+        public String getSessionToken() {
+            return sessionToken;
+        }
+
+        public String getPatientId() {
+            return patientId;
+        }
+
+        public List<ConsentRecord.DataType> getDataTypes() {
+            return dataTypes;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public LocalDateTime getExpiresAt() {
+            return expiresAt;
+        }
+
+        public String getQrContent() {
+            return qrContent;
+        }
+
+        public byte[] getEncryptedSnapshot() {
+            return encryptedSnapshot;
+        }
+
+        public QRShareSession.SessionStatus getStatus() {
+            return state.get().status();
+        }
+
+        public LocalDateTime getAccessedAt() {
+            return state.get().accessedAt();
+        }
+
+        public String getAccessedBy() {
+            return state.get().accessedBy();
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.healthcare.service;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.healthcare.dto.QRPayload;
+import com.healthcare.dto.QRShareRequest;
+import com.healthcare.model.ConsentRecord;
+import com.healthcare.model.PatientData;
+import com.healthcare.repository.PatientRepository;
+import com.healthcare.util.EncryptionService;
+import com.healthcare.util.QRCodeCache;
+import com.healthcare.util.QRCodeGenerator;
+import com.healthcare.util.QRPayloadCodec;
+import com.healthcare.util.QRSymbolOptimizer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@Service
+public class QRShareService {
+    private static final Logger logger = Logger.getLogger(QRShareService.class.getName());
+
+    private static final String SUCCESS = "success";
+    private static final int QR_SIZE = 200;
+
+    @Autowired
+    private ComplianceService complianceService;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private QRCodeCache qrCodeCache;
+
+    @Autowired
+    private QRSessionRegistry qrSessionRegistry;
+
+    @Autowired
+    private PatientDataService patientDataService;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private EncryptionService encryptionService;
+
+    @Value("${healthcare.security.qr.expiration-minutes:15}")
+    private int defaultExpirationMinutes;
+
+    // Minimum error correction a scanned share must survive; higher levels are used when they fit for free
+    @Value("${healthcare.security.qr.min-error-correction:L}")
+    private ErrorCorrectionLevel minErrorCorrection;
+
+    @Value("${healthcare.security.qr.margin:" + QRCodeGenerator.QUIET_ZONE + "}")
+    private int margin;
+
+    @Value("${healthcare.security.qr.batch.threads:4}")
+    private int renderThreads;
+
+    @Value("${healthcare.security.qr.batch.queue-capacity:256}")
+    private int renderQueueCapacity;
+
+    private ThreadPoolExecutor renderPool;
+
+    @PostConstruct
+    void startRenderPool() {
+        AtomicInteger threadCount = new AtomicInteger();
+        renderPool = new ThreadPoolExecutor(renderThreads, renderThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(renderQueueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "qr-render-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            // A full queue pushes rendering back onto the submitting thread instead of failing items;
+            // after shutdown the task is refused outright rather than dropped without a word
+            (runnable, executor) -> {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("QR render pool is shut down");
+                }
+                runnable.run();
+            });
+    }
+
+    @PreDestroy
+    void stopRenderPool() {
+        renderPool.shutdown();
+    }
+
+    public IssuedQR createShare(String userId, String patientId, List<ConsentRecord.DataType> dataTypes,
+                                String purpose, int expirationMinutes,
+                                QRCodeGenerator.OutputFormat format) throws Exception {
+        // The session row references the patient, so a share is only issued for one that exists
+        if (patientId == null || patientId.isBlank()) {
+            throw new IllegalArgumentException("Patient ID is required");
+        }
+        if (!patientRepository.existsById(patientId)) {
+            throw new IllegalArgumentException("Unknown patient: " + patientId);
+        }
+        complianceService.validateDataAccess(userId, patientId, purpose);
+
+        String sessionId = "session-" + UUID.randomUUID();
+        // The payload codec carries whole seconds, so the issued expiry matches what is scanned
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(clampExpiration(expirationMinutes))
+            .truncatedTo(ChronoUnit.SECONDS);
+        String qrContent = QRPayloadCodec.toQRText(QRPayloadCodec.encode(QRPayload.builder()
+            .sessionToken(sessionId)
+            .patientId(patientId)
+            .dataTypes(dataTypes)
+            .expiresAt(expiresAt)
+            .build()));
+        IssuedQR issued = render(sessionId, patientId, qrContent, format, expiresAt);
+        qrSessionRegistry.register(sessionId, patientId, dataTypes, expiresAt, qrContent,
+            sealSnapshot(sessionId, patientId, dataTypes));
+        return issued;
+    }
+
+    // The same QR again for a live session, served from the cache while the session stays open;
+    // null once the session is redeemed, cancelled or expired
+    public IssuedQR redisplay(String sessionToken, QRCodeGenerator.OutputFormat format) throws Exception {
+        QRSessionRegistry.LiveSession session = qrSessionRegistry.lookup(sessionToken);
+        if (session == null || !session.isActive() || session.getQrContent() == null) {
+            return null;
+        }
+        return render(session.getSessionToken(), session.getPatientId(), session.getQrContent(), format,
+            session.getExpiresAt());
+    }
+
+    private IssuedQR render(String sessionId, String patientId, String qrContent, QRCodeGenerator.OutputFormat format,
+                            LocalDateTime expiresAt) throws Exception {
+        // Vector and module output do not depend on the pixel size
+        int size = format == QRCodeGenerator.OutputFormat.PNG ? QR_SIZE : 0;
+        QRSymbolOptimizer.SymbolPlan plan = QRSymbolOptimizer.plan(qrContent, minErrorCorrection, margin);
+        QRCodeGenerator.Symbol symbol = qrCodeCache.getOrGenerate(qrContent, size, size, plan, format, expiresAt);
+        return new IssuedQR(sessionId, patientId, format, symbol.image(), symbol.plan(), expiresAt);
+    }
+
+    // The patient's data as it was when the share was issued, or null when the patient has no record
+    public PatientData openSnapshot(QRSessionRegistry.LiveSession session) {
+        byte[] sealed = session.getEncryptedSnapshot();
+        if (sealed == null) {
+            return null;
+        }
+        return QRPayloadCodec.decodePatientData(
+            encryptionService.decrypt(sealed, session.getSessionToken().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Assembled and encrypted once per share, bound to its session token so it cannot be moved to another
+    private byte[] sealSnapshot(String sessionId, String patientId, List<ConsentRecord.DataType> dataTypes) {
+        return patientDataService.buildSnapshot(patientId, dataTypes)
+            .map(snapshot -> encryptionService.encrypt(QRPayloadCodec.encode(snapshot),
+                sessionId.getBytes(StandardCharsets.UTF_8)))
+            .orElse(null);
+    }
+
+    // Renders every item on the bounded pool and hands each result to the sink as soon as it is ready.
+    // Item failures are reported in place; audit entries for the whole batch are written in one call.
+    // Throws IllegalStateException if the pool refuses an item, after which nothing more is delivered
+    // and onComplete is never run, so the caller ends the response itself.
+    public void createShareBatch(String userId, String ipAddress, List<QRShareRequest> items,
+                                 Consumer<Map<String, Object>> resultSink, Runnable onComplete) {
+        Queue<AuditService.AuditEvent> auditEvents = new ConcurrentLinkedQueue<>();
+        AtomicInteger remaining = new AtomicInteger(items.size());
+        AtomicInteger failed = new AtomicInteger();
+        AtomicBoolean abandoned = new AtomicBoolean();
+
+        for (int i = 0; i < items.size(); i++) {
+            int index = i;
+            QRShareRequest item = items.get(i);
+            try {
+                renderPool.execute(() -> {
+                    Map<String, Object> result = renderItem(userId, ipAddress, index, item, auditEvents);
+                    if (abandoned.get()) {
+                        // Shares issued after the batch gave up are still audited
+                        auditService.logAccessBatch(drain(auditEvents));
+                        return;
+                    }
+                    if (!Boolean.TRUE.equals(result.get(SUCCESS))) {
+                        failed.incrementAndGet();
+                    }
+                    try {
+                        resultSink.accept(result);
+                    } catch (RuntimeException e) {
+                        logger.log(Level.WARNING, "Failed to deliver batch QR result " + index, e);
+                    }
+                    if (remaining.decrementAndGet() == 0) {
+                        completeBatch(items.size(), failed.get(), auditEvents, resultSink, onComplete);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                abandoned.set(true);
+                auditService.logAccessBatch(drain(auditEvents));
+                throw new IllegalStateException("QR rendering is shutting down", e);
+            }
+        }
+    }
+
+    // The response is always completed, even when the audit write or the summary line fails
+    private void completeBatch(int total, int failed, Queue<AuditService.AuditEvent> auditEvents,
+                               Consumer<Map<String, Object>> resultSink, Runnable onComplete) {
+        try {
+            auditService.logAccessBatch(drain(auditEvents));
+
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("complete", true);
+            summary.put("total", total);
+            summary.put("failed", failed);
+            summary.put("succeeded", total - failed);
+            resultSink.accept(summary);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Failed to finish QR batch", e);
+        } finally {
+            onComplete.run();
+        }
+    }
+
+    // Each event is taken once, whichever thread gets to it
+    private static List<AuditService.AuditEvent> drain(Queue<AuditService.AuditEvent> auditEvents) {
+        List<AuditService.AuditEvent> events = new ArrayList<>();
+        AuditService.AuditEvent event;
+        while ((event = auditEvents.poll()) != null) {
+            events.add(event);
+        }
+        return events;
+    }
+
+    private Map<String, Object> renderItem(String userId, String ipAddress, int index, QRShareRequest item,
+                                           Queue<AuditService.AuditEvent> auditEvents) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("index", index);
+        try {
+            if (item == null) {
+                throw new IllegalArgumentException("Batch item is required");
+            }
+            IssuedQR issued = createShare(userId, item.getPatientId(), item.getDataTypes(), item.getPurpose(),
+                item.getExpirationMinutes(), QRCodeGenerator.OutputFormat.fromString(item.getFormat()));
+
+            auditEvents.add(new AuditService.AuditEvent(userId, "QR_GENERATION", "CREATE", ipAddress,
+                LocalDateTime.now(ZoneOffset.UTC), "SUCCESS"));
+            result.put("sessionId", issued.sessionId());
+            result.put("patientId", issued.patientId());
+            issued.putQRCode(result);
+            result.put("expiresAt", issued.expiresAt().toString());
+            result.put(SUCCESS, true);
+        } catch (Exception e) {
+            auditEvents.add(new AuditService.AuditEvent(userId, "QR_GENERATION", "CREATE", ipAddress,
+                LocalDateTime.now(ZoneOffset.UTC), "FAILURE: " + e.getMessage()));
+            result.put(SUCCESS, false);
+            result.put("message", "Failed to generate QR code: " + e.getMessage());
+        }
+        return result;
+    }
+
+    private int clampExpiration(int expirationMinutes) {
+        if (expirationMinutes <= 0) {
+            return defaultExpirationMinutes;
+        }
+        return Math.min(60, expirationMinutes);
+    }
+
+    public record IssuedQR(String sessionId, String patientId, QRCodeGenerator.OutputFormat format, String qrCode,
+                           QRSymbolOptimizer.SymbolPlan plan, LocalDateTime expiresAt) {
+
+        public void putQRCode(Map<String, Object> response) {
+            response.put("format", format.name().toLowerCase(Locale.ROOT));
+            response.put("qrVersion", plan.version());
+            response.put("errorCorrection", plan.ecLevel().name());
+            // Quiet zone in modules; packed modules leave it to the client
+            response.put("margin", plan.margin());
+            switch (format) {
+                case PNG -> response.put("qrCodeImage", qrCode);
+                case SVG -> response.put("qrCodeSvg", qrCode);
+                case MODULES -> response.put("qrModules", qrCode);
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.healthcare.util;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a {@link BitMatrix} as a 1-bit grayscale PNG without going through
+ * {@code BufferedImage} and ImageIO. Set modules are black, unset modules are white,
+ * which matches the default {@code MatrixToImageWriter} rendering pixel for pixel.
+ */
+public final class BitMatrixPngEncoder {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = {'I', 'H', 'D', 'R'};
+    private static final byte[] IDAT = {'I', 'D', 'A', 'T'};
+    private static final byte[] IEND = {'I', 'E', 'N', 'D'};
+
+    private static final int IDAT_CHUNK_SIZE = 8192;
+    private static final int FILTER_NONE = 0;
+
+    // Deflater, CRC and row buffers are reused per thread; request threads are pooled
+    private static final ThreadLocal<EncoderState> STATE = ThreadLocal.withInitial(EncoderState::new);
+
+    private BitMatrixPngEncoder() {
+        // Private constructor to hide implicit public one
+    }
+
+    public static byte[] encode(BitMatrix matrix) {
+        return encode(matrix, 1);
+    }
+
+    public static byte[] encode(BitMatrix matrix, int scale) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try {
+            write(matrix, scale, out);
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not throw
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static void write(BitMatrix matrix, int scale, OutputStream out) throws IOException {
+        if (scale < 1) {
+            throw new IllegalArgumentException("Scale must be at least 1");
+        }
+
+        int width = Math.multiplyExact(matrix.getWidth(), scale);
+        int height = Math.multiplyExact(matrix.getHeight(), scale);
+        int rowLength = 1 + (width + 7) / 8;
+
+        EncoderState state = STATE.get();
+        byte[] row = state.rowBuffer(rowLength);
+
+        out.write(PNG_SIGNATURE);
+        writeHeader(state, out, width, height);
+
+        Deflater deflater = state.deflater;
+        deflater.reset();
+        state.pending = 0;
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            packRow(matrix, y, scale, row);
+            // Scaled rows are identical, so pack once and feed it to the deflater scale times
+            for (int s = 0; s < scale; s++) {
+                deflater.setInput(row, 0, rowLength);
+                while (!deflater.needsInput()) {
+                    drain(state, out);
+                }
+            }
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            drain(state, out);
+        }
+        if (state.pending > 0) {
+            writeChunk(state, out, IDAT, state.chunk, state.pending);
+            state.pending = 0;
+        }
+
+        writeChunk(state, out, IEND, state.chunk, 0);
+    }
+
+    private static void packRow(BitMatrix matrix, int y, int scale, byte[] row) {
+        row[0] = FILTER_NONE;
+        int pos = 1;
+        int acc = 0;
+        int bits = 0;
+        for (int x = 0; x < matrix.getWidth(); x++) {
+            // Grayscale 0 is black, so set modules map to a clear bit
+            int bit = matrix.get(x, y) ? 0 : 1;
+            for (int s = 0; s < scale; s++) {
+                acc = (acc << 1) | bit;
+                if (++bits == 8) {
+                    row[pos++] = (byte) acc;
+                    acc = 0;
+                    bits = 0;
+                }
+            }
+        }
+        if (bits > 0) {
+            row[pos] = (byte) (acc << (8 - bits));
+        }
+    }
+
+    private static void drain(EncoderState state, OutputStream out) throws IOException {
+        byte[] chunk = state.chunk;
+        state.pending += state.deflater.deflate(chunk, state.pending, chunk.length - state.pending);
+        if (state.pending == chunk.length) {
+            writeChunk(state, out, IDAT, chunk, state.pending);
+            state.pending = 0;
+        }
+    }
+
+    private static void writeHeader(EncoderState state, OutputStream out, int width, int height) throws IOException {
+        byte[] header = state.header;
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 1;  // bit depth
+        header[9] = 0;  // color type: grayscale
+        header[10] = 0; // compression: deflate
+        header[11] = 0; // filter method
+        header[12] = 0; // interlace: none
+        writeChunk(state, out, IHDR, header, 13);
+    }
+
+    private static void writeChunk(EncoderState state, OutputStream out, byte[] type, byte[] data, int length)
+            throws IOException {
+        byte[] scratch = state.scratch;
+        putInt(scratch, 0, length);
+        out.write(scratch, 0, 4);
+        out.write(type);
+        out.write(data, 0, length);
+
+        CRC32 crc = state.crc;
+        crc.reset();
+        crc.update(type);
+        crc.update(data, 0, length);
+        putInt(scratch, 0, (int) crc.getValue());
+        out.write(scratch, 0, 4);
+    }
+
+    private static void putInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    private static final class EncoderState {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        final CRC32 crc = new CRC32();
+        final byte[] chunk = new byte[IDAT_CHUNK_SIZE];
+        final byte[] header = new byte[13];
+        final byte[] scratch = new byte[4];
+        byte[] row = new byte[64];
+        int pending;
+
+        byte[] rowBuffer(int length) {
+            if (row.length < length) {
+                row = new byte[length];
+            }
+            return row;
+        }
+    }
+}
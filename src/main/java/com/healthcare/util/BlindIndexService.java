@@ -0,0 +1,136 @@
+package com.healthcare.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keyed HMAC-SHA256 blind indexes, so equality search on an encrypted column is a B-tree lookup on a
+ * companion column. Values are normalized first, and some fields also get a truncated variant (an
+ * email prefix, the last four SSN digits) for partial matching. Every key version derives its own
+ * HMAC key; lookups try the current and the previous version so search keeps working while rows are
+ * re-indexed after a rotation. Matches must still be confirmed against the decrypted value.
+ */
+@Component
+public class BlindIndexService {
+
+    public enum Field {
+        EMAIL, EMAIL_PREFIX, SSN, SSN_LAST4, DATE_OF_BIRTH
+    }
+
+    private static final String HMAC = "HmacSHA256";
+    // 128 bits keeps accidental collisions out of reach while halving the column
+    private static final int INDEX_BYTES = 16;
+
+    // Empty means derive from the encryption key, which then must not change without a version bump
+    @Value("${healthcare.security.blind-index.key:}")
+    private String indexKeyBase64;
+
+    @Value("${healthcare.security.encryption.key:}")
+    private String encryptionKeyBase64;
+
+    @Value("${healthcare.security.blind-index.version:1}")
+    private int version;
+
+    @Value("${healthcare.security.blind-index.email-prefix-length:3}")
+    private int emailPrefixLength;
+
+    private final Map<Integer, ThreadLocal<Mac>> macsByVersion = new ConcurrentHashMap<>();
+
+    public int currentVersion() {
+        return version;
+    }
+
+    public int emailPrefixLength() {
+        return emailPrefixLength;
+    }
+
+    // Null when the value normalizes to nothing indexable
+    public String index(Field field, String value) {
+        return index(field, value, version);
+    }
+
+    // The index values a search should match: current version first, then the previous one
+    public List<String> lookupIndexes(Field field, String value) {
+        List<String> indexes = new ArrayList<>(2);
+        String current = index(field, value, version);
+        if (current != null) {
+            indexes.add(current);
+            if (version > 1) {
+                indexes.add(index(field, value, version - 1));
+            }
+        }
+        return indexes;
+    }
+
+    public String normalize(Field field, String value) {
+        if (value == null) {
+            return null;
+        }
+        String normalized = switch (field) {
+            case EMAIL -> value.trim().toLowerCase(Locale.ROOT);
+            case EMAIL_PREFIX -> {
+                String email = value.trim().toLowerCase(Locale.ROOT);
+                yield email.length() >= emailPrefixLength ? email.substring(0, emailPrefixLength) : "";
+            }
+            case SSN, DATE_OF_BIRTH -> digits(value);
+            case SSN_LAST4 -> {
+                String digits = digits(value);
+                yield digits.length() >= 4 ? digits.substring(digits.length() - 4) : "";
+            }
+        };
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    private String index(Field field, String value, int keyVersion) {
+        String normalized = normalize(field, value);
+        if (normalized == null) {
+            return null;
+        }
+        Mac mac = macsByVersion.computeIfAbsent(keyVersion, v -> ThreadLocal.withInitial(() -> newMac(v))).get();
+        // The field name separates domains, so equal values in different fields index differently
+        mac.update(field.name().getBytes(StandardCharsets.US_ASCII));
+        mac.update((byte) 0);
+        byte[] digest = mac.doFinal(normalized.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, INDEX_BYTES));
+    }
+
+    private Mac newMac(int keyVersion) {
+        String base = indexKeyBase64 != null && !indexKeyBase64.isBlank() ? indexKeyBase64 : encryptionKeyBase64;
+        if (base == null || base.isBlank()) {
+            throw new IllegalStateException("BLIND_INDEX_KEY or ENCRYPTION_KEY must be set");
+        }
+        try {
+            Mac derive = Mac.getInstance(HMAC);
+            derive.init(new SecretKeySpec(Base64.getDecoder().decode(base), HMAC));
+            byte[] versionKey = derive.doFinal(("blind-index:v" + keyVersion).getBytes(StandardCharsets.US_ASCII));
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(new SecretKeySpec(versionKey, HMAC));
+            return mac;
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid blind index key", e);
+        }
+    }
+
+    private static String digits(String value) {
+        StringBuilder digits = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+}
@@ -0,0 +1,323 @@
+package com.healthcare.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Streaming AES-GCM for documents too large to hold in memory. A stream is a header followed by
+ * chunks of a fixed plaintext size, each sealed on its own with {@link CryptoEngine}, so memory use
+ * is one chunk whatever the document size. Every chunk authenticates the header, its own index and
+ * whether it is the last one, which rejects reordered, spliced or truncated streams.
+ *
+ * <p>Header: version byte, key type byte, 4-byte key id, 4-byte chunk size and a random 16-byte
+ * stream id. Every chunk but the last carries exactly chunk-size bytes of plaintext; the last one
+ * carries the rest and is empty only for an empty document.
+ */
+public final class ChunkedAead {
+
+    public static final int HEADER_LENGTH = 26;
+    public static final int CHUNK_OVERHEAD = CryptoEngine.IV_LENGTH + CryptoEngine.TAG_LENGTH;
+    public static final int MIN_CHUNK_SIZE = 1024;
+    public static final int MAX_CHUNK_SIZE = 1 << 24;
+
+    static final byte MASTER_KEY = 0;
+    static final byte DATA_KEY = 1;
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final int STREAM_ID_LENGTH = 16;
+    // Chunk index and last-chunk flag, ahead of the header in each chunk's associated data
+    private static final int CHUNK_PREFIX_LENGTH = 9;
+
+    private static final SecureRandom streamIds = new SecureRandom();
+
+    // Looks up the engine for a stream's key; null when the key is unknown
+    @FunctionalInterface
+    interface KeyResolver {
+        CryptoEngine engine(byte keyType, int keyId);
+    }
+
+    private ChunkedAead() {
+        // Private constructor to hide implicit public one
+    }
+
+    public static long encryptedLength(long plaintextLength, int chunkSize) {
+        long chunks = Math.max(1, (plaintextLength + chunkSize - 1) / chunkSize);
+        return HEADER_LENGTH + plaintextLength + chunks * CHUNK_OVERHEAD;
+    }
+
+    static OutputStream encrypting(OutputStream out, CryptoEngine engine, byte keyType, int keyId, int chunkSize,
+                                   byte[] associatedData) {
+        checkChunkSize(chunkSize);
+        byte[] header = new byte[HEADER_LENGTH];
+        header[0] = FORMAT_VERSION;
+        header[1] = keyType;
+        writeInt(header, 2, keyId);
+        writeInt(header, 6, chunkSize);
+        byte[] streamId = new byte[STREAM_ID_LENGTH];
+        streamIds.nextBytes(streamId);
+        System.arraycopy(streamId, 0, header, 10, STREAM_ID_LENGTH);
+        return new EncryptingStream(out, engine, header, chunkSize, associatedData);
+    }
+
+    static InputStream decrypting(InputStream in, KeyResolver keys, byte[] associatedData) {
+        return new DecryptingStream(in, keys, associatedData);
+    }
+
+    private static void checkChunkSize(int chunkSize) {
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between " + MIN_CHUNK_SIZE + " and "
+                + MAX_CHUNK_SIZE + ", got " + chunkSize);
+        }
+    }
+
+    private static byte[] chunkAad(byte[] header, byte[] associatedData) {
+        int extra = associatedData != null ? associatedData.length : 0;
+        byte[] aad = new byte[CHUNK_PREFIX_LENGTH + HEADER_LENGTH + extra];
+        System.arraycopy(header, 0, aad, CHUNK_PREFIX_LENGTH, HEADER_LENGTH);
+        if (extra > 0) {
+            System.arraycopy(associatedData, 0, aad, CHUNK_PREFIX_LENGTH + HEADER_LENGTH, extra);
+        }
+        return aad;
+    }
+
+    private static void setChunk(byte[] aad, long index, boolean last) {
+        for (int i = 0; i < 8; i++) {
+            aad[i] = (byte) (index >>> (56 - 8 * i));
+        }
+        aad[8] = (byte) (last ? 1 : 0);
+    }
+
+    private static void writeInt(byte[] output, int offset, int value) {
+        output[offset] = (byte) (value >>> 24);
+        output[offset + 1] = (byte) (value >>> 16);
+        output[offset + 2] = (byte) (value >>> 8);
+        output[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] input, int offset) {
+        return ((input[offset] & 0xFF) << 24) | ((input[offset + 1] & 0xFF) << 16)
+            | ((input[offset + 2] & 0xFF) << 8) | (input[offset + 3] & 0xFF);
+    }
+
+    // Fewer than length bytes only at end of stream
+    private static int readFully(InputStream in, byte[] buffer, int offset, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int read = in.read(buffer, offset + total, length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static final class EncryptingStream extends OutputStream {
+        private final OutputStream out;
+        private final CryptoEngine engine;
+        private final byte[] header;
+        private final byte[] aad;
+        private final byte[] plaintext;
+        private final byte[] encrypted;
+        private int buffered;
+        private long chunkIndex;
+        private boolean headerWritten;
+        private boolean closed;
+
+        private EncryptingStream(OutputStream out, CryptoEngine engine, byte[] header, int chunkSize,
+                                 byte[] associatedData) {
+            this.out = out;
+            this.engine = engine;
+            this.header = header;
+            this.aad = chunkAad(header, associatedData);
+            this.plaintext = new byte[chunkSize];
+            this.encrypted = new byte[chunkSize + CHUNK_OVERHEAD];
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            while (len > 0) {
+                // A full chunk is only sealed once more data shows it is not the last one
+                if (buffered == plaintext.length) {
+                    writeChunk(plaintext, 0, buffered, false);
+                    buffered = 0;
+                }
+                if (buffered == 0 && len > plaintext.length) {
+                    writeChunk(b, off, plaintext.length, false);
+                    off += plaintext.length;
+                    len -= plaintext.length;
+                    continue;
+                }
+                int copied = Math.min(len, plaintext.length - buffered);
+                System.arraycopy(b, off, plaintext, buffered, copied);
+                buffered += copied;
+                off += copied;
+                len -= copied;
+            }
+        }
+
+        // Only passes the flush on; a partial chunk cannot be sealed before the stream ends
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writeChunk(plaintext, 0, buffered, true);
+            } finally {
+                Arrays.fill(plaintext, (byte) 0);
+                out.close();
+            }
+        }
+
+        private void writeChunk(byte[] input, int offset, int length, boolean last) throws IOException {
+            if (!headerWritten) {
+                out.write(header);
+                headerWritten = true;
+            }
+            setChunk(aad, chunkIndex++, last);
+            int written;
+            try {
+                written = engine.encrypt(input, offset, length, aad, encrypted, 0);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Encryption failed", e);
+            }
+            out.write(encrypted, 0, written);
+        }
+    }
+
+    private static final class DecryptingStream extends InputStream {
+        private final InputStream in;
+        private final KeyResolver keys;
+        private final byte[] associatedData;
+        private CryptoEngine engine;
+        private byte[] aad;
+        private byte[] encrypted;
+        private byte[] plaintext;
+        private int position;
+        private int limit;
+        private long chunkIndex;
+        // The byte read past a chunk to learn whether another one follows
+        private boolean lookahead;
+        private boolean lastChunkRead;
+        private boolean closed;
+
+        private DecryptingStream(InputStream in, KeyResolver keys, byte[] associatedData) {
+            this.in = in;
+            this.keys = keys;
+            this.associatedData = associatedData;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            while (position == limit) {
+                if (lastChunkRead) {
+                    return -1;
+                }
+                readChunk();
+            }
+            int copied = Math.min(len, limit - position);
+            System.arraycopy(plaintext, position, b, off, copied);
+            position += copied;
+            return copied;
+        }
+
+        @Override
+        public int available() {
+            return limit - position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (plaintext != null) {
+                Arrays.fill(plaintext, (byte) 0);
+            }
+            in.close();
+        }
+
+        private void readChunk() throws IOException {
+            if (engine == null) {
+                readHeader();
+            }
+            int fullChunk = encrypted.length - 1;
+            int read = lookahead ? 1 : 0;
+            if (lookahead) {
+                encrypted[0] = encrypted[fullChunk];
+            }
+            read += readFully(in, encrypted, read, encrypted.length - read);
+            lookahead = read == encrypted.length;
+            boolean last = !lookahead;
+            int length = last ? read : fullChunk;
+            if (length < CHUNK_OVERHEAD) {
+                throw new EOFException("Encrypted stream is truncated");
+            }
+            setChunk(aad, chunkIndex, last);
+            try {
+                limit = engine.decrypt(encrypted, 0, length, aad, plaintext, 0);
+            } catch (GeneralSecurityException e) {
+                // A stream cut at a chunk boundary lands here too: the chunk was sealed as not the last
+                throw new IOException("Encrypted stream chunk " + chunkIndex + " failed authentication", e);
+            }
+            position = 0;
+            chunkIndex++;
+            lastChunkRead = last;
+        }
+
+        private void readHeader() throws IOException {
+            byte[] header = new byte[HEADER_LENGTH];
+            if (readFully(in, header, 0, HEADER_LENGTH) < HEADER_LENGTH) {
+                throw new EOFException("Encrypted stream is truncated");
+            }
+            if (header[0] != FORMAT_VERSION) {
+                throw new IOException("Unsupported encrypted stream version " + header[0]);
+            }
+            int chunkSize = readInt(header, 6);
+            if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE) {
+                throw new IOException("Invalid encrypted stream chunk size " + chunkSize);
+            }
+            CryptoEngine resolved = keys.engine(header[1], readInt(header, 2));
+            if (resolved == null) {
+                throw new IOException("Unknown key for encrypted stream");
+            }
+            engine = resolved;
+            aad = chunkAad(header, associatedData);
+            encrypted = new byte[chunkSize + CHUNK_OVERHEAD + 1];
+            plaintext = new byte[chunkSize];
+        }
+    }
+}
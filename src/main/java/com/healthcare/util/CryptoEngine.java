@@ -0,0 +1,190 @@
+package com.healthcare.util;
+
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
+import java.security.DrbgParameters;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AES-GCM for one key, built for many threads. The key is parsed once, each thread keeps its own
+ * Cipher, and IVs are never repeated: every thread owns a distinct 32-bit fixed field and appends a
+ * 64-bit invocation counter (the deterministic construction of NIST SP 800-38D). Fixed fields and
+ * counter starts come from a non-blocking DRBG, so separate processes sharing the key do not collide.
+ * Output is IV, then ciphertext and tag.
+ */
+public final class CryptoEngine {
+
+    public static final int IV_LENGTH = 12;
+    public static final int TAG_LENGTH = 16;
+
+    // A thread draws a new fixed field after this many IVs, well inside the counter's range
+    private static final long IVS_PER_FIELD = 1L << 32;
+
+    private final SecretKey key;
+    private final String algorithm;
+    private final SecureRandom drbg;
+    private final Set<Integer> issuedFields = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<ThreadState> threadState;
+
+    public CryptoEngine(SecretKey key, String algorithm) {
+        if (!algorithm.startsWith("AES/GCM/")) {
+            throw new IllegalArgumentException("Unsupported algorithm: " + algorithm);
+        }
+        this.key = key;
+        this.algorithm = algorithm;
+        try {
+            this.drbg = SecureRandom.getInstance("DRBG",
+                DrbgParameters.instantiation(256, DrbgParameters.Capability.RESEED_ONLY, null));
+            // Fails fast on a bad transformation instead of on the first call of each thread
+            Cipher.getInstance(algorithm);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES-GCM is not available", e);
+        }
+        this.threadState = ThreadLocal.withInitial(this::newThreadState);
+    }
+
+    public static int encryptedLength(int plaintextLength) {
+        return IV_LENGTH + plaintextLength + TAG_LENGTH;
+    }
+
+    public static int decryptedLength(int encryptedLength) {
+        return encryptedLength - IV_LENGTH - TAG_LENGTH;
+    }
+
+    public byte[] encrypt(byte[] plaintext, byte[] associatedData) throws GeneralSecurityException {
+        byte[] output = new byte[encryptedLength(plaintext.length)];
+        encrypt(plaintext, 0, plaintext.length, associatedData, output, 0);
+        return output;
+    }
+
+    // Writes into a caller-owned buffer so hot paths can reuse it; returns the bytes written
+    public int encrypt(byte[] input, int offset, int length, byte[] associatedData, byte[] output, int outputOffset)
+            throws GeneralSecurityException {
+        if (output.length - outputOffset < encryptedLength(length)) {
+            throw new ShortBufferException("Output buffer too small");
+        }
+        ThreadState state = threadState.get();
+        state.nextIv(output, outputOffset);
+        Cipher cipher = state.cipher;
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, output, outputOffset, IV_LENGTH));
+        if (associatedData != null) {
+            cipher.updateAAD(associatedData);
+        }
+        return IV_LENGTH + cipher.doFinal(input, offset, length, output, outputOffset + IV_LENGTH);
+    }
+
+    public byte[] decrypt(byte[] encrypted, byte[] associatedData) throws GeneralSecurityException {
+        if (encrypted.length < IV_LENGTH + TAG_LENGTH) {
+            throw new IllegalArgumentException("Encrypted data is too short");
+        }
+        byte[] output = new byte[decryptedLength(encrypted.length)];
+        decrypt(encrypted, 0, encrypted.length, associatedData, output, 0);
+        return output;
+    }
+
+    public int decrypt(byte[] input, int offset, int length, byte[] associatedData, byte[] output, int outputOffset)
+            throws GeneralSecurityException {
+        if (length < IV_LENGTH + TAG_LENGTH) {
+            throw new IllegalArgumentException("Encrypted data is too short");
+        }
+        Cipher cipher = threadState.get().cipher;
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, input, offset, IV_LENGTH));
+        if (associatedData != null) {
+            cipher.updateAAD(associatedData);
+        }
+        return cipher.doFinal(input, offset + IV_LENGTH, length - IV_LENGTH, output, outputOffset);
+    }
+
+    // Reads the input's remaining bytes and writes one record at the output's position; both buffers
+    // advance. Heap or direct. To encrypt in place, leave IV_LENGTH bytes free in front of the plaintext
+    // and start the output there.
+    public int encrypt(ByteBuffer input, byte[] associatedData, ByteBuffer output) throws GeneralSecurityException {
+        if (output.remaining() < encryptedLength(input.remaining())) {
+            throw new ShortBufferException("Output buffer too small");
+        }
+        ThreadState state = threadState.get();
+        state.nextIv(state.iv, 0);
+        Cipher cipher = state.cipher;
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, state.iv));
+        if (associatedData != null) {
+            cipher.updateAAD(associatedData);
+        }
+        output.put(state.iv);
+        return IV_LENGTH + cipher.doFinal(input, output);
+    }
+
+    // Reads one whole record from the input's remaining bytes. The output may start where the record
+    // does, which decrypts it in place.
+    public int decrypt(ByteBuffer input, byte[] associatedData, ByteBuffer output) throws GeneralSecurityException {
+        if (input.remaining() < IV_LENGTH + TAG_LENGTH) {
+            throw new IllegalArgumentException("Encrypted data is too short");
+        }
+        if (output.remaining() < decryptedLength(input.remaining())) {
+            throw new ShortBufferException("Output buffer too small");
+        }
+        ThreadState state = threadState.get();
+        input.get(state.iv);
+        Cipher cipher = state.cipher;
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, state.iv));
+        if (associatedData != null) {
+            cipher.updateAAD(associatedData);
+        }
+        return cipher.doFinal(input, output);
+    }
+
+    private ThreadState newThreadState() {
+        try {
+            return new ThreadState(Cipher.getInstance(algorithm));
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new IllegalStateException("AES-GCM is not available", e);
+        }
+    }
+
+    // Unique within this engine for its whole life, so IVs from different threads can never meet
+    private int issueFixedField() {
+        while (true) {
+            int field = drbg.nextInt();
+            if (issuedFields.add(field)) {
+                return field;
+            }
+        }
+    }
+
+    private final class ThreadState {
+        private final Cipher cipher;
+        // IV scratch for the ByteBuffer methods; GCMParameterSpec keeps its own copy
+        private final byte[] iv = new byte[IV_LENGTH];
+        private int fixedField;
+        private long counter;
+        private long remaining;
+
+        private ThreadState(Cipher cipher) {
+            this.cipher = cipher;
+        }
+
+        private void nextIv(byte[] output, int offset) {
+            if (remaining == 0) {
+                fixedField = issueFixedField();
+                counter = drbg.nextLong();
+                remaining = IVS_PER_FIELD;
+            }
+            remaining--;
+            long invocation = counter++;
+            output[offset] = (byte) (fixedField >>> 24);
+            output[offset + 1] = (byte) (fixedField >>> 16);
+            output[offset + 2] = (byte) (fixedField >>> 8);
+            output[offset + 3] = (byte) fixedField;
+            for (int i = 0; i < 8; i++) {
+                output[offset + 4 + i] = (byte) (invocation >>> (56 - 8 * i));
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.healthcare.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unwrapped data keys, ready to use, by key id. Lookups are a single concurrent-map read whatever
+ * the number of keys. Entries expire after a fixed time so revocations are picked up, and the cache
+ * is held to a maximum number of keys. Active keys are tracked by {@link EncryptionService}.
+ */
+public final class DataKeyCache {
+
+    public static final class Entry {
+        private final int keyId;
+        private final String tenant;
+        private final CryptoEngine engine;
+        private final long expiresAtNanos;
+
+        public Entry(int keyId, String tenant, CryptoEngine engine, long ttlNanos) {
+            this.keyId = keyId;
+            this.tenant = tenant;
+            this.engine = engine;
+            this.expiresAtNanos = System.nanoTime() + ttlNanos;
+        }
+
+        public int keyId() {
+            return keyId;
+        }
+
+        public String tenant() {
+            return tenant;
+        }
+
+        public CryptoEngine engine() {
+            return engine;
+        }
+
+        private boolean isFresh(long now) {
+            return now - expiresAtNanos < 0;
+        }
+    }
+
+    private final int maxKeys;
+    private final long ttlNanos;
+    private final Map<Integer, Entry> byKeyId = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public DataKeyCache(int maxKeys, long ttlNanos) {
+        if (maxKeys < 1) {
+            throw new IllegalArgumentException("Cache must hold at least one key");
+        }
+        this.maxKeys = maxKeys;
+        this.ttlNanos = ttlNanos;
+    }
+
+    public long ttlNanos() {
+        return ttlNanos;
+    }
+
+    public Entry get(int keyId) {
+        return fresh(byKeyId.get(keyId));
+    }
+
+    public void put(Entry entry) {
+        byKeyId.put(entry.keyId, entry);
+        if (byKeyId.size() > maxKeys) {
+            evict();
+        }
+    }
+
+    public int size() {
+        return byKeyId.size();
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public long evictions() {
+        return evictions.get();
+    }
+
+    private Entry fresh(Entry entry) {
+        if (entry != null && entry.isFresh(System.nanoTime())) {
+            hits.incrementAndGet();
+            return entry;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    // Runs on misses only: drops expired keys, then the ones closest to expiry until back in bounds
+    private synchronized void evict() {
+        long now = System.nanoTime();
+        Iterator<Entry> it = byKeyId.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (!entry.isFresh(now)) {
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+        while (byKeyId.size() > maxKeys) {
+            Entry oldest = null;
+            for (Entry entry : byKeyId.values()) {
+                if (oldest == null || entry.expiresAtNanos - oldest.expiresAtNanos < 0) {
+                    oldest = entry;
+                }
+            }
+            if (oldest != null && byKeyId.remove(oldest.keyId, oldest)) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+}
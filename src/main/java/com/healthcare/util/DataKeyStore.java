@@ -0,0 +1,189 @@
+package com.healthcare.util;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Local stand-in for a KMS: wrapped data keys, one properties file per key, in a directory that
+ * several instances may share. Keys are never deleted, and only rewritten when the master key changes
+ * and they are re-wrapped; a tenant's active key is simply its newest one. Only wrapped key material
+ * touches the disk.
+ */
+@Component
+public class DataKeyStore {
+
+    private static final Logger logger = Logger.getLogger(DataKeyStore.class.getName());
+    private static final String SUFFIX = ".properties";
+    // Other instances' rotations only need to be seen within a cache lifetime, so rescans are spaced out
+    private static final long RESCAN_INTERVAL_MILLIS = 1000;
+
+    @Value("${healthcare.security.encryption.envelope.key-store-path:./keys}")
+    private String keyStorePath;
+
+    private final Map<Integer, DataKey> keys = new ConcurrentHashMap<>();
+    private final Map<String, DataKey> newestByTenant = new ConcurrentHashMap<>();
+    private final Set<String> ignoredFiles = ConcurrentHashMap.newKeySet();
+    private volatile long lastScanMillis;
+
+    public record DataKey(int keyId, String tenant, long createdAtMillis, byte[] wrappedKey) {
+    }
+
+    @PostConstruct
+    public void load() {
+        try {
+            Files.createDirectories(directory());
+            refresh();
+            logger.info("Loaded " + keys.size() + " data keys from " + directory());
+        } catch (IOException e) {
+            throw new RuntimeException("Key store load failed", e);
+        }
+    }
+
+    // Null when the id is unknown. A ciphertext header can name any id, so a miss never reads a file
+    // for that id; it only brings forward the spaced-out rescan, which also finds other instances' keys
+    public DataKey find(int keyId) {
+        DataKey key = keys.get(keyId);
+        if (key == null && rescanIfStale()) {
+            key = keys.get(keyId);
+        }
+        return key;
+    }
+
+    // Rescans the directory now and then so rotations made by other instances are seen
+    public DataKey newest(String tenant) {
+        rescanIfStale();
+        return newestByTenant.get(tenant);
+    }
+
+    public List<DataKey> keys() {
+        return new ArrayList<>(keys.values());
+    }
+
+    // Returns false if the id is already taken, so the caller can pick another
+    public boolean save(DataKey key) {
+        Path target = directory().resolve(fileName(key.keyId()));
+        try {
+            Path temp = writeAside(key);
+            try {
+                Files.move(temp, target);
+            } catch (FileAlreadyExistsException e) {
+                Files.delete(temp);
+                return false;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Key store write failed", e);
+        }
+        index(key);
+        return true;
+    }
+
+    // Swaps in the same key wrapped under a new master key
+    public void replace(DataKey key) {
+        Path target = directory().resolve(fileName(key.keyId()));
+        try {
+            Files.move(writeAside(key), target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Key store write failed", e);
+        }
+        keys.put(key.keyId(), key);
+        newestByTenant.computeIfPresent(key.tenant(),
+            (tenant, current) -> current.keyId() == key.keyId() ? key : current);
+    }
+
+    // Written aside and moved into place, so readers never see a partial file
+    private Path writeAside(DataKey key) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("keyId", Integer.toString(key.keyId()));
+        properties.setProperty("tenant", key.tenant());
+        properties.setProperty("createdAt", Long.toString(key.createdAtMillis()));
+        properties.setProperty("wrappedKey", Base64.getEncoder().encodeToString(key.wrappedKey()));
+        Path temp = Files.createTempFile(directory(), "key-", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            properties.store(out, "Wrapped data key");
+        }
+        return temp;
+    }
+
+    private boolean rescanIfStale() {
+        if (System.currentTimeMillis() - lastScanMillis < RESCAN_INTERVAL_MILLIS) {
+            return false;
+        }
+        refresh();
+        return true;
+    }
+
+    private void refresh() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory(), "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                int keyId;
+                try {
+                    keyId = Integer.parseUnsignedInt(name.substring(0, name.length() - SUFFIX.length()), 16);
+                } catch (NumberFormatException e) {
+                    // Not one of ours; said once rather than on every rescan
+                    if (ignoredFiles.add(name)) {
+                        logger.warning("Ignoring " + file + ": not a data key file");
+                    }
+                    continue;
+                }
+                if (!keys.containsKey(keyId)) {
+                    DataKey key = read(file);
+                    if (key != null) {
+                        index(key);
+                    }
+                }
+            }
+            lastScanMillis = System.currentTimeMillis();
+        } catch (IOException e) {
+            throw new RuntimeException("Key store scan failed", e);
+        }
+    }
+
+    private void index(DataKey key) {
+        keys.put(key.keyId(), key);
+        newestByTenant.merge(key.tenant(), key,
+            (current, candidate) -> candidate.createdAtMillis() >= current.createdAtMillis() ? candidate : current);
+    }
+
+    private DataKey read(Path file) {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("Key store read failed", e);
+        }
+        return new DataKey(Integer.parseInt(properties.getProperty("keyId")), properties.getProperty("tenant"),
+            Long.parseLong(properties.getProperty("createdAt")),
+            Base64.getDecoder().decode(properties.getProperty("wrappedKey")));
+    }
+
+    private Path directory() {
+        return Paths.get(keyStorePath);
+    }
+
+    private static String fileName(int keyId) {
+        return String.format("%08x", keyId) + SUFFIX;
+    }
+}
@@ -0,0 +1,83 @@
+package com.healthcare.util;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * A PHI string attribute that is stored encrypted. Values loaded from the database keep only their
+ * ciphertext until {@link #get()} is first called, so reading an entity costs no decryption for
+ * fields nobody looks at. Values built with {@link #of(String)} are encrypted when they are written.
+ * Instances are immutable from the outside; toString never shows the value.
+ */
+public final class EncryptedString {
+
+    // Set once: on load, or when EncryptionConverter first writes the value
+    private volatile String ciphertext;
+    private volatile String plaintext;
+    private final UnaryOperator<String> decryptor;
+
+    private EncryptedString(String ciphertext, String plaintext, UnaryOperator<String> decryptor) {
+        this.ciphertext = ciphertext;
+        this.plaintext = plaintext;
+        this.decryptor = decryptor;
+    }
+
+    public static EncryptedString of(String plaintext) {
+        if (plaintext == null) {
+            throw new IllegalArgumentException("Plaintext cannot be null");
+        }
+        return new EncryptedString(null, plaintext, null);
+    }
+
+    static EncryptedString loaded(String ciphertext, UnaryOperator<String> decryptor) {
+        return new EncryptedString(ciphertext, null, decryptor);
+    }
+
+    public String get() {
+        String value = plaintext;
+        if (value == null) {
+            // Concurrent first reads may both decrypt; they get the same value
+            value = decryptor.apply(ciphertext);
+            plaintext = value;
+        }
+        return value;
+    }
+
+    public boolean isDecrypted() {
+        return plaintext != null;
+    }
+
+    String ciphertext() {
+        return ciphertext;
+    }
+
+    void setCiphertext(String ciphertext) {
+        this.ciphertext = ciphertext;
+    }
+
+    // Same ciphertext means same value without decrypting; otherwise the values are compared
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EncryptedString other)) {
+            return false;
+        }
+        String mine = ciphertext;
+        if (mine != null && mine.equals(other.ciphertext)) {
+            return true;
+        }
+        return get().equals(other.get());
+    }
+
+    // Consistent with equals, so hashing decrypts; entities leave these fields out of their own hashCode
+    @Override
+    public int hashCode() {
+        return get().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "EncryptedString[***]";
+    }
+}
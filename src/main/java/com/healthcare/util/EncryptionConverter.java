@@ -2,17 +2,110 @@ package com.healthcare.util;
 
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
+import org.hibernate.annotations.Mutability;
+import org.hibernate.type.descriptor.java.Immutability;
+import org.springframework.beans.factory.annotation.Autowired;
 
+import javax.crypto.AEADBadTagException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encrypts {@link EncryptedString} attributes through {@link EncryptionService}. Loading hands out
+ * the ciphertext undecrypted; the first read decrypts it, checking {@link FieldDecryptCache} first.
+ * Ciphertext is stored behind a tag, so stored values are never told apart by how they look.
+ */
 @Converter
-public class EncryptionConverter implements AttributeConverter<String, String> {
+@Mutability(Immutability.class)
+public class EncryptionConverter implements AttributeConverter<EncryptedString, String> {
+
+    // Not in the base64 alphabet, so no untagged value starts with it
+    static final String TAG = "enc1:";
+
+    // IV and tag in base64; anything shorter, or not base64, is plaintext
+    private static final int MIN_ENCRYPTED_CHARS = 40;
+    private static final boolean[] BASE64_CHARS = new boolean[128];
+
+    static {
+        for (char c : "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray()) {
+            BASE64_CHARS[c] = true;
+        }
+    }
+
+    @Autowired
+    private EncryptionService encryptionService;
 
+    @Autowired
+    private FieldDecryptCache fieldDecryptCache;
+
+    // Untagged values are encrypted, or re-encrypted under the tag, when their row is next written
     @Override
-    public String convertToDatabaseColumn(String attribute) {
-        return attribute; // Minimal implementation
+    public String convertToDatabaseColumn(EncryptedString attribute) {
+        if (attribute == null) {
+            return null;
+        }
+        String ciphertext = attribute.ciphertext();
+        if (ciphertext == null || !ciphertext.startsWith(TAG)) {
+            String plaintext = attribute.get();
+            ciphertext = TAG + Base64.getEncoder().encodeToString(
+                encryptionService.encrypt(plaintext.getBytes(StandardCharsets.UTF_8), null));
+            attribute.setCiphertext(ciphertext);
+            fieldDecryptCache.put(ciphertext, plaintext);
+        }
+        return ciphertext;
     }
 
     @Override
-    public String convertToEntityAttribute(String dbData) {
-        return dbData; // Minimal implementation
+    public EncryptedString convertToEntityAttribute(String dbData) {
+        if (dbData == null) {
+            return null;
+        }
+        if (dbData.startsWith(TAG)) {
+            return EncryptedString.loaded(dbData, this::decrypt);
+        }
+        // Untagged is either plaintext from the old pass-through converter or ciphertext written before the
+        // tag; only authentication under our keys tells base64 plaintext from the latter
+        return mayBeUntaggedCiphertext(dbData)
+            ? EncryptedString.loaded(dbData, this::decryptUntagged)
+            : EncryptedString.of(dbData);
+    }
+
+    private String decrypt(String ciphertext) {
+        String plaintext = fieldDecryptCache.get(ciphertext);
+        if (plaintext == null) {
+            plaintext = decryptBase64(ciphertext.substring(TAG.length()));
+            fieldDecryptCache.put(ciphertext, plaintext);
+        }
+        return plaintext;
+    }
+
+    private String decryptUntagged(String value) {
+        try {
+            return decryptBase64(value);
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof AEADBadTagException) {
+                return value;
+            }
+            throw e;
+        }
+    }
+
+    private String decryptBase64(String base64) {
+        return new String(encryptionService.decrypt(Base64.getDecoder().decode(base64), null), StandardCharsets.UTF_8);
+    }
+
+    private static boolean mayBeUntaggedCiphertext(String dbData) {
+        int length = dbData.length();
+        if (length < MIN_ENCRYPTED_CHARS || length % 4 != 0) {
+            return false;
+        }
+        int end = dbData.charAt(length - 1) != '=' ? length : dbData.charAt(length - 2) != '=' ? length - 1 : length - 2;
+        for (int i = 0; i < end; i++) {
+            char c = dbData.charAt(i);
+            if (c >= 128 || !BASE64_CHARS[c]) {
+                return false;
+            }
+        }
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -1,91 +1,543 @@
 package com.healthcare.util;
 
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.Cipher;
+import javax.crypto.AEADBadTagException;
 import javax.crypto.SecretKey;
-import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
 
+/**
+ * AES-GCM for PHI fields. With envelope encryption on, the configured key is only a master key that
+ * wraps per-tenant data keys held in {@link DataKeyStore}; each ciphertext starts with a version byte
+ * and the 4-byte id of its data key, and unwrapped keys are served from {@link DataKeyCache}.
+ * Ciphertexts without a header were made with the master key directly and still decrypt.
+ * <p>
+ * Each tenant's active data key is held in memory; a scheduled job rotates it once it is due and
+ * picks up keys rotated by other instances, so encryption never touches the key store. Changing the
+ * master key leaves every stored data key unreadable, so startup refuses to continue in that state
+ * unless {@code previous-key} holds the old master key, in which case the data keys are re-wrapped
+ * under the new one. Ciphertexts made with the master key directly are not covered by that.
+ */
 @Component
 public class EncryptionService {
     
+    private static final Logger logger = Logger.getLogger(EncryptionService.class.getName());
+    public static final int HEADER_LENGTH = 5;
+    private static final byte ENVELOPE_VERSION = 1;
+    private static final int DATA_KEY_BYTES = 32;
+    
     @Value("${healthcare.security.encryption.key:}")
     private String encryptionKeyBase64;
     
+    // The master key before the last change, only needed until the data keys are re-wrapped
+    @Value("${healthcare.security.encryption.previous-key:}")
+    private String previousKeyBase64;
+    
     @Value("${healthcare.security.encryption.algorithm:AES/GCM/NoPadding}")
     private String algorithm;
     
-    private static final int GCM_TAG_LENGTH = 16;
-    private static final int GCM_IV_LENGTH = 12;
+    @Value("${healthcare.security.encryption.stream.chunk-size:65536}")
+    private int streamChunkSize;
+    
+    @Value("${healthcare.security.encryption.envelope.enabled:true}")
+    private boolean envelopeEnabled;
+    
+    @Value("${healthcare.security.encryption.envelope.default-tenant:default}")
+    private String defaultTenant;
+    
+    @Value("${healthcare.security.encryption.envelope.rotation-days:90}")
+    private long rotationDays;
+    
+    @Value("${healthcare.security.encryption.envelope.cache.max-keys:1000}")
+    private int cacheMaxKeys;
+    
+    @Value("${healthcare.security.encryption.envelope.cache.ttl-minutes:60}")
+    private long cacheTtlMinutes;
+    
+    // Absent when the service is built by hand, which leaves it on the master key alone
+    @Autowired(required = false)
+    private DataKeyStore dataKeyStore;
+    
+    private volatile CryptoEngine engine;
+    private volatile DataKeyCache dataKeyCache;
+    // Replaced only by rotation, so the request path never reads the key store
+    private final Map<String, DataKeyCache.Entry> activeKeys = new ConcurrentHashMap<>();
+    private final SecureRandom keyRandom = new SecureRandom();
+    
+    private final AtomicLong unwraps = new AtomicLong();
+    private final AtomicLong rotations = new AtomicLong();
+    private final AtomicLong rewraps = new AtomicLong();
+    
+    // Every stored data key must unwrap under the configured master key, or the data under it is lost
+    @PostConstruct
+    void checkDataKeys() {
+        if (!envelope()) {
+            return;
+        }
+        List<DataKeyStore.DataKey> stored = dataKeyStore.keys();
+        CryptoEngine previous = previousKeyBase64 == null || previousKeyBase64.isBlank()
+            ? null
+            : new CryptoEngine(decodeKey(previousKeyBase64), algorithm);
+        int unreadable = 0;
+        for (DataKeyStore.DataKey key : stored) {
+            try {
+                keyCache().put(unwrap(key));
+            } catch (RuntimeException e) {
+                if (previous == null || !rewrap(key, previous)) {
+                    unreadable++;
+                }
+            }
+        }
+        if (unreadable > 0) {
+            throw new IllegalStateException(unreadable + " of " + stored.size() + " data keys cannot be unwrapped "
+                + "with the configured master key. If the master key was changed, set "
+                + "healthcare.security.encryption.previous-key to the old one so they are re-wrapped");
+        }
+        if (rewraps.get() > 0) {
+            logger.info("Re-wrapped " + rewraps.get() + " data keys under the new master key");
+        }
+    }
     
     public String encrypt(String plaintext) {
         if (plaintext == null || plaintext.trim().isEmpty()) {
             throw new IllegalArgumentException("Plaintext cannot be null or empty");
         }
-        
+        return Base64.getEncoder().encodeToString(encrypt(plaintext.getBytes(StandardCharsets.UTF_8), null));
+    }
+    
+    public String decrypt(String encryptedData) {
+        byte[] encryptedWithIv;
         try {
-            SecretKey secretKey = getSecretKey();
-            Cipher cipher = Cipher.getInstance(algorithm);
-            
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            SecureRandom.getInstanceStrong().nextBytes(iv);
-            
-            GCMParameterSpec gcmSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey, gcmSpec);
-            
-            byte[] ciphertext = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
-            
-            // Combine IV and ciphertext
-            byte[] encryptedWithIv = new byte[iv.length + ciphertext.length];
-            System.arraycopy(iv, 0, encryptedWithIv, 0, iv.length);
-            System.arraycopy(ciphertext, 0, encryptedWithIv, iv.length, ciphertext.length);
-            
-            return Base64.getEncoder().encodeToString(encryptedWithIv);
-            
+            encryptedWithIv = Base64.getDecoder().decode(encryptedData);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new RuntimeException("Decryption failed", e);
+        }
+        return new String(decrypt(encryptedWithIv, null), StandardCharsets.UTF_8);
+    }
+    
+    // Binary form: header, IV, ciphertext and tag. Associated data, when given, must match on decrypt.
+    public byte[] encrypt(byte[] plaintext, byte[] associatedData) {
+        return encrypt(defaultTenant, plaintext, associatedData);
+    }
+    
+    public byte[] encrypt(String tenant, byte[] plaintext, byte[] associatedData) {
+        try {
+            if (!envelope()) {
+                return engine().encrypt(plaintext, associatedData);
+            }
+            DataKeyCache.Entry key = activeKey(tenant);
+            byte[] encrypted = new byte[HEADER_LENGTH + CryptoEngine.encryptedLength(plaintext.length)];
+            writeHeader(encrypted, 0, key.keyId());
+            key.engine().encrypt(plaintext, 0, plaintext.length, associatedData, encrypted, HEADER_LENGTH);
+            return encrypted;
         } catch (Exception e) {
             // Log encryption failure without exposing sensitive data
             throw new RuntimeException("Encryption failed", e);
         }
     }
     
-    public String decrypt(String encryptedData) {
+    public byte[] decrypt(byte[] encryptedWithIv, byte[] associatedData) {
         try {
-            byte[] encryptedWithIv = Base64.getDecoder().decode(encryptedData);
-            
-            // Extract IV and ciphertext
-            byte[] iv = new byte[GCM_IV_LENGTH];
-            byte[] ciphertext = new byte[encryptedWithIv.length - GCM_IV_LENGTH];
-            
-            System.arraycopy(encryptedWithIv, 0, iv, 0, iv.length);
-            System.arraycopy(encryptedWithIv, iv.length, ciphertext, 0, ciphertext.length);
-            
-            SecretKey secretKey = getSecretKey();
-            Cipher cipher = Cipher.getInstance(algorithm);
-            
-            GCMParameterSpec gcmSpec = new GCMParameterSpec(GCM_TAG_LENGTH * 8, iv);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey, gcmSpec);
-            
-            byte[] plaintext = cipher.doFinal(ciphertext);
-            return new String(plaintext, StandardCharsets.UTF_8);
-            
+            DataKeyCache.Entry key = headerKey(encryptedWithIv, 0, encryptedWithIv.length);
+            if (key != null) {
+                byte[] plaintext = new byte[CryptoEngine.decryptedLength(encryptedWithIv.length - HEADER_LENGTH)];
+                try {
+                    key.engine().decrypt(encryptedWithIv, HEADER_LENGTH, encryptedWithIv.length - HEADER_LENGTH,
+                        associatedData, plaintext, 0);
+                    return plaintext;
+                } catch (AEADBadTagException e) {
+                    // A master-key ciphertext whose IV happens to look like a header
+                }
+            }
+            return engine().decrypt(encryptedWithIv, associatedData);
         } catch (Exception e) {
             // Log decryption failure without exposing sensitive data
             throw new RuntimeException("Decryption failed", e);
         }
     }
     
-    private SecretKey getSecretKey() {
-        if (encryptionKeyBase64 == null || encryptionKeyBase64.trim().isEmpty()) {
+    public int encryptedLength(int plaintextLength) {
+        return (envelope() ? HEADER_LENGTH : 0) + CryptoEngine.encryptedLength(plaintextLength);
+    }
+    
+    // ByteBuffer form: one record from the input's remaining bytes, written at the output's position
+    public int encrypt(ByteBuffer plaintext, byte[] associatedData, ByteBuffer output) {
+        try {
+            return encryptRecord(envelope() ? activeKey(defaultTenant) : null, plaintext, associatedData, output);
+        } catch (Exception e) {
+            throw new RuntimeException("Encryption failed", e);
+        }
+    }
+    
+    public int decrypt(ByteBuffer encrypted, byte[] associatedData, ByteBuffer output) {
+        try {
+            return decryptRecord(encrypted, associatedData, output);
+        } catch (Exception e) {
+            throw new RuntimeException("Decryption failed", e);
+        }
+    }
+    
+    // Encrypts each input into the matching output and returns the bytes written per record. Passing the
+    // same buffer for every output packs the records back to back. Fails on the first bad record, after
+    // the records before it have been written.
+    public int[] encryptAll(ByteBuffer[] plaintexts, byte[] associatedData, ByteBuffer[] outputs) {
+        return encryptAll(defaultTenant, plaintexts, associatedData, outputs);
+    }
+    
+    public int[] encryptAll(String tenant, ByteBuffer[] plaintexts, byte[] associatedData, ByteBuffer[] outputs) {
+        checkBatch(plaintexts, outputs);
+        int[] written = new int[plaintexts.length];
+        try {
+            DataKeyCache.Entry key = envelope() ? activeKey(tenant) : null;
+            for (int i = 0; i < plaintexts.length; i++) {
+                written[i] = encryptRecord(key, plaintexts[i], associatedData, outputs[i]);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Encryption failed", e);
+        }
+        return written;
+    }
+    
+    // Each input is one whole record, e.g. a slice of a packed buffer
+    public int[] decryptAll(ByteBuffer[] records, byte[] associatedData, ByteBuffer[] outputs) {
+        checkBatch(records, outputs);
+        int[] written = new int[records.length];
+        try {
+            for (int i = 0; i < records.length; i++) {
+                written[i] = decryptRecord(records[i], associatedData, outputs[i]);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Decryption failed", e);
+        }
+        return written;
+    }
+    
+    // Streaming form for large documents, see ChunkedAead. Closing the returned stream seals the last chunk
+    // and closes the target; data written before that is not readable.
+    public OutputStream encryptingStream(OutputStream target, byte[] associatedData) {
+        return encryptingStream(defaultTenant, target, associatedData);
+    }
+    
+    public OutputStream encryptingStream(String tenant, OutputStream target, byte[] associatedData) {
+        if (!envelope()) {
+            return ChunkedAead.encrypting(target, engine(), ChunkedAead.MASTER_KEY, 0, streamChunkSize, associatedData);
+        }
+        DataKeyCache.Entry key = activeKey(tenant);
+        return ChunkedAead.encrypting(target, key.engine(), ChunkedAead.DATA_KEY, key.keyId(), streamChunkSize,
+            associatedData);
+    }
+    
+    // Reads fail with an IOException on the first chunk that is tampered with, reordered or missing
+    public InputStream decryptingStream(InputStream source, byte[] associatedData) {
+        return ChunkedAead.decrypting(source, this::streamEngine, associatedData);
+    }
+    
+    public WritableByteChannel encryptingChannel(WritableByteChannel target, byte[] associatedData) {
+        return Channels.newChannel(encryptingStream(Channels.newOutputStream(target), associatedData));
+    }
+    
+    public ReadableByteChannel decryptingChannel(ReadableByteChannel source, byte[] associatedData) {
+        return Channels.newChannel(decryptingStream(Channels.newInputStream(source), associatedData));
+    }
+    
+    public long encryptedStreamLength(long plaintextLength) {
+        return ChunkedAead.encryptedLength(plaintextLength, streamChunkSize);
+    }
+    
+    // Makes a new data key the tenant's active one; data under older keys stays readable
+    public int rotateKey(String tenant) {
+        if (!envelope()) {
+            throw new IllegalStateException("Envelope encryption is disabled");
+        }
+        synchronized (this) {
+            return activate(createDataKey(tenant)).keyId();
+        }
+    }
+    
+    // Rotates active keys older than rotation-days and adopts newer keys rotated by other instances
+    @Scheduled(fixedDelayString = "${healthcare.security.encryption.envelope.rotation-check-millis:300000}")
+    public void rotateDueKeys() {
+        if (!envelope()) {
+            return;
+        }
+        for (String tenant : List.copyOf(activeKeys.keySet())) {
+            synchronized (this) {
+                DataKeyStore.DataKey newest = dataKeyStore.newest(tenant);
+                if (isDue(newest)) {
+                    activate(createDataKey(tenant));
+                } else if (newest.keyId() != activeKeys.get(tenant).keyId()) {
+                    activate(unwrap(newest));
+                }
+            }
+        }
+    }
+    
+    public Map<String, Object> getKeyStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("envelope", envelope());
+        if (envelope()) {
+            DataKeyCache cache = keyCache();
+            stats.put("storedKeys", dataKeyStore.keys().size());
+            stats.put("cachedKeys", cache.size());
+            stats.put("cacheHits", cache.hits());
+            stats.put("cacheMisses", cache.misses());
+            stats.put("cacheEvictions", cache.evictions());
+        }
+        stats.put("unwraps", unwraps.get());
+        stats.put("rotations", rotations.get());
+        stats.put("rewraps", rewraps.get());
+        return stats;
+    }
+    
+    private int encryptRecord(DataKeyCache.Entry key, ByteBuffer plaintext, byte[] associatedData, ByteBuffer output)
+            throws Exception {
+        if (key == null) {
+            return engine().encrypt(plaintext, associatedData, output);
+        }
+        if (output.remaining() < HEADER_LENGTH + CryptoEngine.encryptedLength(plaintext.remaining())) {
+            throw new ShortBufferException("Output buffer too small");
+        }
+        // Byte by byte, so the caller's byte order does not matter
+        output.put(ENVELOPE_VERSION);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            output.put((byte) (key.keyId() >>> shift));
+        }
+        return HEADER_LENGTH + key.engine().encrypt(plaintext, associatedData, output);
+    }
+    
+    private int decryptRecord(ByteBuffer encrypted, byte[] associatedData, ByteBuffer output) throws Exception {
+        int start = encrypted.position();
+        DataKeyCache.Entry key = null;
+        if (envelope() && encrypted.remaining() >= HEADER_LENGTH + CryptoEngine.IV_LENGTH + CryptoEngine.TAG_LENGTH
+                && encrypted.get(start) == ENVELOPE_VERSION) {
+            int keyId = 0;
+            for (int i = 1; i < HEADER_LENGTH; i++) {
+                keyId = (keyId << 8) | (encrypted.get(start + i) & 0xFF);
+            }
+            key = dataKey(keyId);
+        }
+        if (key != null) {
+            int outputStart = output.position();
+            encrypted.position(start + HEADER_LENGTH);
+            try {
+                return key.engine().decrypt(encrypted, associatedData, output);
+            } catch (AEADBadTagException e) {
+                encrypted.position(start);
+                output.position(outputStart);
+            }
+        }
+        return engine().decrypt(encrypted, associatedData, output);
+    }
+    
+    private CryptoEngine streamEngine(byte keyType, int keyId) {
+        if (keyType == ChunkedAead.MASTER_KEY) {
+            return engine();
+        }
+        if (keyType != ChunkedAead.DATA_KEY || dataKeyStore == null) {
+            return null;
+        }
+        DataKeyCache.Entry key = dataKey(keyId);
+        return key != null ? key.engine() : null;
+    }
+    
+    // The data key named by a record's header, or null for a master-key record or an unknown id
+    private DataKeyCache.Entry headerKey(byte[] encrypted, int offset, int length) {
+        if (!envelope() || length < HEADER_LENGTH + CryptoEngine.IV_LENGTH + CryptoEngine.TAG_LENGTH
+                || encrypted[offset] != ENVELOPE_VERSION) {
+            return null;
+        }
+        int keyId = ((encrypted[offset + 1] & 0xFF) << 24) | ((encrypted[offset + 2] & 0xFF) << 16)
+            | ((encrypted[offset + 3] & 0xFF) << 8) | (encrypted[offset + 4] & 0xFF);
+        return dataKey(keyId);
+    }
+    
+    private static void writeHeader(byte[] output, int offset, int keyId) {
+        output[offset] = ENVELOPE_VERSION;
+        output[offset + 1] = (byte) (keyId >>> 24);
+        output[offset + 2] = (byte) (keyId >>> 16);
+        output[offset + 3] = (byte) (keyId >>> 8);
+        output[offset + 4] = (byte) keyId;
+    }
+    
+    private DataKeyCache.Entry dataKey(int keyId) {
+        DataKeyCache cache = keyCache();
+        DataKeyCache.Entry key = cache.get(keyId);
+        if (key == null) {
+            DataKeyStore.DataKey stored = dataKeyStore.find(keyId);
+            if (stored == null) {
+                return null;
+            }
+            key = unwrap(stored);
+            cache.put(key);
+        }
+        return key;
+    }
+    
+    // Only a tenant's first use reads the store; after that rotateDueKeys keeps the entry current
+    private DataKeyCache.Entry activeKey(String tenant) {
+        DataKeyCache.Entry key = activeKeys.get(tenant);
+        if (key != null) {
+            return key;
+        }
+        synchronized (this) {
+            key = activeKeys.get(tenant);
+            if (key == null) {
+                DataKeyStore.DataKey newest = dataKeyStore.newest(tenant);
+                key = activate(isDue(newest) ? createDataKey(tenant) : unwrap(newest));
+            }
+            return key;
+        }
+    }
+    
+    private DataKeyCache.Entry activate(DataKeyCache.Entry key) {
+        keyCache().put(key);
+        activeKeys.put(key.tenant(), key);
+        return key;
+    }
+    
+    private boolean isDue(DataKeyStore.DataKey newest) {
+        return newest == null || (rotationDays > 0
+            && System.currentTimeMillis() - newest.createdAtMillis() > TimeUnit.DAYS.toMillis(rotationDays));
+    }
+    
+    private DataKeyCache.Entry createDataKey(String tenant) {
+        byte[] keyBytes = new byte[DATA_KEY_BYTES];
+        keyRandom.nextBytes(keyBytes);
+        try {
+            while (true) {
+                int keyId = keyRandom.nextInt();
+                byte[] wrapped;
+                try {
+                    wrapped = engine().encrypt(keyBytes, wrapContext(keyId, tenant));
+                } catch (Exception e) {
+                    throw new RuntimeException("Data key wrap failed", e);
+                }
+                if (dataKeyStore.save(new DataKeyStore.DataKey(keyId, tenant, System.currentTimeMillis(), wrapped))) {
+                    rotations.incrementAndGet();
+                    return newEntry(keyId, tenant, keyBytes);
+                }
+            }
+        } finally {
+            Arrays.fill(keyBytes, (byte) 0);
+        }
+    }
+    
+    private DataKeyCache.Entry unwrap(DataKeyStore.DataKey stored) {
+        byte[] keyBytes;
+        try {
+            keyBytes = engine().decrypt(stored.wrappedKey(), wrapContext(stored.keyId(), stored.tenant()));
+        } catch (Exception e) {
+            throw new RuntimeException("Data key unwrap failed", e);
+        }
+        unwraps.incrementAndGet();
+        try {
+            return newEntry(stored.keyId(), stored.tenant(), keyBytes);
+        } finally {
+            Arrays.fill(keyBytes, (byte) 0);
+        }
+    }
+    
+    // False when the previous master key cannot unwrap it either
+    private boolean rewrap(DataKeyStore.DataKey stored, CryptoEngine previous) {
+        byte[] context = wrapContext(stored.keyId(), stored.tenant());
+        byte[] keyBytes;
+        try {
+            keyBytes = previous.decrypt(stored.wrappedKey(), context);
+        } catch (Exception e) {
+            return false;
+        }
+        try {
+            byte[] wrapped = engine().encrypt(keyBytes, context);
+            dataKeyStore.replace(new DataKeyStore.DataKey(stored.keyId(), stored.tenant(), stored.createdAtMillis(),
+                wrapped));
+            keyCache().put(newEntry(stored.keyId(), stored.tenant(), keyBytes));
+            rewraps.incrementAndGet();
+            return true;
+        } catch (Exception e) {
+            throw new IllegalStateException("Data key re-wrap failed", e);
+        } finally {
+            Arrays.fill(keyBytes, (byte) 0);
+        }
+    }
+    
+    private DataKeyCache.Entry newEntry(int keyId, String tenant, byte[] keyBytes) {
+        return new DataKeyCache.Entry(keyId, tenant, new CryptoEngine(new SecretKeySpec(keyBytes, "AES"), algorithm),
+            keyCache().ttlNanos());
+    }
+    
+    // Binds a wrapped key to its id and tenant, so a store entry cannot be relabelled
+    private static byte[] wrapContext(int keyId, String tenant) {
+        return ("data-key:" + keyId + ":" + tenant).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private boolean envelope() {
+        return envelopeEnabled && dataKeyStore != null;
+    }
+    
+    private DataKeyCache keyCache() {
+        DataKeyCache current = dataKeyCache;
+        if (current == null) {
+            synchronized (this) {
+                current = dataKeyCache;
+                if (current == null) {
+                    current = new DataKeyCache(cacheMaxKeys, TimeUnit.MINUTES.toNanos(cacheTtlMinutes));
+                    dataKeyCache = current;
+                }
+            }
+        }
+        return current;
+    }
+    
+    private static void checkBatch(ByteBuffer[] inputs, ByteBuffer[] outputs) {
+        if (inputs.length != outputs.length) {
+            throw new IllegalArgumentException("Expected one output per input, got " + outputs.length + " for " + inputs.length);
+        }
+    }
+    
+    // Built on first use, so a missing key only fails the calls that need it
+    private CryptoEngine engine() {
+        CryptoEngine current = engine;
+        if (current == null) {
+            synchronized (this) {
+                current = engine;
+                if (current == null) {
+                    current = new CryptoEngine(decodeKey(encryptionKeyBase64), algorithm);
+                    engine = current;
+                }
+            }
+        }
+        return current;
+    }
+    
+    private static SecretKey decodeKey(String keyBase64) {
+        if (keyBase64 == null || keyBase64.trim().isEmpty()) {
             throw new IllegalStateException("ENCRYPTION_KEY environment variable must be set");
         }
-        
+    
         try {
-            byte[] keyBytes = Base64.getDecoder().decode(encryptionKeyBase64);
+            byte[] keyBytes = Base64.getDecoder().decode(keyBase64);
             if (keyBytes.length != 16 && keyBytes.length != 24 && keyBytes.length != 32) {
                 throw new IllegalArgumentException("Invalid AES key length: " + keyBytes.length + " bytes");
             }
@@ -94,4 +546,4 @@ public class EncryptionService {
             throw new IllegalStateException("Invalid encryption key format", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+package com.healthcare.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU of recently decrypted PHI fields keyed by ciphertext, so a row read over and over is
+ * decrypted once. A bean of its own because Hibernate creates its own EncryptionConverter instances.
+ */
+@Component
+public class FieldDecryptCache {
+
+    @Value("${healthcare.security.encryption.field-cache.max-entries:4096}")
+    private int maxEntries;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, String> plaintexts = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public String get(String ciphertext) {
+        String plaintext;
+        synchronized (plaintexts) {
+            plaintext = plaintexts.get(ciphertext);
+        }
+        (plaintext != null ? hits : misses).incrementAndGet();
+        return plaintext;
+    }
+
+    public void put(String ciphertext, String plaintext) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        synchronized (plaintexts) {
+            plaintexts.put(ciphertext, plaintext);
+            if (plaintexts.size() > maxEntries) {
+                plaintexts.remove(plaintexts.keySet().iterator().next());
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (plaintexts) {
+            stats.put("entries", plaintexts.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+}
@@ -0,0 +1,152 @@
+package com.healthcare.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: levels of 64 slots, each slot of a level spanning a full turn of the
+ * level below. Scheduling and cancelling are O(1); an advance touches only the slots that come due,
+ * moving entries from a coarser level down as its slot is reached. Time is in caller-supplied
+ * milliseconds rounded down to whole ticks.
+ */
+public final class HierarchicalTimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    /** Handle to a scheduled entry, used to cancel it. */
+    public static final class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T item() {
+            return item;
+        }
+    }
+
+    private final long tickMillis;
+    private final int levels;
+    // One circular list per slot, each headed by a sentinel
+    private final Timeout<T>[][] slots;
+    private long currentTick;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, int levels, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        if (levels < 1 || levels * SLOT_BITS > 48) {
+            throw new IllegalArgumentException("Levels must be between 1 and 8");
+        }
+        this.tickMillis = tickMillis;
+        this.levels = levels;
+        this.slots = newSlots(levels);
+        for (Timeout<T>[] level : slots) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Timeout<T> sentinel = new Timeout<>(null, 0);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                level[slot] = sentinel;
+            }
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    // Java cannot create a generic array; the raw one never escapes and only ever holds Timeout<T>
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Timeout<T>[][] newSlots(int levels) {
+        return new Timeout[levels][SLOTS];
+    }
+
+    // Entries already due fire on the next advance
+    public synchronized Timeout<T> schedule(T item, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(item, Math.max(deadlineMillis / tickMillis, currentTick + 1));
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.next == null) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    // Moves the wheel up to the given time and returns the entries that came due, earliest tick first
+    public synchronized List<T> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<T> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Highest level first, so cascaded entries can land in lower slots that are cascaded next
+            for (int level = levels - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (level * SLOT_BITS)) - 1)) == 0) {
+                    cascade(level, (int) (currentTick >>> (level * SLOT_BITS)) & SLOT_MASK);
+                }
+            }
+            Timeout<T> sentinel = slots[0][(int) currentTick & SLOT_MASK];
+            Timeout<T> timeout = sentinel.next;
+            while (timeout != sentinel) {
+                Timeout<T> next = timeout.next;
+                unlink(timeout);
+                if (timeout.deadlineTick <= currentTick) {
+                    size--;
+                    expired.add(timeout.item);
+                } else {
+                    // Only a single-level wheel parks deadlines beyond its span here
+                    place(timeout);
+                }
+                timeout = next;
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void cascade(int level, int slot) {
+        Timeout<T> sentinel = slots[level][slot];
+        while (sentinel.next != sentinel) {
+            Timeout<T> timeout = sentinel.next;
+            unlink(timeout);
+            place(timeout);
+        }
+    }
+
+    // Deadlines beyond the top level's span wait in its last slot and are placed again from there
+    private void place(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        int level = 0;
+        while (level < levels - 1 && delta >= 1L << ((level + 1) * SLOT_BITS)) {
+            level++;
+        }
+        long tick = delta >= 1L << (levels * SLOT_BITS)
+            ? currentTick + (1L << (levels * SLOT_BITS)) - 1
+            : Math.max(timeout.deadlineTick, currentTick);
+        Timeout<T> sentinel = slots[level][(int) (tick >>> (level * SLOT_BITS)) & SLOT_MASK];
+        timeout.prev = sentinel.prev;
+        timeout.next = sentinel;
+        sentinel.prev.next = timeout;
+        sentinel.prev = timeout;
+    }
+
+    private static <T> void unlink(Timeout<T> timeout) {
+        timeout.prev.next = timeout.next;
+        timeout.next.prev = timeout.prev;
+        timeout.prev = null;
+        timeout.next = null;
+    }
+}
@@ -0,0 +1,60 @@
+package com.healthcare.util;
+
+import com.healthcare.model.Patient;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps a patient's blind indexes in step with its encrypted columns on every write. Only values
+ * that were set since loading are indexed again, so saving a patient does not decrypt fields that
+ * did not change; a row indexed under an older key version is indexed in full. A bean, so Hibernate
+ * uses this instance and the re-index job can call it directly.
+ */
+@Component
+public class PatientBlindIndexListener {
+
+    @Autowired
+    private BlindIndexService blindIndexService;
+
+    @PrePersist
+    @PreUpdate
+    public void updateBlindIndexes(Patient patient) {
+        int version = blindIndexService.currentVersion();
+        boolean stale = patient.getBlindIndexVersion() == null || patient.getBlindIndexVersion() != version;
+
+        EncryptedString email = patient.getEmail();
+        if (email == null) {
+            patient.setEmailBlindIndex(null);
+            patient.setEmailPrefixBlindIndex(null);
+        } else if (stale || isNew(email)) {
+            patient.setEmailBlindIndex(blindIndexService.index(BlindIndexService.Field.EMAIL, email.get()));
+            patient.setEmailPrefixBlindIndex(blindIndexService.index(BlindIndexService.Field.EMAIL_PREFIX, email.get()));
+        }
+
+        EncryptedString ssn = patient.getEncryptedSSN();
+        if (ssn == null) {
+            patient.setSsnBlindIndex(null);
+            patient.setSsnLast4BlindIndex(null);
+        } else if (stale || isNew(ssn)) {
+            patient.setSsnBlindIndex(blindIndexService.index(BlindIndexService.Field.SSN, ssn.get()));
+            patient.setSsnLast4BlindIndex(blindIndexService.index(BlindIndexService.Field.SSN_LAST4, ssn.get()));
+        }
+
+        EncryptedString dateOfBirth = patient.getEncryptedDateOfBirth();
+        if (dateOfBirth == null) {
+            patient.setDateOfBirthBlindIndex(null);
+        } else if (stale || isNew(dateOfBirth)) {
+            patient.setDateOfBirthBlindIndex(
+                blindIndexService.index(BlindIndexService.Field.DATE_OF_BIRTH, dateOfBirth.get()));
+        }
+
+        patient.setBlindIndexVersion(version);
+    }
+
+    // Not yet written, so its index has not been computed either
+    private static boolean isNew(EncryptedString value) {
+        return value.ciphertext() == null;
+    }
+}
@@ -0,0 +1,111 @@
+package com.healthcare.util;
+
+import java.util.Arrays;
+
+/**
+ * Compact list of record locations, each a sequence number and an offset, kept in increasing
+ * sequence order. Sequences are stored as varint deltas and offsets as varints, so a location
+ * usually takes three to five bytes. Not thread-safe.
+ */
+public final class PostingList {
+
+    @FunctionalInterface
+    public interface Visitor {
+        // False stops the walk
+        boolean visit(long sequence, int offset);
+    }
+
+    private byte[] bytes;
+    private int length;
+    private int count;
+    private long lastSequence = -1;
+
+    public PostingList() {
+        bytes = new byte[16];
+    }
+
+    private PostingList(byte[] bytes, int count, long lastSequence) {
+        this.bytes = bytes;
+        this.length = bytes.length;
+        this.count = count;
+        this.lastSequence = lastSequence;
+    }
+
+    // Rebuilds a list from the bytes, count and last sequence of one that was written out
+    public static PostingList of(byte[] bytes, int count, long lastSequence) {
+        return new PostingList(bytes, count, lastSequence);
+    }
+
+    // False, and nothing added, unless the sequence is past the last one
+    public boolean add(long sequence, int offset) {
+        if (sequence <= lastSequence || offset < 0) {
+            return false;
+        }
+        if (length + 20 > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 20));
+        }
+        length = putVarint(sequence - lastSequence - 1, length);
+        length = putVarint(offset, length);
+        lastSequence = sequence;
+        count++;
+        return true;
+    }
+
+    // True when the visitor saw every location
+    public boolean forEach(Visitor visitor) {
+        long sequence = -1;
+        int position = 0;
+        while (position < length) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            int offset = 0;
+            shift = 0;
+            do {
+                b = bytes[position++];
+                offset |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            sequence += delta + 1;
+            if (!visitor.visit(sequence, offset)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A copy that later adds to this list do not reach
+    public PostingList snapshot() {
+        return new PostingList(Arrays.copyOf(bytes, length), count, lastSequence);
+    }
+
+    public byte[] toBytes() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    public int byteLength() {
+        return length;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    private int putVarint(long value, int position) {
+        while ((value & ~0x7FL) != 0) {
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+}
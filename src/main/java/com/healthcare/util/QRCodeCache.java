@@ -0,0 +1,180 @@
+package com.healthcare.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of rendered QR images keyed by what was encoded and how. Entries expire
+ * together with the share session they belong to, so a re-displayed QR costs a
+ * hash lookup instead of an encode. A session that closes early drops every render of its content.
+ */
+@Component
+public class QRCodeCache {
+
+    // Rough per-entry overhead of the map node, key and entry objects
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    @Value("${healthcare.security.qr.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${healthcare.security.qr.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    // Every cached render of a content, so a closed session is dropped without a scan
+    private final Map<String, List<Key>> keysByContent = new HashMap<>();
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public QRCodeGenerator.Symbol getOrGenerate(String content, int width, int height, QRSymbolOptimizer.SymbolPlan plan,
+                                QRCodeGenerator.OutputFormat format, LocalDateTime expiresAt) throws Exception {
+        Key key = new Key(content, width, height, plan, format);
+        long now = System.currentTimeMillis();
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAtMillis > now) {
+                    hits.incrementAndGet();
+                    return entry.symbol;
+                }
+                remove(key, entry);
+            }
+        }
+        misses.incrementAndGet();
+
+        // Encode outside the lock; a concurrent miss on the same key just renders twice
+        QRCodeGenerator.Symbol symbol = QRCodeGenerator.generate(content, width, height, plan, format);
+        long expiresAtMillis = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (expiresAtMillis > now) {
+            put(key, new Entry(symbol, expiresAtMillis, sizeOf(key, symbol.image())));
+        }
+        return symbol;
+    }
+
+    public void invalidate(String content) {
+        synchronized (entries) {
+            List<Key> keys = keysByContent.remove(content);
+            if (keys == null) {
+                return;
+            }
+            for (Key key : keys) {
+                Entry entry = entries.remove(key);
+                if (entry != null) {
+                    totalBytes -= entry.sizeBytes;
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Entry> next = it.next();
+                if (next.getValue().expiresAtMillis <= now) {
+                    it.remove();
+                    totalBytes -= next.getValue().sizeBytes;
+                    unindex(next.getKey());
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+        int size;
+        long bytes;
+        synchronized (entries) {
+            size = entries.size();
+            bytes = totalBytes;
+        }
+        return Map.of(
+            "hits", hitCount,
+            "misses", missCount,
+            "hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups,
+            "evictions", evictions.get(),
+            "entries", size,
+            "bytes", bytes,
+            "maxEntries", maxEntries,
+            "maxBytes", maxBytes
+        );
+    }
+
+    private void put(Key key, Entry entry) {
+        if (entry.sizeBytes > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                totalBytes -= previous.sizeBytes;
+            } else {
+                keysByContent.computeIfAbsent(key.content, content -> new ArrayList<>(1)).add(key);
+            }
+            totalBytes += entry.sizeBytes;
+
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || totalBytes > maxBytes) && it.hasNext()) {
+                Map.Entry<Key, Entry> eldest = it.next();
+                it.remove();
+                totalBytes -= eldest.getValue().sizeBytes;
+                unindex(eldest.getKey());
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private void remove(Key key, Entry entry) {
+        entries.remove(key);
+        totalBytes -= entry.sizeBytes;
+        unindex(key);
+    }
+
+    private void unindex(Key key) {
+        List<Key> keys = keysByContent.get(key.content);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            keysByContent.remove(key.content);
+        }
+    }
+
+    private static long sizeOf(Key key, String image) {
+        // Base64, SVG and typical QR content are Latin-1, so compact strings use one byte per char
+        return (long) image.length() + key.content.length() + ENTRY_OVERHEAD_BYTES;
+    }
+
+    private record Key(String content, int width, int height, QRSymbolOptimizer.SymbolPlan plan,
+                       QRCodeGenerator.OutputFormat format) {
+    }
+
+    private static final class Entry {
+        final QRCodeGenerator.Symbol symbol;
+        final long expiresAtMillis;
+        final long sizeBytes;
+
+        Entry(QRCodeGenerator.Symbol symbol, long expiresAtMillis, long sizeBytes) {
+            this.symbol = symbol;
+            this.expiresAtMillis = expiresAtMillis;
+            this.sizeBytes = sizeBytes;
+        }
+    }
+}
@@ -1,27 +1,201 @@
 package com.healthcare.util;
 
 import com.google.zxing.BarcodeFormat;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
-import java.io.ByteArrayOutputStream;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import com.google.zxing.qrcode.encoder.QRCode;
 import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
 
 public class QRCodeGenerator {
 
+    // Quiet zone in modules, as required by ISO/IEC 18004
+    public static final int QUIET_ZONE = 4;
+
+    public enum OutputFormat {
+        PNG, SVG, MODULES;
+
+        public static OutputFormat fromString(String value) {
+            if (value == null || value.isBlank()) {
+                return PNG;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported QR format: " + value);
+            }
+        }
+    }
+
     private QRCodeGenerator() {
         // Private constructor to hide implicit public one
     }
 
+    // Base64 PNG for PNG, SVG markup for SVG, base64 packed modules for MODULES
+    public static String generate(String content, int width, int height, ErrorCorrectionLevel ecLevel,
+                                  OutputFormat format) throws Exception {
+        return switch (format) {
+            case PNG -> generateQRCodeBase64(content, width, height, ecLevel);
+            case SVG -> generateQRCodeSvg(content, ecLevel);
+            case MODULES -> Base64.getEncoder().encodeToString(generateQRCodeModules(content, ecLevel));
+        };
+    }
+
+    // An image and the plan it was encoded with. The version is the one the encoder used, which is
+    // larger than planned when the content did not fit the planned one.
+    public record Symbol(String image, QRSymbolOptimizer.SymbolPlan plan) {
+    }
+
+    // Same outputs, encoded with the version, error correction, segmentation and margin of the plan
+    public static Symbol generate(String content, int width, int height, QRSymbolOptimizer.SymbolPlan plan,
+                                  OutputFormat format) throws WriterException {
+        QRCode code = encode(content, plan.ecLevel(), hintsFor(plan));
+        String image = switch (format) {
+            case PNG -> Base64.getEncoder().encodeToString(BitMatrixPngEncoder.encode(
+                renderMatrix(code.getMatrix(), width, height, plan.margin())));
+            case SVG -> renderSvg(code.getMatrix(), plan.margin());
+            case MODULES -> Base64.getEncoder().encodeToString(packModules(code.getMatrix()));
+        };
+        int version = code.getVersion().getVersionNumber();
+        return new Symbol(image, version == plan.version() ? plan
+            : new QRSymbolOptimizer.SymbolPlan(version, plan.ecLevel(), plan.compact(), plan.margin()));
+    }
+
     public static String generateQRCodeBase64(String content, int width, int height) throws Exception {
+        return generateQRCodeBase64(content, width, height, ErrorCorrectionLevel.L);
+    }
+
+    public static String generateQRCodeBase64(String content, int width, int height,
+                                              ErrorCorrectionLevel ecLevel) throws Exception {
+        return Base64.getEncoder().encodeToString(generateQRCodePng(content, width, height, ecLevel));
+    }
+
+    public static byte[] generateQRCodePng(String content, int width, int height) throws Exception {
+        return generateQRCodePng(content, width, height, ErrorCorrectionLevel.L);
+    }
+
+    public static byte[] generateQRCodePng(String content, int width, int height,
+                                           ErrorCorrectionLevel ecLevel) throws Exception {
         QRCodeWriter qrCodeWriter = new QRCodeWriter();
-        BitMatrix bitMatrix = qrCodeWriter.encode(content, BarcodeFormat.QR_CODE, width, height);
+        BitMatrix bitMatrix = qrCodeWriter.encode(content, BarcodeFormat.QR_CODE, width, height,
+            Map.of(EncodeHintType.ERROR_CORRECTION, ecLevel));
 
-        ByteArrayOutputStream pngOutputStream = new ByteArrayOutputStream();
-        MatrixToImageWriter.writeToStream(bitMatrix, "PNG", pngOutputStream);
-        byte[] pngData = pngOutputStream.toByteArray();
+        return BitMatrixPngEncoder.encode(bitMatrix);
+    }
 
-        return Base64.getEncoder().encodeToString(pngData);
+    // Scalable SVG: one stroked path, one horizontal segment per run of dark modules
+    public static String generateQRCodeSvg(String content, ErrorCorrectionLevel ecLevel) throws WriterException {
+        return renderSvg(encode(content, ecLevel, null).getMatrix(), QUIET_ZONE);
     }
-}
 
+    private static String renderSvg(ByteMatrix modules, int margin) {
+        int size = modules.getWidth();
+        int viewSize = size + 2 * margin;
+
+        StringBuilder svg = new StringBuilder(64 + size * size / 2);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 ")
+           .append(viewSize).append(' ').append(viewSize)
+           .append("\" shape-rendering=\"crispEdges\"><rect width=\"100%\" height=\"100%\" fill=\"#fff\"/>")
+           .append("<path stroke=\"#000\" d=\"");
+        for (int y = 0; y < size; y++) {
+            int penX = -1;
+            int x = 0;
+            while (x < size) {
+                if (modules.get(x, y) != 1) {
+                    x++;
+                    continue;
+                }
+                int runStart = x;
+                while (x < size && modules.get(x, y) == 1) {
+                    x++;
+                }
+                if (penX < 0) {
+                    svg.append('M').append(runStart + margin).append(' ').append(y + margin).append(".5");
+                } else {
+                    svg.append('m').append(runStart - penX).append(" 0");
+                }
+                svg.append('h').append(x - runStart);
+                penX = x;
+            }
+        }
+        svg.append("\"/></svg>");
+        return svg.toString();
+    }
+
+    // First byte is the symbol size in modules (at most 177), followed by the modules
+    // row-major, one bit each, most significant bit first, dark = 1, without quiet zone
+    public static byte[] generateQRCodeModules(String content, ErrorCorrectionLevel ecLevel) throws WriterException {
+        return packModules(encode(content, ecLevel, null).getMatrix());
+    }
+
+    private static byte[] packModules(ByteMatrix modules) {
+        int size = modules.getWidth();
+        byte[] packed = new byte[1 + (size * size + 7) / 8];
+        packed[0] = (byte) size;
+
+        int bit = 0;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++, bit++) {
+                if (modules.get(x, y) == 1) {
+                    packed[1 + (bit >>> 3)] |= (byte) (0x80 >>> (bit & 7));
+                }
+            }
+        }
+        return packed;
+    }
+
+    private static QRCode encode(String content, ErrorCorrectionLevel ecLevel,
+                                 Map<EncodeHintType, Object> hints) throws WriterException {
+        if (content == null || content.isEmpty()) {
+            throw new IllegalArgumentException("Found empty contents");
+        }
+        try {
+            return Encoder.encode(content, ecLevel, hints);
+        } catch (WriterException e) {
+            // The plan's size estimate was short; let the encoder pick the version instead
+            if (hints == null || hints.remove(EncodeHintType.QR_VERSION) == null) {
+                throw e;
+            }
+            return Encoder.encode(content, ecLevel, hints);
+        }
+    }
+
+    // Scaled and centred as QRCodeWriter does it, which does not say which version it encoded
+    private static BitMatrix renderMatrix(ByteMatrix modules, int width, int height, int margin) {
+        int size = modules.getWidth();
+        int withMargin = size + 2 * margin;
+        int outputWidth = Math.max(width, withMargin);
+        int outputHeight = Math.max(height, withMargin);
+        int multiple = Math.min(outputWidth / withMargin, outputHeight / withMargin);
+        int left = (outputWidth - size * multiple) / 2;
+        int top = (outputHeight - size * multiple) / 2;
+
+        BitMatrix output = new BitMatrix(outputWidth, outputHeight);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (modules.get(x, y) == 1) {
+                    output.setRegion(left + x * multiple, top + y * multiple, multiple, multiple);
+                }
+            }
+        }
+        return output;
+    }
+
+    private static Map<EncodeHintType, Object> hintsFor(QRSymbolOptimizer.SymbolPlan plan) {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        hints.put(EncodeHintType.ERROR_CORRECTION, plan.ecLevel());
+        hints.put(EncodeHintType.QR_VERSION, plan.version());
+        hints.put(EncodeHintType.MARGIN, plan.margin());
+        if (plan.compact()) {
+            hints.put(EncodeHintType.QR_COMPACT, Boolean.TRUE);
+        }
+        return hints;
+    }
+}
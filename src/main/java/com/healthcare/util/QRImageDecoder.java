@@ -0,0 +1,128 @@
+package com.healthcare.util;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Binarizer;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes a QR code from a photo, cheapest attempt first: a downscaled grayscale copy with the
+ * local-threshold binarizer, then full resolution with TRY_HARDER, then full resolution with the
+ * global-histogram binarizer, which copes better with low-contrast or blurred prints.
+ */
+public final class QRImageDecoder {
+
+    public enum Pass {
+        DOWNSCALED, FULL_HYBRID, FULL_GLOBAL
+    }
+
+    public record Decoded(String text, Pass pass) {
+    }
+
+    private static final Map<DecodeHintType, Object> FAST_HINTS = Map.of(
+        DecodeHintType.POSSIBLE_FORMATS, List.of(BarcodeFormat.QR_CODE));
+    private static final Map<DecodeHintType, Object> HARD_HINTS = Map.of(
+        DecodeHintType.POSSIBLE_FORMATS, List.of(BarcodeFormat.QR_CODE),
+        DecodeHintType.TRY_HARDER, Boolean.TRUE);
+
+    private QRImageDecoder() {
+        // Private constructor to hide implicit public one
+    }
+
+    // Reads the image header first so oversized uploads are rejected before any pixels are allocated
+    public static BufferedImage readImage(byte[] imageBytes, long maxPixels) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes))) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    throw new IllegalArgumentException("Image exceeds " + maxPixels + " pixels");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Returns null when no pass found a code, or when the deadline passed before the next pass
+    public static Decoded decode(BufferedImage image, int downscaleMaxDimension, long deadlineNanos) {
+        QRCodeReader reader = new QRCodeReader();
+
+        String text = tryDecode(reader, new HybridBinarizer(downscaled(image, downscaleMaxDimension)), FAST_HINTS);
+        if (text != null) {
+            return new Decoded(text, Pass.DOWNSCALED);
+        }
+
+        LuminanceSource fullResolution = null;
+        if (System.nanoTime() < deadlineNanos) {
+            fullResolution = new BufferedImageLuminanceSource(image);
+            text = tryDecode(reader, new HybridBinarizer(fullResolution), HARD_HINTS);
+            if (text != null) {
+                return new Decoded(text, Pass.FULL_HYBRID);
+            }
+        }
+
+        if (fullResolution != null && System.nanoTime() < deadlineNanos) {
+            text = tryDecode(reader, new GlobalHistogramBinarizer(fullResolution), HARD_HINTS);
+            if (text != null) {
+                return new Decoded(text, Pass.FULL_GLOBAL);
+            }
+        }
+        return null;
+    }
+
+    private static String tryDecode(QRCodeReader reader, Binarizer binarizer,
+                                    Map<DecodeHintType, Object> hints) {
+        try {
+            return reader.decode(new BinaryBitmap(binarizer), hints).getText();
+        } catch (ReaderException e) {
+            return null;
+        } finally {
+            reader.reset();
+        }
+    }
+
+    private static LuminanceSource downscaled(BufferedImage image, int maxDimension) {
+        int largest = Math.max(image.getWidth(), image.getHeight());
+        if (largest <= maxDimension) {
+            return new BufferedImageLuminanceSource(image);
+        }
+        double scale = (double) maxDimension / largest;
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        // Drawing into a gray raster converts and scales in one step
+        BufferedImage gray = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = gray.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return new BufferedImageLuminanceSource(gray);
+    }
+}
@@ -0,0 +1,662 @@
+package com.healthcare.util;
+
+import com.healthcare.dto.QRPayload;
+import com.healthcare.model.ConsentRecord;
+import com.healthcare.model.PatientData;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Versioned binary encoding of {@link QRPayload} and {@link PatientData} for QR codes.
+ *
+ * <p>Layout: one header byte (version in the high nibble, record kind in bits 1-2, deflate flag
+ * in bit 0) followed by the body. Strings are dictionary references, dictionary prefixes with a
+ * literal or UUID suffix, or UTF-8 literals. Integers and timestamps are LEB128 varints, and
+ * timestamps are carried at second precision. Data types are a bitmask of enum ordinals, so they
+ * decode as a de-duplicated list in ordinal order.
+ *
+ * <p>The bytes are carried in the QR symbol as digits (numeric mode, about 8.1 bits per byte) or
+ * as base45 (alphanumeric mode, 8.25 bits per byte), whichever needs fewer bits.
+ */
+public final class QRPayloadCodec {
+
+    public static final int VERSION = 1;
+
+    public static final char NUMERIC_MARKER = '0';
+    public static final char BASE45_MARKER = 'H';
+
+    static final String BASE45_ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:";
+
+    static final int KIND_QR_PAYLOAD = 0;
+    private static final int KIND_PATIENT_DATA = 1;
+    private static final int FLAG_DEFLATED = 0x01;
+
+    private static final int STRING_LITERAL = 0;
+    private static final int STRING_DICTIONARY = 1;
+    private static final int STRING_PREFIXED = 2;
+    private static final int STRING_PREFIXED_UUID = 3;
+
+    private static final int MIN_DEFLATE_LENGTH = 48;
+    private static final int MAX_INFLATED_LENGTH = 64 * 1024;
+
+    // Digits needed for k bytes in the numeric envelope: ceil(k * 8 * log10(2)); 7 bytes per full chunk
+    private static final int[] DIGITS_FOR_BYTES = {0, 3, 5, 8, 10, 13, 15, 17};
+    private static final int NUMERIC_CHUNK_BYTES = 7;
+    static final int NUMERIC_CHUNK_DIGITS = 17;
+
+    // Wire format: entries may only be appended; changing or reordering one requires a new VERSION
+    private static final String[] DICTIONARY = {
+        "patient-", "session-", "provider-", "consent-",
+        "O+", "O-", "A+", "A-", "B+", "B-", "AB+", "AB-",
+        "Penicillin", "Shellfish", "Peanuts", "Tree nuts", "Latex", "Sulfa", "Aspirin", "Ibuprofen",
+        "Codeine", "Eggs", "Milk", "Soy", "Wheat", "Bee stings", "Amoxicillin", "Morphine",
+        "Lisinopril 10mg", "Metformin 500mg", "Atorvastatin 20mg", "Levothyroxine 50mcg", "Amlodipine 5mg",
+        "Metoprolol 25mg", "Omeprazole 20mg", "Albuterol inhaler", "Losartan 50mg", "Gabapentin 300mg",
+        "Hydrochlorothiazide 25mg", "Sertraline 50mg", "Simvastatin 20mg", "Warfarin 5mg", "Aspirin 81mg",
+        "Insulin glargine", "Furosemide 40mg", "Prednisone 10mg",
+        "Hypertension", "Type 2 Diabetes", "Type 1 Diabetes", "Asthma", "Hyperlipidemia", "Hypothyroidism",
+        "COPD", "Atrial fibrillation", "Coronary artery disease", "Chronic kidney disease", "Heart failure",
+        "Depression", "Anxiety", "Osteoarthritis", "GERD", "Obesity", "Migraine", "Epilepsy"
+    };
+    private static final int PREFIX_COUNT = 4;
+    private static final Map<String, Integer> DICTIONARY_INDEX = new HashMap<>();
+
+    static {
+        for (int i = 0; i < DICTIONARY.length; i++) {
+            DICTIONARY_INDEX.put(DICTIONARY[i], i);
+        }
+    }
+
+    private static final ConsentRecord.DataType[] DATA_TYPES = ConsentRecord.DataType.values();
+
+    private QRPayloadCodec() {
+        // Private constructor to hide implicit public one
+    }
+
+    // ---- Records -------------------------------------------------------------------------------
+
+    public static byte[] encode(QRPayload payload) {
+        Writer body = new Writer();
+        body.writeString(payload.getSessionToken());
+        body.writeString(payload.getPatientId());
+        body.writeDataTypes(payload.getDataTypes());
+        body.writeTime(payload.getExpiresAt());
+        return seal(KIND_QR_PAYLOAD, body);
+    }
+
+    public static QRPayload decodePayload(byte[] data) {
+        return decodePayload(data, 0, data.length);
+    }
+
+    public static QRPayload decodePayload(byte[] data, int offset, int length) {
+        Reader body = open(KIND_QR_PAYLOAD, data, offset, length);
+        QRPayload payload = QRPayload.builder()
+            .sessionToken(body.readString())
+            .patientId(body.readString())
+            .dataTypes(body.readDataTypes())
+            .expiresAt(body.readTime())
+            .build();
+        body.expectEnd();
+        return payload;
+    }
+
+    public static byte[] encode(PatientData data) {
+        Writer body = new Writer();
+        body.writeString(data.getPatientId());
+        body.writeString(data.getFirstName());
+        body.writeString(data.getLastName());
+        body.writeString(data.getEmail());
+        body.writeString(data.getDateOfBirth());
+        body.writeString(data.getBloodType());
+        body.writeStrings(data.getAllergies());
+        body.writeStrings(data.getMedications());
+        body.writeStrings(data.getConditions());
+        body.writeString(data.getEmergencyContact());
+        body.writeTime(data.getLastUpdated());
+        return seal(KIND_PATIENT_DATA, body);
+    }
+
+    public static PatientData decodePatientData(byte[] data) {
+        return decodePatientData(data, 0, data.length);
+    }
+
+    public static PatientData decodePatientData(byte[] data, int offset, int length) {
+        Reader body = open(KIND_PATIENT_DATA, data, offset, length);
+        PatientData patientData = new PatientData();
+        patientData.setPatientId(body.readString());
+        patientData.setFirstName(body.readString());
+        patientData.setLastName(body.readString());
+        patientData.setEmail(body.readString());
+        patientData.setDateOfBirth(body.readString());
+        patientData.setBloodType(body.readString());
+        patientData.setAllergies(body.readStrings());
+        patientData.setMedications(body.readStrings());
+        patientData.setConditions(body.readStrings());
+        patientData.setEmergencyContact(body.readString());
+        patientData.setLastUpdated(body.readTime());
+        body.expectEnd();
+        return patientData;
+    }
+
+    private static byte[] seal(int kind, Writer body) {
+        int header = (VERSION << 4) | (kind << 1);
+        byte[] raw = body.toByteArray();
+
+        if (raw.length >= MIN_DEFLATE_LENGTH) {
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+            try {
+                deflater.setInput(raw);
+                deflater.finish();
+                byte[] compressed = new byte[raw.length];
+                int length = deflater.deflate(compressed);
+                // Only keep the compressed body if it actually is smaller
+                if (deflater.finished() && length < raw.length) {
+                    byte[] sealed = new byte[1 + length];
+                    sealed[0] = (byte) (header | FLAG_DEFLATED);
+                    System.arraycopy(compressed, 0, sealed, 1, length);
+                    return sealed;
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+
+        byte[] sealed = new byte[1 + raw.length];
+        sealed[0] = (byte) header;
+        System.arraycopy(raw, 0, sealed, 1, raw.length);
+        return sealed;
+    }
+
+    private static Reader open(int expectedKind, byte[] data, int offset, int length) {
+        if (length < 1) {
+            throw new IllegalArgumentException("Malformed QR payload: empty");
+        }
+        int header = data[offset] & 0xFF;
+        if ((header >>> 4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported QR payload version: " + (header >>> 4));
+        }
+        if (((header >>> 1) & 0x03) != expectedKind) {
+            throw new IllegalArgumentException("Unexpected QR payload kind");
+        }
+        if ((header & FLAG_DEFLATED) == 0) {
+            return new Reader(data, offset + 1, offset + length);
+        }
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, offset + 1, length - 1);
+            byte[] buffer = new byte[Math.min(MAX_INFLATED_LENGTH, Math.max(256, length * 4))];
+            int size = 0;
+            while (!inflater.finished()) {
+                if (size == buffer.length) {
+                    if (buffer.length == MAX_INFLATED_LENGTH) {
+                        throw new IllegalArgumentException("Malformed QR payload: inflated body too large");
+                    }
+                    buffer = Arrays.copyOf(buffer, Math.min(MAX_INFLATED_LENGTH, buffer.length * 2));
+                }
+                int n = inflater.inflate(buffer, size, buffer.length - size);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Malformed QR payload: truncated deflate body");
+                }
+                size += n;
+            }
+            return new Reader(buffer, 0, size);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Malformed QR payload: bad deflate body", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // ---- Text envelopes ------------------------------------------------------------------------
+
+    public static String toQRText(byte[] data) {
+        int numericDigits = 1 + numericLength(data.length);
+        int base45Chars = 1 + base45Length(data.length);
+        return numericModeBits(numericDigits) <= alphanumericModeBits(base45Chars)
+            ? toNumericText(data)
+            : toBase45Text(data);
+    }
+
+    public static byte[] fromQRText(String text) {
+        if (text == null || text.isEmpty()) {
+            throw new IllegalArgumentException("Malformed QR text: empty");
+        }
+        byte[] out = new byte[maxDecodedLength(text.length())];
+        int length = decodeQRText(text, out);
+        return Arrays.copyOf(out, length);
+    }
+
+    public static boolean isQRText(String text) {
+        return text != null && text.length() > 1
+            && (text.charAt(0) == NUMERIC_MARKER || text.charAt(0) == BASE45_MARKER);
+    }
+
+    public static int maxDecodedLength(int textLength) {
+        // Numeric needs at least 17 digits per 7 bytes, base45 3 characters per 2 bytes
+        return Math.max(textLength * NUMERIC_CHUNK_BYTES / NUMERIC_CHUNK_DIGITS + NUMERIC_CHUNK_BYTES,
+            textLength * 2 / 3 + 2);
+    }
+
+    // Decodes a numeric or base45 envelope into out and returns the byte count
+    public static int decodeQRText(CharSequence text, byte[] out) {
+        char marker = text.charAt(0);
+        if (marker == NUMERIC_MARKER) {
+            return decodeNumeric(text, 1, text.length(), out);
+        }
+        if (marker == BASE45_MARKER) {
+            return decodeBase45(text, 1, text.length(), out);
+        }
+        throw new IllegalArgumentException("Malformed QR text: unknown envelope");
+    }
+
+    static String toNumericText(byte[] data) {
+        StringBuilder text = new StringBuilder(1 + numericLength(data.length));
+        text.append(NUMERIC_MARKER);
+        for (int offset = 0; offset < data.length; offset += NUMERIC_CHUNK_BYTES) {
+            int count = Math.min(NUMERIC_CHUNK_BYTES, data.length - offset);
+            long value = 0;
+            for (int i = 0; i < count; i++) {
+                value = (value << 8) | (data[offset + i] & 0xFF);
+            }
+            String digits = Long.toString(value);
+            for (int pad = DIGITS_FOR_BYTES[count] - digits.length(); pad > 0; pad--) {
+                text.append('0');
+            }
+            text.append(digits);
+        }
+        return text.toString();
+    }
+
+    static String toBase45Text(byte[] data) {
+        StringBuilder text = new StringBuilder(1 + base45Length(data.length));
+        text.append(BASE45_MARKER);
+        int i = 0;
+        for (; i + 1 < data.length; i += 2) {
+            int value = ((data[i] & 0xFF) << 8) | (data[i + 1] & 0xFF);
+            text.append(BASE45_ALPHABET.charAt(value % 45));
+            text.append(BASE45_ALPHABET.charAt((value / 45) % 45));
+            text.append(BASE45_ALPHABET.charAt(value / 2025));
+        }
+        if (i < data.length) {
+            int value = data[i] & 0xFF;
+            text.append(BASE45_ALPHABET.charAt(value % 45));
+            text.append(BASE45_ALPHABET.charAt(value / 45));
+        }
+        return text.toString();
+    }
+
+    private static int decodeNumeric(CharSequence text, int start, int end, byte[] out) {
+        int size = 0;
+        int position = start;
+        while (position < end) {
+            int digits = Math.min(NUMERIC_CHUNK_DIGITS, end - position);
+            int count = bytesForDigits(digits);
+            long value = 0;
+            for (int i = 0; i < digits; i++) {
+                int digit = text.charAt(position + i) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new IllegalArgumentException("Malformed QR text: non-digit in numeric envelope");
+                }
+                value = value * 10 + digit;
+            }
+            if (count < NUMERIC_CHUNK_BYTES && (value >>> (count * 8)) != 0) {
+                throw new IllegalArgumentException("Malformed QR text: numeric chunk out of range");
+            }
+            if (count == NUMERIC_CHUNK_BYTES && (value >>> 56) != 0) {
+                throw new IllegalArgumentException("Malformed QR text: numeric chunk out of range");
+            }
+            for (int i = count - 1; i >= 0; i--) {
+                out[size + i] = (byte) value;
+                value >>>= 8;
+            }
+            size += count;
+            position += digits;
+        }
+        return size;
+    }
+
+    private static int decodeBase45(CharSequence text, int start, int end, byte[] out) {
+        int size = 0;
+        int position = start;
+        while (position < end) {
+            int remaining = end - position;
+            if (remaining == 1) {
+                throw new IllegalArgumentException("Malformed QR text: dangling base45 character");
+            }
+            int c = base45Value(text.charAt(position));
+            int d = base45Value(text.charAt(position + 1));
+            if (remaining == 2) {
+                int value = c + d * 45;
+                if (value > 0xFF) {
+                    throw new IllegalArgumentException("Malformed QR text: base45 value out of range");
+                }
+                out[size++] = (byte) value;
+                position += 2;
+            } else {
+                int value = c + d * 45 + base45Value(text.charAt(position + 2)) * 2025;
+                if (value > 0xFFFF) {
+                    throw new IllegalArgumentException("Malformed QR text: base45 value out of range");
+                }
+                out[size++] = (byte) (value >>> 8);
+                out[size++] = (byte) value;
+                position += 3;
+            }
+        }
+        return size;
+    }
+
+    static int base45Value(char c) {
+        int value = c < 128 ? BASE45_VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Malformed QR text: invalid base45 character");
+        }
+        return value;
+    }
+
+    static final int[] BASE45_VALUES = new int[128];
+
+    static {
+        Arrays.fill(BASE45_VALUES, -1);
+        for (int i = 0; i < BASE45_ALPHABET.length(); i++) {
+            BASE45_VALUES[BASE45_ALPHABET.charAt(i)] = i;
+        }
+    }
+
+    static int bytesForDigits(int digits) {
+        int count = numericChunkBytes(digits);
+        if (count == 0) {
+            throw new IllegalArgumentException("Malformed QR text: truncated numeric envelope");
+        }
+        return count;
+    }
+
+    // Bytes carried by a numeric chunk of the given digit count, or 0 if no chunk has that many digits
+    static int numericChunkBytes(int digits) {
+        for (int count = 1; count < DIGITS_FOR_BYTES.length; count++) {
+            if (DIGITS_FOR_BYTES[count] == digits) {
+                return count;
+            }
+        }
+        return 0;
+    }
+
+    private static int numericLength(int bytes) {
+        return bytes / NUMERIC_CHUNK_BYTES * NUMERIC_CHUNK_DIGITS + DIGITS_FOR_BYTES[bytes % NUMERIC_CHUNK_BYTES];
+    }
+
+    private static int base45Length(int bytes) {
+        return bytes / 2 * 3 + (bytes % 2) * 2;
+    }
+
+    private static int numericModeBits(int digits) {
+        int remainder = digits % 3;
+        return digits / 3 * 10 + (remainder == 1 ? 4 : remainder == 2 ? 7 : 0);
+    }
+
+    private static int alphanumericModeBits(int chars) {
+        return chars / 2 * 11 + (chars % 2) * 6;
+    }
+
+    // ---- Body primitives -----------------------------------------------------------------------
+
+    private static final class Writer {
+        private byte[] buffer = new byte[128];
+        private int size;
+
+        void writeByte(int value) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes) {
+            for (byte b : bytes) {
+                writeByte(b);
+            }
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        // 0 = null, otherwise 1 + (payload << 2 | string kind)
+        void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            Integer index = DICTIONARY_INDEX.get(value);
+            if (index != null) {
+                writeTag(index, STRING_DICTIONARY);
+                return;
+            }
+            for (int prefix = 0; prefix < PREFIX_COUNT; prefix++) {
+                if (value.startsWith(DICTIONARY[prefix]) && value.length() > DICTIONARY[prefix].length()) {
+                    String suffix = value.substring(DICTIONARY[prefix].length());
+                    UUID uuid = parseCanonicalUuid(suffix);
+                    if (uuid != null) {
+                        writeTag(prefix, STRING_PREFIXED_UUID);
+                        writeLong(uuid.getMostSignificantBits());
+                        writeLong(uuid.getLeastSignificantBits());
+                    } else {
+                        byte[] bytes = suffix.getBytes(StandardCharsets.UTF_8);
+                        writeTag(prefix, STRING_PREFIXED);
+                        writeVarint(bytes.length);
+                        writeBytes(bytes);
+                    }
+                    return;
+                }
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeTag(bytes.length, STRING_LITERAL);
+            writeBytes(bytes);
+        }
+
+        void writeStrings(List<String> values) {
+            if (values == null) {
+                writeVarint(0);
+                return;
+            }
+            writeVarint(values.size() + 1L);
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+
+        void writeDataTypes(List<ConsentRecord.DataType> dataTypes) {
+            if (dataTypes == null) {
+                writeVarint(0);
+                return;
+            }
+            long mask = 0;
+            for (ConsentRecord.DataType dataType : dataTypes) {
+                mask |= 1L << dataType.ordinal();
+            }
+            writeVarint(mask + 1);
+        }
+
+        // 0 = null, otherwise 1 + zigzag(epoch seconds, UTC)
+        void writeTime(LocalDateTime time) {
+            if (time == null) {
+                writeVarint(0);
+                return;
+            }
+            long seconds = time.toEpochSecond(ZoneOffset.UTC);
+            writeVarint(((seconds << 1) ^ (seconds >> 63)) + 1);
+        }
+
+        private void writeTag(long payload, int kind) {
+            writeVarint(((payload << 2) | kind) + 1);
+        }
+
+        private void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((int) (value >>> shift));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private final int end;
+        private int position;
+
+        Reader(byte[] data, int start, int end) {
+            this.data = data;
+            this.position = start;
+            this.end = end;
+        }
+
+        int readByte() {
+            if (position >= end) {
+                throw new IllegalArgumentException("Malformed QR payload: truncated");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed QR payload: varint too long");
+        }
+
+        String readString() {
+            long tag = readVarint();
+            if (tag == 0) {
+                return null;
+            }
+            tag--;
+            int kind = (int) (tag & 0x03);
+            long payload = tag >>> 2;
+            switch (kind) {
+                case STRING_DICTIONARY:
+                    return DICTIONARY[checkIndex(payload, DICTIONARY.length)];
+                case STRING_PREFIXED:
+                    return DICTIONARY[checkIndex(payload, PREFIX_COUNT)] + readUtf8(readVarint());
+                case STRING_PREFIXED_UUID:
+                    String prefix = DICTIONARY[checkIndex(payload, PREFIX_COUNT)];
+                    return prefix + new UUID(readLong(), readLong());
+                default:
+                    return readUtf8(payload);
+            }
+        }
+
+        List<String> readStrings() {
+            long count = readVarint();
+            if (count == 0) {
+                return null;
+            }
+            if (count < 0 || count - 1 > end - position) {
+                throw new IllegalArgumentException("Malformed QR payload: list too long");
+            }
+            List<String> values = new ArrayList<>((int) (count - 1));
+            for (long i = 1; i < count; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+
+        List<ConsentRecord.DataType> readDataTypes() {
+            long encoded = readVarint();
+            if (encoded == 0) {
+                return null;
+            }
+            long mask = encoded - 1;
+            if ((mask >>> DATA_TYPES.length) != 0) {
+                throw new IllegalArgumentException("Malformed QR payload: unknown data type");
+            }
+            List<ConsentRecord.DataType> dataTypes = new ArrayList<>(Long.bitCount(mask));
+            for (ConsentRecord.DataType dataType : DATA_TYPES) {
+                if ((mask & (1L << dataType.ordinal())) != 0) {
+                    dataTypes.add(dataType);
+                }
+            }
+            return dataTypes;
+        }
+
+        LocalDateTime readTime() {
+            long encoded = readVarint();
+            if (encoded == 0) {
+                return null;
+            }
+            long zigzag = encoded - 1;
+            long seconds = (zigzag >>> 1) ^ -(zigzag & 1);
+            try {
+                return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+            } catch (java.time.DateTimeException e) {
+                throw new IllegalArgumentException("Malformed QR payload: timestamp out of range", e);
+            }
+        }
+
+        void expectEnd() {
+            if (position != end) {
+                throw new IllegalArgumentException("Malformed QR payload: trailing bytes");
+            }
+        }
+
+        private long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        private String readUtf8(long length) {
+            // Varints decode as unsigned, so a huge length arrives negative
+            if (length < 0 || length > end - position) {
+                throw new IllegalArgumentException("Malformed QR payload: truncated string");
+            }
+            String value = new String(data, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+
+        private int checkIndex(long index, int limit) {
+            if (index < 0 || index >= limit) {
+                throw new IllegalArgumentException("Malformed QR payload: unknown dictionary entry");
+            }
+            return (int) index;
+        }
+    }
+
+    private static UUID parseCanonicalUuid(String value) {
+        if (value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            // Only the canonical lowercase form round-trips exactly
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.healthcare.util;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Mode;
+import com.google.zxing.qrcode.decoder.Version;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Chooses the QR symbol for a payload before it is encoded: the smallest version that holds the
+ * payload at the required error-correction level, the strongest level that still fits that
+ * version, and whether mixed-mode segmentation saves space over a single encoding mode.
+ */
+public final class QRSymbolOptimizer {
+
+    private static final ErrorCorrectionLevel[] LEVELS_BY_STRENGTH = {
+        ErrorCorrectionLevel.L, ErrorCorrectionLevel.M, ErrorCorrectionLevel.Q, ErrorCorrectionLevel.H
+    };
+
+    // Version ranges that share character-count indicator lengths
+    private static final int[] VERSION_CLASS_FIRST = {1, 10, 27};
+    private static final int[] VERSION_CLASS_LAST = {9, 26, 40};
+
+    private static final int MODE_INDICATOR_BITS = 4;
+    private static final int ECI_BITS = 12;
+
+    // Segment costs are in sixths of a bit so numeric (10/3) and alphanumeric (11/2) stay integral
+    private static final int NUMERIC_SIXTHS = 20;
+    private static final int ALPHANUMERIC_SIXTHS = 33;
+    private static final int BYTE_SIXTHS = 48;
+
+    private static final String ALPHANUMERIC_CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:";
+
+    public record SymbolPlan(int version, ErrorCorrectionLevel ecLevel, boolean compact, int margin) {
+
+        public int moduleCount() {
+            return 17 + 4 * version;
+        }
+    }
+
+    private QRSymbolOptimizer() {
+        // Private constructor to hide implicit public one
+    }
+
+    public static SymbolPlan plan(String content, ErrorCorrectionLevel minLevel, int margin) {
+        if (content == null || content.isEmpty()) {
+            throw new IllegalArgumentException("Found empty contents");
+        }
+        if (margin < 0) {
+            throw new IllegalArgumentException("Margin must not be negative");
+        }
+
+        // Non Latin-1 text needs the segmenting encoder, which picks a charset and writes an ECI
+        boolean latin1 = StandardCharsets.ISO_8859_1.newEncoder().canEncode(content);
+        for (int versionClass = 0; versionClass < VERSION_CLASS_FIRST.length; versionClass++) {
+            Version classVersion = Version.getVersionForNumber(VERSION_CLASS_FIRST[versionClass]);
+            int singleModeBits = latin1 ? singleModeBits(content, classVersion) : Integer.MAX_VALUE;
+            int segmentedBits = segmentedBits(content, classVersion);
+            boolean compact = segmentedBits < singleModeBits;
+            int dataBits = compact ? segmentedBits : singleModeBits;
+
+            for (int v = VERSION_CLASS_FIRST[versionClass]; v <= VERSION_CLASS_LAST[versionClass]; v++) {
+                Version version = Version.getVersionForNumber(v);
+                if (dataBits > capacityBits(version, minLevel)) {
+                    continue;
+                }
+                // Spend the padding the version would carry anyway on stronger error correction
+                ErrorCorrectionLevel ecLevel = minLevel;
+                for (int strength = LEVELS_BY_STRENGTH.length - 1; strength > strength(minLevel); strength--) {
+                    if (dataBits <= capacityBits(version, LEVELS_BY_STRENGTH[strength])) {
+                        ecLevel = LEVELS_BY_STRENGTH[strength];
+                        break;
+                    }
+                }
+                return new SymbolPlan(v, ecLevel, compact, margin);
+            }
+        }
+        throw new IllegalArgumentException("Data too big for any QR version");
+    }
+
+    static int capacityBits(Version version, ErrorCorrectionLevel ecLevel) {
+        Version.ECBlocks ecBlocks = version.getECBlocksForLevel(ecLevel);
+        return (version.getTotalCodewords() - ecBlocks.getTotalECCodewords()) * 8;
+    }
+
+    // What the encoder produces without segmentation: one numeric, alphanumeric or Latin-1 byte segment
+    static int singleModeBits(String content, Version version) {
+        int length = content.length();
+        boolean numeric = true;
+        boolean alphanumeric = true;
+        for (int i = 0; i < length && alphanumeric; i++) {
+            char c = content.charAt(i);
+            numeric &= c >= '0' && c <= '9';
+            alphanumeric &= ALPHANUMERIC_CHARS.indexOf(c) >= 0;
+        }
+        if (numeric) {
+            return MODE_INDICATOR_BITS + Mode.NUMERIC.getCharacterCountBits(version) + numericBits(length);
+        }
+        if (alphanumeric) {
+            return MODE_INDICATOR_BITS + Mode.ALPHANUMERIC.getCharacterCountBits(version) + alphanumericBits(length);
+        }
+        return MODE_INDICATOR_BITS + Mode.BYTE.getCharacterCountBits(version) + length * 8;
+    }
+
+    // Shortest numeric/alphanumeric/byte segmentation; bytes are counted as UTF-8 behind one ECI
+    static int segmentedBits(String content, Version version) {
+        int numericHeader = (MODE_INDICATOR_BITS + Mode.NUMERIC.getCharacterCountBits(version)) * 6;
+        int alphanumericHeader = (MODE_INDICATOR_BITS + Mode.ALPHANUMERIC.getCharacterCountBits(version)) * 6;
+        int byteHeader = (MODE_INDICATOR_BITS + Mode.BYTE.getCharacterCountBits(version)) * 6;
+        // A segment can end on a partial group, which costs up to one bit over the sixths estimate
+        int rounding = 6;
+        int unreachable = Integer.MAX_VALUE / 2;
+
+        // Cheapest encoding of the prefix so far that ends in each mode
+        int numeric = unreachable;
+        int alphanumeric = unreachable;
+        int bytes = unreachable;
+        boolean needsEci = false;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            int utf8Length = c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+            needsEci |= c >= 0x80;
+
+            int best = i == 0 ? 0 : Math.min(numeric, Math.min(alphanumeric, bytes));
+            numeric = c >= '0' && c <= '9'
+                ? Math.min(numeric, best + numericHeader + rounding) + NUMERIC_SIXTHS
+                : unreachable;
+            alphanumeric = ALPHANUMERIC_CHARS.indexOf(c) >= 0
+                ? Math.min(alphanumeric, best + alphanumericHeader + rounding) + ALPHANUMERIC_SIXTHS
+                : unreachable;
+            bytes = Math.min(bytes, best + byteHeader) + BYTE_SIXTHS * utf8Length;
+        }
+        int sixths = Math.min(numeric, Math.min(alphanumeric, bytes));
+        return (sixths + 5) / 6 + (needsEci ? ECI_BITS : 0);
+    }
+
+    private static int numericBits(int digits) {
+        int remainder = digits % 3;
+        return digits / 3 * 10 + (remainder == 1 ? 4 : remainder == 2 ? 7 : 0);
+    }
+
+    private static int alphanumericBits(int chars) {
+        return chars / 2 * 11 + (chars % 2) * 6;
+    }
+
+    // ErrorCorrectionLevel ordinals are in format-bit order (M, L, H, Q), not by strength
+    private static int strength(ErrorCorrectionLevel level) {
+        return switch (level) {
+            case L -> 0;
+            case M -> 1;
+            case Q -> 2;
+            case H -> 3;
+        };
+    }
+}
@@ -0,0 +1,147 @@
+package com.healthcare.util;
+
+import com.healthcare.dto.QRPayload;
+
+/**
+ * First stage of the scan path. One pass over the scanned characters classifies them as a
+ * payload codec envelope (numeric or base45, with a supported version header), legacy base64,
+ * or neither, without allocating. Envelopes are then decoded through a per-thread buffer.
+ */
+public final class ScanIngressValidator {
+
+    public enum Kind {
+        INVALID, ENVELOPE, LEGACY_BASE64, ENVELOPE_OR_BASE64;
+
+        public boolean isEnvelope() {
+            return this == ENVELOPE || this == ENVELOPE_OR_BASE64;
+        }
+
+        public boolean isLegacyBase64() {
+            return this == LEGACY_BASE64 || this == ENVELOPE_OR_BASE64;
+        }
+    }
+
+    // Largest QR symbol (version 40-L) holds 7089 numeric characters
+    public static final int MAX_SCAN_LENGTH = 7089;
+
+    private static final int DIGIT = 1;
+    private static final int BASE45 = 2;
+    private static final int BASE64 = 4;
+    private static final byte[] CHAR_CLASS = new byte[128];
+
+    static {
+        for (int c = 0; c < 128; c++) {
+            int charClass = 0;
+            if (c >= '0' && c <= '9') {
+                charClass |= DIGIT;
+            }
+            if (QRPayloadCodec.BASE45_VALUES[c] >= 0) {
+                charClass |= BASE45;
+            }
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '+' || c == '/') {
+                charClass |= BASE64;
+            }
+            CHAR_CLASS[c] = (byte) charClass;
+        }
+    }
+
+    private static final ThreadLocal<byte[]> DECODE_BUFFER = ThreadLocal.withInitial(
+        () -> new byte[QRPayloadCodec.maxDecodedLength(MAX_SCAN_LENGTH)]);
+
+    private ScanIngressValidator() {
+        // Private constructor to hide implicit public one
+    }
+
+    public static Kind classify(CharSequence data) {
+        if (data == null) {
+            return Kind.INVALID;
+        }
+        int length = data.length();
+        if (length == 0 || length > MAX_SCAN_LENGTH) {
+            return Kind.INVALID;
+        }
+
+        char marker = data.charAt(0);
+        boolean numeric = marker == QRPayloadCodec.NUMERIC_MARKER && length > 1;
+        boolean base45 = marker == QRPayloadCodec.BASE45_MARKER && length > 1;
+        boolean base64 = true;
+        int padding = 0;
+        // Enough of the body to recover the header byte: the first numeric chunk or base45 group
+        long numericHead = 0;
+        int base45Head = 0;
+        int base45Weight = 1;
+
+        for (int i = 0; i < length; i++) {
+            char c = data.charAt(i);
+            if (c >= 128) {
+                return Kind.INVALID;
+            }
+            if (c == '=') {
+                numeric = false;
+                base45 = false;
+                padding++;
+                base64 &= padding <= 2;
+            } else {
+                int charClass = CHAR_CLASS[c];
+                base64 &= padding == 0 && (charClass & BASE64) != 0;
+                if (i > 0) {
+                    numeric &= (charClass & DIGIT) != 0;
+                    base45 &= (charClass & BASE45) != 0;
+                    if (numeric && i <= QRPayloadCodec.NUMERIC_CHUNK_DIGITS) {
+                        numericHead = numericHead * 10 + (c - '0');
+                    }
+                    if (base45 && i <= 3) {
+                        base45Head += QRPayloadCodec.BASE45_VALUES[c] * base45Weight;
+                        base45Weight *= 45;
+                    }
+                }
+            }
+            if (!numeric && !base45 && !base64) {
+                return Kind.INVALID;
+            }
+        }
+
+        // Padded base64 comes in whole quads; unpadded can never leave a single dangling character
+        base64 &= padding > 0 ? length % 4 == 0 : length % 4 != 1;
+        boolean envelope = (numeric && isNumericEnvelope(length - 1, numericHead))
+            || (base45 && isBase45Envelope(length - 1, base45Head));
+
+        if (envelope) {
+            return base64 ? Kind.ENVELOPE_OR_BASE64 : Kind.ENVELOPE;
+        }
+        return base64 ? Kind.LEGACY_BASE64 : Kind.INVALID;
+    }
+
+    // Decodes a classified envelope into this thread's buffer; only the payload itself is allocated
+    public static QRPayload decodeEnvelope(CharSequence data) {
+        byte[] buffer = DECODE_BUFFER.get();
+        int length = QRPayloadCodec.decodeQRText(data, buffer);
+        return QRPayloadCodec.decodePayload(buffer, 0, length);
+    }
+
+    private static boolean isNumericEnvelope(int digits, long head) {
+        int lastChunk = digits % QRPayloadCodec.NUMERIC_CHUNK_DIGITS;
+        if (lastChunk != 0 && QRPayloadCodec.numericChunkBytes(lastChunk) == 0) {
+            return false;
+        }
+        int headBytes = QRPayloadCodec.numericChunkBytes(Math.min(digits, QRPayloadCodec.NUMERIC_CHUNK_DIGITS));
+        if ((head >>> (headBytes * 8)) != 0) {
+            return false;
+        }
+        return isSupportedHeader((int) (head >>> ((headBytes - 1) * 8)));
+    }
+
+    private static boolean isBase45Envelope(int chars, int head) {
+        if (chars % 3 == 1) {
+            return false;
+        }
+        if (chars == 2) {
+            return head <= 0xFF && isSupportedHeader(head);
+        }
+        return head <= 0xFFFF && isSupportedHeader(head >>> 8);
+    }
+
+    private static boolean isSupportedHeader(int header) {
+        return (header >>> 4) == QRPayloadCodec.VERSION;
+    }
+}
@@ -0,0 +1,192 @@
+package com.healthcare.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts failures per key over a sliding window and locks a key out once it reaches the limit. The
+ * window is approximated from two fixed buckets, the current one and the one before it weighted by how
+ * much of it still overlaps the window, so each key costs a few fields and every call is O(1).
+ * Keys are spread over striped, access-ordered tables with a fixed total capacity: keys idle for a
+ * whole window are dropped as calls pass them, and a full stripe evicts its least recently used key,
+ * passing over locked ones where it can. Time is in caller-supplied milliseconds.
+ */
+public final class SlidingWindowLimiter {
+
+    private static final int STRIPES = 64;
+    // Idle keys dropped per call, and locked keys passed over before a full stripe evicts one anyway
+    private static final int EVICTION_SCAN = 8;
+
+    private static final class Window {
+        private long start;
+        private int current;
+        private int previous;
+        private long lockedUntil;
+        private long lastSeen;
+    }
+
+    // Also the lock for its own table
+    private static final class Stripe {
+        private final Map<String, Window> windows = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    // The failures now in the window, and whether this failure is the one that started the lockout
+    public record Failure(int count, boolean lockedOut) {
+    }
+
+    private final int limit;
+    private final long windowMillis;
+    private final long lockoutMillis;
+    private final int stripeCapacity;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong lockouts = new AtomicLong();
+    private final AtomicLong idleEvicted = new AtomicLong();
+    private final AtomicLong fullEvicted = new AtomicLong();
+    private final AtomicLong lockedEvicted = new AtomicLong();
+
+    public SlidingWindowLimiter(int limit, long windowMillis, long lockoutMillis, int maxKeys) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        if (windowMillis <= 0 || lockoutMillis <= 0) {
+            throw new IllegalArgumentException("Window and lockout must be positive");
+        }
+        if (maxKeys < STRIPES) {
+            throw new IllegalArgumentException("Capacity must be at least " + STRIPES + " keys");
+        }
+        this.limit = limit;
+        this.windowMillis = windowMillis;
+        this.lockoutMillis = lockoutMillis;
+        this.stripeCapacity = maxKeys / STRIPES;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public boolean isLocked(String key, long nowMillis) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            evictIdle(stripe, nowMillis);
+            Window window = stripe.windows.get(key);
+            return window != null && window.lockedUntil > nowMillis;
+        }
+    }
+
+    // Counts one failure; the key is locked out when the failures in the window reach the limit
+    public Failure recordFailure(String key, long nowMillis) {
+        failures.incrementAndGet();
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            evictIdle(stripe, nowMillis);
+            Window window = stripe.windows.get(key);
+            if (window == null) {
+                if (stripe.windows.size() >= stripeCapacity) {
+                    evictOne(stripe, nowMillis);
+                }
+                window = new Window();
+                window.start = nowMillis;
+                stripe.windows.put(key, window);
+            }
+            slide(window, nowMillis);
+            window.current++;
+            window.lastSeen = nowMillis;
+            int count = count(window, nowMillis);
+            boolean lockedOut = count >= limit && window.lockedUntil <= nowMillis;
+            if (lockedOut) {
+                window.lockedUntil = nowMillis + lockoutMillis;
+                lockouts.incrementAndGet();
+            }
+            return new Failure(count, lockedOut);
+        }
+    }
+
+    public void reset(String key) {
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            stripe.windows.remove(key);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.windows.size();
+            }
+        }
+        return size;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("limit", limit);
+        stats.put("windowMillis", windowMillis);
+        stats.put("lockoutMillis", lockoutMillis);
+        stats.put("keys", size());
+        stats.put("maxKeys", stripeCapacity * STRIPES);
+        stats.put("failures", failures.get());
+        stats.put("lockouts", lockouts.get());
+        stats.put("idleEvicted", idleEvicted.get());
+        stats.put("fullEvicted", fullEvicted.get());
+        stats.put("lockedEvicted", lockedEvicted.get());
+        return stats;
+    }
+
+    private Stripe stripe(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    // Moves the buckets on to the one holding now; a gap of a whole window or more empties both
+    private void slide(Window window, long nowMillis) {
+        long elapsed = nowMillis - window.start;
+        if (elapsed < windowMillis) {
+            return;
+        }
+        window.previous = elapsed < 2 * windowMillis ? window.current : 0;
+        window.current = 0;
+        window.start = nowMillis - elapsed % windowMillis;
+    }
+
+    // The current bucket plus the part of the previous one still inside the window, rounded up
+    private int count(Window window, long nowMillis) {
+        long overlap = windowMillis - (nowMillis - window.start);
+        return window.current + (int) ((window.previous * overlap + windowMillis - 1) / windowMillis);
+    }
+
+    private boolean idle(Window window, long nowMillis) {
+        return window.lockedUntil <= nowMillis && nowMillis - window.lastSeen >= windowMillis;
+    }
+
+    // Least recently used keys sit at the head, so idle ones are found without a sweep
+    private void evictIdle(Stripe stripe, long nowMillis) {
+        Iterator<Window> windows = stripe.windows.values().iterator();
+        for (int i = 0; i < EVICTION_SCAN && windows.hasNext(); i++) {
+            if (!idle(windows.next(), nowMillis)) {
+                return;
+            }
+            windows.remove();
+            idleEvicted.incrementAndGet();
+        }
+    }
+
+    // Under a flood of new keys, an active lockout is the last thing to give up
+    private void evictOne(Stripe stripe, long nowMillis) {
+        Iterator<Window> windows = stripe.windows.values().iterator();
+        for (int i = 0; i < EVICTION_SCAN && windows.hasNext(); i++) {
+            if (windows.next().lockedUntil <= nowMillis) {
+                windows.remove();
+                fullEvicted.incrementAndGet();
+                return;
+            }
+        }
+        windows = stripe.windows.values().iterator();
+        windows.next();
+        windows.remove();
+        lockedEvicted.incrementAndGet();
+    }
+}
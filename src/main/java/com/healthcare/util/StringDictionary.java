@@ -0,0 +1,83 @@
+package com.healthcare.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives each distinct string a small int code for the life of the process and keeps its UTF-8 bytes,
+ * so encoders copy them instead of encoding the string again. Looking up a known string is one
+ * concurrent map read and allocates nothing; a new string is added under a lock. The dictionary never
+ * holds more than its capacity, so strings an attacker controls cannot grow it without bound: once it
+ * is full, code returns NONE and the caller keeps the text itself.
+ */
+public final class StringDictionary {
+
+    public static final int NONE = -1;
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private final int capacity;
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    // Filled a chunk at a time, so a large capacity costs nothing until it is used
+    private final String[][] texts;
+    private final byte[][][] encoded;
+    private volatile int size;
+
+    public StringDictionary(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+        }
+        this.capacity = capacity;
+        int chunks = (capacity + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        texts = new String[chunks][];
+        encoded = new byte[chunks][][];
+    }
+
+    // NONE for null, or for a new string once the dictionary is full
+    public int code(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    public String text(int code) {
+        return texts[code >>> CHUNK_BITS][code & (CHUNK_SIZE - 1)];
+    }
+
+    public byte[] utf8(int code) {
+        return encoded[code >>> CHUNK_BITS][code & (CHUNK_SIZE - 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private synchronized int add(String value) {
+        Integer existing = codes.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        int code = size;
+        if (code == capacity) {
+            return NONE;
+        }
+        int chunk = code >>> CHUNK_BITS;
+        if (texts[chunk] == null) {
+            texts[chunk] = new String[CHUNK_SIZE];
+            encoded[chunk] = new byte[CHUNK_SIZE][];
+        }
+        texts[chunk][code & (CHUNK_SIZE - 1)] = value;
+        encoded[chunk][code & (CHUNK_SIZE - 1)] = value.getBytes(StandardCharsets.UTF_8);
+        // The map entry publishes the slots above to readers that find the code through it
+        codes.put(value, code);
+        size = code + 1;
+        return code;
+    }
+}
@@ -46,9 +46,16 @@ CREATE TABLE patients (
     fhir_id VARCHAR(255) UNIQUE NOT NULL,
     first_name VARCHAR(255) NOT NULL,
     last_name VARCHAR(255) NOT NULL,
-    email VARCHAR(255) UNIQUE NOT NULL,
+    email TEXT NOT NULL,
     date_of_birth TEXT,
     ssn TEXT,
+    -- Keyed HMAC blind indexes over the encrypted columns above
+    email_bidx VARCHAR(32),
+    email_prefix_bidx VARCHAR(32),
+    ssn_bidx VARCHAR(32),
+    ssn_last4_bidx VARCHAR(32),
+    date_of_birth_bidx VARCHAR(32),
+    blind_index_version INTEGER,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
@@ -181,6 +188,7 @@ CREATE TABLE qr_share_sessions (
     accessed_by VARCHAR(255),
     status VARCHAR(50) NOT NULL DEFAULT 'ACTIVE',
     qr_code_data TEXT,
+    patient_snapshot BYTEA,
     FOREIGN KEY (patient_id) REFERENCES patients(id) ON DELETE CASCADE
 );
 
@@ -191,9 +199,27 @@ CREATE TABLE qr_share_session_shared_data_types (
     FOREIGN KEY (qr_share_session_id) REFERENCES qr_share_sessions(id) ON DELETE CASCADE
 );
 
+-- Audit Events (written in batches by the audit pipeline)
+CREATE TABLE audit_events (
+    id BIGSERIAL PRIMARY KEY,
+    occurred_at TIMESTAMP NOT NULL,
+    user_id VARCHAR(255),
+    resource VARCHAR(255) NOT NULL,
+    action VARCHAR(255) NOT NULL,
+    ip_address VARCHAR(255),
+    status VARCHAR(2048),
+    patient_id VARCHAR(255)
+);
+
 -- Indexes for performance
-CREATE INDEX idx_patients_email ON patients(email);
+CREATE UNIQUE INDEX idx_patients_email_bidx ON patients(email_bidx);
+CREATE INDEX idx_patients_email_prefix_bidx ON patients(email_prefix_bidx);
+CREATE INDEX idx_patients_ssn_bidx ON patients(ssn_bidx);
+CREATE INDEX idx_patients_ssn_last4_bidx ON patients(ssn_last4_bidx);
+CREATE INDEX idx_patients_date_of_birth_bidx ON patients(date_of_birth_bidx);
+CREATE INDEX idx_patients_blind_index_version ON patients(blind_index_version);
 CREATE INDEX idx_patients_fhir_id ON patients(fhir_id);
+CREATE INDEX idx_audit_events_occurred_at ON audit_events(occurred_at);
 CREATE INDEX idx_providers_npi ON providers(npi);
 CREATE INDEX idx_providers_email ON providers(email);
 CREATE INDEX idx_provider_relationships_provider ON provider_patient_relationships(provider_id);
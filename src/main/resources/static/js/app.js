@@ -12,9 +12,12 @@ if (document.getElementById('qrForm')) {
         }
         
         const request = {
+            patientId: formData.get('patientId'),
             dataTypes: dataTypes,
             expirationMinutes: parseInt(formData.get('expirationMinutes')),
-            purpose: formData.get('purpose')
+            purpose: formData.get('purpose'),
+            // Packed modules are a fraction of the PNG size; drawn locally by renderQRModules
+            format: 'modules'
         };
         
         try {
@@ -47,7 +50,13 @@ function displayQRCode(result) {
     const expirationTime = document.getElementById('expirationTime');
     const generateBtn = document.querySelector('button[type="submit"]');
     
-    qrImage.src = 'data:image/png;base64,' + result.qrCodeImage;
+    if (result.qrModules) {
+        qrImage.src = renderQRModules(result.qrModules, result.margin, 200);
+    } else if (result.qrCodeSvg) {
+        qrImage.src = 'data:image/svg+xml;charset=utf-8,' + encodeURIComponent(result.qrCodeSvg);
+    } else {
+        qrImage.src = 'data:image/png;base64,' + result.qrCodeImage;
+    }
     expirationTime.textContent = result.expiresAt || new Date(Date.now() + 15*60*1000).toLocaleString();
     
     qrResult.style.display = 'block';
@@ -58,6 +67,31 @@ function displayQRCode(result) {
     document.getElementById('cancelSession').onclick = () => cancelSession(result.sessionId);
 }
 
+// Draws the packed module bitmap from /api/qr/generate?format=modules onto a canvas:
+// byte 0 is the symbol size, then one bit per module, row-major, MSB first, dark = 1.
+// quietZone is the response's margin, in modules
+function renderQRModules(base64Modules, quietZone, pixelSize) {
+    const bytes = Uint8Array.from(atob(base64Modules), c => c.charCodeAt(0));
+    const size = bytes[0];
+    const scale = Math.max(1, Math.floor(pixelSize / (size + 2 * quietZone)));
+    const canvas = document.createElement('canvas');
+    canvas.width = canvas.height = (size + 2 * quietZone) * scale;
+    
+    const ctx = canvas.getContext('2d');
+    ctx.fillStyle = '#fff';
+    ctx.fillRect(0, 0, canvas.width, canvas.height);
+    ctx.fillStyle = '#000';
+    for (let y = 0; y < size; y++) {
+        for (let x = 0; x < size; x++) {
+            const bit = y * size + x;
+            if (bytes[1 + (bit >> 3)] & (0x80 >> (bit & 7))) {
+                ctx.fillRect((x + quietZone) * scale, (y + quietZone) * scale, scale, scale);
+            }
+        }
+    }
+    return canvas.toDataURL('image/png');
+}
+
 async function cancelSession(sessionId) {
     try {
         await fetch(`/api/qr/session/${sessionId}`, {
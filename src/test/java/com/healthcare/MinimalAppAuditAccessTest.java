@@ -0,0 +1,82 @@
+package com.healthcare;
+
+import com.healthcare.model.User;
+import com.healthcare.service.AuditSealer;
+import com.healthcare.service.AuditService;
+import com.healthcare.service.AuthService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MinimalAppAuditAccessTest {
+
+    private AuditService auditService;
+    private AuditSealer auditSealer;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AuthService authService = mock(AuthService.class);
+        when(authService.getUserBySession(any())).thenReturn(Optional.empty());
+        when(authService.getUserBySession("provider-session")).thenReturn(Optional.of(
+            new User("provider@hospital.com", null, "Sarah", "Johnson", User.UserRole.PROVIDER)));
+        when(authService.getUserBySession("compliance-session")).thenReturn(Optional.of(
+            new User("compliance@hospital.com", null, "Compliance", "Officer", User.UserRole.COMPLIANCE)));
+
+        auditService = mock(AuditService.class);
+        auditSealer = mock(AuditSealer.class);
+        when(auditSealer.verify(0, 9)).thenReturn(Map.of("verified", 10));
+
+        MinimalApp app = new MinimalApp();
+        ReflectionTestUtils.setField(app, "authService", authService);
+        ReflectionTestUtils.setField(app, "auditService", auditService);
+        ReflectionTestUtils.setField(app, "auditSealer", auditSealer);
+        mockMvc = MockMvcBuilders.standaloneSetup(app).build();
+    }
+
+    @Test
+    void anonymousCallersGetNothingFromTheAuditTrail() throws Exception {
+        mockMvc.perform(get("/api/audit/events").param("userId", "john.doe@example.com")
+                .param("from", "2026-01-01").param("to", "2026-01-02"))
+            .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/audit/verify").param("fromSequence", "0").param("toSequence", "9"))
+            .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/audit/archive/events").param("userId", "john.doe@example.com")
+                .param("from", "2026-01-01").param("to", "2026-01-02"))
+            .andExpect(status().isUnauthorized());
+        verifyNoInteractions(auditSealer, auditService);
+    }
+
+    @Test
+    void providersAreNotComplianceStaff() throws Exception {
+        mockMvc.perform(get("/api/audit/verify").param("fromSequence", "0").param("toSequence", "9")
+                .header("Authorization", "Bearer provider-session"))
+            .andExpect(status().isForbidden());
+        verifyNoInteractions(auditSealer);
+    }
+
+    @Test
+    void complianceLookupIsAuditedUnderTheirName() throws Exception {
+        mockMvc.perform(get("/api/audit/verify").param("fromSequence", "0").param("toSequence", "9")
+                .header("Authorization", "Bearer compliance-session"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.verified").value(10));
+        verify(auditService).logAccess(eq("compliance@hospital.com"), eq("AUDIT_LOG"), eq("VERIFY"), anyString());
+    }
+}
@@ -0,0 +1,89 @@
+package com.healthcare;
+
+import com.healthcare.service.QRShareService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MinimalAppBatchValidationTest {
+
+    private QRShareService qrShareService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        qrShareService = mock(QRShareService.class);
+        MinimalApp app = new MinimalApp();
+        ReflectionTestUtils.setField(app, "qrShareService", qrShareService);
+        mockMvc = MockMvcBuilders.standaloneSetup(app).build();
+    }
+
+    @Test
+    void emptyBatchIsRejectedWithAnNdjsonLine() throws Exception {
+        mockMvc.perform(post("/api/qr/generate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .content("{\"items\":[]}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+            .andExpect(content().string(containsString("\"success\":false")))
+            .andExpect(content().string(containsString("items: Batch items cannot be empty")))
+            .andExpect(content().string(endsWith("}\n")));
+    }
+
+    @Test
+    void invalidItemIsRejectedBeforeAnythingIsRendered() throws Exception {
+        mockMvc.perform(post("/api/qr/generate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .content("{\"items\":[{\"dataTypes\":[\"ALLERGIES\"],\"expirationMinutes\":600,\"format\":\"gif\"}]}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(content().string(containsString("items[0].expirationMinutes: Maximum expiration is 60 minutes")))
+            .andExpect(content().string(containsString("items[0].format: Format must be png, svg or modules")));
+        verifyNoInteractions(qrShareService);
+    }
+
+    @Test
+    void validBatchStreamsItsLines() throws Exception {
+        doAnswer(call -> {
+            Consumer<Map<String, Object>> lines = call.getArgument(3);
+            lines.accept(Map.of("success", true, "sessionId", "session-1"));
+            lines.accept(Map.of("complete", true, "succeeded", 1));
+            ((Runnable) call.getArgument(4)).run();
+            return null;
+        }).when(qrShareService).createShareBatch(anyString(), any(), anyList(), any(), any());
+
+        MvcResult started = mockMvc.perform(post("/api/qr/generate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .content("{\"items\":[{\"patientId\":\"patient-001\",\"dataTypes\":[\"ALLERGIES\"]}]}"))
+            .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+            .andExpect(content().string(containsString("\"sessionId\":\"session-1\"")))
+            .andExpect(content().string(endsWith("}\n")));
+        verify(qrShareService).createShareBatch(anyString(), any(), anyList(), any(), any());
+    }
+}
@@ -0,0 +1,83 @@
+package com.healthcare;
+
+import com.healthcare.model.User;
+import com.healthcare.service.AuditService;
+import com.healthcare.service.AuthService;
+import com.healthcare.service.ClinicalDocumentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MinimalAppDocumentAccessTest {
+
+    private AuditService auditService;
+    private ClinicalDocumentService clinicalDocumentService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        User patient = new User("john.doe@example.com", null, "John", "Doe", User.UserRole.PATIENT);
+        patient.setPatientId("patient-001");
+        User provider = new User("provider@hospital.com", null, "Sarah", "Johnson", User.UserRole.PROVIDER);
+        AuthService authService = mock(AuthService.class);
+        when(authService.getUserBySession(any())).thenReturn(Optional.empty());
+        when(authService.getUserBySession("patient-session")).thenReturn(Optional.of(patient));
+        when(authService.getUserBySession("provider-session")).thenReturn(Optional.of(provider));
+
+        auditService = mock(AuditService.class);
+        clinicalDocumentService = mock(ClinicalDocumentService.class);
+        when(clinicalDocumentService.list(anyString())).thenReturn(List.of());
+
+        MinimalApp app = new MinimalApp();
+        ReflectionTestUtils.setField(app, "authService", authService);
+        ReflectionTestUtils.setField(app, "auditService", auditService);
+        ReflectionTestUtils.setField(app, "clinicalDocumentService", clinicalDocumentService);
+        mockMvc = MockMvcBuilders.standaloneSetup(app).build();
+    }
+
+    @Test
+    void documentsNeedAValidSession() throws Exception {
+        mockMvc.perform(get("/api/patients/patient-001/documents"))
+            .andExpect(status().isUnauthorized())
+            .andExpect(jsonPath("$.success").value(false));
+        mockMvc.perform(get("/api/patients/patient-001/documents").header("Authorization", "Bearer expired"))
+            .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/patients/patient-001/documents/00000000-0000-0000-0000-000000000000"))
+            .andExpect(status().isUnauthorized());
+        verifyNoInteractions(clinicalDocumentService, auditService);
+    }
+
+    @Test
+    void patientsOnlyReachTheirOwnDocuments() throws Exception {
+        mockMvc.perform(get("/api/patients/patient-002/documents").header("Authorization", "Bearer patient-session"))
+            .andExpect(status().isForbidden());
+        verifyNoInteractions(clinicalDocumentService);
+
+        mockMvc.perform(get("/api/patients/patient-001/documents").header("Authorization", "Bearer patient-session"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.success").value(true));
+        verify(auditService).logDataAccess("john.doe@example.com", "patient-001", "DOCUMENTS", "Document list");
+    }
+
+    @Test
+    void providerListingIsAuditedAgainstThePatient() throws Exception {
+        mockMvc.perform(get("/api/patients/patient-002/documents").header("Authorization", "Bearer provider-session"))
+            .andExpect(status().isOk());
+        verify(auditService).logDataAccess("provider@hospital.com", "patient-002", "DOCUMENTS", "Document list");
+    }
+}
@@ -0,0 +1,63 @@
+package com.healthcare.repository;
+
+import com.healthcare.model.Patient;
+import com.healthcare.util.BlindIndexService;
+import com.healthcare.util.EncryptedString;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class PatientSearchRepositoryImplTest {
+
+    private EntityManager entityManager;
+    private PatientSearchRepositoryImpl repository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        BlindIndexService blindIndexService = new BlindIndexService();
+        ReflectionTestUtils.setField(blindIndexService, "encryptionKeyBase64", "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA=");
+        ReflectionTestUtils.setField(blindIndexService, "indexKeyBase64", "");
+        ReflectionTestUtils.setField(blindIndexService, "version", 1);
+        ReflectionTestUtils.setField(blindIndexService, "emailPrefixLength", 3);
+
+        Patient john = Patient.builder().id("patient-001").email(EncryptedString.of("John.Doe@Example.com")).build();
+        Patient jane = Patient.builder().id("patient-002").email(EncryptedString.of("jane@example.com")).build();
+        TypedQuery<Patient> query = mock(TypedQuery.class);
+        when(query.setParameter(eq("indexes"), any())).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of(jane, john));
+        entityManager = mock(EntityManager.class);
+        when(entityManager.createQuery(anyString(), eq(Patient.class))).thenReturn(query);
+
+        repository = new PatientSearchRepositoryImpl();
+        ReflectionTestUtils.setField(repository, "entityManager", entityManager);
+        ReflectionTestUtils.setField(repository, "blindIndexService", blindIndexService);
+    }
+
+    @Test
+    void blankEmailFindsNobodyWithoutQuerying() {
+        assertTrue(repository.findByEmail(null).isEmpty());
+        assertTrue(repository.findByEmail("").isEmpty());
+        assertTrue(repository.findByEmail("   ").isEmpty());
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void emailMatchIsConfirmedAgainstTheNormalizedPlaintext() {
+        assertEquals("patient-001", repository.findByEmail("  john.doe@EXAMPLE.com ").orElseThrow().getId());
+        assertTrue(repository.findByEmail("john@example.com").isEmpty());
+    }
+}
@@ -0,0 +1,53 @@
+package com.healthcare.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AuditEventCodecTest {
+
+    private final TimeZone original = TimeZone.getDefault();
+
+    @AfterEach
+    void restoreZone() {
+        TimeZone.setDefault(original);
+    }
+
+    @Test
+    void eventsRoundTripInUtc() {
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        LocalDateTime utc = LocalDateTime.of(2024, 3, 10, 6, 30, 15, 123_456_000);
+        AuditService.AuditEvent event = new AuditService.AuditEvent("user@example.com", "PHI_ACCESS", "VIEW_LABS",
+            "10.0.0.1", utc, "Patient: P-1, Purpose: treatment", "P-1");
+
+        AuditService.AuditEvent decoded = AuditEventCodec.decode(encode(event));
+
+        assertEquals(utc, decoded.timestamp());
+        assertEquals(utc.toInstant(ZoneOffset.UTC), decoded.occurredAt());
+        assertEquals(event.userId(), decoded.userId());
+        assertEquals(event.status(), decoded.status());
+        assertEquals("P-1", decoded.patientId());
+    }
+
+    @Test
+    void recordsWithoutTheFormatByteAreRejected() {
+        ByteBuffer unknown = ByteBuffer.allocate(64);
+        unknown.putLong(1_705_327_200L).putInt(0).flip();
+
+        assertThrows(IllegalStateException.class, () -> AuditEventCodec.decode(unknown));
+    }
+
+    private static ByteBuffer encode(AuditService.AuditEvent event) {
+        ByteBuffer buffer = ByteBuffer.allocate(512);
+        AuditEventCodec.encode(event, buffer);
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,134 @@
+package com.healthcare.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditIndexTest {
+
+    private static final int DAYS = 10;
+    private static final int EVENTS_PER_DAY = 300;
+    private static final int USERS = 20;
+    private static final int PATIENTS = 30;
+    private static final String[] RESOURCES = {"LOGIN", "PHI_ACCESS", "QR_GENERATION"};
+    private static final LocalDateTime START = LocalDateTime.of(2026, 3, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    private AuditJournal journal;
+    private AuditIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        journal = new AuditJournal();
+        ReflectionTestUtils.setField(journal, "journalPath", directory.resolve("journal").toString());
+        ReflectionTestUtils.setField(journal, "segmentSize", 64 * 1024);
+        ReflectionTestUtils.setField(journal, "durabilityWindowMillis", 10L);
+        ReflectionTestUtils.setField(journal, "archivePath", directory.resolve("archive").toString());
+        ReflectionTestUtils.setField(journal, "archiveBlockRecords", 64);
+        journal.open();
+        Random random = new Random(7);
+        long stepMicros = 86_400_000_000L / EVENTS_PER_DAY;
+        long startMicros = AuditService.AuditEvent.toMicros(START);
+        for (int i = 0; i < DAYS * EVENTS_PER_DAY; i++) {
+            String resource = RESOURCES[random.nextInt(RESOURCES.length)];
+            boolean phi = resource.equals("PHI_ACCESS");
+            journal.append(new AuditService.AuditEvent(startMicros + i * stepMicros, "user-" + random.nextInt(USERS),
+                resource, phi ? "VIEW_LABS" : "SUCCESS", "10.0.0." + random.nextInt(200),
+                phi ? AuditService.AuditEvent.DATA_ACCESS : AuditService.AuditEvent.SUCCESS, phi ? "treatment" : null,
+                phi ? "patient-" + random.nextInt(PATIENTS) : null, true));
+        }
+        index = startIndex();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.stop();
+        journal.close();
+    }
+
+    @Test
+    void pagedSearchesMatchAFullScan() throws Exception {
+        ReflectionTestUtils.invokeMethod(index, "flush");
+        checkSearches();
+    }
+
+    @Test
+    void persistedBucketsAnswerTheSameAfterARestart() throws Exception {
+        index.stop();
+        index = startIndex();
+        checkSearches();
+    }
+
+    private void checkSearches() throws Exception {
+        List<AuditService.AuditEvent> all = new ArrayList<>();
+        journal.read(0, Integer.MAX_VALUE, all::add);
+        Random random = new Random(11);
+        int matched = 0;
+        for (int i = 0; i < 30; i++) {
+            AuditIndex.Dimension dimension = AuditIndex.Dimension.values()[i % 3];
+            String key;
+            Function<AuditService.AuditEvent, String> field;
+            if (dimension == AuditIndex.Dimension.USER) {
+                key = "user-" + random.nextInt(USERS);
+                field = AuditService.AuditEvent::userId;
+            } else if (dimension == AuditIndex.Dimension.PATIENT) {
+                key = "patient-" + random.nextInt(PATIENTS);
+                field = AuditService.AuditEvent::patientId;
+            } else {
+                key = RESOURCES[random.nextInt(RESOURCES.length)];
+                field = AuditService.AuditEvent::resource;
+            }
+            // Windows start and end inside buckets, and some span several
+            LocalDateTime from = START.plusDays(random.nextInt(DAYS - 2)).plusMinutes(random.nextInt(1440));
+            LocalDateTime to = from.plusHours(1 + random.nextInt(72));
+
+            List<String> expected = new ArrayList<>();
+            for (AuditService.AuditEvent event : all) {
+                if (key.equals(field.apply(event)) && !event.timestamp().isBefore(from) && !event.timestamp().isAfter(to)) {
+                    expected.add(describe(event));
+                }
+            }
+            List<String> found = new ArrayList<>();
+            String cursor = null;
+            do {
+                AuditIndex.Page page = index.search(dimension, key, from, to, cursor, 7);
+                assertTrue(page.events().size() <= 7);
+                for (AuditService.AuditEvent event : page.events()) {
+                    found.add(describe(event));
+                }
+                cursor = page.nextCursor();
+            } while (cursor != null);
+            assertEquals(expected, found, dimension + " " + key + " " + from + " - " + to);
+            matched += found.size();
+        }
+        assertTrue(matched > 0);
+    }
+
+    private AuditIndex startIndex() throws Exception {
+        AuditIndex started = new AuditIndex();
+        ReflectionTestUtils.setField(started, "journal", journal);
+        ReflectionTestUtils.setField(started, "indexPath", directory.resolve("index").toString());
+        ReflectionTestUtils.setField(started, "bucketSize", AuditIndex.BucketSize.DAY);
+        ReflectionTestUtils.setField(started, "flushSeconds", 3600L);
+        started.start();
+        return started;
+    }
+
+    private static String describe(AuditService.AuditEvent event) {
+        return event.occurredMicros() + "|" + event.userId() + "|" + event.resource() + "|" + event.patientId();
+    }
+}
@@ -0,0 +1,194 @@
+package com.healthcare.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditJournalTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+    private static final long START_MICROS = 1_760_000_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    private AuditJournal journal;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        journal = open();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        journal.close();
+    }
+
+    @Test
+    void scansStayContiguousWhileSegmentsAreArchived() throws Exception {
+        int records = append(20_000);
+        assertTrue(journal.getStats().get("segments") instanceof Integer segments && segments > 10);
+
+        AtomicBoolean archiving = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread compactor = new Thread(() -> {
+            try {
+                while (journal.archiveOldest(Long.MAX_VALUE)) {
+                    Thread.yield();
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            } finally {
+                archiving.set(false);
+            }
+        }, "test-compactor");
+        compactor.start();
+
+        long from = 0;
+        int scans = 0;
+        while (archiving.get() || scans < 100) {
+            List<Long> sequences = new ArrayList<>();
+            long start = from;
+            journal.scanPayloads(start, -1, 500, (sequence, offset, payload) -> sequences.add(sequence));
+            assertEquals(500, sequences.size(), "records from " + start);
+            for (int i = 0; i < sequences.size(); i++) {
+                assertEquals(start + i, sequences.get(i));
+            }
+            from = (from + 397) % (records - 500);
+            scans++;
+        }
+        compactor.join();
+        assertNull(failure.get());
+    }
+
+    @Test
+    void scansFromBeforeRetentionStartAtTheOldestHeldRecord() throws Exception {
+        int records = append(5_000);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(journal.archiveOldest(Long.MAX_VALUE));
+        }
+        journal.deleteRetiredSegments();
+        journal.archive().deleteBefore(START_MICROS + 1_000 * 1_000_000L);
+        long held = journal.archive().firstSequence();
+        assertTrue(held > 0);
+
+        List<Long> sequences = new ArrayList<>();
+        journal.scanPayloads(0, -1, Integer.MAX_VALUE, (sequence, offset, payload) -> sequences.add(sequence));
+        assertEquals(records - held, sequences.size());
+        for (int i = 0; i < sequences.size(); i++) {
+            assertEquals(held + i, sequences.get(i));
+        }
+    }
+
+    @Test
+    void tornTailRecordIsClearedOnRecovery() throws Exception {
+        int records = append(100);
+        long[] last = new long[1];
+        journal.scan(records - 1, 1, (event, sequence, offset) -> last[0] = offset);
+        journal.close();
+
+        // The last record's length made it to disk but not all of its payload
+        Path segment = directory.resolve("journal").resolve(String.format("audit-%020d.seg", 0));
+        int length;
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(last[0]);
+            length = file.readInt();
+            long payloadEnd = last[0] + AuditJournal.RECORD_OVERHEAD + length;
+            file.seek(payloadEnd - 3);
+            file.write(new byte[3]);
+        }
+
+        journal = open();
+        assertEquals((long) records - 1, journal.nextSequence());
+        assertEquals((long) AuditJournal.RECORD_OVERHEAD + length, journal.getStats().get("truncatedBytes"));
+        List<String> users = new ArrayList<>();
+        journal.read(0, Integer.MAX_VALUE, event -> users.add(event.userId()));
+        assertEquals(records - 1, users.size());
+        for (int i = 0; i < users.size(); i++) {
+            assertEquals(event(i).userId(), users.get(i));
+        }
+        // The sequence carries on where the good records end, and the new record survives a restart
+        assertEquals((long) records - 1, journal.append(event(records - 1)));
+        journal.close();
+        journal = open();
+        assertEquals((long) records, journal.nextSequence());
+        assertEquals(0L, journal.getStats().get("truncatedBytes"));
+    }
+
+    @Test
+    void archivedRecordsReadBackAsTheSamePayloadBytes() throws Exception {
+        int records = append(5_000);
+        List<byte[]> before = payloads();
+
+        int archived = 0;
+        while (journal.archiveOldest(Long.MAX_VALUE)) {
+            archived++;
+        }
+        journal.deleteRetiredSegments();
+        assertTrue(archived > 1);
+        assertTrue(journal.archive().nextSequence() > 0);
+        assertPayloads(before, payloads());
+
+        journal.close();
+        journal = open();
+        List<byte[]> reopened = payloads();
+        assertEquals(records, reopened.size());
+        assertPayloads(before, reopened);
+    }
+
+    private List<byte[]> payloads() throws Exception {
+        List<byte[]> payloads = new ArrayList<>();
+        journal.scanPayloads(0, -1, Integer.MAX_VALUE, (sequence, offset, payload) -> {
+            assertEquals(payloads.size(), sequence);
+            byte[] bytes = new byte[payload.remaining()];
+            payload.duplicate().get(bytes);
+            payloads.add(bytes);
+        });
+        return payloads;
+    }
+
+    private static void assertPayloads(List<byte[]> expected, List<byte[]> found) {
+        assertEquals(expected.size(), found.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), found.get(i), "record " + i);
+        }
+    }
+
+    private AuditJournal open() throws Exception {
+        AuditJournal opened = new AuditJournal();
+        ReflectionTestUtils.setField(opened, "journalPath", directory.resolve("journal").toString());
+        ReflectionTestUtils.setField(opened, "segmentSize", SEGMENT_SIZE);
+        ReflectionTestUtils.setField(opened, "durabilityWindowMillis", 10L);
+        ReflectionTestUtils.setField(opened, "archivePath", directory.resolve("archive").toString());
+        ReflectionTestUtils.setField(opened, "archiveBlockRecords", 64);
+        opened.open();
+        return opened;
+    }
+
+    private int append(int count) {
+        for (int i = 0; i < count; i++) {
+            journal.append(event(i));
+        }
+        return count;
+    }
+
+    private static AuditService.AuditEvent event(int i) {
+        return new AuditService.AuditEvent(START_MICROS + i * 1_000_000L, "user-" + i % 50 + "@hospital.example",
+            "PHI_ACCESS", "VIEW_ALLERGIES", "10.0." + i % 7 + "." + i % 251, AuditService.AuditEvent.DATA_ACCESS,
+            "Emergency treatment", "patient-" + i % 300, true);
+    }
+}
@@ -0,0 +1,116 @@
+package com.healthcare.service;
+
+import com.healthcare.util.EncryptionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditSealerTest {
+
+    private static final int EVENTS = 3_000;
+    private static final long TARGET = 123;
+    private static final long START_MICROS = 1_760_000_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    private long targetOffset;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AuditJournal journal = openJournal();
+        AuditSealer sealer = sealer(journal);
+        for (int i = 0; i < EVENTS; i++) {
+            journal.append(new AuditService.AuditEvent(START_MICROS + i * 1_000_000L, "user-" + i % 97,
+                "PHI_ACCESS", "VIEW_LABS", "10.0.0." + i % 250, AuditService.AuditEvent.DATA_ACCESS, "event-" + i,
+                "patient-" + i % 1009, true));
+        }
+        long[] offset = new long[1];
+        journal.scan(TARGET, 1, (event, sequence, recordOffset) -> offset[0] = recordOffset);
+        targetOffset = offset[0];
+        // Stopping seals and signs everything appended so far
+        sealer.stop();
+        journal.close();
+    }
+
+    @Test
+    void untouchedJournalVerifiesAndIsSigned() throws Exception {
+        Map<String, Object> result = verify(0, EVENTS - 1);
+        assertEquals(true, result.get("verified"));
+        assertEquals(true, result.get("signed"));
+        assertEquals((long) EVENTS, result.get("recordsChecked"));
+    }
+
+    @Test
+    void flippedRecordByteFailsOnlyTheRangesItTouches() throws Exception {
+        long position = targetOffset + AuditJournal.RECORD_OVERHEAD + 5;
+        byte original = flip(position, null);
+
+        Map<String, Object> tampered = verify(TARGET, TARGET);
+        assertEquals(false, tampered.get("verified"));
+        assertTrue(String.valueOf(tampered.get("message")).contains("do not match their seal"));
+        assertEquals(false, verify(0, EVENTS - 1).get("verified"));
+        assertEquals(true, verify(EVENTS - 10, EVENTS - 10).get("verified"));
+
+        flip(position, original);
+        assertEquals(true, verify(TARGET, TARGET).get("verified"));
+    }
+
+    private Map<String, Object> verify(long from, long to) throws Exception {
+        AuditJournal journal = openJournal();
+        AuditSealer sealer = sealer(journal);
+        try {
+            return sealer.verify(from, to);
+        } finally {
+            sealer.stop();
+            journal.close();
+        }
+    }
+
+    // Inverts the byte in the first segment, or writes back the given one; returns what was there
+    private byte flip(long position, Byte restore) throws Exception {
+        Path segment = directory.resolve("journal").resolve(String.format("audit-%020d.seg", 0));
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(position);
+            byte current = file.readByte();
+            file.seek(position);
+            file.writeByte(restore != null ? restore : ~current);
+            return current;
+        }
+    }
+
+    private AuditJournal openJournal() throws Exception {
+        AuditJournal journal = new AuditJournal();
+        ReflectionTestUtils.setField(journal, "journalPath", directory.resolve("journal").toString());
+        ReflectionTestUtils.setField(journal, "segmentSize", 64 * 1024);
+        ReflectionTestUtils.setField(journal, "durabilityWindowMillis", 10L);
+        ReflectionTestUtils.setField(journal, "archivePath", directory.resolve("archive").toString());
+        ReflectionTestUtils.setField(journal, "archiveBlockRecords", 64);
+        journal.open();
+        return journal;
+    }
+
+    private AuditSealer sealer(AuditJournal journal) throws Exception {
+        EncryptionService encryptionService = new EncryptionService();
+        ReflectionTestUtils.setField(encryptionService, "encryptionKeyBase64", "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA=");
+        ReflectionTestUtils.setField(encryptionService, "algorithm", "AES/GCM/NoPadding");
+        AuditSealer sealer = new AuditSealer();
+        ReflectionTestUtils.setField(sealer, "journal", journal);
+        ReflectionTestUtils.setField(sealer, "encryptionService", encryptionService);
+        ReflectionTestUtils.setField(sealer, "enabled", true);
+        ReflectionTestUtils.setField(sealer, "sealPath", directory.resolve("seals").toString());
+        ReflectionTestUtils.setField(sealer, "intervalMillis", 20L);
+        ReflectionTestUtils.setField(sealer, "maxBatch", 256);
+        ReflectionTestUtils.setField(sealer, "signIntervalSeconds", 1L);
+        sealer.start();
+        return sealer;
+    }
+}
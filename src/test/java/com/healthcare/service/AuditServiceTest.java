@@ -0,0 +1,89 @@
+package com.healthcare.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditServiceTest {
+
+    private static final int EVENTS = 6;
+
+    @TempDir
+    Path spillDirectory;
+
+    @Test
+    void stuckWriterIsInterruptedAndEverythingIsSpilledOnce() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        AuditService service = service(batch -> {
+            writing.countDown();
+            try {
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException("interrupted", e);
+            }
+        });
+        publish(service);
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+        service.stop();
+
+        Map<String, Object> metrics = service.getMetrics();
+        assertEquals((long) EVENTS, metrics.get("spilled"));
+        assertEquals(0L, metrics.get("persisted"));
+        assertEquals(0, metrics.get("queueDepth"));
+    }
+
+    @Test
+    void writerThatIgnoresInterruptsKeepsTheRing() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AuditService service = service(batch -> {
+            writing.countDown();
+            boolean released = false;
+            while (!released) {
+                try {
+                    released = release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    // Like a driver call that cannot be interrupted
+                }
+            }
+        });
+        publish(service);
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+        int queued = (int) service.getMetrics().get("queueDepth");
+
+        service.stop();
+
+        // Nothing was taken from under the writer
+        assertEquals(queued, service.getMetrics().get("queueDepth"));
+        assertEquals(0L, service.getMetrics().get("spilled"));
+        release.countDown();
+    }
+
+    private AuditService service(AuditEventSink sink) throws Exception {
+        AuditService service = new AuditService();
+        ReflectionTestUtils.setField(service, "sink", sink);
+        ReflectionTestUtils.setField(service, "capacity", 16);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "flushMillis", 10L);
+        ReflectionTestUtils.setField(service, "overflowPolicy", AuditService.OverflowPolicy.SPILL);
+        ReflectionTestUtils.setField(service, "spillPath", spillDirectory.toString());
+        ReflectionTestUtils.setField(service, "shutdownMillis", 200L);
+        service.start();
+        return service;
+    }
+
+    private static void publish(AuditService service) {
+        for (int i = 0; i < EVENTS; i++) {
+            service.logAccess("user-" + i, "PATIENT", "VIEW", "10.0.0." + i);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.healthcare.service;
+
+import com.healthcare.util.DataKeyStore;
+import com.healthcare.util.EncryptionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ClinicalDocumentServiceTest {
+
+    private static final byte[] CONTENT = "Discharge summary".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path storageDirectory;
+
+    @TempDir
+    Path keyDirectory;
+
+    private ClinicalDocumentService service;
+
+    @BeforeEach
+    void setUp() {
+        DataKeyStore store = new DataKeyStore();
+        ReflectionTestUtils.setField(store, "keyStorePath", keyDirectory.toString());
+        store.load();
+        EncryptionService encryptionService = new EncryptionService();
+        ReflectionTestUtils.setField(encryptionService, "encryptionKeyBase64", "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA=");
+        ReflectionTestUtils.setField(encryptionService, "algorithm", "AES/GCM/NoPadding");
+        ReflectionTestUtils.setField(encryptionService, "envelopeEnabled", true);
+        ReflectionTestUtils.setField(encryptionService, "defaultTenant", "default");
+        ReflectionTestUtils.setField(encryptionService, "rotationDays", 90L);
+        ReflectionTestUtils.setField(encryptionService, "cacheMaxKeys", 16);
+        ReflectionTestUtils.setField(encryptionService, "cacheTtlMinutes", 60L);
+        ReflectionTestUtils.setField(encryptionService, "streamChunkSize", 1024);
+        ReflectionTestUtils.setField(encryptionService, "dataKeyStore", store);
+
+        service = new ClinicalDocumentService();
+        ReflectionTestUtils.setField(service, "encryptionService", encryptionService);
+        ReflectionTestUtils.setField(service, "storagePath", storageDirectory.toString());
+        service.init();
+    }
+
+    @Test
+    void damagedMetadataIsSkippedAndCounted() throws IOException {
+        ClinicalDocumentService.DocumentInfo kept = store("lab-results.pdf");
+        ClinicalDocumentService.DocumentInfo damaged = store("x-ray.png");
+        Files.writeString(storageDirectory.resolve("patient-001").resolve(damaged.documentId() + ".properties"),
+            "documentId=" + damaged.documentId() + "\nsize=not-a-number\n");
+
+        List<ClinicalDocumentService.DocumentInfo> documents = service.list("patient-001");
+
+        assertEquals(1, documents.size());
+        assertEquals(kept.documentId(), documents.get(0).documentId());
+        assertEquals("lab-results.pdf", documents.get(0).fileName());
+        assertEquals(1L, service.getStats().get("unreadableEntries"));
+        try (InputStream content = service.openContent(documents.get(0))) {
+            assertArrayEquals(CONTENT, content.readAllBytes());
+        }
+    }
+
+    private ClinicalDocumentService.DocumentInfo store(String fileName) throws IOException {
+        return service.store("patient-001", fileName, "application/pdf", new ByteArrayInputStream(CONTENT));
+    }
+}
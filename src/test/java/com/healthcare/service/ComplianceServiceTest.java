@@ -0,0 +1,53 @@
+package com.healthcare.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ComplianceServiceTest {
+
+    private AuditService auditService;
+    private ComplianceService service;
+
+    @BeforeEach
+    void setUp() {
+        auditService = mock(AuditService.class);
+        service = new ComplianceService();
+        ReflectionTestUtils.setField(service, "auditService", auditService);
+        ReflectionTestUtils.setField(service, "maxAttempts", 3);
+        ReflectionTestUtils.setField(service, "lockoutMinutes", 30L);
+        ReflectionTestUtils.setField(service, "windowMinutes", 15L);
+        ReflectionTestUtils.setField(service, "ipMaxAttempts", 5);
+        ReflectionTestUtils.setField(service, "maxTrackedKeys", 1024);
+        service.init();
+    }
+
+    @Test
+    void addressBlockIsLoggedOnceWhenTheLimitIsCrossed() {
+        for (int i = 0; i < 12; i++) {
+            service.recordFailedAttempt("user-" + i + "@example.com", "10.0.0.1");
+        }
+
+        assertTrue(service.isLoginBlocked("someone-else@example.com", "10.0.0.1"));
+        verify(auditService, times(1)).logFailure(anyString(), eq("LOGIN"), eq("ADDRESS_BLOCKED"), eq("10.0.0.1"), anyString());
+        verify(auditService, times(12)).logFailure(anyString(), eq("LOGIN"), eq("FAILED_ATTEMPT"), eq("10.0.0.1"), anyString());
+    }
+
+    @Test
+    void accountLockIsLoggedOnceWhileItLasts() {
+        for (int i = 0; i < 6; i++) {
+            service.recordFailedAttempt("patient@example.com", "10.0.0." + i);
+        }
+
+        assertTrue(service.isAccountLocked("patient@example.com"));
+        verify(auditService, times(1)).logFailure(eq("patient@example.com"), eq("LOGIN"), eq("ACCOUNT_LOCKED"), anyString(), anyString());
+        verify(auditService).logFailure("patient@example.com", "LOGIN", "FAILED_ATTEMPT", "10.0.0.5", "Attempt 6");
+    }
+}
@@ -0,0 +1,61 @@
+package com.healthcare.service;
+
+import com.healthcare.model.ConsentRecord;
+import com.healthcare.model.PatientData;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PatientDataServiceTest {
+
+    private static final String SEEDED_PATIENT = "patient-001";
+
+    private final PatientDataService service = new PatientDataService();
+
+    @Test
+    void samplePatientUsesTheIdSeededByDataSql() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/data.sql")) {
+            assertNotNull(in);
+            assertTrue(new String(in.readAllBytes(), StandardCharsets.UTF_8).contains("('" + SEEDED_PATIENT + "'"));
+        }
+        assertTrue(service.getPatientData(SEEDED_PATIENT).isPresent());
+    }
+
+    @Test
+    void snapshotKeepsOnlySharedFields() {
+        PatientData snapshot = service.buildSnapshot(SEEDED_PATIENT,
+            List.of(ConsentRecord.DataType.DEMOGRAPHICS, ConsentRecord.DataType.ALLERGIES)).orElseThrow();
+
+        assertEquals(SEEDED_PATIENT, snapshot.getPatientId());
+        assertEquals("John", snapshot.getFirstName());
+        assertEquals(List.of("Penicillin", "Shellfish"), snapshot.getAllergies());
+        assertNull(snapshot.getMedications());
+        assertNull(snapshot.getConditions());
+    }
+
+    @Test
+    void snapshotIsFrozenAtBuildTime() {
+        PatientData snapshot = service.buildSnapshot(SEEDED_PATIENT, List.of(ConsentRecord.DataType.MEDICATIONS))
+            .orElseThrow();
+        PatientData updated = service.getPatientData(SEEDED_PATIENT).orElseThrow();
+        updated.setMedications(List.of("Aspirin 81mg"));
+        service.updatePatientData(SEEDED_PATIENT, updated);
+
+        assertEquals(List.of("Lisinopril 10mg", "Metformin 500mg"), snapshot.getMedications());
+        assertNull(snapshot.getFirstName());
+    }
+
+    @Test
+    void unknownPatientHasNoSnapshot() {
+        assertTrue(service.buildSnapshot("patient-999", List.of(ConsentRecord.DataType.DEMOGRAPHICS))
+            .isEmpty());
+    }
+}
@@ -0,0 +1,129 @@
+package com.healthcare.service;
+
+import com.healthcare.model.ConsentRecord;
+import com.healthcare.util.QRCodeCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class QRSessionRegistryTest {
+
+    private static final int THREADS = 8;
+    private static final int SESSIONS = 200;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private QRSessionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        // The columns the registry writes, as in schema.sql, without the patients foreign key
+        jdbcTemplate.execute("CREATE TABLE qr_share_sessions (id VARCHAR(255) PRIMARY KEY, "
+            + "patient_id VARCHAR(255) NOT NULL, session_token VARCHAR(255) UNIQUE NOT NULL, "
+            + "created_at TIMESTAMP NOT NULL, expires_at TIMESTAMP NOT NULL, accessed_at TIMESTAMP, "
+            + "accessed_by VARCHAR(255), status VARCHAR(50) NOT NULL DEFAULT 'ACTIVE', qr_code_data TEXT, "
+            + "patient_snapshot VARBINARY(65536))");
+        jdbcTemplate.execute("CREATE TABLE qr_share_session_shared_data_types ("
+            + "qr_share_session_id VARCHAR(255) NOT NULL, shared_data_types VARCHAR(50) NOT NULL)");
+
+        QRCodeCache qrCodeCache = new QRCodeCache();
+        ReflectionTestUtils.setField(qrCodeCache, "maxEntries", 16);
+        ReflectionTestUtils.setField(qrCodeCache, "maxBytes", 1L << 20);
+
+        registry = new QRSessionRegistry();
+        ReflectionTestUtils.setField(registry, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(registry, "transactionTemplate",
+            new TransactionTemplate(new DataSourceTransactionManager(database)));
+        ReflectionTestUtils.setField(registry, "qrCodeCache", qrCodeCache);
+        ReflectionTestUtils.setField(registry, "tickMillis", 1000L);
+        ReflectionTestUtils.setField(registry, "flushMillis", 20L);
+        ReflectionTestUtils.setField(registry, "flushBatchSize", 50);
+        registry.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void concurrentScansRedeemEachSessionExactlyOnce() throws Exception {
+        List<String> tokens = new ArrayList<>();
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(30);
+        for (int i = 0; i < SESSIONS; i++) {
+            String token = "session-" + i;
+            registry.register(token, "patient-001", List.of(ConsentRecord.DataType.ALLERGIES), expiresAt, token, null);
+            tokens.add(token);
+        }
+
+        AtomicIntegerArray wins = new AtomicIntegerArray(SESSIONS);
+        AtomicReferenceArray<String> winners = new AtomicReferenceArray<>(SESSIONS);
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> scanners = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String scanner = "provider-" + t;
+            Thread thread = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < SESSIONS; i++) {
+                    if (registry.redeem(tokens.get(i), scanner) == QRSessionRegistry.Redemption.REDEEMED) {
+                        wins.incrementAndGet(i);
+                        winners.set(i, scanner);
+                    }
+                }
+            }, scanner);
+            thread.start();
+            scanners.add(thread);
+        }
+        ready.await();
+        go.countDown();
+        for (Thread thread : scanners) {
+            thread.join();
+        }
+        // Stopping drains the write-behind queue, so the table must now agree with memory
+        registry.stop();
+
+        Map<String, String[]> rows = new HashMap<>();
+        jdbcTemplate.query("SELECT session_token, status, accessed_by FROM qr_share_sessions",
+            rs -> {
+                rows.put(rs.getString(1), new String[] {rs.getString(2), rs.getString(3)});
+            });
+        for (int i = 0; i < SESSIONS; i++) {
+            assertEquals(1, wins.get(i), tokens.get(i));
+            String[] row = rows.get(tokens.get(i));
+            assertNotNull(row, tokens.get(i));
+            assertEquals("USED", row[0]);
+            assertEquals(winners.get(i), row[1]);
+            assertEquals(QRSessionRegistry.Redemption.ALREADY_USED, registry.redeem(tokens.get(i), "late-provider"));
+        }
+        assertEquals((long) SESSIONS, registry.getStats().get("redeemed"));
+        assertEquals(0L, registry.getStats().get("lostWrites"));
+    }
+}
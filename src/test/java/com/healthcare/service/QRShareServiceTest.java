@@ -0,0 +1,128 @@
+package com.healthcare.service;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.healthcare.dto.QRShareRequest;
+import com.healthcare.model.ConsentRecord;
+import com.healthcare.repository.PatientRepository;
+import com.healthcare.util.QRCodeCache;
+import com.healthcare.util.QRCodeGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class QRShareServiceTest {
+
+    private QRShareService service;
+    private QRSessionRegistry qrSessionRegistry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new QRShareService();
+        ReflectionTestUtils.setField(service, "complianceService", mock(ComplianceService.class));
+        ReflectionTestUtils.setField(service, "auditService", mock(AuditService.class));
+        QRCodeCache qrCodeCache = mock(QRCodeCache.class);
+        when(qrCodeCache.getOrGenerate(anyString(), anyInt(), anyInt(), any(), any(), any()))
+            .thenAnswer(call -> new QRCodeGenerator.Symbol("image", call.getArgument(3)));
+        ReflectionTestUtils.setField(service, "qrCodeCache", qrCodeCache);
+        qrSessionRegistry = mock(QRSessionRegistry.class);
+        ReflectionTestUtils.setField(service, "qrSessionRegistry", qrSessionRegistry);
+        ReflectionTestUtils.setField(service, "patientDataService", mock(PatientDataService.class));
+        PatientRepository patientRepository = mock(PatientRepository.class);
+        when(patientRepository.existsById(anyString())).thenAnswer(call -> !"patient-404".equals(call.getArgument(0)));
+        ReflectionTestUtils.setField(service, "patientRepository", patientRepository);
+        ReflectionTestUtils.setField(service, "defaultExpirationMinutes", 15);
+        ReflectionTestUtils.setField(service, "minErrorCorrection", ErrorCorrectionLevel.L);
+        ReflectionTestUtils.setField(service, "margin", QRCodeGenerator.QUIET_ZONE);
+        ReflectionTestUtils.setField(service, "renderThreads", 2);
+        ReflectionTestUtils.setField(service, "renderQueueCapacity", 4);
+        service.startRenderPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stopRenderPool();
+    }
+
+    @Test
+    void everyItemIsDeliveredBeforeTheSummary() throws InterruptedException {
+        List<Map<String, Object>> lines = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch completed = new CountDownLatch(1);
+
+        // More items than threads plus queue, so some render on the submitting thread
+        service.createShareBatch("system", "10.0.0.1", items(20), lines::add, completed::countDown);
+
+        assertTrue(completed.await(30, TimeUnit.SECONDS));
+        assertEquals(21, lines.size());
+        Map<String, Object> summary = lines.get(20);
+        assertEquals(true, summary.get("complete"));
+        assertEquals(20, summary.get("succeeded"));
+        // Clients drawing packed modules take the quiet zone from the response
+        assertEquals(QRCodeGenerator.QUIET_ZONE, lines.get(0).get("margin"));
+    }
+
+    @Test
+    void batchCompletesWhenTheSummaryCannotBeSent() throws InterruptedException {
+        CountDownLatch completed = new CountDownLatch(1);
+
+        service.createShareBatch("system", "10.0.0.1", items(3), line -> {
+            if (line.containsKey("complete")) {
+                throw new IllegalStateException("client went away");
+            }
+        }, completed::countDown);
+
+        assertTrue(completed.await(30, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void batchAfterShutdownIsRefusedInsteadOfHanging() {
+        service.stopRenderPool();
+        AtomicBoolean completed = new AtomicBoolean();
+        List<Map<String, Object>> lines = new ArrayList<>();
+
+        assertThrows(IllegalStateException.class,
+            () -> service.createShareBatch("system", "10.0.0.1", items(2), lines::add, () -> completed.set(true)));
+        assertTrue(lines.isEmpty());
+        assertFalse(completed.get());
+    }
+
+    @Test
+    void shareIsRefusedForAPatientThatDoesNotExist() {
+        assertThrows(IllegalArgumentException.class, () -> service.createShare("system", null,
+            List.of(ConsentRecord.DataType.ALLERGIES), "Emergency treatment", 15, QRCodeGenerator.OutputFormat.PNG));
+        assertThrows(IllegalArgumentException.class, () -> service.createShare("system", "patient-404",
+            List.of(ConsentRecord.DataType.ALLERGIES), "Emergency treatment", 15, QRCodeGenerator.OutputFormat.PNG));
+        verifyNoInteractions(qrSessionRegistry);
+    }
+
+    private static List<QRShareRequest> items(int count) {
+        List<QRShareRequest> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            QRShareRequest item = new QRShareRequest();
+            item.setPatientId("patient-00" + (i % 3 + 1));
+            item.setDataTypes(List.of(ConsentRecord.DataType.ALLERGIES));
+            item.setPurpose("Emergency treatment");
+            items.add(item);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,83 @@
+package com.healthcare.util;
+
+import com.healthcare.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncryptionConverterTest {
+
+    // A 64-byte signature in base64, which is what consent records held before encryption
+    private static final String BASE64_SIGNATURE = Base64.getEncoder().encodeToString(new byte[64]);
+
+    private EncryptionService encryptionService;
+    private EncryptionConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        encryptionService = new EncryptionService();
+        ReflectionTestUtils.setField(encryptionService, "encryptionKeyBase64", "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA=");
+        ReflectionTestUtils.setField(encryptionService, "algorithm", "AES/GCM/NoPadding");
+        FieldDecryptCache cache = new FieldDecryptCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 16);
+        converter = new EncryptionConverter();
+        ReflectionTestUtils.setField(converter, "encryptionService", encryptionService);
+        ReflectionTestUtils.setField(converter, "fieldDecryptCache", cache);
+    }
+
+    @Test
+    void valuesAreStoredTaggedAndReadBackLazily() {
+        String stored = converter.convertToDatabaseColumn(EncryptedString.of("123-45-6789"));
+        assertTrue(stored.startsWith(EncryptionConverter.TAG));
+
+        EncryptedString loaded = converter.convertToEntityAttribute(stored);
+        assertFalse(loaded.isDecrypted());
+        assertEquals("123-45-6789", loaded.get());
+        assertEquals(stored, converter.convertToDatabaseColumn(loaded));
+    }
+
+    @Test
+    void base64PlaintextIsNotMistakenForCiphertext() {
+        EncryptedString loaded = converter.convertToEntityAttribute(BASE64_SIGNATURE);
+        assertEquals(BASE64_SIGNATURE, loaded.get());
+
+        String stored = converter.convertToDatabaseColumn(loaded);
+        assertTrue(stored.startsWith(EncryptionConverter.TAG));
+        assertEquals(BASE64_SIGNATURE, converter.convertToEntityAttribute(stored).get());
+    }
+
+    @Test
+    void untaggedCiphertextIsDecryptedAndRetaggedOnWrite() {
+        String untagged = Base64.getEncoder().encodeToString(
+            encryptionService.encrypt("1980-02-29".getBytes(StandardCharsets.UTF_8), null));
+
+        EncryptedString loaded = converter.convertToEntityAttribute(untagged);
+        assertEquals("1980-02-29", loaded.get());
+        String stored = converter.convertToDatabaseColumn(loaded);
+        assertNotEquals(untagged, stored);
+        assertTrue(stored.startsWith(EncryptionConverter.TAG));
+    }
+
+    @Test
+    void hashingAPatientDoesNotDecrypt() {
+        EncryptedString ssn = EncryptedString.loaded(EncryptionConverter.TAG + "never-decrypted", ciphertext -> {
+            throw new AssertionError("decrypted " + ciphertext);
+        });
+        Patient patient = Patient.builder().id("patient-001").firstName("John").lastName("Doe")
+            .encryptedSSN(ssn).email(ssn).build();
+        Patient same = Patient.builder().id("patient-001").firstName("John").lastName("Doe")
+            .encryptedSSN(ssn).email(ssn).build();
+
+        assertEquals(patient.hashCode(), same.hashCode());
+        assertEquals(patient, same);
+        assertFalse(ssn.isDecrypted());
+    }
+}
@@ -0,0 +1,157 @@
+package com.healthcare.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EncryptionServiceTest {
+
+    private static final String MASTER_KEY = "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA=";
+    private static final String NEW_MASTER_KEY = Base64.getEncoder().encodeToString(filled(32, (byte) 7));
+    private static final byte[] PLAINTEXT = "Penicillin allergy".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path keyDirectory;
+
+    @Test
+    void activeKeyIsServedFromMemoryOnceLoaded() throws IOException {
+        EncryptionService service = service(MASTER_KEY, null, store());
+        byte[] first = service.encrypt(PLAINTEXT, null);
+        deleteKeyFiles();
+
+        byte[] second = service.encrypt(PLAINTEXT, null);
+
+        assertEquals(keyId(first), keyId(second));
+        assertArrayEquals(PLAINTEXT, service.decrypt(second, null));
+    }
+
+    @Test
+    void scheduledCheckRotatesDueKeysAndAdoptsOtherInstancesKeys() {
+        DataKeyStore store = store();
+        EncryptionService service = service(MASTER_KEY, null, store);
+        EncryptionService other = service(MASTER_KEY, null, store);
+        byte[] original = service.encrypt(PLAINTEXT, null);
+        assertEquals(keyId(original), keyId(other.encrypt(PLAINTEXT, null)));
+
+        int rotated = other.rotateKey("default");
+        assertEquals(keyId(original), keyId(service.encrypt(PLAINTEXT, null)));
+        service.rotateDueKeys();
+        assertEquals(rotated, keyId(service.encrypt(PLAINTEXT, null)));
+
+        // Age the newest key past rotation-days
+        DataKeyStore.DataKey newest = store.newest("default");
+        store.replace(new DataKeyStore.DataKey(newest.keyId(), newest.tenant(),
+            System.currentTimeMillis() - TimeUnit.DAYS.toMillis(91), newest.wrappedKey()));
+        service.rotateDueKeys();
+        byte[] afterRotation = service.encrypt(PLAINTEXT, null);
+
+        assertNotEquals(rotated, keyId(afterRotation));
+        assertArrayEquals(PLAINTEXT, service.decrypt(original, null));
+        assertArrayEquals(PLAINTEXT, other.decrypt(afterRotation, null));
+    }
+
+    @Test
+    void changedMasterKeyRefusesToStart() {
+        service(MASTER_KEY, null, store()).encrypt(PLAINTEXT, null);
+
+        EncryptionService restarted = service(NEW_MASTER_KEY, null, store());
+
+        assertThrows(IllegalStateException.class, restarted::checkDataKeys);
+    }
+
+    @Test
+    void previousMasterKeyRewrapsDataKeys() {
+        byte[] encrypted = service(MASTER_KEY, null, store()).encrypt(PLAINTEXT, null);
+
+        EncryptionService rotating = service(NEW_MASTER_KEY, MASTER_KEY, store());
+        rotating.checkDataKeys();
+        assertEquals(1L, rotating.getKeyStats().get("rewraps"));
+
+        EncryptionService restarted = service(NEW_MASTER_KEY, null, store());
+        restarted.checkDataKeys();
+        assertArrayEquals(PLAINTEXT, restarted.decrypt(encrypted, null));
+        assertThrows(IllegalStateException.class, service(MASTER_KEY, null, store())::checkDataKeys);
+    }
+
+    @Test
+    void unknownKeyIdsWaitForTheNextRescan() {
+        DataKeyStore store = store();
+        int keyId = keyId(service(MASTER_KEY, null, store()).encrypt(PLAINTEXT, null));
+
+        // Written by another instance since the last scan: a header naming it does not send this one to disk
+        assertNull(store.find(keyId));
+        assertNull(store.find(0x7fffffff));
+
+        ReflectionTestUtils.setField(store, "lastScanMillis", 0L);
+        assertNotNull(store.find(keyId));
+        assertNull(store.find(0x7fffffff));
+    }
+
+    @Test
+    void strayPropertiesFilesAreSkipped() throws IOException {
+        byte[] encrypted = service(MASTER_KEY, null, store()).encrypt(PLAINTEXT, null);
+        Files.writeString(keyDirectory.resolve("application.properties"), "server.port=8080\n");
+        Files.writeString(keyDirectory.resolve("123456789.properties"), "keyId=1\n");
+
+        EncryptionService restarted = service(MASTER_KEY, null, store());
+
+        assertArrayEquals(PLAINTEXT, restarted.decrypt(encrypted, null));
+        assertEquals(1, restarted.getKeyStats().get("storedKeys"));
+    }
+
+    private DataKeyStore store() {
+        DataKeyStore store = new DataKeyStore();
+        ReflectionTestUtils.setField(store, "keyStorePath", keyDirectory.toString());
+        store.load();
+        return store;
+    }
+
+    private static EncryptionService service(String masterKey, String previousKey, DataKeyStore store) {
+        EncryptionService service = new EncryptionService();
+        ReflectionTestUtils.setField(service, "encryptionKeyBase64", masterKey);
+        ReflectionTestUtils.setField(service, "previousKeyBase64", previousKey);
+        ReflectionTestUtils.setField(service, "algorithm", "AES/GCM/NoPadding");
+        ReflectionTestUtils.setField(service, "envelopeEnabled", true);
+        ReflectionTestUtils.setField(service, "defaultTenant", "default");
+        ReflectionTestUtils.setField(service, "rotationDays", 90L);
+        ReflectionTestUtils.setField(service, "cacheMaxKeys", 16);
+        ReflectionTestUtils.setField(service, "cacheTtlMinutes", 60L);
+        ReflectionTestUtils.setField(service, "dataKeyStore", store);
+        return service;
+    }
+
+    private void deleteKeyFiles() throws IOException {
+        try (Stream<Path> files = Files.list(keyDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static int keyId(byte[] encrypted) {
+        return ByteBuffer.wrap(encrypted, 1, 4).getInt();
+    }
+
+    private static byte[] filled(int length, byte value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, value);
+        return bytes;
+    }
+}
@@ -0,0 +1,97 @@
+package com.healthcare.util;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QRCodeCacheTest {
+
+    private static final String CONTENT = "HCQR-session-content";
+
+    private final QRSymbolOptimizer.SymbolPlan plan =
+        QRSymbolOptimizer.plan(CONTENT, ErrorCorrectionLevel.L, QRCodeGenerator.QUIET_ZONE);
+    private final LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(15);
+    private QRCodeCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new QRCodeCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 16);
+        ReflectionTestUtils.setField(cache, "maxBytes", 1L << 20);
+    }
+
+    @Test
+    void redisplayIsServedFromTheCache() throws Exception {
+        QRCodeGenerator.Symbol first = cache.getOrGenerate(CONTENT, 200, 200, plan, QRCodeGenerator.OutputFormat.PNG, expiresAt);
+        QRCodeGenerator.Symbol again = cache.getOrGenerate(CONTENT, 200, 200, plan, QRCodeGenerator.OutputFormat.PNG, expiresAt);
+
+        assertEquals(first, again);
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void invalidateDropsEveryRenderOfTheContent() throws Exception {
+        cache.getOrGenerate(CONTENT, 200, 200, plan, QRCodeGenerator.OutputFormat.PNG, expiresAt);
+        cache.getOrGenerate(CONTENT, 0, 0, plan, QRCodeGenerator.OutputFormat.SVG, expiresAt);
+        cache.getOrGenerate("HCQR-other", 0, 0, plan, QRCodeGenerator.OutputFormat.SVG, expiresAt);
+        assertEquals(3, cache.getStats().get("entries"));
+
+        cache.invalidate(CONTENT);
+
+        assertEquals(1, cache.getStats().get("entries"));
+        cache.getOrGenerate(CONTENT, 0, 0, plan, QRCodeGenerator.OutputFormat.SVG, expiresAt);
+        assertEquals(4L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void evictedRendersLeaveNothingBehind() throws Exception {
+        ReflectionTestUtils.setField(cache, "maxEntries", 1);
+        cache.getOrGenerate(CONTENT, 0, 0, plan, QRCodeGenerator.OutputFormat.SVG, expiresAt);
+        cache.getOrGenerate("HCQR-other", 0, 0, plan, QRCodeGenerator.OutputFormat.SVG, expiresAt);
+        cache.invalidate("HCQR-other");
+
+        assertEquals(0, cache.getStats().get("entries"));
+        assertEquals(0L, cache.getStats().get("bytes"));
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void symbolReportsTheVersionTheEncoderUsed() throws Exception {
+        String content = "HCQR-" + "0123456789abcdef".repeat(8);
+        QRSymbolOptimizer.SymbolPlan tooSmall = new QRSymbolOptimizer.SymbolPlan(1, ErrorCorrectionLevel.L, false,
+            QRCodeGenerator.QUIET_ZONE);
+
+        QRCodeGenerator.Symbol symbol = cache.getOrGenerate(content, 0, 0, tooSmall,
+            QRCodeGenerator.OutputFormat.MODULES, expiresAt);
+
+        int size = Base64.getDecoder().decode(symbol.image())[0] & 0xFF;
+        assertEquals((size - 17) / 4, symbol.plan().version());
+        assertTrue(symbol.plan().version() > 1);
+        assertEquals(QRCodeGenerator.QUIET_ZONE, symbol.plan().margin());
+    }
+
+    @Test
+    void pngMatchesWhatQRCodeWriterRenders() throws Exception {
+        QRCodeGenerator.Symbol symbol = cache.getOrGenerate(CONTENT, 200, 200, plan,
+            QRCodeGenerator.OutputFormat.PNG, expiresAt);
+
+        Map<EncodeHintType, Object> hints = Map.of(EncodeHintType.ERROR_CORRECTION, plan.ecLevel(),
+            EncodeHintType.QR_VERSION, plan.version(), EncodeHintType.MARGIN, plan.margin());
+        BitMatrix expected = new QRCodeWriter().encode(CONTENT, BarcodeFormat.QR_CODE, 200, 200, hints);
+        assertEquals(Base64.getEncoder().encodeToString(BitMatrixPngEncoder.encode(expected)), symbol.image());
+        assertEquals(plan, symbol.plan());
+    }
+}
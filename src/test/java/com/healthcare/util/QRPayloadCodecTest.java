@@ -0,0 +1,147 @@
+package com.healthcare.util;
+
+import com.healthcare.dto.QRPayload;
+import com.healthcare.model.ConsentRecord;
+import com.healthcare.model.PatientData;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class QRPayloadCodecTest {
+
+    private static final int CASES = 2000;
+
+    @Test
+    void payloadsRoundTripThroughBytesAndQRText() {
+        Random random = new Random(5);
+        for (int i = 0; i < CASES; i++) {
+            QRPayload payload = QRPayload.builder()
+                .sessionToken(random.nextBoolean() ? UUID.randomUUID().toString() : text(random))
+                .patientId(random.nextBoolean() ? "patient-" + random.nextInt(100_000) : text(random))
+                .dataTypes(dataTypes(random))
+                .expiresAt(random.nextInt(8) == 0 ? null
+                    : LocalDateTime.of(2020, 1, 1, 0, 0).plusSeconds(random.nextInt(Integer.MAX_VALUE)))
+                .build();
+            byte[] encoded = QRPayloadCodec.encode(payload);
+            assertEquals(payload, QRPayloadCodec.decodePayload(encoded));
+            assertArrayEquals(encoded, QRPayloadCodec.fromQRText(QRPayloadCodec.toQRText(encoded)));
+        }
+    }
+
+    @Test
+    void patientDataRoundTrips() {
+        Random random = new Random(7);
+        for (int i = 0; i < CASES; i++) {
+            PatientData data = new PatientData("patient-" + random.nextInt(1000), text(random), text(random),
+                random.nextBoolean() ? null : text(random) + "@example.com");
+            data.setDateOfBirth(random.nextBoolean() ? null : "19" + (10 + random.nextInt(90)) + "-01-15");
+            data.setBloodType(random.nextBoolean() ? "AB-" : text(random));
+            data.setAllergies(strings(random, "Penicillin"));
+            data.setMedications(strings(random, "Metformin 500mg"));
+            data.setConditions(strings(random, "Asthma"));
+            data.setEmergencyContact(random.nextBoolean() ? null : text(random));
+            data.setLastUpdated(LocalDateTime.of(2024, 6, 1, 12, 0).plusSeconds(random.nextInt(1_000_000)));
+
+            PatientData decoded = QRPayloadCodec.decodePatientData(QRPayloadCodec.encode(data));
+            assertEquals(describe(data), describe(decoded));
+        }
+    }
+
+    @Test
+    void negativeStringLengthIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> QRPayloadCodec.decodePayload(QRPayloadCodec.fromQRText("0045079976738815991099511627521")));
+    }
+
+    @Test
+    void malformedInputOnlyEverThrowsIllegalArgument() {
+        Random random = new Random(11);
+        byte[] valid = QRPayloadCodec.encode(QRPayload.builder().sessionToken(UUID.randomUUID().toString())
+            .patientId("patient-42").dataTypes(List.of(ConsentRecord.DataType.VITALS))
+            .expiresAt(LocalDateTime.of(2025, 3, 1, 9, 30)).build());
+        for (int i = 0; i < CASES * 5; i++) {
+            byte[] mutated = i % 3 == 0
+                ? Arrays.copyOf(valid, random.nextInt(valid.length))
+                : valid.clone();
+            if (i % 3 != 0) {
+                for (int flips = 1 + random.nextInt(3); flips > 0; flips--) {
+                    mutated[random.nextInt(mutated.length)] = (byte) random.nextInt(256);
+                }
+            }
+            decodeOrReject(mutated);
+            byte[] noise = new byte[1 + random.nextInt(40)];
+            random.nextBytes(noise);
+            decodeOrReject(noise);
+        }
+    }
+
+    @Test
+    void malformedQRTextIsRejected() {
+        for (String text : new String[] {"", "0", "09", "0abc", "H", "H:::", "H~~", "0999999999999999", "Xabc"}) {
+            assertThrows(IllegalArgumentException.class,
+                () -> QRPayloadCodec.decodePayload(QRPayloadCodec.fromQRText(text)), text);
+        }
+    }
+
+    private static void decodeOrReject(byte[] data) {
+        try {
+            QRPayloadCodec.decodePayload(data);
+        } catch (IllegalArgumentException e) {
+            return;
+        } catch (RuntimeException e) {
+            fail("Decoding " + Arrays.toString(data) + " threw " + e);
+        }
+    }
+
+    // Ordinal order without duplicates, which is how the codec returns data types
+    private static List<ConsentRecord.DataType> dataTypes(Random random) {
+        if (random.nextInt(8) == 0) {
+            return null;
+        }
+        List<ConsentRecord.DataType> types = new ArrayList<>();
+        for (ConsentRecord.DataType type : ConsentRecord.DataType.values()) {
+            if (random.nextBoolean()) {
+                types.add(type);
+            }
+        }
+        return types;
+    }
+
+    private static List<String> strings(Random random, String common) {
+        if (random.nextInt(6) == 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        for (int i = random.nextInt(5); i > 0; i--) {
+            values.add(random.nextBoolean() ? common : text(random));
+        }
+        return values;
+    }
+
+    // Mostly ASCII with the occasional accented or non-Latin character
+    private static String text(Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int i = random.nextInt(24); i > 0; i--) {
+            int pick = random.nextInt(20);
+            text.append(pick == 0 ? 'é' : pick == 1 ? '漢' : (char) (' ' + random.nextInt(95)));
+        }
+        return text.toString();
+    }
+
+    private static String describe(PatientData data) {
+        return String.join("|", data.getPatientId(), data.getFirstName(), data.getLastName(), data.getEmail(),
+            data.getDateOfBirth(), data.getBloodType(), String.valueOf(data.getAllergies()),
+            String.valueOf(data.getMedications()), String.valueOf(data.getConditions()), data.getEmergencyContact(),
+            String.valueOf(data.getLastUpdated()));
+    }
+}